@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementRef;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.atteo.config.AbstractConfigurable;
+import org.atteo.config.XmlDefaultValue;
+
+/**
+ * Entry of the configuration generated by {@link ConfigGenerator}.
+ */
+@XmlRootElement(name = "entry")
+public class BenchmarkEntry extends AbstractConfigurable {
+	@XmlElement
+	private String value;
+
+	@XmlElement
+	@XmlDefaultValue("10")
+	private Integer number;
+
+	@Valid
+	@XmlElementRef
+	private List<BenchmarkEntry> children;
+
+	public String getValue() {
+		return value;
+	}
+
+	public Integer getNumber() {
+		return number;
+	}
+
+	public List<BenchmarkEntry> getChildren() {
+		return children;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity inserted by {@link BulkInsertBenchmark}.
+ */
+@Entity
+public class BulkEntity {
+	@Id
+	private long id;
+
+	private String name;
+
+	private int value;
+
+	public BulkEntity() {
+	}
+
+	public BulkEntity(long id) {
+		this.id = id;
+		this.name = "entity" + id;
+		this.value = (int) id;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getValue() {
+		return value;
+	}
+}
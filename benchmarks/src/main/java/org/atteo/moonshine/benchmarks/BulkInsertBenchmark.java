@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.atteo.moonshine.Moonshine;
+import org.atteo.moonshine.MoonshineException;
+import org.atteo.moonshine.hibernate.BulkOperations;
+import org.atteo.moonshine.jta.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to insert given number of entities into H2 database.
+ *
+ * <p>
+ * Compares {@link EntityManager} without JDBC batching, {@link EntityManager} with JDBC batching
+ * and {@link BulkOperations}. Each transaction inserts {@value #ENTITIES_PER_TRANSACTION} entities.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkInsertBenchmark {
+	private static final int ENTITIES_PER_TRANSACTION = 10000;
+	private static final int BATCH_SIZE = 50;
+
+	@Param({ "1000000" })
+	private int entities;
+
+	@Param({ "entityManager", "batchedEntityManager", "bulkOperations" })
+	private String method;
+
+	private Moonshine moonshine;
+	private EntityManager entityManager;
+	private BulkOperations bulkOperations;
+
+	@Setup
+	public void setup() throws MoonshineException, IOException {
+		String batching = method.equals("entityManager") ? "" : "<batching><batchSize>" + BATCH_SIZE
+				+ "</batchSize></batching>";
+		moonshine = Moonshine.Factory.builder()
+				.skipDefaultConfigurationFiles()
+				.homeDirectory(Files.createTempDirectory("bulk-insert-benchmark").toString())
+				.addConfigurationFromString(""
+						+ "<config>"
+						+ "    <btm/>"
+						+ "    <transactional-annotation/>"
+						+ "    <h2>"
+						+ "        <url>jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1</url>"
+						+ "    </h2>"
+						+ "    <hibernate>"
+						+ "        <initSchema>create</initSchema>"
+						+ batching
+						+ "    </hibernate>"
+						+ "</config>")
+				.build();
+		moonshine.start();
+		entityManager = moonshine.getGlobalInjector().getInstance(EntityManager.class);
+		bulkOperations = moonshine.getGlobalInjector().getInstance(BulkOperations.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void clean() {
+		Transaction.require((Transaction.Runnable) () -> {
+			entityManager.createQuery("delete from BulkEntity").executeUpdate();
+		});
+	}
+
+	@TearDown
+	public void tearDown() {
+		moonshine.close();
+	}
+
+	@Benchmark
+	public void insert() {
+		for (int start = 0; start < entities; start += ENTITIES_PER_TRANSACTION) {
+			final int end = Math.min(start + ENTITIES_PER_TRANSACTION, entities);
+			final int first = start;
+			Transaction.require((Transaction.Runnable) () -> {
+				if (method.equals("bulkOperations")) {
+					List<BulkEntity> chunk = new ArrayList<>(end - first);
+					for (int id = first; id < end; id++) {
+						chunk.add(new BulkEntity(id));
+					}
+					bulkOperations.insert(chunk);
+				} else {
+					for (int id = first; id < end; id++) {
+						entityManager.persist(new BulkEntity(id));
+						if ((id + 1) % BATCH_SIZE == 0) {
+							entityManager.flush();
+							entityManager.clear();
+						}
+					}
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.util.Properties;
+
+/**
+ * Generates synthetic configuration files.
+ */
+public class ConfigGenerator {
+	private ConfigGenerator() {
+	}
+
+	/**
+	 * Generates configuration file with given number of entries.
+	 *
+	 * <p>
+	 * Each file contains the same entry ids, so combining them merges the entries.
+	 * Each entry contains given number of children.
+	 * </p>
+	 * @param file index of the file, included in the entry values
+	 * @param entries number of top-level entries
+	 * @param children number of children of each entry
+	 * @param placeholder whether the values should reference the property
+	 * @return XML document
+	 */
+	public static String generate(int file, int entries, int children, boolean placeholder) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("<root>\n");
+		for (int i = 0; i < entries; i++) {
+			builder.append("\t<entry id='entry-").append(i).append("'>\n");
+			appendValue(builder, "\t\t", file, i, placeholder);
+			for (int j = 0; j < children; j++) {
+				builder.append("\t\t<entry id='entry-").append(i).append("-").append(j).append("'>\n");
+				appendValue(builder, "\t\t\t", file, j, placeholder);
+				builder.append("\t\t</entry>\n");
+			}
+			builder.append("\t</entry>\n");
+		}
+		builder.append("</root>\n");
+		return builder.toString();
+	}
+
+	private static void appendValue(StringBuilder builder, String indent, int file, int index,
+			boolean placeholder) {
+		builder.append(indent).append("<value>");
+		if (placeholder) {
+			builder.append("${p0}-");
+		}
+		builder.append(file).append("-").append(index).append("</value>\n");
+	}
+
+	/**
+	 * Generates properties where each property references the next one.
+	 *
+	 * <p>
+	 * Resolving ${p0} requires resolving all the properties down to p{depth - 1}.
+	 * </p>
+	 */
+	public static Properties nestedProperties(int depth) {
+		Properties properties = new Properties();
+		for (int i = 0; i < depth - 1; i++) {
+			properties.setProperty("p" + i, "${p" + (i + 1) + "}.");
+		}
+		properties.setProperty("p" + (depth - 1), "value");
+		return properties;
+	}
+}
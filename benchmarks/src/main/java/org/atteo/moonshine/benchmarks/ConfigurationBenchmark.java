@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.atteo.config.Configurable;
+import org.atteo.config.Configuration;
+import org.atteo.config.IncorrectConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Configuration#combine} and {@link Configuration#read}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+	static final Iterable<Class<? extends Configurable>> KLASSES = Arrays.asList(
+			BenchmarkRoot.class, BenchmarkEntry.class);
+
+	@Param({ "2", "10" })
+	private int files;
+
+	@Param({ "100", "1000" })
+	private int entries;
+
+	private byte[][] documents;
+	private Configuration filtered;
+
+	@Setup
+	public void generate() throws IOException, IncorrectConfigurationException {
+		documents = new byte[files][];
+		for (int i = 0; i < files; i++) {
+			documents[i] = ConfigGenerator.generate(i, entries, 5, true).getBytes(StandardCharsets.UTF_8);
+		}
+
+		filtered = combine();
+		filtered.filter(ConfigGenerator.nestedProperties(1));
+	}
+
+	@Benchmark
+	public Configuration combine() throws IOException, IncorrectConfigurationException {
+		Configuration configuration = new Configuration(KLASSES);
+		for (byte[] document : documents) {
+			configuration.combine(new ByteArrayInputStream(document));
+		}
+		return configuration;
+	}
+
+	@Benchmark
+	public BenchmarkRoot read() throws IncorrectConfigurationException {
+		return filtered.read(BenchmarkRoot.class);
+	}
+}
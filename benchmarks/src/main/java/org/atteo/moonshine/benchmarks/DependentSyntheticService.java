@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import org.atteo.moonshine.services.ImportService;
+import org.atteo.moonshine.services.Service;
+
+/**
+ * {@link SyntheticService} which imports bindings from another service.
+ */
+public class DependentSyntheticService extends SyntheticService {
+	@ImportService(bindWith = Imported.class)
+	private final Service dependency;
+
+	public DependentSyntheticService(String id, Service dependency) {
+		super(id);
+		this.dependency = dependency;
+	}
+
+	public Service getDependency() {
+		return dependency;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.atteo.config.Configuration;
+import org.atteo.config.IncorrectConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Configuration#filter} with deeply nested ${} placeholders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBenchmark {
+	@Param({ "100", "1000" })
+	private int entries;
+
+	@Param({ "1", "10", "50" })
+	private int propertyDepth;
+
+	private byte[] document;
+	private Properties properties;
+	private Configuration configuration;
+
+	@Setup
+	public void generate() {
+		document = ConfigGenerator.generate(0, entries, 5, true).getBytes(StandardCharsets.UTF_8);
+		properties = ConfigGenerator.nestedProperties(propertyDepth);
+	}
+
+	/**
+	 * Filtering modifies the DOM tree, so each invocation needs fresh copy.
+	 */
+	@Setup(Level.Invocation)
+	public void combine() throws IOException, IncorrectConfigurationException {
+		configuration = new Configuration(ConfigurationBenchmark.KLASSES);
+		configuration.combine(new ByteArrayInputStream(document));
+	}
+
+	@Benchmark
+	public Configuration filter() throws IncorrectConfigurationException {
+		configuration.filter(properties);
+		return configuration;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.OnMessage;
+
+import org.atteo.moonshine.websocket.jsonmessages.HandlerDispatcher;
+import org.atteo.moonshine.websocket.jsonmessages.JsonMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+/**
+ * Measures the number of messages per second {@link HandlerDispatcher} can decode, dispatch and encode reply to.
+ *
+ * <p>
+ * The handler of the sent message is registered after given number of other handlers.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HandlerDispatcherBenchmark {
+	@JsonTypeName("ping")
+	public static class Ping implements JsonMessage {
+		public int sequence;
+	}
+
+	@JsonTypeName("pong")
+	public static class Pong implements JsonMessage {
+		public int sequence;
+	}
+
+	@JsonTypeName("other")
+	public static class Other implements JsonMessage {
+	}
+
+	public static class PingHandler {
+		@OnMessage
+		public Pong onPing(Ping ping) {
+			Pong pong = new Pong();
+			pong.sequence = ping.sequence;
+			return pong;
+		}
+	}
+
+	public static class OtherHandler {
+		@OnMessage
+		public void onOther(Other other) {
+		}
+	}
+
+	@Param({ "1", "100" })
+	private int otherHandlers;
+
+	private final String message = "{\"ping\":{\"sequence\":1}}";
+
+	private HandlerDispatcher dispatcher;
+
+	@Setup
+	public void setup() {
+		dispatcher = new HandlerDispatcher();
+		for (int i = 0; i < otherHandlers; i++) {
+			dispatcher.addHandler(new OtherHandler());
+		}
+		dispatcher.addHandler(new PingHandler());
+	}
+
+	@Benchmark
+	public String callOnMessage() throws IOException {
+		return dispatcher.callOnMessage(message);
+	}
+}
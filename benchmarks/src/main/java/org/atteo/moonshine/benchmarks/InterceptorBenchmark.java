@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.transaction.TransactionManager;
+import javax.transaction.UserTransaction;
+
+import org.atteo.moonshine.jta.Transaction;
+import org.atteo.moonshine.jta.Transactional;
+import org.atteo.moonshine.jta.TransactionalAnnotationService;
+import org.atteo.moonshine.localtransactions.LocalTransactionManager;
+import org.atteo.moonshine.perf4j.Perf4JService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.perf4j.StopWatch;
+import org.perf4j.aop.Profiled;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Measures the cost of the nested calls through {@link Transactional} and {@link Profiled} interceptors.
+ *
+ * <p>
+ * Each call goes through given number of nested intercepted methods. Only the outermost transactional
+ * method starts the transaction, the nested ones join it. The Perf4J logger is disabled, so only
+ * the cost of the interception is measured.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterceptorBenchmark {
+	@Singleton
+	public static class Chain {
+		private Chain self;
+
+		public int plain(int depth) {
+			return depth == 0 ? 0 : self.plain(depth - 1) + 1;
+		}
+
+		@Transactional
+		public int transactional(int depth) {
+			return depth == 0 ? 0 : self.transactional(depth - 1) + 1;
+		}
+
+		@Profiled
+		public int profiled(int depth) {
+			return depth == 0 ? 0 : self.profiled(depth - 1) + 1;
+		}
+	}
+
+	@Param({ "1", "10" })
+	private int depth;
+
+	private Chain chain;
+
+	@Setup
+	public void setup() {
+		((Logger) LoggerFactory.getLogger(StopWatch.DEFAULT_LOGGER_NAME)).setLevel(Level.OFF);
+
+		final LocalTransactionManager transactionManager = new LocalTransactionManager(60);
+		Injector injector = Guice.createInjector(new TransactionalAnnotationService().configure(),
+				new Perf4JService().configure(), new AbstractModule() {
+					@Override
+					protected void configure() {
+						bind(TransactionManager.class).toInstance(transactionManager);
+						bind(UserTransaction.class).toInstance(transactionManager);
+						requestStaticInjection(Transaction.class);
+					}
+				});
+		chain = injector.getInstance(Chain.class);
+		chain.self = chain;
+	}
+
+	@Benchmark
+	public int plain() {
+		return chain.plain(depth);
+	}
+
+	@Benchmark
+	public int transactional() {
+		return chain.transactional(depth);
+	}
+
+	@Benchmark
+	public int profiled() {
+		return chain.profiled(depth);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.atteo.moonshine.ConfigurationException;
+import org.atteo.moonshine.services.Service;
+import org.atteo.moonshine.services.Services;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how {@link Services.Builder#build()} scales with the number of services.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServicesBenchmark {
+	@Param({ "10", "100", "1000" })
+	private int services;
+
+	private Service root;
+
+	@Setup
+	public void generate() {
+		root = SyntheticServices.generate(services, 0);
+	}
+
+	@Benchmark
+	public void build(Blackhole blackhole) throws ConfigurationException {
+		try (Services built = Services.Factory.builder()
+				.configuration(root)
+				.build()) {
+			blackhole.consume(built.getGlobalInjector());
+		}
+	}
+
+	@Benchmark
+	public void buildAndStart(Blackhole blackhole) throws ConfigurationException {
+		try (Services built = Services.Factory.builder()
+				.configuration(root)
+				.build()) {
+			built.start();
+			blackhole.consume(built.getGlobalInjector());
+		}
+	}
+}
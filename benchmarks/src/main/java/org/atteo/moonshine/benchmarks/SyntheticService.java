@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import org.atteo.moonshine.services.AbstractService;
+
+import com.google.inject.Module;
+import com.google.inject.PrivateModule;
+
+/**
+ * Service which does not require any external system.
+ *
+ * <p>
+ * Binds and exposes single {@link SyntheticComponent}, so its module goes through
+ * all the rewriting steps the real services go through.
+ * </p>
+ */
+public class SyntheticService extends AbstractService {
+	private final String id;
+
+	public SyntheticService(String id) {
+		this.id = id;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public Module configure() {
+		return new PrivateModule() {
+			@Override
+			protected void configure() {
+				bind(SyntheticComponent.class).toInstance(new SyntheticComponent(id));
+				expose(SyntheticComponent.class);
+			}
+		};
+	}
+}
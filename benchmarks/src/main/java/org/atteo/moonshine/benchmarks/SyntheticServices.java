@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.atteo.moonshine.services.AbstractService;
+import org.atteo.moonshine.services.Service;
+
+/**
+ * Generates the tree of synthetic services.
+ */
+public class SyntheticServices {
+	/**
+	 * Percentage of services which import some other service.
+	 */
+	private static final int DEPENDENT_PERCENTAGE = 70;
+
+	private SyntheticServices() {
+	}
+
+	/**
+	 * Generates root service with given number of sub-services.
+	 *
+	 * <p>
+	 * Some of the services import another, randomly selected, previously generated service,
+	 * so the dependency graph is acyclic. The same seed always generates the same graph.
+	 * </p>
+	 * @param count number of services to generate
+	 * @param seed seed for the random generator
+	 * @return root service
+	 */
+	public static Service generate(int count, long seed) {
+		Random random = new Random(seed);
+		final List<Service> services = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String id = "service-" + i;
+			if (i > 0 && random.nextInt(100) < DEPENDENT_PERCENTAGE) {
+				services.add(new DependentSyntheticService(id, services.get(random.nextInt(i))));
+			} else {
+				services.add(new SyntheticService(id));
+			}
+		}
+
+		return new AbstractService() {
+			@Override
+			public Iterable<? extends Service> getSubServices() {
+				return services;
+			}
+		};
+	}
+}
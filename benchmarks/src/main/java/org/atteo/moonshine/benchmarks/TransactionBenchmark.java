@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+import javax.transaction.TransactionManager;
+
+import org.atteo.moonshine.localtransactions.LocalDataSource;
+import org.atteo.moonshine.localtransactions.LocalTransactionManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bitronix.tm.Configuration;
+import bitronix.tm.TransactionManagerServices;
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Measures the number of single data source transactions per second and their latency.
+ *
+ * <p>
+ * Compares Bitronix with the disk journal, Bitronix with the journal disabled
+ * and the non-XA local transactions. Each transaction inserts one row into H2 database.
+ * </p>
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransactionBenchmark {
+	@Param({ "btm", "btm-null-journal", "local" })
+	private String manager;
+
+	private Path directory;
+	private TransactionManager transactionManager;
+	private DataSource dataSource;
+
+	@Setup
+	public void setup() throws IOException, SQLException {
+		directory = Files.createTempDirectory("transaction-benchmark");
+		JdbcDataSource xaDataSource = new JdbcDataSource();
+		xaDataSource.setURL("jdbc:h2:" + directory.resolve("database"));
+
+		switch (manager) {
+			case "btm":
+			case "btm-null-journal":
+				Configuration configuration = TransactionManagerServices.getConfiguration();
+				configuration.setLogPart1Filename(directory.resolve("btm1.log").toString());
+				configuration.setLogPart2Filename(directory.resolve("btm2.log").toString());
+				configuration.setDisableJmx(true);
+				configuration.setJournal(manager.equals("btm") ? "disk" : "null");
+				transactionManager = TransactionManagerServices.getTransactionManager();
+				PoolingDataSource pool = new PoolingDataSource();
+				pool.setUniqueName("benchmark");
+				pool.setXaDataSource(xaDataSource);
+				pool.setMaxPoolSize(8);
+				pool.setAllowLocalTransactions(true);
+				pool.init();
+				dataSource = pool;
+				break;
+			case "local":
+				LocalTransactionManager localManager = new LocalTransactionManager(60);
+				transactionManager = localManager;
+				dataSource = new LocalDataSource("benchmark", xaDataSource, localManager, 8, 120, null);
+				break;
+			default:
+				throw new IllegalArgumentException(manager);
+		}
+
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("create table if not exists items (id identity, value int)");
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (dataSource instanceof PoolingDataSource) {
+			((PoolingDataSource) dataSource).close();
+			TransactionManagerServices.getTransactionManager().shutdown();
+		} else {
+			((LocalDataSource) dataSource).close();
+		}
+	}
+
+	@Benchmark
+	public void commit() throws Exception {
+		transactionManager.begin();
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("insert into items (value) values (?)")) {
+			statement.setInt(1, 1);
+			statement.executeUpdate();
+		} catch (SQLException | RuntimeException e) {
+			transactionManager.rollback();
+			throw e;
+		}
+		transactionManager.commit();
+	}
+}
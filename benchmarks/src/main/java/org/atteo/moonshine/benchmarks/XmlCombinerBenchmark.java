@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.atteo.xmlcombiner.XmlCombiner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Measures id-based merging of already parsed documents with {@link XmlCombiner}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlCombinerBenchmark {
+	@Param({ "100", "1000", "10000" })
+	private int entries;
+
+	private DocumentBuilder builder;
+	private Document parent;
+	private Document child;
+
+	@Setup
+	public void parse() throws ParserConfigurationException, SAXException, IOException {
+		builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		parent = parse(ConfigGenerator.generate(0, entries, 5, false));
+		child = parse(ConfigGenerator.generate(1, entries, 5, false));
+	}
+
+	private Document parse(String document) throws SAXException, IOException {
+		return builder.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Benchmark
+	public Document combine() throws SAXException, IOException {
+		XmlCombiner combiner = new XmlCombiner(builder, "id");
+		combiner.combine(parent);
+		combiner.combine(child);
+		return combiner.buildDocument();
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.atteo.filtering.Filtering;
+import org.atteo.filtering.PropertyFilter;
+import org.atteo.filtering.PropertyNotFoundException;
+import org.atteo.filtering.PropertyResolver;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * {@link PropertyFilter} which compiles the filtered values and memoizes resolved properties.
+ *
+ * <p>
+ * Each distinct value is parsed only once into a template consisting of the literal text and
+ * the {@code ${name}} placeholders. Each property is resolved using the {@link PropertyResolver} only once,
+ * missing properties are remembered too. Properties referencing themselves, directly or indirectly,
+ * are reported with {@link CircularPropertyReferenceException}.
+ * </p>
+ * <p>
+ * Memoized values are never invalidated, so the filter should be created for single filtering pass
+ * over the values which do not change in the meantime. It is thread-safe.
+ * </p>
+ * @see Filtering#getFilter(PropertyResolver)
+ */
+public class CachingPropertyFilter implements PropertyFilter {
+	private static final String PREFIX = "${";
+	private static final char SUFFIX = '}';
+	private static final Object NOT_FOUND = new Object();
+
+	private final PropertyResolver resolver;
+	private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<>();
+	private final ThreadLocal<Set<String>> resolving = ThreadLocal.withInitial(LinkedHashSet::new);
+
+	public CachingPropertyFilter(PropertyResolver resolver) {
+		this.resolver = resolver;
+	}
+
+	@Override
+	public String getProperty(String name) throws PropertyNotFoundException {
+		Object value = values.get(name);
+		if (value == null) {
+			value = resolve(name);
+			values.putIfAbsent(name, value);
+		}
+		if (value == NOT_FOUND) {
+			throw new PropertyNotFoundException(name);
+		}
+		return (String) value;
+	}
+
+	private Object resolve(String name) throws PropertyNotFoundException {
+		Set<String> stack = resolving.get();
+		if (!stack.add(name)) {
+			List<String> cycle = new ArrayList<>(stack);
+			cycle = cycle.subList(cycle.indexOf(name), cycle.size());
+			cycle.add(name);
+			throw new CircularPropertyReferenceException(cycle);
+		}
+		try {
+			String value = resolver.resolveProperty(name, this);
+			// resolvers usually filter the value themselves, then this is no-op
+			return value != null ? filter(value) : NOT_FOUND;
+		} catch (CircularPropertyReferenceException e) {
+			throw e;
+		} catch (PropertyNotFoundException e) {
+			return NOT_FOUND;
+		} finally {
+			stack.remove(name);
+		}
+	}
+
+	@Override
+	public String filter(String value) throws PropertyNotFoundException {
+		if (value == null || value.indexOf(PREFIX) == -1) {
+			return value;
+		}
+		Template template = templates.get(value);
+		if (template == null) {
+			template = Template.compile(value);
+			templates.putIfAbsent(value, template);
+		}
+		return template.render(this);
+	}
+
+	@Override
+	public void filterFile(Path source, Path destination) throws PropertyNotFoundException, IOException {
+		String value = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+		Files.write(destination, filter(value).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void filter(Element element) throws PropertyNotFoundException {
+		NamedNodeMap attributes = element.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Attr attribute = (Attr) attributes.item(i);
+			String value = attribute.getValue();
+			if (value.contains(PREFIX)) {
+				attribute.setValue(filter(value));
+			}
+		}
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			switch (child.getNodeType()) {
+				case Node.ELEMENT_NODE:
+					filter((Element) child);
+					break;
+				case Node.TEXT_NODE:
+				case Node.CDATA_SECTION_NODE:
+					String value = child.getNodeValue();
+					if (value.contains(PREFIX)) {
+						child.setNodeValue(filter(value));
+					}
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Thrown when property references itself, directly or through other properties.
+	 */
+	public static class CircularPropertyReferenceException extends PropertyNotFoundException {
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> cycle;
+
+		public CircularPropertyReferenceException(List<String> cycle) {
+			super(cycle.get(0));
+			this.cycle = cycle;
+		}
+
+		/**
+		 * Returns the names of the properties forming the cycle, the first one is repeated at the end.
+		 */
+		public List<String> getCycle() {
+			return cycle;
+		}
+
+		@Override
+		public String getMessage() {
+			return "Circular property reference: " + String.join(" -> ", cycle);
+		}
+	}
+
+	/**
+	 * Compiled value consisting of the literal text and the placeholders.
+	 */
+	private static class Template {
+		private final Object[] segments;
+
+		private Template(Object[] segments) {
+			this.segments = segments;
+		}
+
+		public static Template compile(String value) {
+			List<Object> segments = new ArrayList<>();
+			int position = 0;
+			while (true) {
+				int start = value.indexOf(PREFIX, position);
+				int end = start == -1 ? -1 : findEnd(value, start + PREFIX.length());
+				if (end == -1) {
+					if (position < value.length()) {
+						segments.add(value.substring(position));
+					}
+					break;
+				}
+				if (start > position) {
+					segments.add(value.substring(position, start));
+				}
+				segments.add(new Placeholder(value.substring(start + PREFIX.length(), end)));
+				position = end + 1;
+			}
+			return new Template(segments.toArray());
+		}
+
+		/**
+		 * Finds the suffix matching the prefix which ends just before given position.
+		 */
+		private static int findEnd(String value, int position) {
+			int depth = 1;
+			for (int i = position; i < value.length(); i++) {
+				if (value.startsWith(PREFIX, i)) {
+					depth++;
+					i += PREFIX.length() - 1;
+				} else if (value.charAt(i) == SUFFIX && --depth == 0) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		public String render(CachingPropertyFilter filter) throws PropertyNotFoundException {
+			if (segments.length == 1) {
+				return render(segments[0], filter);
+			}
+			StringBuilder builder = new StringBuilder();
+			for (Object segment : segments) {
+				builder.append(render(segment, filter));
+			}
+			return builder.toString();
+		}
+
+		private static String render(Object segment, CachingPropertyFilter filter)
+				throws PropertyNotFoundException {
+			if (segment instanceof Placeholder) {
+				return ((Placeholder) segment).render(filter);
+			}
+			return (String) segment;
+		}
+	}
+
+	/**
+	 * Placeholder with the name of the property, the name can contain placeholders too.
+	 *
+	 * <p>
+	 * The raw name is passed to the resolvers first, like {@link Filtering} does, because some of them,
+	 * for instance "oneof:", handle the nested placeholders themselves. The nested placeholders are expanded
+	 * only when no resolver recognizes the raw name.
+	 * </p>
+	 */
+	private static class Placeholder {
+		private final String name;
+		private final Template nameTemplate;
+
+		public Placeholder(String name) {
+			this.name = name;
+			this.nameTemplate = name.contains(PREFIX) ? Template.compile(name) : null;
+		}
+
+		public String render(CachingPropertyFilter filter) throws PropertyNotFoundException {
+			if (nameTemplate == null) {
+				return filter.getProperty(name);
+			}
+			try {
+				return filter.getProperty(name);
+			} catch (CircularPropertyReferenceException e) {
+				throw e;
+			} catch (PropertyNotFoundException e) {
+				return filter.getProperty(nameTemplate.render(filter));
+			}
+		}
+	}
+}
@@ -18,8 +18,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -42,6 +41,7 @@ import javax.xml.bind.annotation.XmlElementRef;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Result;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
@@ -52,8 +52,10 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.atteo.classindex.ClassFilter;
 import org.atteo.classindex.ClassIndex;
-import org.atteo.config.jaxb.FilteringAnnotationReader;
 import org.atteo.config.jaxb.JaxbBindings;
+import org.atteo.config.jaxb.JaxbContextCache;
+import org.atteo.config.reflection.ClassMetadata;
+import org.atteo.config.reflection.FieldAccessor;
 import org.atteo.filtering.CompoundPropertyResolver;
 import org.atteo.filtering.Filtering;
 import org.atteo.filtering.PropertiesPropertyResolver;
@@ -65,10 +67,7 @@ import org.atteo.xmlcombiner.CombineSelf;
 import org.atteo.xmlcombiner.XmlCombiner;
 import org.eclipse.persistence.descriptors.ClassDescriptor;
 import org.eclipse.persistence.internal.sessions.AbstractSession;
-import org.eclipse.persistence.jaxb.JAXBContextFactory;
-import org.eclipse.persistence.jaxb.JAXBContextProperties;
 import org.eclipse.persistence.jaxb.JAXBHelper;
-import org.eclipse.persistence.jaxb.javamodel.reflection.AnnotationHelper;
 import org.eclipse.persistence.mappings.DatabaseMapping;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -77,8 +76,6 @@ import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
-import com.google.common.collect.Iterables;
-
 /**
  * Generic configuration facility based on JAXB.
  *
@@ -163,8 +160,10 @@ import com.google.common.collect.Iterables;
  * The following actions will be performed:
  * <ul>
  * <li>{@link JAXBContext} will be created for all the classes extending {@link Configurable},
- * those classes are indexed at compile-time using {@link ClassIndex} facility,</li>
- * <li>provided XML files will be parsed and combined using {@link XmlCombiner} facility,</li>
+ * those classes are indexed at compile-time using {@link ClassIndex} facility, the context is cached
+ * by {@link JaxbContextCache} and shared between {@link Configuration} instances,</li>
+ * <li>provided XML files will be parsed and combined using {@link XmlCombiner} facility,
+ * or {@link StreamingXmlCombiner} when {@link #setStreamingCombine(boolean) enabled},</li>
  * <li>any property references in the form of <code>${name}</code> will be substituted
  * with the value using registered {@link PropertyResolver}, see {@link Filtering} for details,</li>
  * <li>the result will be unmarshalled using {@link Unmarshaller JAXB} into provided root class,</li>
@@ -174,12 +173,18 @@ import com.google.common.collect.Iterables;
  * </p>
  */
 public class Configuration {
-	private JAXBContext context;
-	private Binder<Node> binder;
+	private static final PropertyFilter NO_PROPERTIES_FILTER = Filtering.getFilter(
+			(PropertyResolver) (String name, PropertyFilter filter) -> {
+				throw new PropertyNotFoundException(name);
+			});
+
 	private final Iterable<Class<? extends Configurable>> klasses;
 	private DocumentBuilder builder;
 	private Document document;
+	private StreamingXmlCombiner streamingCombiner;
+	private boolean documentStale = false;
 	private PropertyFilter propertyFilter;
+	private final Map<Object, Element> elements = new IdentityHashMap<>();
 	//private RuntimeAnnotationReader annotationReader = new RuntimeInlineAnnotationReader();
 
 	/**
@@ -197,13 +202,10 @@ public class Configuration {
 	/**
 	 * Create Configuration by manually specifying all {@link Configurable}s.
 	 * @param klasses list of {@link Configurable} classes.
-	 * @throws JAXBException when JAXB context creation fails
 	 */
 	public Configuration(Iterable<Class<? extends Configurable>> klasses) {
 		this.klasses = klasses;
-		propertyFilter = Filtering.getFilter((PropertyResolver) (String name, PropertyFilter filter) -> {
-			throw new PropertyNotFoundException(name);
-		});
+		propertyFilter = NO_PROPERTIES_FILTER;
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		try {
 			builder = factory.newDocumentBuilder();
@@ -219,16 +221,9 @@ public class Configuration {
 				public void fatalError(SAXParseException exception) throws SAXException {
 				}
 			});
-			context = JAXBContextFactory.createContext(Iterables.toArray(klasses, Class.class), Collections.emptyMap());
-			binder = context.createBinder();
-			// JAXB Moxy does not allow to set resolver on binder
-//			binder.setProperty(UnmarshallerProperties.ID_RESOLVER, new ScopedIdResolver());
-			binder.setEventHandler((ValidationEvent event) -> true);
 			document = builder.newDocument();
 		} catch (ParserConfigurationException e) {
 			throw new RuntimeException("Cannot configure XML parser", e);
-		} catch (JAXBException e) {
-			throw new RuntimeException("Cannot configure unmarshaller", e);
 		}
 	}
 
@@ -238,6 +233,19 @@ public class Configuration {
 	 * @throws IOException when IO error occurs
 	 */
 	public void generateSchema(final File filename) throws IOException {
+		JAXBContext context;
+		try {
+			context = JaxbContextCache.getContext(klasses, NO_PROPERTIES_FILTER);
+		} catch (JAXBException e) {
+			throw new RuntimeException("Cannot create JAXB context", e);
+		}
+		// the context is shared and MOXy reuses the same schema generator for each call
+		synchronized (context) {
+			generateSchema(context, filename);
+		}
+	}
+
+	private static void generateSchema(JAXBContext context, final File filename) throws IOException {
 		context.generateSchema(new SchemaOutputResolver() {
 			@Override
 			public Result createOutput(String namespaceUri, String suggestedFileName)
@@ -274,23 +282,48 @@ public class Configuration {
 	/**
 	 * Filter {@code ${name}} placeholders using values from given {@link PropertyResolver}.
 	 *
+	 * <p>
+	 * Each property is resolved only once, the values are reused when filtering the default values
+	 * during {@link #read(Class)}, see {@link CachingPropertyFilter}.
+	 * </p>
+	 *
 	 * @param resolver property resolver used for filtering the configuration files
 	 *
 	 * @see CompoundPropertyResolver
 	 */
 	public void filter(PropertyResolver resolver) throws IncorrectConfigurationException {
-		propertyFilter = Filtering.getFilter(resolver);
-		if (document.getDocumentElement() == null) {
+		propertyFilter = new CachingPropertyFilter(resolver);
+		Element root = getRootElement();
+		if (root == null) {
 			return;
 		}
 		try {
-			propertyFilter.filter(document.getDocumentElement());
+			propertyFilter.filter(root);
 		} catch (PropertyNotFoundException e) {
 			throw new IncorrectConfigurationException("Cannot resolve configuration properties: "
 					+ e.getMessage(), e);
 		}
 	}
 
+	/**
+	 * Enable combining the XML files with {@link StreamingXmlCombiner}.
+	 *
+	 * <p>
+	 * In this mode the files are read with StAX and merged into single compact tree as they are read.
+	 * The DOM tree is built only once when it is needed for the first time. This is faster and uses less memory
+	 * than parsing each file into DOM and combining it with {@link XmlCombiner}, especially for large
+	 * or numerous files.
+	 * </p>
+	 * @param streamingCombine true to enable streaming combining
+	 * @throws IllegalStateException when some files were already combined
+	 */
+	public void setStreamingCombine(boolean streamingCombine) {
+		if (document.getDocumentElement() != null || streamingCombiner != null && !streamingCombiner.isEmpty()) {
+			throw new IllegalStateException("Combining mode must be set before any file is combined");
+		}
+		streamingCombiner = streamingCombine ? new StreamingXmlCombiner() : null;
+	}
+
 	/**
 	 * Parse an XML file and combine it with the currently stored DOM tree.
 	 * @param stream stream with the XML file
@@ -298,6 +331,20 @@ public class Configuration {
 	 * @throws IOException when the stream cannot be read
 	 */
 	public void combine(InputStream stream) throws IncorrectConfigurationException, IOException {
+		if (streamingCombiner != null) {
+			try {
+				if (!documentStale && document.getDocumentElement() != null) {
+					// the built document could have been modified, for instance filtered, so continue from it
+					streamingCombiner.reset(document.getDocumentElement());
+				}
+				streamingCombiner.combine(stream);
+				documentStale = true;
+			} catch (XMLStreamException | IllegalArgumentException e) {
+				throw new IncorrectConfigurationException("Parse error: " + e.getMessage(), e);
+			}
+			return;
+		}
+
 		Document parentDocument = document;
 
 		try {
@@ -324,17 +371,15 @@ public class Configuration {
 	 * @throws IncorrectConfigurationException if configuration is incorrect
 	 */
 	public <T extends Configurable> T read(Class<T> rootClass) throws IncorrectConfigurationException {
-		if (document.getDocumentElement() == null) {
+		Element root = getRootElement();
+		if (root == null) {
 			return null;
 		}
 		T result;
 		final StringBuilder errors = new StringBuilder();
 		try {
-			Map<String, Object> properties = new HashMap<>();
-			AnnotationHelper helper = new FilteringAnnotationReader(propertyFilter);
-			properties.put(JAXBContextProperties.ANNOTATION_HELPER, helper);
-			context = JAXBContextFactory.createContext(Iterables.toArray(klasses, Class.class), properties);
-			binder = context.createBinder();
+			JAXBContext context = JaxbContextCache.getContext(klasses, propertyFilter);
+			Binder<Node> binder = context.createBinder();
 			// JAXB Moxy does not allow to set resolver on binder
 //			binder.setProperty(UnmarshallerProperties.ID_RESOLVER, new ScopedIdResolver());
 			binder.setEventHandler((ValidationEvent event) -> {
@@ -350,9 +395,16 @@ public class Configuration {
 				errors.append(": ").append(event.getMessage());
 				return false;
 			});
-			result = rootClass.cast(binder.unmarshal(document.getDocumentElement()));
-			JaxbBindings.iterate(document.getDocumentElement(), binder,
-					new DefaultsSetter(context, propertyFilter));
+			result = rootClass.cast(binder.unmarshal(root));
+			final DefaultsSetter defaultsSetter = new DefaultsSetter(context, propertyFilter);
+			elements.clear();
+			JaxbBindings.iterate(root, binder,
+					(Element element, Object object, Field field) -> {
+						if (object != null) {
+							elements.put(object, element);
+						}
+						defaultsSetter.run(element, object, field);
+					});
 
 			ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
 			Validator validator = validatorFactory.getValidator();
@@ -386,9 +438,22 @@ public class Configuration {
 	 * @return root {@link Element}
 	 */
 	public Element getRootElement() {
+		if (documentStale) {
+			document = streamingCombiner.buildDocument(builder);
+			documentStale = false;
+		}
 		return document.getDocumentElement();
 	}
 
+	/**
+	 * Get the XML {@link Element} from which given object was unmarshalled.
+	 * @param object object from the tree returned by the last {@link #read(Class)}
+	 * @return {@link Element} or null, if the object was not unmarshalled from the configuration
+	 */
+	public Element getElement(Object object) {
+		return elements.get(object);
+	}
+
 	private static class DefaultsSetter implements JaxbBindings.Runnable {
 		private final JAXBContext context;
 		private final PropertyFilter properties;
@@ -400,72 +465,58 @@ public class Configuration {
 
 		@Override
 		public void run(Element element, Object object, Field field) {
-			Class<?> klass = object.getClass();
-
-			while (klass != Object.class) {
-				for (Field f : klass.getDeclaredFields()) {
-					XmlDefaultValue defaultValue = f.getAnnotation(XmlDefaultValue.class);
-					if (defaultValue != null) {
-						if (f.getType().isPrimitive()) {
-							throw new RuntimeException("@XmlDefaultValue cannot be specified on primitive type: "
-									+ klass.getCanonicalName() + "." + f.getName());
-						}
-
-						boolean accessible = f.isAccessible();
-						f.setAccessible(true);
-						try {
-							if (f.get(object) != null) {
-								continue;
-							}
-						} catch (IllegalArgumentException | IllegalAccessException e) {
-							throw new RuntimeException(e);
-						}
-
-						String value = defaultValue.value();
-						try {
-							value = properties.filter(value);
-						} catch (PropertyNotFoundException e) {
-							if (field != null) {
-								throw new RuntimeException("Property not found for field '"
-										+ field.getName() + "'", e);
-							} else {
-								throw new RuntimeException("Property not found", e);
-							}
-						}
+			ClassMetadata metadata = ClassMetadata.of(object.getClass());
+			for (FieldAccessor f : metadata.getFieldsAnnotatedWith(XmlDefaultValue.class)) {
+				Class<?> klass = f.getField().getDeclaringClass();
+				XmlDefaultValue defaultValue = f.getAnnotation(XmlDefaultValue.class);
+				if (f.getType().isPrimitive()) {
+					throw new RuntimeException("@XmlDefaultValue cannot be specified on primitive type: "
+							+ klass.getCanonicalName() + "." + f.getName());
+				}
 
-						AbstractSession session = JAXBHelper.getJAXBContext(context).getXMLContext().getSession(klass);
-						ClassDescriptor classDescriptor = session.getClassDescriptor(klass);
-						DatabaseMapping mapping = classDescriptor.getMappingForAttributeName(f.getName());
-						if (mapping == null) {
-							throw new RuntimeException("Field '" + f.getName() + "' cannot be annotated with"
-									+ " @" + XmlDefaultValue.class.getSimpleName() + ", because it is not mapped"
-									+ ", mark it with @" + XmlElement.class.getSimpleName());
-						}
-						mapping.setAttributeValueInObject(object, value);
+				if (f.get(object) != null) {
+					continue;
+				}
 
-						f.setAccessible(accessible);
+				String value = defaultValue.value();
+				try {
+					value = properties.filter(value);
+				} catch (PropertyNotFoundException e) {
+					if (field != null) {
+						throw new RuntimeException("Property not found for field '"
+								+ field.getName() + "'", e);
+					} else {
+						throw new RuntimeException("Property not found", e);
+					}
+				}
 
-						/**
-						 * For reference, how it worked in JAXB RI:
-						 *
-						RuntimeNonElement typeInfo = context.getRuntimeTypeInfoSet().getTypeInfo(f.getType());
-						Object v;
-						try {
-							v = typeInfo.getTransducer().parse(value);
-						} catch (AccessorException | SAXException e) {
-							throw new RuntimeException(e);
-						}
+				AbstractSession session = JAXBHelper.getJAXBContext(context).getXMLContext().getSession(klass);
+				ClassDescriptor classDescriptor = session.getClassDescriptor(klass);
+				DatabaseMapping mapping = classDescriptor.getMappingForAttributeName(f.getName());
+				if (mapping == null) {
+					throw new RuntimeException("Field '" + f.getName() + "' cannot be annotated with"
+							+ " @" + XmlDefaultValue.class.getSimpleName() + ", because it is not mapped"
+							+ ", mark it with @" + XmlElement.class.getSimpleName());
+				}
+				mapping.setAttributeValueInObject(object, value);
 
-						try {
-							f.set(object, v);
-						} catch (IllegalArgumentException | IllegalAccessException e) {
-							throw new RuntimeException(e);
-						}
-						*/
-					}
+				/**
+				 * For reference, how it worked in JAXB RI:
+				 *
+				RuntimeNonElement typeInfo = context.getRuntimeTypeInfoSet().getTypeInfo(f.getType());
+				Object v;
+				try {
+					v = typeInfo.getTransducer().parse(value);
+				} catch (AccessorException | SAXException e) {
+					throw new RuntimeException(e);
 				}
 
-				klass = klass.getSuperclass();
+				try {
+					f.set(object, v);
+				} catch (IllegalArgumentException | IllegalAccessException e) {
+					throw new RuntimeException(e);
+				}
+				*/
 			}
 		}
 	}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.atteo.filtering.PropertyFilter;
+import org.atteo.filtering.PropertyNotFoundException;
+import org.atteo.filtering.SimplePropertyResolver;
+import org.atteo.filtering.XmlPropertyResolver;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Resolves properties from the XML tree remembering where each property was found.
+ *
+ * <p>
+ * Matches properties exactly like {@link XmlPropertyResolver}: property name is a dot-separated path
+ * where each segment is either an attribute of the current element or the name of a unique descendant
+ * of the current element. Segments can contain dots, the longest one is tried first.
+ * The value is the text content of the found element or the value of the found attribute,
+ * filtered with the provided {@link PropertyFilter}.
+ * </p>
+ * <p>
+ * The node found for each property name, or the fact that it was not found, is memoized,
+ * so the tree is searched only once per property. Elements added to the tree after the first lookup
+ * are not visible, but the changes to the text content are.
+ * </p>
+ */
+public class IndexedXmlPropertyResolver extends SimplePropertyResolver {
+	private final Element root;
+	private final boolean matchRoot;
+	private final ConcurrentMap<String, Optional<Node>> lookups = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates resolver for the given tree.
+	 * @param root root of the tree, can be null
+	 * @param matchRoot whether the first segment of the property name must match the name of the root element,
+	 * otherwise the first segment is matched with the descendants of the root element
+	 */
+	public IndexedXmlPropertyResolver(Element root, boolean matchRoot) {
+		this.root = root;
+		this.matchRoot = matchRoot;
+	}
+
+	@Override
+	public String getProperty(String name) throws PropertyNotFoundException {
+		Optional<Node> node = lookups.computeIfAbsent(name, key -> Optional.ofNullable(find(key)));
+		if (!node.isPresent()) {
+			throw new PropertyNotFoundException(name);
+		}
+		return node.get().getTextContent();
+	}
+
+	private Node find(String name) {
+		if (root == null) {
+			return null;
+		}
+		List<Integer> dots = new ArrayList<>();
+		for (int dot = name.indexOf('.'); dot != -1; dot = name.indexOf('.', dot + 1)) {
+			dots.add(dot);
+		}
+		dots.add(name.length());
+
+		Element element = root;
+		int position;
+		int lastDot;
+		if (matchRoot) {
+			if (!root.getNodeName().equals(name.substring(0, dots.get(0)))) {
+				return null;
+			}
+			position = dots.get(0) + 1;
+			lastDot = 0;
+		} else {
+			position = 0;
+			lastDot = -1;
+		}
+
+		while (position < name.length()) {
+			String rest = name.substring(position);
+			if (element.hasAttribute(rest)) {
+				return element.getAttributeNode(rest);
+			}
+			Element descendant = null;
+			for (int i = dots.size() - 1; i > lastDot; i--) {
+				NodeList elements = element.getElementsByTagName(name.substring(position, dots.get(i)));
+				if (elements.getLength() == 1) {
+					descendant = (Element) elements.item(0);
+					position = dots.get(i) + 1;
+					lastDot = i;
+					break;
+				}
+			}
+			if (descendant == null) {
+				return null;
+			}
+			element = descendant;
+		}
+		return element;
+	}
+}
@@ -0,0 +1,490 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.atteo.xmlcombiner.CombineChildren;
+import org.atteo.xmlcombiner.CombineSelf;
+import org.atteo.xmlcombiner.XmlCombiner;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+
+/**
+ * Combines XML files in a single pass using StAX.
+ *
+ * <p>
+ * Each file is read with {@link XMLStreamReader} into a compact tree which is immediately merged into the
+ * tree combined so far. Nodes of the newly read file are moved, not copied, so combining N files does not
+ * create N intermediate DOM documents. The DOM tree is built only once by {@link #buildDocument(DocumentBuilder)}.
+ * </p>
+ * <p>
+ * Elements are matched by their tag name and the value of the {@code id} attribute and combined according to
+ * {@code combine.self} and {@code combine.children} attributes. The result is the same as the one produced by
+ * combining the files one by one with {@link XmlCombiner}. In particular the {@link CombineSelf#DEFAULTS defaults}
+ * elements and the combine attributes are removed after each file other than the first one is combined.
+ * The text preceding each element stays together with it and the text after the last child element
+ * is taken from the dominant file. Comments, processing instructions and the whitespace between the elements
+ * are skipped.
+ * </p>
+ */
+public class StreamingXmlCombiner {
+	private static final String ID_ATTRIBUTE = "id";
+	private static final String COMBINE_SELF = "combine.self";
+	private static final String COMBINE_CHILDREN = "combine.children";
+
+	private final XMLInputFactory factory;
+	private Node root;
+	private int files = 0;
+	private boolean hasCombineAttributes = false;
+
+	public StreamingXmlCombiner() {
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/**
+	 * Reads XML file from given stream and combines it with the files read so far.
+	 * @param stream stream with the XML file, it is not closed
+	 * @throws XMLStreamException when the file is not well-formed
+	 */
+	public void combine(InputStream stream) throws XMLStreamException {
+		Node node = parse(stream);
+		files++;
+		if (root == null) {
+			root = node;
+			return;
+		}
+		root = merge(root, node);
+		if (hasCombineAttributes && root != null) {
+			root = cleanup(root);
+			hasCombineAttributes = false;
+		}
+	}
+
+	/**
+	 * Replaces the tree combined so far with given element.
+	 *
+	 * <p>
+	 * Used to continue combining after the document built by {@link #buildDocument(DocumentBuilder)}
+	 * was modified.
+	 * </p>
+	 * @param element root element of the combined tree
+	 */
+	public void reset(Element element) {
+		root = toNode(element);
+	}
+
+	/**
+	 * Checks whether any file was combined.
+	 */
+	public boolean isEmpty() {
+		return files == 0;
+	}
+
+	/**
+	 * Builds DOM document from the combined files.
+	 * @param builder builder used to create the document
+	 * @return combined document, without root element if no files were combined
+	 */
+	public Document buildDocument(DocumentBuilder builder) {
+		Document document = builder.newDocument();
+		if (root != null) {
+			document.appendChild(toElement(document, root));
+		}
+		return document;
+	}
+
+	private Node parse(InputStream stream) throws XMLStreamException {
+		XMLStreamReader reader = factory.createXMLStreamReader(stream);
+		try {
+			List<Node> stack = new ArrayList<>();
+			Node result = null;
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						Node node = new Node(qualifiedName(reader.getPrefix(), reader.getLocalName()));
+						readAttributes(reader, node);
+						if (stack.isEmpty()) {
+							result = node;
+						} else {
+							stack.get(stack.size() - 1).addChild(node);
+						}
+						stack.add(node);
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						stack.remove(stack.size() - 1).endElement();
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						if (!stack.isEmpty()) {
+							stack.get(stack.size() - 1).addText(reader.getText());
+						}
+						break;
+					default:
+						break;
+				}
+			}
+			return result;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void readAttributes(XMLStreamReader reader, Node node) {
+		int namespaces = reader.getNamespaceCount();
+		int attributes = reader.getAttributeCount();
+		if (namespaces + attributes == 0) {
+			return;
+		}
+		node.attributes = new LinkedHashMap<>(namespaces + attributes);
+		for (int i = 0; i < namespaces; i++) {
+			String prefix = reader.getNamespacePrefix(i);
+			String name = prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix;
+			String uri = reader.getNamespaceURI(i);
+			node.attributes.put(name, uri == null ? "" : uri);
+		}
+		for (int i = 0; i < attributes; i++) {
+			String name = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+			addAttribute(node, name, reader.getAttributeValue(i));
+		}
+	}
+
+	private void addAttribute(Node node, String name, String value) {
+		node.attributes.put(name, value);
+		switch (name) {
+			case ID_ATTRIBUTE:
+				node.id = value;
+				break;
+			case COMBINE_SELF:
+				node.combineSelf = parse(CombineSelf.class, value);
+				hasCombineAttributes = true;
+				break;
+			case COMBINE_CHILDREN:
+				node.combineChildren = parse(CombineChildren.class, value);
+				hasCombineAttributes = true;
+				break;
+			default:
+				break;
+		}
+	}
+
+	private Node toNode(Element element) {
+		Node node = new Node(element.getTagName());
+		NamedNodeMap attributes = element.getAttributes();
+		if (attributes.getLength() != 0) {
+			node.attributes = new LinkedHashMap<>(attributes.getLength());
+			for (int i = 0; i < attributes.getLength(); i++) {
+				Attr attribute = (Attr) attributes.item(i);
+				addAttribute(node, attribute.getName(), attribute.getValue());
+			}
+		}
+		NodeList children = element.getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			org.w3c.dom.Node child = children.item(i);
+			switch (child.getNodeType()) {
+				case org.w3c.dom.Node.ELEMENT_NODE:
+					node.addChild(toNode((Element) child));
+					break;
+				case org.w3c.dom.Node.TEXT_NODE:
+				case org.w3c.dom.Node.CDATA_SECTION_NODE:
+					node.addText(child.getNodeValue());
+					break;
+				default:
+					break;
+			}
+		}
+		node.endElement();
+		return node;
+	}
+
+	private static <E extends Enum<E>> E parse(Class<E> klass, String value) {
+		try {
+			return Enum.valueOf(klass, value.trim().toUpperCase(Locale.ENGLISH));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Incorrect value '" + value + "' of "
+					+ klass.getSimpleName() + " attribute", e);
+		}
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		if (prefix == null || prefix.isEmpty()) {
+			return localName;
+		}
+		return prefix + ":" + localName;
+	}
+
+	/**
+	 * Merges dominant node into recessive one.
+	 * @return combined node or null, if the node should be removed
+	 */
+	private static Node merge(Node recessive, Node dominant) {
+		if (dominant.combineSelf == CombineSelf.REMOVE) {
+			return null;
+		}
+		if (dominant.combineSelf == CombineSelf.OVERRIDE || recessive.combineSelf == CombineSelf.OVERRIDABLE) {
+			return dominant;
+		}
+
+		if (dominant.attributes != null) {
+			if (recessive.attributes == null) {
+				recessive.attributes = dominant.attributes;
+			} else {
+				recessive.attributes.putAll(dominant.attributes);
+			}
+		}
+		if (recessive.combineSelf == CombineSelf.DEFAULTS && dominant.combineSelf != CombineSelf.DEFAULTS) {
+			recessive.attributes.remove(COMBINE_SELF);
+		}
+		recessive.combineSelf = dominant.combineSelf;
+		if (dominant.combineChildren != null) {
+			recessive.combineChildren = dominant.combineChildren;
+		}
+		// as in XmlCombiner the text after the last child is always taken from the dominant element
+		recessive.text = dominant.text;
+
+		if (recessive.combineChildren == CombineChildren.APPEND) {
+			for (Node child : dominant.children) {
+				if (child.combineSelf != CombineSelf.REMOVE) {
+					recessive.addChild(child);
+				}
+			}
+		} else {
+			mergeChildren(recessive, dominant);
+		}
+		return recessive;
+	}
+
+	private static void mergeChildren(Node recessive, Node dominant) {
+		if (dominant.children.isEmpty()) {
+			return;
+		}
+		if (recessive.children.isEmpty()) {
+			for (Node child : dominant.children) {
+				if (child.combineSelf != CombineSelf.REMOVE) {
+					recessive.addChild(child);
+				}
+			}
+			return;
+		}
+
+		List<Node> children = recessive.children;
+		removeOverridableByTag(children, dominant.children);
+		Map<String, Integer> recessiveIndex = index(children);
+		Map<String, Integer> dominantIndex = index(dominant.children);
+
+		boolean removed = false;
+		List<Node> appended = null;
+		for (int i = 0; i < dominant.children.size(); i++) {
+			Node child = dominant.children.get(i);
+			String key = child.getKey();
+			Integer position = recessiveIndex.get(key);
+			if (position != null && position >= 0 && dominantIndex.get(key) == i) {
+				Node merged = merge(children.get(position), child);
+				if (merged != null) {
+					// the merged element keeps its position, but the text preceding it comes from the dominant
+					merged.before = child.before;
+				}
+				children.set(position, merged);
+				removed |= merged == null;
+			} else if (child.combineSelf != CombineSelf.REMOVE) {
+				if (appended == null) {
+					appended = new ArrayList<>();
+				}
+				appended.add(child);
+			}
+		}
+		if (removed) {
+			children.removeAll(Collections.<Node>singleton(null));
+		}
+		if (appended != null) {
+			children.addAll(appended);
+		}
+	}
+
+	private static void removeOverridableByTag(List<Node> children, List<Node> dominantChildren) {
+		Set<String> tags = null;
+		for (int i = children.size() - 1; i >= 0; i--) {
+			Node child = children.get(i);
+			if (child.combineSelf != CombineSelf.OVERRIDABLE_BY_TAG) {
+				continue;
+			}
+			if (tags == null) {
+				tags = new HashSet<>();
+				for (Node dominantChild : dominantChildren) {
+					tags.add(dominantChild.name);
+				}
+			}
+			if (tags.contains(child.name)) {
+				children.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Maps the key of each child to its position or to -1 when the key is not unique.
+	 */
+	private static Map<String, Integer> index(List<Node> children) {
+		Map<String, Integer> index = new HashMap<>(children.size() * 2);
+		for (int i = 0; i < children.size(); i++) {
+			if (index.put(children.get(i).getKey(), i) != null) {
+				index.put(children.get(i).getKey(), -1);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Removes defaults elements and combine attributes, as {@link XmlCombiner#buildDocument()} does.
+	 * @return given node or null, if it should be removed
+	 */
+	private static Node cleanup(Node node) {
+		if (node.combineSelf == CombineSelf.DEFAULTS) {
+			return null;
+		}
+		if (node.attributes != null) {
+			node.attributes.remove(COMBINE_SELF);
+			node.attributes.remove(COMBINE_CHILDREN);
+		}
+		node.combineSelf = null;
+		node.combineChildren = null;
+		boolean removed = false;
+		for (int i = 0; i < node.children.size(); i++) {
+			Node child = cleanup(node.children.get(i));
+			node.children.set(i, child);
+			removed |= child == null;
+		}
+		if (removed) {
+			node.children.removeAll(Collections.<Node>singleton(null));
+		}
+		return node;
+	}
+
+	private static Element toElement(Document document, Node node) {
+		Element element = document.createElement(node.name);
+		if (node.attributes != null) {
+			for (Map.Entry<String, String> attribute : node.attributes.entrySet()) {
+				element.setAttribute(attribute.getKey(), attribute.getValue());
+			}
+		}
+		for (Node child : node.children) {
+			if (child.before != null) {
+				element.appendChild(document.createTextNode(child.before));
+			}
+			element.appendChild(toElement(document, child));
+		}
+		if (node.text != null) {
+			element.appendChild(document.createTextNode(node.text));
+		}
+		return element;
+	}
+
+	private static boolean isBlank(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (!Character.isWhitespace(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compact representation of the XML element.
+	 */
+	private static class Node {
+		private final String name;
+		private String id;
+		private Map<String, String> attributes;
+		private List<Node> children = Collections.emptyList();
+		/**
+		 * Text preceding this element, null when there is none or it is only the whitespace.
+		 */
+		private String before;
+		/**
+		 * Text after the last child element.
+		 */
+		private String text;
+		private StringBuilder textBuilder;
+		private CombineSelf combineSelf;
+		private CombineChildren combineChildren;
+		private String key;
+
+		public Node(String name) {
+			this.name = name;
+		}
+
+		public String getKey() {
+			if (key == null) {
+				key = id == null ? name : name + '\u0000' + id;
+			}
+			return key;
+		}
+
+		public void addChild(Node child) {
+			if (textBuilder != null) {
+				String value = textBuilder.toString();
+				textBuilder = null;
+				if (!isBlank(value)) {
+					child.before = value;
+				}
+			}
+			if (children.isEmpty()) {
+				children = new ArrayList<>(4);
+			}
+			children.add(child);
+		}
+
+		public void addText(String value) {
+			if (textBuilder == null) {
+				textBuilder = new StringBuilder(value);
+			} else {
+				textBuilder.append(value);
+			}
+		}
+
+		/**
+		 * Keeps the text unless it is only the whitespace between the child elements.
+		 */
+		public void endElement() {
+			if (textBuilder != null) {
+				String value = textBuilder.toString();
+				textBuilder = null;
+				if (children.isEmpty() || !isBlank(value)) {
+					text = value;
+				}
+			}
+		}
+	}
+}
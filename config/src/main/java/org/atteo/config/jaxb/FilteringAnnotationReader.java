@@ -15,6 +15,9 @@ package org.atteo.config.jaxb;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.annotation.XmlElement;
 
@@ -26,14 +29,57 @@ import org.eclipse.persistence.jaxb.javamodel.reflection.AnnotationHelper;
 /**
  * Custom JAXB annotation reader which filters {@link XmlElement}
  * {@link XmlElement#defaultValue() default values} with properties.
+ *
+ * <p>
+ * Every default value seen is recorded together with its filtered form, so that
+ * {@link JaxbContextCache} can tell whether a context built with this reader is also valid
+ * for some other {@link PropertyFilter}.
+ * </p>
+ * <p>
+ * The reader is referenced by the JAXB context for its whole life, so once the context is created
+ * the filter should be {@link #release() released}. The values filtered so far are still returned after that.
+ * </p>
  */
 public class FilteringAnnotationReader extends AnnotationHelper {
-	private final PropertyFilter propertyFilter;
+	private volatile PropertyFilter propertyFilter;
+	private final Map<String, String> filteredValues = new ConcurrentHashMap<>();
 
 	public FilteringAnnotationReader(PropertyFilter propertyFilter) {
 		this.propertyFilter = propertyFilter;
 	}
 
+	/**
+	 * Drops the reference to the property filter, which can hold the whole configuration.
+	 *
+	 * <p>
+	 * Default values which were not filtered before are returned unchanged after this call.
+	 * </p>
+	 */
+	public void release() {
+		propertyFilter = null;
+	}
+
+	/**
+	 * Returns the default values filtered so far mapped to their filtered form.
+	 */
+	public Map<String, String> getFilteredValues() {
+		return Collections.unmodifiableMap(filteredValues);
+	}
+
+	/**
+	 * Checks whether given filter produces the same default values as the ones filtered so far.
+	 * @param filter property filter to check
+	 * @return true, if the JAXB model built with this reader is also valid for given filter
+	 */
+	public boolean isEquivalentFor(PropertyFilter filter) {
+		for (Map.Entry<String, String> entry : filteredValues.entrySet()) {
+			if (!entry.getValue().equals(filter(filter, entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public Annotation getAnnotation(AnnotatedElement elem, Class annotationClass) {
 		if (!XmlElement.class.equals(annotationClass)) {
@@ -66,18 +112,30 @@ public class FilteringAnnotationReader extends AnnotationHelper {
 
 
 
-	private Annotation filterOriginal(final XmlElement original) {
-		final String defaultValue;
+	private static String filter(PropertyFilter filter, String value) {
 		try {
-			String originalValue = original.defaultValue();
-			if ("\u0000".equals(originalValue)) {
-				return original;
-			}
-			defaultValue = propertyFilter.filter(originalValue);
-			if (defaultValue == null || defaultValue.equals(originalValue)) {
-				return original;
-			}
+			String filtered = filter.filter(value);
+			return filtered != null ? filtered : value;
 		} catch (PropertyNotFoundException e) {
+			return value;
+		}
+	}
+
+	private Annotation filterOriginal(final XmlElement original) {
+		String originalValue = original.defaultValue();
+		if ("\u0000".equals(originalValue)) {
+			return original;
+		}
+		PropertyFilter filter = propertyFilter;
+		final String defaultValue;
+		if (filter != null) {
+			defaultValue = filter(filter, originalValue);
+			filteredValues.put(originalValue, defaultValue);
+		} else {
+			String filtered = filteredValues.get(originalValue);
+			defaultValue = filtered != null ? filtered : originalValue;
+		}
+		if (defaultValue.equals(originalValue)) {
 			return original;
 		}
 
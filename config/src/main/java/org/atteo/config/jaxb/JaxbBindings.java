@@ -14,11 +14,16 @@
 package org.atteo.config.jaxb;
 
 import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 import javax.xml.bind.Binder;
 import javax.xml.bind.annotation.XmlElementWrapper;
 
+import org.atteo.config.reflection.ClassMetadata;
+import org.atteo.config.reflection.FieldAccessor;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -59,17 +64,13 @@ public class JaxbBindings {
 		@SuppressWarnings("unchecked")
 		Object object = binder.getJAXBNode(root);
 		JaxbBindings bindRecurse = new JaxbBindings(binder, runnable);
-		try {
-			bindRecurse.recurse(root, object, null);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+		bindRecurse.recurse(root, object, null);
 	}
 
-	private void recurse(Element element, Object object, @Nullable Field field)
-			throws IllegalAccessException {
+	private void recurse(Element element, Object object, @Nullable Field field) {
 		runnable.run(element, object, field);
 
+		Map<Object, FieldAccessor> fieldsByValue = null;
 		NodeList nodes = element.getChildNodes();
 		for (int i = 0; i < nodes.getLength(); i++) {
 			Node node = nodes.item(i);
@@ -79,9 +80,12 @@ public class JaxbBindings {
 			Element e = (Element) node;
 			@SuppressWarnings("unchecked")
 			Object child = binder.getJAXBNode(node);
-			Field f;
+			FieldAccessor f;
 			if (child != null) {
-				f = findFieldByValue(object, child);
+				if (fieldsByValue == null) {
+					fieldsByValue = indexFieldsByValue(object);
+				}
+				f = fieldsByValue.get(child);
 			} else {
 				f = findFieldByXmlElementWrapper(object, e.getTagName());
 				if (f == null) {
@@ -89,38 +93,46 @@ public class JaxbBindings {
 				}
 				child = f.get(object);
 			}
-			recurse(e, child, f);
+			recurse(e, child, f == null ? null : f.getField());
 		}
 	}
 
-	private static Field findFieldByValue(Object object, Object child)
-			throws IllegalAccessException {
-		Class<?> klass = object.getClass();
-		while (klass != Object.class) {
-			for (Field field : klass.getDeclaredFields()) {
-				field.setAccessible(true);
-				if (field.get(object) == child) {
-					return field;
+	/**
+	 * Maps values of the fields of given object to the fields.
+	 *
+	 * <p>
+	 * Values are compared by identity. When the same value is stored in more than one field,
+	 * the field declared in the subclass wins and then the field declared first.
+	 * </p>
+	 */
+	private static Map<Object, FieldAccessor> indexFieldsByValue(Object object) {
+		Map<Object, FieldAccessor> result = new IdentityHashMap<>();
+		List<Class<?>> ancestors = ClassMetadata.of(object.getClass()).getAncestors();
+		for (int i = ancestors.size() - 1; i >= 0; i--) {
+			for (FieldAccessor field : ClassMetadata.of(ancestors.get(i)).getDeclaredFields()) {
+				if (field.getType().isPrimitive()) {
+					continue;
+				}
+				Object value = field.get(object);
+				if (value != null) {
+					result.putIfAbsent(value, field);
 				}
 			}
-			klass = klass.getSuperclass();
 		}
-		return null;
+		return result;
 	}
 
-	private static Field findFieldByXmlElementWrapper(Object object, String name)
-			throws IllegalAccessException {
-		Class<?> klass = object.getClass();
-		while (klass != Object.class) {
-			for (Field field : klass.getDeclaredFields()) {
-				field.setAccessible(true);
+	private static FieldAccessor findFieldByXmlElementWrapper(Object object, String name) {
+		List<Class<?>> ancestors = ClassMetadata.of(object.getClass()).getAncestors();
+		for (int i = ancestors.size() - 1; i >= 0; i--) {
+			for (FieldAccessor field : ClassMetadata.of(ancestors.get(i))
+					.getDeclaredFieldsAnnotatedWith(XmlElementWrapper.class)) {
 				XmlElementWrapper annotation = field.getAnnotation(XmlElementWrapper.class);
 				// TODO: should also check namespace here
-				if (annotation != null && name.equals(annotation.name())) {
+				if (name.equals(annotation.name())) {
 					return field;
 				}
 			}
-			klass = klass.getSuperclass();
 		}
 		return null;
 	}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.config.jaxb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.atteo.filtering.PropertyFilter;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.JAXBContextProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+/**
+ * Caches {@link JAXBContext JAXB contexts} created for given set of classes.
+ *
+ * <p>
+ * Building the JAXB model is expensive. The contexts are thread-safe, so they can be shared between
+ * any number of {@link org.atteo.config.Configuration} instances. The only exception is
+ * {@link JAXBContext#generateSchema(javax.xml.bind.SchemaOutputResolver) schema generation}, which must be
+ * synchronized on the context. The context depends not only on the classes,
+ * but also on the {@link FilteringAnnotationReader filtered} {@link javax.xml.bind.annotation.XmlElement}
+ * default values, so the cached context is reused only when given {@link PropertyFilter} resolves all
+ * of them in the same way.
+ * </p>
+ * <p>
+ * Contexts are created under the lock of the given set of classes, so the concurrent callers wait for
+ * the same context instead of building duplicates, while the contexts for different classes are created
+ * concurrently. Contexts are softly referenced and will be reclaimed when memory is low.
+ * </p>
+ */
+public class JaxbContextCache {
+	private static final int MAX_CONTEXTS_PER_CLASSES = 8;
+
+	private static final Logger logger = LoggerFactory.getLogger(JaxbContextCache.class);
+
+	private static final Cache<List<Class<?>>, List<CachedContext>> cache = CacheBuilder.newBuilder()
+			.softValues()
+			.build();
+
+	private JaxbContextCache() {
+	}
+
+	/**
+	 * Returns JAXB context for given classes with {@link javax.xml.bind.annotation.XmlElement} default values
+	 * filtered using given filter.
+	 * @param klasses classes to create the context for
+	 * @param propertyFilter filter for the default values
+	 * @return cached or newly created context
+	 * @throws JAXBException when the context cannot be created
+	 */
+	public static JAXBContext getContext(Iterable<? extends Class<?>> klasses, PropertyFilter propertyFilter)
+			throws JAXBException {
+		List<Class<?>> key = ImmutableList.copyOf(klasses);
+		List<CachedContext> contexts;
+		try {
+			contexts = cache.get(key, CopyOnWriteArrayList::new);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+
+		JAXBContext context = find(contexts, propertyFilter);
+		if (context != null) {
+			return context;
+		}
+
+		synchronized (contexts) {
+			context = find(contexts, propertyFilter);
+			if (context != null) {
+				return context;
+			}
+
+			long start = System.nanoTime();
+			FilteringAnnotationReader reader = new FilteringAnnotationReader(propertyFilter);
+			Map<String, Object> properties = new HashMap<>();
+			properties.put(JAXBContextProperties.ANNOTATION_HELPER, reader);
+			context = JAXBContextFactory.createContext(Iterables.toArray(key, Class.class), properties);
+			// the cached context must not keep the configuration reachable through the filter
+			reader.release();
+			logger.debug("Created JAXB context for {} classes in {} ms", key.size(),
+					(System.nanoTime() - start) / 1000000);
+
+			if (contexts.size() >= MAX_CONTEXTS_PER_CLASSES) {
+				contexts.remove(0);
+			}
+			contexts.add(new CachedContext(reader, context));
+			return context;
+		}
+	}
+
+	private static JAXBContext find(List<CachedContext> contexts, PropertyFilter propertyFilter) {
+		for (CachedContext cached : contexts) {
+			if (cached.reader.isEquivalentFor(propertyFilter)) {
+				return cached.context;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all cached contexts.
+	 */
+	public static void clear() {
+		cache.invalidateAll();
+	}
+
+	private static class CachedContext {
+		private final FilteringAnnotationReader reader;
+		private final JAXBContext context;
+
+		public CachedContext(FilteringAnnotationReader reader, JAXBContext context) {
+			this.reader = reader;
+			this.context = context;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.config.reflection;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reflection metadata of a class computed once and shared.
+ *
+ * <p>
+ * Instances are kept in {@link ClassValue}, so they are released together with the class.
+ * All returned lists are unmodifiable. Fields are returned in the same order as {@link #getAncestors()},
+ * that is fields of the supertypes before the fields of the subtypes. Synthetic fields are skipped.
+ * </p>
+ */
+public final class ClassMetadata {
+	private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			return new ClassMetadata(type);
+		}
+	};
+
+	private final Class<?> type;
+	private final List<Class<?>> ancestors;
+	private final List<FieldAccessor> declaredFields;
+	private final List<FieldAccessor> fields;
+	private final ConcurrentMap<Class<? extends Annotation>, List<FieldAccessor>> annotatedFields
+			= new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<? extends Annotation>, List<FieldAccessor>> annotatedDeclaredFields
+			= new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Optional<Method>> methods = new ConcurrentHashMap<>();
+
+	private ClassMetadata(Class<?> type) {
+		this.type = type;
+
+		List<FieldAccessor> declared = new ArrayList<>();
+		for (Field field : type.getDeclaredFields()) {
+			if (field.isSynthetic()) {
+				continue;
+			}
+			declared.add(new FieldAccessor(field));
+		}
+		declaredFields = Collections.unmodifiableList(declared);
+
+		Class<?> superclass = type.getSuperclass();
+		if (type == Object.class || type.isInterface() || type.isPrimitive()) {
+			ancestors = Collections.emptyList();
+			fields = declaredFields;
+		} else {
+			List<Class<?>> ancestorList = new ArrayList<>();
+			List<FieldAccessor> fieldList = new ArrayList<>();
+			if (superclass != null && superclass != Object.class) {
+				ClassMetadata parent = of(superclass);
+				ancestorList.addAll(parent.ancestors);
+				fieldList.addAll(parent.fields);
+			}
+			ancestorList.add(type);
+			fieldList.addAll(declaredFields);
+			ancestors = Collections.unmodifiableList(ancestorList);
+			fields = Collections.unmodifiableList(fieldList);
+		}
+	}
+
+	/**
+	 * Returns metadata of given class.
+	 */
+	public static ClassMetadata of(Class<?> type) {
+		return METADATA.get(type);
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the class itself and all its superclasses.
+	 *
+	 * <p>
+	 * Supertypes are returned before subtypes. Object itself is not included.
+	 * </p>
+	 */
+	public List<Class<?>> getAncestors() {
+		return ancestors;
+	}
+
+	/**
+	 * Returns fields declared directly in this class.
+	 */
+	public List<FieldAccessor> getDeclaredFields() {
+		return declaredFields;
+	}
+
+	/**
+	 * Returns fields declared in this class and all its superclasses.
+	 */
+	public List<FieldAccessor> getFields() {
+		return fields;
+	}
+
+	/**
+	 * Returns fields declared in this class and all its superclasses which are annotated with given annotation.
+	 */
+	public List<FieldAccessor> getFieldsAnnotatedWith(Class<? extends Annotation> annotation) {
+		return annotatedFields.computeIfAbsent(annotation, a -> filter(fields, a));
+	}
+
+	/**
+	 * Returns fields declared directly in this class which are annotated with given annotation.
+	 */
+	public List<FieldAccessor> getDeclaredFieldsAnnotatedWith(Class<? extends Annotation> annotation) {
+		return annotatedDeclaredFields.computeIfAbsent(annotation, a -> filter(declaredFields, a));
+	}
+
+	private static List<FieldAccessor> filter(List<FieldAccessor> fields, Class<? extends Annotation> annotation) {
+		List<FieldAccessor> result = new ArrayList<>();
+		for (FieldAccessor field : fields) {
+			if (field.isAnnotationPresent(annotation)) {
+				result.add(field);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Finds method without parameters with given name in this class or in its nearest superclass.
+	 * @param methodName method name to search
+	 * @return found method or null, if not found
+	 */
+	public Method findMethod(String methodName) {
+		return methods.computeIfAbsent(methodName, name -> {
+			for (Class<?> klass = type; klass != null && klass != Object.class; klass = klass.getSuperclass()) {
+				try {
+					return Optional.of(klass.getDeclaredMethod(name));
+				} catch (NoSuchMethodException e) {
+				}
+			}
+			return Optional.empty();
+		}).orElse(null);
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.config.reflection;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Fast access to the value of a field.
+ *
+ * <p>
+ * On first use the field is made accessible and {@link MethodHandle method handle} reading or writing it
+ * is created.
+ * </p>
+ */
+public final class FieldAccessor {
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final Field field;
+	private volatile MethodHandle getter;
+	private volatile MethodHandle setter;
+
+	FieldAccessor(Field field) {
+		this.field = field;
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public String getName() {
+		return field.getName();
+	}
+
+	public Class<?> getType() {
+		return field.getType();
+	}
+
+	public <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
+		return field.getAnnotation(annotationClass);
+	}
+
+	public boolean isAnnotationPresent(Class<? extends Annotation> annotationClass) {
+		return field.isAnnotationPresent(annotationClass);
+	}
+
+	/**
+	 * Returns the value of the field.
+	 * @param target object to read the field from, ignored for static fields
+	 */
+	public Object get(Object target) {
+		MethodHandle handle = getter;
+		if (handle == null) {
+			handle = createGetter();
+			getter = handle;
+		}
+		try {
+			if (Modifier.isStatic(field.getModifiers())) {
+				return handle.invoke();
+			}
+			return handle.invokeExact(target);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Sets the value of the field.
+	 * @param target object to set the field on, ignored for static fields
+	 */
+	public void set(Object target, Object value) {
+		if (Modifier.isFinal(field.getModifiers())) {
+			// method handles do not allow writing to final fields
+			makeAccessible();
+			try {
+				field.set(target, value);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+			return;
+		}
+		MethodHandle handle = setter;
+		if (handle == null) {
+			handle = createSetter();
+			setter = handle;
+		}
+		try {
+			if (Modifier.isStatic(field.getModifiers())) {
+				handle.invoke(value);
+			} else {
+				handle.invokeExact(target, value);
+			}
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void makeAccessible() {
+		if (!field.isAccessible()) {
+			AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+				field.setAccessible(true);
+				return null;
+			});
+		}
+	}
+
+	private MethodHandle createGetter() {
+		makeAccessible();
+		try {
+			MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+			if (Modifier.isStatic(field.getModifiers())) {
+				return handle;
+			}
+			return handle.asType(GETTER_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private MethodHandle createSetter() {
+		makeAccessible();
+		try {
+			MethodHandle handle = MethodHandles.lookup().unreflectSetter(field);
+			if (Modifier.isStatic(field.getModifiers())) {
+				return handle;
+			}
+			return handle.asType(SETTER_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return field.toString();
+	}
+}
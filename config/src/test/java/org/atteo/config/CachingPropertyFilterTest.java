@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import org.atteo.config.CachingPropertyFilter.CircularPropertyReferenceException;
+import org.atteo.filtering.CompoundPropertyResolver;
+import org.atteo.filtering.OneOfPropertyResolver;
+import org.atteo.filtering.PropertiesPropertyResolver;
+import org.atteo.filtering.PropertyFilter;
+import org.atteo.filtering.PropertyNotFoundException;
+import org.atteo.filtering.PropertyResolver;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+public class CachingPropertyFilterTest {
+	@Test
+	public void shouldFilterNestedPlaceholders() throws PropertyNotFoundException {
+		// given
+		Properties properties = new Properties();
+		properties.setProperty("env", "prod");
+		properties.setProperty("host.prod", "example.com");
+		properties.setProperty("url", "http://${host.${env}}/");
+		PropertyFilter filter = new CachingPropertyFilter(new PropertiesPropertyResolver(properties));
+
+		// when
+		String result = filter.filter("${url}index.html ${env}");
+
+		// then
+		assertThat(result).isEqualTo("http://example.com/index.html prod");
+		assertThat(filter.filter("no placeholders")).isEqualTo("no placeholders");
+	}
+
+	@Test
+	public void shouldPassRawNameToResolvers() throws PropertyNotFoundException {
+		// given
+		Properties properties = new Properties();
+		properties.setProperty("webserver.host", "example.com");
+		PropertyFilter filter = new CachingPropertyFilter(new CompoundPropertyResolver(new OneOfPropertyResolver(),
+				new PropertiesPropertyResolver(properties)));
+
+		// when
+		String result = filter.filter("${oneof:${jetty.host},${webserver.host},}");
+
+		// then
+		assertThat(result).isEqualTo("example.com");
+	}
+
+	@Test
+	public void shouldResolveEachPropertyOnce() throws PropertyNotFoundException {
+		// given
+		Map<String, Integer> lookups = new HashMap<>();
+		PropertyResolver resolver = (String name, PropertyFilter filter) -> {
+			lookups.merge(name, 1, Integer::sum);
+			if (name.equals("missing")) {
+				throw new PropertyNotFoundException(name);
+			}
+			return "value";
+		};
+		PropertyFilter filter = new CachingPropertyFilter(resolver);
+
+		// when
+		for (int i = 0; i < 3; i++) {
+			filter.filter("${a}-${b}-${a}");
+			try {
+				filter.getProperty("missing");
+				fail("Expected exception");
+			} catch (PropertyNotFoundException e) {
+			}
+		}
+
+		// then
+		assertThat(lookups).containsEntry("a", 1).containsEntry("b", 1).containsEntry("missing", 1);
+	}
+
+	@Test
+	public void shouldDetectCircularReference() throws PropertyNotFoundException {
+		// given
+		Properties properties = new Properties();
+		properties.setProperty("a", "${b}");
+		properties.setProperty("b", "${c}");
+		properties.setProperty("c", "${a}");
+		PropertyFilter filter = new CachingPropertyFilter(new PropertiesPropertyResolver(properties));
+
+		// when
+		try {
+			filter.filter("${a}");
+			fail("Expected exception");
+		} catch (CircularPropertyReferenceException e) {
+			// then
+			assertThat(e.getCycle()).containsExactly("a", "b", "c", "a");
+		}
+	}
+
+	@Test
+	public void shouldResolvePropertiesFromIndexedXml() throws PropertyNotFoundException, IOException,
+			SAXException, ParserConfigurationException {
+		// given
+		Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream((""
+				+ "<config>"
+				+ "    <database><url>jdbc:${config.name}</url></database>"
+				+ "    <name>test</name>"
+				+ "</config>").getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+		PropertyFilter filter = new CachingPropertyFilter(new IndexedXmlPropertyResolver(root, true));
+
+		// when
+		String result = filter.filter("${config.database.url}");
+
+		// then
+		assertThat(result).isEqualTo("jdbc:test");
+		try {
+			filter.getProperty("database.url");
+			fail("Expected exception");
+		} catch (PropertyNotFoundException e) {
+		}
+	}
+}
@@ -232,9 +232,102 @@ public class ConfigurationTest {
 		assertThat(result.entries.get(0).intValue).isEqualTo(5);
 	}
 
+	@Test
+	public void shouldReturnElementForUnmarshalledObject() throws IOException, IncorrectConfigurationException {
+		// given
+		Configuration configuration = new Configuration();
+		configuration.combine(new ByteArrayInputStream((""
+			+ "<topLevel>"
+			+ "    <entry>"
+			+ "        <value>value</value>"
+			+ "    </entry>"
+			+ "</topLevel>").getBytes(StandardCharsets.UTF_8)));
+		Properties properties = new Properties();
+		properties.setProperty("intValue", "5");
+		configuration.filter(properties);
+
+		// when
+		TopLevel result = configuration.read(TopLevel.class);
+
+		// then
+		assertThat(configuration.getElement(result)).isSameAs(configuration.getRootElement());
+		assertThat(configuration.getElement(result.entries.get(0)).getTagName()).isEqualTo("entry");
+		assertThat(configuration.getElement(new Object())).isNull();
+	}
+
+	@Test
+	public void shouldCombineInStreamingMode() throws IOException, IncorrectConfigurationException {
+		// given
+		String parent = ""
+				+ "<topLevel>"
+				+ "    <append combine.children='append'>"
+				+ "        <entry><value>first</value></entry>"
+				+ "    </append>"
+				+ "    <middle>"
+				+ "        <entry><value>value</value></entry>"
+				+ "        <entry><value>value</value></entry>"
+				+ "    </middle>"
+				+ "    <entry id='a'><value>a</value></entry>"
+				+ "    <entry id='b' combine.self='DEFAULTS'><value>b</value></entry>"
+				+ "    <entry id='c' combine.self='DEFAULTS'><value>c</value></entry>"
+				+ "</topLevel>";
+		String child = ""
+				+ "<topLevel>"
+				+ "    <append>"
+				+ "        <entry><value>second</value></entry>"
+				+ "    </append>"
+				+ "    <middle combine.self='override'>"
+				+ "        <entry><value>value2</value></entry>"
+				+ "    </middle>"
+				+ "    <entry id='a'><value>a2</value></entry>"
+				+ "    <entry id='b'/>"
+				+ "</topLevel>";
+
+		// when
+		TopLevel top = parse(true, parent, child);
+
+		// then
+		assertThat(top.append).extracting("value").containsExactly("first", "second");
+		assertThat(top.middle.entry).extracting("value").containsExactly("value2");
+		assertThat(top.entries).extracting("value").containsExactly("a2", "b");
+	}
+
+	@Test
+	public void shouldKeepFilteredValuesWhenCombiningAfterFilterInStreamingMode() throws IOException,
+			IncorrectConfigurationException {
+		// given
+		Configuration configuration = new Configuration();
+		configuration.setStreamingCombine(true);
+		configuration.combine(new ByteArrayInputStream(("<topLevel><entry id='a'><value>${first}</value></entry>"
+				+ "</topLevel>").getBytes(StandardCharsets.UTF_8)));
+		Properties properties = new Properties();
+		properties.setProperty("first", "one");
+		properties.setProperty("intValue", "5");
+		configuration.filter(properties);
+
+		// when
+		configuration.combine(new ByteArrayInputStream(("<topLevel><entry id='b'><value>two</value></entry>"
+				+ "</topLevel>").getBytes(StandardCharsets.UTF_8)));
+		TopLevel top = configuration.read(TopLevel.class);
+
+		// then
+		assertThat(top.entries).extracting("value").containsExactly("one", "two");
+	}
+
+	@Test(expected = IncorrectConfigurationException.class)
+	public void shouldReportMalformedFileInStreamingMode() throws IOException, IncorrectConfigurationException {
+		parse(true, "<topLevel>", "<topLevel/>");
+	}
+
 	private TopLevel parse(String... documents) throws IOException,
 			IncorrectConfigurationException {
+		return parse(false, documents);
+	}
+
+	private TopLevel parse(boolean streaming, String... documents) throws IOException,
+			IncorrectConfigurationException {
 		Configuration configuration = new Configuration();
+		configuration.setStreamingCombine(streaming);
 		for (String document : documents) {
 			InputStream stream = new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
 			configuration.combine(stream);
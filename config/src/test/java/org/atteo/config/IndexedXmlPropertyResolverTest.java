@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import org.atteo.filtering.PropertyFilter;
+import org.atteo.filtering.PropertyNotFoundException;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+public class IndexedXmlPropertyResolverTest {
+	@Test
+	public void shouldResolveAttribute() throws Exception {
+		// given
+		PropertyFilter filter = filterFor("<config><jetty port='8080'/></config>");
+
+		// when
+		String result = filter.getProperty("config.jetty.port");
+
+		// then
+		assertThat(result).isEqualTo("8080");
+	}
+
+	@Test
+	public void shouldResolveUniqueDescendant() throws Exception {
+		// given
+		PropertyFilter filter = filterFor("<config><a><b><deep>value</deep></b></a></config>");
+
+		// when
+		String result = filter.getProperty("config.deep");
+
+		// then
+		assertThat(result).isEqualTo("value");
+	}
+
+	@Test
+	public void shouldPreferLongestDottedSegment() throws Exception {
+		// given
+		PropertyFilter filter = filterFor("<config><server><host>first</host></server>"
+				+ "<server.host>second</server.host></config>");
+
+		// when
+		String result = filter.getProperty("config.server.host");
+
+		// then
+		assertThat(result).isEqualTo("second");
+	}
+
+	@Test
+	public void shouldNotResolveDuplicatedElement() throws Exception {
+		// given
+		PropertyFilter filter = filterFor("<config><database><url>first</url></database>"
+				+ "<database><url>second</url></database></config>");
+
+		// when
+		try {
+			filter.getProperty("config.database.url");
+			fail("Expected exception");
+		} catch (PropertyNotFoundException e) {
+			// then
+		}
+	}
+
+	@Test
+	public void shouldSeeChangedTextContent() throws Exception {
+		// given
+		Element root = parse("<config><name>first</name></config>");
+		IndexedXmlPropertyResolver resolver = new IndexedXmlPropertyResolver(root, true);
+		resolver.getProperty("config.name");
+
+		// when
+		root.getElementsByTagName("name").item(0).setTextContent("second");
+
+		// then
+		assertThat(resolver.getProperty("config.name")).isEqualTo("second");
+	}
+
+	private static PropertyFilter filterFor(String xml) throws Exception {
+		return new CachingPropertyFilter(new IndexedXmlPropertyResolver(parse(xml), true));
+	}
+
+	private static Element parse(String xml) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.atteo.xmlcombiner.XmlCombiner;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+/**
+ * Checks that {@link StreamingXmlCombiner} produces the same result as {@link XmlCombiner}.
+ */
+public class StreamingXmlCombinerTest {
+	@Test
+	public void shouldMergeElements() throws Exception {
+		assertSameAsXmlCombiner(""
+				+ "<config>"
+				+ "    <entry id='a'><value>a</value></entry>"
+				+ "    <entry id='b'><value>b</value></entry>"
+				+ "    <other/>"
+				+ "</config>", ""
+				+ "<config>"
+				+ "    <entry id='b' attribute='x'><value>b2</value></entry>"
+				+ "    <entry id='c'><value>c</value></entry>"
+				+ "    <other/>"
+				+ "</config>");
+	}
+
+	@Test
+	public void shouldKeepDuplicatedElements() throws Exception {
+		assertSameAsXmlCombiner(""
+				+ "<config>"
+				+ "    <entry><value>first</value></entry>"
+				+ "    <entry><value>second</value></entry>"
+				+ "</config>", ""
+				+ "<config>"
+				+ "    <entry><value>third</value></entry>"
+				+ "</config>");
+	}
+
+	@Test
+	public void shouldApplyCombineAttributes() throws Exception {
+		assertSameAsXmlCombiner(""
+				+ "<config>"
+				+ "    <append combine.children='append'><entry>first</entry></append>"
+				+ "    <override><entry>first</entry><other/></override>"
+				+ "    <overridable combine.self='overridable'><entry>first</entry></overridable>"
+				+ "    <byTag combine.self='overridable_by_tag'/>"
+				+ "    <remove/>"
+				+ "    <defaults combine.self='defaults'><entry>first</entry></defaults>"
+				+ "    <unused combine.self='defaults'/>"
+				+ "</config>", ""
+				+ "<config>"
+				+ "    <append><entry>second</entry></append>"
+				+ "    <override combine.self='override'><entry>second</entry></override>"
+				+ "    <overridable><entry>second</entry></overridable>"
+				+ "    <byTag id='x'/>"
+				+ "    <remove combine.self='remove'/>"
+				+ "    <defaults><entry>second</entry></defaults>"
+				+ "</config>", ""
+				+ "<config>"
+				+ "    <append><entry>third</entry></append>"
+				+ "</config>");
+	}
+
+	@Test
+	public void shouldTakeTextFromDominantElement() throws Exception {
+		assertSameAsXmlCombiner(""
+				+ "<config>"
+				+ "    <first>recessive</first>"
+				+ "    <second>recessive</second>"
+				+ "    <third>recessive</third>"
+				+ "</config>", ""
+				+ "<config>"
+				+ "    <first>dominant</first>"
+				+ "    <second/>"
+				+ "    <third> </third>"
+				+ "</config>");
+	}
+
+	@Test
+	public void shouldKeepMixedContentInOrder() throws Exception {
+		assertSameAsXmlCombiner(""
+				+ "<config>"
+				+ "    <mixed>before <b id='1'/> between <b id='2'/> after</mixed>"
+				+ "    <matched>x<b/>y<c/>z</matched>"
+				+ "    <appended combine.children='append'>x<b/>y</appended>"
+				+ "    <removed>x<b combine.self='defaults'/>y<c/></removed>"
+				+ "</config>", ""
+				+ "<config>"
+				+ "    <mixed>one <b id='3'/> two</mixed>"
+				+ "    <matched>w<c/>v<b/></matched>"
+				+ "    <appended>q<b/>w</appended>"
+				+ "    <removed><d/></removed>"
+				+ "</config>");
+	}
+
+	private static void assertSameAsXmlCombiner(String... files) throws Exception {
+		DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		XmlCombiner combiner = new XmlCombiner(builder, "id");
+		StreamingXmlCombiner streamingCombiner = new StreamingXmlCombiner();
+		for (String file : files) {
+			combiner.combine(builder.parse(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8))));
+			streamingCombiner.combine(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+		}
+
+		Document expected = combiner.buildDocument();
+		Document actual = streamingCombiner.buildDocument(builder);
+
+		expected.normalizeDocument();
+		actual.normalizeDocument();
+		// the whitespace between the elements is not preserved by the streaming combiner
+		removeWhitespaceBetweenElements(expected.getDocumentElement());
+		assertThat(actual.getDocumentElement().isEqualNode(expected.getDocumentElement()))
+				.as("%s is not the same as %s", toString(actual), toString(expected))
+				.isTrue();
+	}
+
+	private static void removeWhitespaceBetweenElements(Node node) {
+		boolean hasElements = false;
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				hasElements = true;
+				removeWhitespaceBetweenElements(child);
+			}
+		}
+		if (!hasElements) {
+			return;
+		}
+		Node child = node.getFirstChild();
+		while (child != null) {
+			Node next = child.getNextSibling();
+			if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().trim().isEmpty()) {
+				node.removeChild(child);
+			}
+			child = next;
+		}
+	}
+
+	private static String toString(Document document) throws Exception {
+		Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+		StringWriter writer = new StringWriter();
+		transformer.transform(new DOMSource(document), new StreamResult(writer));
+		return writer.toString();
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config.jaxb;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.bind.Binder;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class JaxbBindingsTest {
+	public static class Item {
+		@XmlElement
+		String name;
+	}
+
+	public static class Base {
+		@XmlElement
+		Item item;
+	}
+
+	@XmlRootElement
+	public static class Derived extends Base {
+		@XmlTransient
+		Item alias;
+
+		@SuppressWarnings("unused")
+		private void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
+			alias = item;
+		}
+	}
+
+	@Test
+	public void shouldPreferFieldDeclaredInSubclass() throws Exception {
+		// given
+		Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(
+				"<derived><item><name>a</name></item></derived>".getBytes(StandardCharsets.UTF_8)))
+				.getDocumentElement();
+		Binder<Node> binder = JAXBContext.newInstance(Derived.class).createBinder();
+		binder.unmarshal(root);
+		Map<String, Field> fields = new HashMap<>();
+
+		// when
+		JaxbBindings.iterate(root, binder, (Element element, Object object, Field field) -> {
+			fields.put(element.getTagName(), field);
+		});
+
+		// then
+		assertThat(fields.get("item")).isEqualTo(Derived.class.getDeclaredField("alias"));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.config.jaxb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.atteo.filtering.Filtering;
+import org.atteo.filtering.PropertiesPropertyResolver;
+import org.atteo.filtering.PropertyFilter;
+import org.junit.Test;
+
+public class JaxbContextCacheTest {
+	@XmlRootElement
+	public static class WithDefault {
+		@XmlElement(defaultValue = "${value}")
+		String value;
+	}
+
+	private final List<Class<?>> klasses = Collections.<Class<?>>singletonList(WithDefault.class);
+
+	@Test
+	public void shouldReuseContextForEquivalentFilter() throws JAXBException {
+		// when
+		JAXBContext first = JaxbContextCache.getContext(klasses, filter("a"));
+		JAXBContext second = JaxbContextCache.getContext(klasses, filter("a"));
+
+		// then
+		assertThat(second).isSameAs(first);
+	}
+
+	@Test
+	public void shouldCreateNewContextWhenDefaultValueChanges() throws JAXBException {
+		// when
+		JAXBContext first = JaxbContextCache.getContext(klasses, filter("b"));
+		JAXBContext second = JaxbContextCache.getContext(klasses, filter("c"));
+
+		// then
+		assertThat(second).isNotSameAs(first);
+		assertThat(JaxbContextCache.getContext(klasses, filter("b"))).isSameAs(first);
+	}
+
+	@Test
+	public void shouldCreateSingleContextForConcurrentCallers() throws Exception {
+		// given
+		JaxbContextCache.clear();
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<JAXBContext>> futures = new ArrayList<>();
+		Callable<JAXBContext> getContext = () -> {
+			start.await();
+			return JaxbContextCache.getContext(klasses, filter("e"));
+		};
+
+		// when
+		try {
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(getContext));
+			}
+			start.countDown();
+
+			// then
+			JAXBContext first = futures.get(0).get();
+			for (Future<JAXBContext> future : futures) {
+				assertThat(future.get()).isSameAs(first);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldKeepFilteredValuesAfterReleasingFilter() throws NoSuchFieldException {
+		// given
+		FilteringAnnotationReader reader = new FilteringAnnotationReader(filter("d"));
+		reader.getAnnotation(WithDefault.class.getDeclaredField("value"), XmlElement.class);
+
+		// when
+		reader.release();
+		XmlElement element = (XmlElement) reader.getAnnotation(WithDefault.class.getDeclaredField("value"),
+				XmlElement.class);
+
+		// then
+		assertThat(element.defaultValue()).isEqualTo("d");
+		assertThat(reader.isEquivalentFor(filter("d"))).isTrue();
+	}
+
+	private static PropertyFilter filter(String value) {
+		Properties properties = new Properties();
+		properties.setProperty("value", value);
+		return Filtering.getFilter(new PropertiesPropertyResolver(properties));
+	}
+}
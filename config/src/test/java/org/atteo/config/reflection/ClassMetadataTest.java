@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.config.reflection;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class ClassMetadataTest {
+	@Retention(RetentionPolicy.RUNTIME)
+	private @interface Marked {
+	}
+
+	private static class A {
+		@Marked
+		private String first = "first";
+		private int number = 1;
+	}
+
+	private static class B extends A {
+		@Marked
+		private String second;
+	}
+
+	@Test
+	public void shouldReturnSameInstance() {
+		assertThat(ClassMetadata.of(B.class)).isSameAs(ClassMetadata.of(B.class));
+	}
+
+	@Test
+	public void shouldReturnFieldsOfSuperclassFirst() {
+		// when
+		ClassMetadata metadata = ClassMetadata.of(B.class);
+
+		// then
+		assertThat(metadata.getAncestors()).containsExactly(A.class, B.class);
+		assertThat(metadata.getFields()).extracting("name").containsExactly("first", "number", "second");
+		assertThat(metadata.getDeclaredFields()).extracting("name").containsExactly("second");
+	}
+
+	@Test
+	public void shouldReturnAnnotatedFields() {
+		// when
+		ClassMetadata metadata = ClassMetadata.of(B.class);
+
+		// then
+		assertThat(metadata.getFieldsAnnotatedWith(Marked.class)).extracting("name")
+				.containsExactly("first", "second");
+	}
+
+	@Test
+	public void shouldReadAndWriteFields() {
+		// given
+		B object = new B();
+		FieldAccessor first = ClassMetadata.of(B.class).getFields().get(0);
+		FieldAccessor number = ClassMetadata.of(B.class).getFields().get(1);
+
+		// when
+		first.set(object, "changed");
+		number.set(object, 2);
+
+		// then
+		assertThat(first.get(object)).isEqualTo("changed");
+		assertThat(number.get(object)).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldFindMethodInSuperclass() {
+		assertThat(ClassMetadata.of(B.class).findMethod("toString")).isNull();
+		assertThat(ClassMetadata.of(ClassMetadataTest.class).findMethod("shouldFindMethodInSuperclass"))
+				.isNotNull();
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.atteo.moonshine.Moonshine;
+
+import com.google.inject.servlet.GuiceFilter;
+
+/**
+ * Pool of started {@link Moonshine} containers shared between test classes.
+ *
+ * <p>
+ * Containers are pooled by the key describing their effective configuration. Each container is leased
+ * by one test class at a time. Released containers are kept idle until the number of containers exceeds
+ * the value of {@value #MAX_CONTEXTS_PROPERTY} system property (4 by default) or until the used heap exceeds
+ * the fraction of the maximum heap given by {@value #MAX_MEMORY_PROPERTY} system property (0.75 by default).
+ * Then the least recently used idle containers are closed. The remaining ones are closed on JVM shutdown.
+ * </p>
+ */
+class ContextPool {
+	public static final String MAX_CONTEXTS_PROPERTY = "moonshine.tests.maxContexts";
+	public static final String MAX_MEMORY_PROPERTY = "moonshine.tests.maxMemory";
+
+	private static final ContextPool instance = new ContextPool(Integer.getInteger(MAX_CONTEXTS_PROPERTY, 4),
+			Double.parseDouble(System.getProperty(MAX_MEMORY_PROPERTY, "0.75")));
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(instance::close));
+	}
+
+	private final int maxContexts;
+	private final double maxMemory;
+	/**
+	 * Idle contexts, the least recently used first.
+	 */
+	private final LinkedList<Context> idle = new LinkedList<>();
+	private int leased = 0;
+
+	ContextPool(int maxContexts, double maxMemory) {
+		this.maxContexts = maxContexts;
+		this.maxMemory = maxMemory;
+	}
+
+	public static ContextPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Leases idle context with given key or creates new one.
+	 * @param key effective configuration of the context
+	 * @param factory creates new context, when there is no idle context with given key
+	 * @return leased context
+	 */
+	public Context lease(Object key, Callable<Context> factory) throws Exception {
+		synchronized (this) {
+			for (Iterator<Context> iterator = idle.iterator(); iterator.hasNext();) {
+				Context context = iterator.next();
+				if (context.key.equals(key)) {
+					iterator.remove();
+					leased++;
+					context.reused = true;
+					return context;
+				}
+			}
+			leased++;
+		}
+		try {
+			Context context = factory.call();
+			context.key = key;
+			return context;
+		} catch (Exception | Error e) {
+			synchronized (this) {
+				leased--;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the context to the pool, evicting the least recently used contexts, if needed.
+	 */
+	public void release(Context context) {
+		List<Context> evicted = new ArrayList<>();
+		synchronized (this) {
+			leased--;
+			idle.addLast(context);
+			while (!idle.isEmpty() && idle.size() + leased > maxContexts) {
+				evicted.add(idle.removeFirst());
+			}
+			if (!idle.isEmpty() && isMemoryExceeded()) {
+				evicted.add(idle.removeFirst());
+			}
+		}
+		for (Context evictedContext : evicted) {
+			evictedContext.close();
+		}
+	}
+
+	/**
+	 * Closes the context instead of returning it to the pool.
+	 */
+	public void discard(Context context) {
+		synchronized (this) {
+			leased--;
+		}
+		context.close();
+	}
+
+	/**
+	 * Closes all idle contexts.
+	 */
+	public void close() {
+		List<Context> evicted;
+		synchronized (this) {
+			evicted = new ArrayList<>(idle);
+			idle.clear();
+		}
+		for (Context context : evicted) {
+			context.close();
+		}
+	}
+
+	private boolean isMemoryExceeded() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory() > runtime.maxMemory() * maxMemory;
+	}
+
+	/**
+	 * Started container together with the mocks bound in it.
+	 */
+	static class Context {
+		private final Moonshine moonshine;
+		private final Map<Class<?>, Object> mocks;
+		private final boolean parallel;
+		private Object key;
+		private boolean reused = false;
+
+		public Context(Moonshine moonshine, Map<Class<?>, Object> mocks, boolean parallel) {
+			this.moonshine = moonshine;
+			this.mocks = mocks;
+			this.parallel = parallel;
+		}
+
+		public Moonshine getMoonshine() {
+			return moonshine;
+		}
+
+		public Map<Class<?>, Object> getMocks() {
+			return mocks;
+		}
+
+		/**
+		 * Returns true, if the context was already used by some other test class.
+		 */
+		public boolean isReused() {
+			return reused;
+		}
+
+		private void close() {
+			moonshine.close();
+			if (!parallel) {
+				// Workaround for the WARNING: Multiple Servlet injectors detected.
+				new GuiceFilter().destroy();
+			}
+		}
+	}
+}
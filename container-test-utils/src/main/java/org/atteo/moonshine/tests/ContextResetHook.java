@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import org.atteo.moonshine.Moonshine;
+
+import com.google.inject.Injector;
+
+/**
+ * Resets the state of the {@link Moonshine} container before it is reused by another test class.
+ *
+ * <p>
+ * Implementations must have public no-argument constructor.
+ * </p>
+ * @see MoonshineConfiguration#reuseContext()
+ */
+public interface ContextResetHook {
+	/**
+	 * Resets the state of the container.
+	 * @param injector global injector of the container
+	 */
+	void reset(Injector injector);
+}
@@ -130,4 +130,19 @@ public @interface MoonshineConfiguration {
 	 * Specifies external configurator for Moonshine.
 	 */
 	Class<? extends MoonshineConfigurator> configurator() default MoonshineConfigurator.class;
+
+	/**
+	 * If true, the started container is reused by the following test classes with the same configuration.
+	 * <p>
+	 * The configuration consists of all the {@link MoonshineConfiguration} annotations of the test class
+	 * and its ancestors, and the types of the {@link MockAndBind mocks}. The state left by the previous test class
+	 * can be cleaned with {@link #resetHooks() reset hooks}. The value from the most specific class is used.
+	 * </p>
+	 */
+	boolean reuseContext() default false;
+
+	/**
+	 * Hooks executed before the container is reused by the test class.
+	 */
+	Class<? extends ContextResetHook>[] resetHooks() default {};
 }
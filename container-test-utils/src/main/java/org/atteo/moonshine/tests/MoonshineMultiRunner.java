@@ -55,6 +55,21 @@ public class MoonshineMultiRunner extends ParentRunner<Runner> {
 		for (List<Config> list : Sets.cartesianProduct(alternatives)) {
 			runners.add(new MoonshineRunner(klass, list));
 		}
+
+		setParallel(ParallelScheduler.isEnabled());
+	}
+
+	/**
+	 * Executes the iterations concurrently, each in the parallel mode.
+	 * @see MoonshineParallelComputer
+	 */
+	void setParallel(boolean parallel) {
+		if (parallel) {
+			setScheduler(new ParallelScheduler());
+		}
+		for (Runner runner : runners) {
+			((MoonshineRunner) runner).setParallel(parallel);
+		}
 	}
 
 	private void filterAlternatives(List<Set<Config>> alternatives, List<String> configIds) {
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import org.atteo.moonshine.Moonshine;
+import org.junit.runner.Computer;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * Runs the test classes concurrently, each inside its own {@link Moonshine} container.
+ *
+ * <p>
+ * Enables the parallel mode for the test classes it runs. Other runners in the same JVM are not affected,
+ * unless the parallel mode is enabled for all of them with 'moonshine.tests.parallel' system property.
+ * In the parallel mode:
+ * <ul>
+ *     <li>the iterations of {@link MoonshineMultiRunner} are executed concurrently,</li>
+ *     <li>the number of the containers running at the same time is limited by the available processors
+ *     and the maximum heap, see 'moonshine.tests.threads' and 'moonshine.tests.memoryPerContainer'
+ *     system properties,</li>
+ *     <li>web servers listen on the ephemeral ports, unless the port is explicitly configured,</li>
+ *     <li>each container uses its own home directory.</li>
+ * </ul>
+ * JTA transaction managers are not supported in this mode. Both BTM and Atomikos keep their state in JVM-wide
+ * singletons, so the tests which start a transaction manager must be executed sequentially.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre>
+ * JUnitCore.runClasses(new MoonshineParallelComputer(), FirstTest.class, SecondTest.class);
+ * </pre>
+ * </p>
+ * @see JUnitCore
+ */
+public class MoonshineParallelComputer extends Computer {
+	@Override
+	public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+		Runner suite = super.getSuite(builder, classes);
+		if (suite instanceof ParentRunner) {
+			((ParentRunner<?>) suite).setScheduler(new ParallelScheduler());
+		}
+		return suite;
+	}
+
+	@Override
+	protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+		Runner runner = super.getRunner(builder, testClass);
+		if (runner instanceof MoonshineRunner) {
+			((MoonshineRunner) runner).setParallel(true);
+		} else if (runner instanceof MoonshineMultiRunner) {
+			((MoonshineMultiRunner) runner).setParallel(true);
+		}
+		return runner;
+	}
+}
@@ -15,11 +15,18 @@ package org.atteo.moonshine.tests;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.atteo.filtering.PropertyFilter;
+import org.atteo.filtering.PropertyNotFoundException;
 import org.atteo.moonshine.Moonshine;
 import org.atteo.moonshine.MoonshineException;
 import org.junit.rules.MethodRule;
@@ -28,6 +35,7 @@ import org.junit.runner.Description;
 import org.junit.runner.RunWith;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.Statement;
+import org.mockito.Mockito;
 import static org.mockito.Mockito.mock;
 
 import com.google.common.collect.Lists;
@@ -58,14 +66,25 @@ import com.google.inject.servlet.GuiceFilter;
  * }
  * </pre>
  * </p>
+ * <p>
+ * When {@link #setReuseContext(boolean) context reuse} is enabled the started container is not closed
+ * after the test class, but returned to the pool and reused by the next test class with the same configuration.
+ * </p>
  */
 public class MoonshineRule implements TestRule {
 	public final static String TEST_CONFIG = "/test-config.xml";
+	private static final String WEBSERVER_PORT_PROPERTY = "webserver.port";
+	private static final AtomicInteger sharedHomeCounter = new AtomicInteger();
 	private final String[] configs;
 	private Moonshine moonshine;
-	private final Map<Class<?>, Object> mocks = new HashMap<>();
+	private Injector injector;
+	private Map<Class<?>, Object> mocks = new HashMap<>();
 	private List<MoonshineConfigurator> configurators = Collections.emptyList();
 	private boolean loadTestConfigXml;
+	private boolean reuseContext = false;
+	private final List<ContextResetHook> resetHooks = new ArrayList<>();
+	private Object configuratorsKey;
+	private boolean parallel = ParallelScheduler.isEnabled();
 
 	Map<Class<?>, Object> getMocks() {
 		return mocks;
@@ -120,8 +139,48 @@ public class MoonshineRule implements TestRule {
 		this.loadTestConfigXml = loadTestConfigXml;
 	}
 
+	/**
+	 * Enables sharing the started container between the test classes with the same configuration.
+	 *
+	 * <p>
+	 * The container is identified by the configuration resources, whether the test config is loaded,
+	 * the types of the {@link MockAndBind mocks} and the classes of the {@link MoonshineConfigurator configurators}.
+	 * Before the container is reused the mocks are reset and the {@link #addResetHook(ContextResetHook) reset hooks}
+	 * are executed. The test class is bound in the child injector, so it is not visible to the services.
+	 * </p>
+	 * @see MoonshineConfiguration#reuseContext()
+	 */
+	public void setReuseContext(boolean reuseContext) {
+		this.reuseContext = reuseContext;
+	}
+
+	/**
+	 * Registers the hook executed before the container is reused by another test class.
+	 */
+	public void addResetHook(ContextResetHook hook) {
+		resetHooks.add(hook);
+	}
+
+	/**
+	 * Prepares the container to run concurrently with other containers in the same JVM.
+	 * @see MoonshineParallelComputer
+	 */
+	void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Identifies the configurators, when they are not identified by their classes.
+	 */
+	void setConfiguratorsKey(Object configuratorsKey) {
+		this.configuratorsKey = configuratorsKey;
+	}
+
 	@Override
 	public Statement apply(final Statement base, final Description method) {
+		if (reuseContext) {
+			return applyShared(base, method.getTestClass());
+		}
 		return new Statement() {
 			@Override
 			public void evaluate() throws Throwable {
@@ -133,14 +192,86 @@ public class MoonshineRule implements TestRule {
 
 					base.evaluate();
 				}
-				// Workaround for the WARNING: Multiple Servlet injectors detected.
-				new GuiceFilter().destroy();
+				if (!parallel) {
+					// Workaround for the WARNING: Multiple Servlet injectors detected.
+					// In parallel mode it would destroy the servlet pipeline of another running container.
+					new GuiceFilter().destroy();
+				}
 				MoonshineRule.this.moonshine = null;
 			}
 		};
 	}
 
+	private Statement applyShared(final Statement base, final Class<?> testClass) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				ContextPool pool = ContextPool.getInstance();
+				ContextPool.Context context = pool.lease(getContextKey(testClass), () -> {
+					Map<Class<?>, Object> contextMocks = new HashMap<>();
+					Moonshine shared = buildMoonshine(testClass, contextMocks, true);
+					try {
+						shared.start();
+					} catch (RuntimeException e) {
+						shared.close();
+						throw e;
+					}
+					return new ContextPool.Context(shared, contextMocks, parallel);
+				});
+				try {
+					if (context.isReused()) {
+						for (Object mock : context.getMocks().values()) {
+							Mockito.reset(mock);
+						}
+						for (ContextResetHook hook : resetHooks) {
+							hook.reset(context.getMoonshine().getGlobalInjector());
+						}
+					}
+					moonshine = context.getMoonshine();
+					mocks = context.getMocks();
+					injector = moonshine.getGlobalInjector().createChildInjector((Binder binder) -> {
+						binder.bind(testClass);
+						binder.requestStaticInjection(testClass);
+					});
+				} catch (Throwable e) {
+					pool.discard(context);
+					throw e;
+				}
+				try {
+					base.evaluate();
+				} finally {
+					moonshine = null;
+					injector = null;
+					pool.release(context);
+				}
+			}
+		};
+	}
+
+	private Object getContextKey(Class<?> testClass) {
+		Object key = configuratorsKey;
+		if (key == null) {
+			List<Class<?>> configuratorClasses = new ArrayList<>();
+			for (MoonshineConfigurator configurator : configurators) {
+				configuratorClasses.add(configurator.getClass());
+			}
+			key = configuratorClasses;
+		}
+		Set<Class<?>> mockedTypes = new HashSet<>();
+		for (Field field : testClass.getDeclaredFields()) {
+			if (field.isAnnotationPresent(MockAndBind.class)) {
+				mockedTypes.add(field.getType());
+			}
+		}
+		return Arrays.asList(Arrays.asList(configs), loadTestConfigXml, mockedTypes, key);
+	}
+
 	private Moonshine buildMoonshine(final Class<?> testClass) throws MoonshineException {
+		return buildMoonshine(testClass, mocks, false);
+	}
+
+	private Moonshine buildMoonshine(final Class<?> testClass, final Map<Class<?>, Object> mocks, boolean shared)
+			throws MoonshineException {
 		try {
 			Moonshine.Builder builder = Moonshine.Factory.builder();
 
@@ -166,16 +297,33 @@ public class MoonshineRule implements TestRule {
 					binder.bind(t).toInstance(object);
 				}
 				
-				binder.requestStaticInjection(testClass);
+				if (!shared) {
+					binder.requestStaticInjection(testClass);
+				}
 			};
 
 			builder.applicationName(testClass.getSimpleName());
 
-			String threadName = Thread.currentThread().getName();
+			if (shared) {
+				// shared containers live longer than the test class, so they cannot use per-thread directory
+				builder.homeDirectory("target/test-home-shared-" + sharedHomeCounter.incrementAndGet());
+			} else {
+				String threadName = Thread.currentThread().getName();
 
-			builder.homeDirectory("target/test-home-" + threadName);
+				builder.homeDirectory("target/test-home-" + threadName);
+			}
 			builder.addDataDir("src/main");
 
+			if (parallel) {
+				// listen on ephemeral port, unless configured explicitly
+				builder.addPropertyResolver((String name, PropertyFilter filter) -> {
+					if (!WEBSERVER_PORT_PROPERTY.equals(name)) {
+						throw new PropertyNotFoundException(name);
+					}
+					return "0";
+				});
+			}
+
 			for (String config : configs) {
 				builder.addConfigurationFromResource(config);
 			}
@@ -184,7 +332,9 @@ public class MoonshineRule implements TestRule {
 				builder.addOptionalConfigurationFromResource(TEST_CONFIG);
 			}
 
-			builder.addModule(testClassModule);
+			if (!shared) {
+				builder.addModule(testClassModule);
+			}
 			builder.addModule(mocksModule);
 
 			for (MoonshineConfigurator configurator : configurators) {
@@ -199,8 +349,15 @@ public class MoonshineRule implements TestRule {
 
 	/**
 	 * Returns global {@link Injector}.
+	 *
+	 * <p>
+	 * When the context is reused, returns the child of the global injector in which the test class is bound.
+	 * </p>
 	 */
 	public Injector getGlobalInjector() {
+		if (injector != null) {
+			return injector;
+		}
 		return moonshine.getGlobalInjector();
 	}
 
@@ -28,6 +28,8 @@ import org.atteo.moonshine.tests.MoonshineConfiguration.Config;
 import org.junit.rules.MethodRule;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
@@ -54,9 +56,11 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 
 	private MoonshineRule moonshineRule = null;
 	private boolean requestPerClass = false;
+	private boolean reuseContext = false;
 	private final List<Config> iterationConfigs;
 	private final List<String> iterationIds;
 	private final Class<?> klass;
+	private boolean parallel = ParallelScheduler.isEnabled();
 
 	public MoonshineRunner(Class<?> klass) throws InitializationError {
 		super(klass);
@@ -75,6 +79,38 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 		iterationIds = getIterationIds(iterationConfigs);
 	}
 
+	/**
+	 * Runs the test class in the parallel mode.
+	 * @see MoonshineParallelComputer
+	 */
+	void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	boolean isParallel() {
+		return parallel;
+	}
+
+	@Override
+	public void run(RunNotifier notifier) {
+		if (!parallel) {
+			super.run(notifier);
+			return;
+		}
+		try {
+			ParallelScheduler.acquireContainer();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			notifier.fireTestFailure(new Failure(getDescription(), e));
+			return;
+		}
+		try {
+			super.run(notifier);
+		} finally {
+			ParallelScheduler.releaseContainer();
+		}
+	}
+
 	@Override
 	protected Object createTest() throws Exception {
 		return moonshineRule.getGlobalInjector().getInstance(getTestClass().getJavaClass());
@@ -88,16 +124,29 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 
 		final List<String> configPaths = new ArrayList<>();
 		List<MoonshineConfigurator> configurators = new ArrayList<>();
+		List<ContextResetHook> resetHooks = new ArrayList<>();
 		AtomicBoolean loadTestConfigXml = new AtomicBoolean(true);
+		List<Object> contextKey = new ArrayList<>();
 
 		for (Class<?> ancestor : ancestors) {
-			analyseAncestor(ancestor, configPaths, configurators, loadTestConfigXml);
+			analyseAncestor(ancestor, configPaths, configurators, resetHooks, loadTestConfigXml);
+			MoonshineConfiguration annotation = ancestor.getAnnotation(MoonshineConfiguration.class);
+			if (annotation != null) {
+				contextKey.add(annotation);
+			}
 		}
 
 		analyseIterationConfigs(configPaths, configurators);
+		contextKey.addAll(iterationConfigs);
 
 		moonshineRule = new MoonshineRule(configurators, configPaths.toArray(new String[configPaths.size()]));
 		moonshineRule.setLoadTestConfigXml(loadTestConfigXml.get());
+		moonshineRule.setReuseContext(reuseContext);
+		moonshineRule.setParallel(parallel);
+		moonshineRule.setConfiguratorsKey(contextKey);
+		for (ContextResetHook hook : resetHooks) {
+			moonshineRule.addResetHook(hook);
+		}
 
 		List<TestRule> rules = super.classRules();
 		if (requestPerClass) {
@@ -170,7 +219,8 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 	}
 
 	private void analyseAncestor(Class<?> ancestor, final List<String> configs,
-			List<MoonshineConfigurator> configurators, final AtomicBoolean loadTestConfigXml) {
+			List<MoonshineConfigurator> configurators, List<ContextResetHook> resetHooks,
+			final AtomicBoolean loadTestConfigXml) {
 		final MoonshineConfiguration annotation = ancestor.getAnnotation(MoonshineConfiguration.class);
 		if (annotation == null) {
 			return;
@@ -180,6 +230,7 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 			configs.add(getPathToResource(ancestor, config));
 		}
 		requestPerClass = annotation.oneRequestPerClass();
+		reuseContext = annotation.reuseContext();
 		if ((annotation.forEach().length != 0 || annotation.forCartesianProductOf().length != 0)
 				&& iterationConfigs.isEmpty()) {
 			throw new RuntimeException("Error on class " + ancestor.getName()
@@ -189,13 +240,10 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 		}
 		Class<? extends MoonshineConfigurator> configuratorKlass = annotation.configurator();
 		if (configuratorKlass != null && configuratorKlass != MoonshineConfigurator.class) {
-			try {
-				MoonshineConfigurator configurator = configuratorKlass.getConstructor().newInstance();
-				configurators.add(configurator);
-			} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-					| IllegalArgumentException | InvocationTargetException e) {
-				throw new RuntimeException(e);
-			}
+			configurators.add(instantiate(configuratorKlass));
+		}
+		for (Class<? extends ContextResetHook> hookKlass : annotation.resetHooks()) {
+			resetHooks.add(instantiate(hookKlass));
 		}
 		if (annotation.autoConfiguration() || annotation.skipDefault() || !annotation.fromString().isEmpty()
 				|| annotation.arguments().length != 0) {
@@ -216,6 +264,15 @@ public class MoonshineRunner extends BlockJUnit4ClassRunner {
 		}
 	}
 
+	private static <T> T instantiate(Class<T> klass) {
+		try {
+			return klass.getConstructor().newInstance();
+		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
+				| IllegalArgumentException | InvocationTargetException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	protected List<TestRule> getTestRules(Object target) {
 		List<TestRule> rules = super.getTestRules(target);
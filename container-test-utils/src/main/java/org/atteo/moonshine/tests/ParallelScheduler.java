@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.atteo.moonshine.Moonshine;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the children of the JUnit runner concurrently.
+ *
+ * <p>
+ * The children are executed on the shared, unbounded thread pool, but the number of {@link Moonshine} containers
+ * running at the same time is limited by the {@link #acquireContainer() container permits}. By default the number
+ * of permits is the number of available processors, reduced so the containers, each estimated to use
+ * {@value #MEMORY_PER_CONTAINER_PROPERTY} megabytes (256 by default), fit in the maximum heap.
+ * It can be also set explicitly with {@value #THREADS_PROPERTY} system property.
+ * </p>
+ */
+class ParallelScheduler implements RunnerScheduler {
+	public static final String PARALLEL_PROPERTY = "moonshine.tests.parallel";
+	public static final String THREADS_PROPERTY = "moonshine.tests.threads";
+	public static final String MEMORY_PER_CONTAINER_PROPERTY = "moonshine.tests.memoryPerContainer";
+
+	private static final AtomicInteger threadCounter = new AtomicInteger();
+	private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "moonshine-test-" + threadCounter.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final Semaphore containers = new Semaphore(getContainerPermits());
+
+	private final List<Future<?>> futures = new ArrayList<>();
+
+	/**
+	 * Returns true, if the parallel execution is enabled for all the runners with {@value #PARALLEL_PROPERTY}
+	 * system property.
+	 *
+	 * <p>
+	 * {@link MoonshineParallelComputer} enables the parallel execution only for the runners it creates.
+	 * </p>
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(PARALLEL_PROPERTY);
+	}
+
+	private static int getContainerPermits() {
+		Integer threads = Integer.getInteger(THREADS_PROPERTY);
+		if (threads != null) {
+			return Math.max(1, threads);
+		}
+		long memoryPerContainer = Long.getLong(MEMORY_PER_CONTAINER_PROPERTY, 256) * 1024 * 1024;
+		long byMemory = Runtime.getRuntime().maxMemory() / memoryPerContainer;
+		return (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), byMemory));
+	}
+
+	/**
+	 * Waits until another container can be started.
+	 */
+	public static void acquireContainer() throws InterruptedException {
+		containers.acquire();
+	}
+
+	/**
+	 * Marks the container as stopped.
+	 */
+	public static void releaseContainer() {
+		containers.release();
+	}
+
+	@Override
+	public void schedule(Runnable childStatement) {
+		synchronized (futures) {
+			futures.add(executor.submit(childStatement));
+		}
+	}
+
+	@Override
+	public void finished() {
+		List<Future<?>> scheduled;
+		synchronized (futures) {
+			scheduled = new ArrayList<>(futures);
+			futures.clear();
+		}
+		for (Future<?> future : scheduled) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				// failures are reported to the RunNotifier by the child itself
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+}
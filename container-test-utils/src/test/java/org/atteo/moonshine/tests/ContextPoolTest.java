@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.atteo.moonshine.Moonshine;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ContextPoolTest {
+	@Test
+	public void shouldReuseContextWithTheSameKey() throws Exception {
+		// given
+		ContextPool pool = new ContextPool(2, 1);
+		ContextPool.Context context = pool.lease("a", this::createContext);
+		pool.release(context);
+
+		// when
+		ContextPool.Context reused = pool.lease("a", this::createContext);
+		ContextPool.Context other = pool.lease("b", this::createContext);
+
+		// then
+		assertThat(reused).isSameAs(context);
+		assertThat(reused.isReused()).isTrue();
+		assertThat(other).isNotSameAs(context);
+		assertThat(other.isReused()).isFalse();
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedContext() throws Exception {
+		// given
+		ContextPool pool = new ContextPool(2, 1);
+		ContextPool.Context a = pool.lease("a", this::createContext);
+		ContextPool.Context b = pool.lease("b", this::createContext);
+		pool.release(a);
+		pool.release(b);
+
+		// when
+		ContextPool.Context c = pool.lease("c", this::createContext);
+		pool.release(c);
+
+		// then
+		Mockito.verify(a.getMoonshine()).close();
+		Mockito.verify(b.getMoonshine(), Mockito.never()).close();
+		assertThat(pool.lease("b", this::createContext)).isSameAs(b);
+	}
+
+	private ContextPool.Context createContext() {
+		return new ContextPool.Context(Mockito.mock(Moonshine.class), Collections.emptyMap(), false);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+import org.junit.internal.builders.AllDefaultPossibilitiesBuilder;
+
+public class ParallelSchedulerTest {
+	@Test
+	public void shouldRunChildrenConcurrently() {
+		// given
+		ParallelScheduler scheduler = new ParallelScheduler();
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicInteger finished = new AtomicInteger();
+		Runnable child = () -> {
+			latch.countDown();
+			try {
+				if (latch.await(10, TimeUnit.SECONDS)) {
+					finished.incrementAndGet();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		// when
+		scheduler.schedule(child);
+		scheduler.schedule(child);
+		scheduler.finished();
+
+		// then
+		assertThat(finished.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldEnableParallelModeOnlyForRunnersOfTheComputer() throws Throwable {
+		// given
+		MoonshineParallelComputer computer = new MoonshineParallelComputer();
+
+		// when
+		MoonshineRunner parallelRunner = (MoonshineRunner) computer.getRunner(
+				new AllDefaultPossibilitiesBuilder(true), MoonshineRunnerTest.class);
+		MoonshineRunner runner = new MoonshineRunner(MoonshineRunnerTest.class);
+
+		// then
+		assertThat(parallelRunner.isParallel()).isTrue();
+		assertThat(runner.isParallel()).isFalse();
+		assertThat(ParallelScheduler.isEnabled()).isFalse();
+	}
+}
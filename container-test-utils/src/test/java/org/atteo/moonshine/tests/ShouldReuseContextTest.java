@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.inject.Injector;
+
+@MoonshineConfiguration(fromString = ""
+		+ "<config>"
+		+ "    <simple message = 'Hello World'/>"
+		+ "</config>", reuseContext = true, resetHooks = ShouldReuseContextTest.Hook.class)
+public class ShouldReuseContextTest extends MoonshineTest {
+	public static class Hook implements ContextResetHook {
+		@Override
+		public void reset(Injector injector) {
+		}
+	}
+
+	@Inject
+	@Named("message")
+	private String message;
+
+	@MockAndBind
+	@Inject
+	private Runnable runnable;
+
+	@Test
+	public void shouldInjectTestClassFromSharedContext() {
+		assertThat(message).isEqualTo("Hello World");
+
+		runnable.run();
+		Mockito.verify(runnable).run();
+	}
+}
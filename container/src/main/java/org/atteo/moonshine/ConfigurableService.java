@@ -16,6 +16,7 @@ package org.atteo.moonshine;
 import java.util.Collections;
 
 import javax.annotation.Nonnull;
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.atteo.config.AbstractConfigurable;
@@ -32,8 +33,18 @@ import com.google.inject.Module;
  * If you want your Service to be directly under the root tag in the configuration file it should
  * extend {@link TopLevelService}.
  * </p>
+ * <p>
+ * Service can be {@link #isLazy() started on demand}, when marked with 'lazy' attribute in the configuration
+ * file or with {@link ServiceConfiguration#lazy()}.
+ * </p>
  */
 public abstract class ConfigurableService extends AbstractConfigurable implements Service {
+	/**
+	 * Whether the service should be started on demand, overrides {@link ServiceConfiguration#lazy()}.
+	 */
+	@XmlAttribute
+	private Boolean lazy;
+
 	@EmptyImplementation
 	@Override
 	public Module configure() {
@@ -60,4 +71,13 @@ public abstract class ConfigurableService extends AbstractConfigurable implement
 	public Iterable<? extends Service> getSubServices() {
 		return Collections.emptyList();
 	}
+
+	@Override
+	public boolean isLazy() {
+		if (lazy != null) {
+			return lazy;
+		}
+		ServiceConfiguration annotation = getClass().getAnnotation(ServiceConfiguration.class);
+		return annotation != null && annotation.lazy();
+	}
 }
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlTransient;
+
+import org.atteo.config.reflection.ClassMetadata;
+import org.atteo.config.reflection.FieldAccessor;
+import org.atteo.moonshine.services.ImportService;
+import org.atteo.moonshine.services.Service;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Differences between the configuration of the running services and the newly read configuration.
+ *
+ * <p>
+ * Services are matched by their position in the services tree. Service is considered changed when the
+ * XML element it was read from differs, ignoring the elements of its sub-services. When any service was added,
+ * removed or replaced the {@link #isStructureChanged() structure is changed} and the services need to
+ * be recreated.
+ * </p>
+ */
+class ConfigurationChanges {
+	private final Map<Service, Service> changedServices = new IdentityHashMap<>();
+	private final Map<Service, Element> elements = new IdentityHashMap<>();
+	private boolean structureChanged = false;
+
+	private ConfigurationChanges() {
+	}
+
+	/**
+	 * Returns the XML elements from which given services were read.
+	 * @param root root of the services tree
+	 * @param reader reader which read the services
+	 * @return map from service to the element
+	 */
+	public static Map<Service, Element> getElements(Service root, ConfigurationReader reader) {
+		Map<Service, Element> elements = new IdentityHashMap<>();
+		if (root != null) {
+			addElements(elements, root, reader);
+		}
+		return elements;
+	}
+
+	private static void addElements(Map<Service, Element> elements, Service service, ConfigurationReader reader) {
+		elements.put(service, reader.getElement(service));
+		for (Service subService : service.getSubServices()) {
+			addElements(elements, subService, reader);
+		}
+	}
+
+	/**
+	 * Compares the running services with the newly read ones.
+	 * @param running root of the running services tree
+	 * @param runningElements XML elements from which the running services were read
+	 * @param updated root of the newly read services tree
+	 * @param reader reader which read the new services
+	 * @return found changes
+	 */
+	public static ConfigurationChanges compare(Service running, Map<Service, Element> runningElements,
+			Service updated, ConfigurationReader reader) {
+		ConfigurationChanges changes = new ConfigurationChanges();
+		if (running == null || updated == null) {
+			changes.structureChanged = running != updated;
+		} else {
+			changes.compareServices(running, runningElements, updated, reader);
+		}
+		return changes;
+	}
+
+	private void compareServices(Service running, Map<Service, Element> runningElements, Service updated,
+			ConfigurationReader reader) {
+		if (running.getClass() != updated.getClass() || !Objects.equals(running.getId(), updated.getId())) {
+			structureChanged = true;
+			return;
+		}
+		List<Service> runningSubServices = Lists.newArrayList(running.getSubServices());
+		List<Service> updatedSubServices = Lists.newArrayList(updated.getSubServices());
+		if (runningSubServices.size() != updatedSubServices.size()) {
+			structureChanged = true;
+			return;
+		}
+
+		Element runningElement = runningElements.get(running);
+		Element updatedElement = reader.getElement(updated);
+		elements.put(running, updatedElement);
+
+		Set<Node> runningSkipped = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Service subService : runningSubServices) {
+			runningSkipped.add(runningElements.get(subService));
+		}
+		Set<Node> updatedSkipped = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Service subService : updatedSubServices) {
+			updatedSkipped.add(reader.getElement(subService));
+		}
+		if (!isEqual(runningElement, runningSkipped, updatedElement, updatedSkipped)) {
+			changedServices.put(running, updated);
+		}
+
+		for (int i = 0; i < runningSubServices.size() && !structureChanged; i++) {
+			compareServices(runningSubServices.get(i), runningElements, updatedSubServices.get(i), reader);
+		}
+	}
+
+	/**
+	 * Checks whether there are no changes at all.
+	 */
+	public boolean isEmpty() {
+		return !structureChanged && changedServices.isEmpty();
+	}
+
+	/**
+	 * Checks whether any service was added, removed or replaced with service of different type or id.
+	 */
+	public boolean isStructureChanged() {
+		return structureChanged;
+	}
+
+	/**
+	 * Checks whether the changes can be applied by restarting the changed services.
+	 * @see ServiceConfiguration#reloadable()
+	 */
+	public boolean isReloadable() {
+		if (structureChanged) {
+			return false;
+		}
+		for (Service service : changedServices.keySet()) {
+			ServiceConfiguration annotation = service.getClass().getAnnotation(ServiceConfiguration.class);
+			if (annotation == null || !annotation.reloadable()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns changed services.
+	 * @return map from running service to its newly read counterpart
+	 */
+	public Map<Service, Service> getChangedServices() {
+		return changedServices;
+	}
+
+	/**
+	 * Returns the XML elements from which the running services will be read after {@link #apply()}.
+	 */
+	public Map<Service, Element> getElements() {
+		return elements;
+	}
+
+	/**
+	 * Copies configuration from the newly read services into the running ones.
+	 *
+	 * <p>
+	 * Only fields mapped from XML are copied. Fields holding services, imported services and injected members
+	 * are left intact.
+	 * </p>
+	 */
+	public void apply() {
+		for (Map.Entry<Service, Service> entry : changedServices.entrySet()) {
+			copyConfiguration(entry.getValue(), entry.getKey());
+		}
+	}
+
+	private static void copyConfiguration(Service from, Service to) {
+		for (FieldAccessor field : ClassMetadata.of(to.getClass()).getFields()) {
+			if (Modifier.isStatic(field.getField().getModifiers()) || !isConfigurationField(field.getField())) {
+				continue;
+			}
+			Object value = field.get(from);
+			if (containsService(value) || containsService(field.get(to))) {
+				continue;
+			}
+			field.set(to, value);
+		}
+	}
+
+	private static boolean isConfigurationField(Field field) {
+		if (field.isAnnotationPresent(XmlTransient.class) || field.isAnnotationPresent(XmlIDREF.class)
+				|| field.isAnnotationPresent(ImportService.class) || field.isAnnotationPresent(Inject.class)
+				|| field.isAnnotationPresent(com.google.inject.Inject.class)) {
+			return false;
+		}
+		for (Annotation annotation : field.getAnnotations()) {
+			if (annotation.annotationType().getPackage() == XmlTransient.class.getPackage()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsService(Object value) {
+		if (value instanceof Service) {
+			return true;
+		}
+		if (value instanceof Iterable) {
+			for (Object element : (Iterable<?>) value) {
+				if (element instanceof Service) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isEqual(Element first, Set<Node> firstSkipped, Element second, Set<Node> secondSkipped) {
+		if (first == null || second == null) {
+			return first == second;
+		}
+		if (!first.getTagName().equals(second.getTagName())) {
+			return false;
+		}
+
+		NamedNodeMap firstAttributes = first.getAttributes();
+		NamedNodeMap secondAttributes = second.getAttributes();
+		if (firstAttributes.getLength() != secondAttributes.getLength()) {
+			return false;
+		}
+		for (int i = 0; i < firstAttributes.getLength(); i++) {
+			Node attribute = firstAttributes.item(i);
+			if (!second.hasAttribute(attribute.getNodeName())
+					|| !second.getAttribute(attribute.getNodeName()).equals(attribute.getNodeValue())) {
+				return false;
+			}
+		}
+
+		List<Node> firstChildren = getSignificantChildren(first, firstSkipped);
+		List<Node> secondChildren = getSignificantChildren(second, secondSkipped);
+		if (firstChildren.size() != secondChildren.size()) {
+			return false;
+		}
+		for (int i = 0; i < firstChildren.size(); i++) {
+			Node firstChild = firstChildren.get(i);
+			Node secondChild = secondChildren.get(i);
+			if (firstChild instanceof Element && secondChild instanceof Element) {
+				if (!isEqual((Element) firstChild, firstSkipped, (Element) secondChild, secondSkipped)) {
+					return false;
+				}
+			} else if (firstChild instanceof Element || secondChild instanceof Element) {
+				return false;
+			} else if (!firstChild.getNodeValue().trim().equals(secondChild.getNodeValue().trim())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<Node> getSignificantChildren(Element element, Set<Node> skipped) {
+		List<Node> result = new ArrayList<>();
+		NodeList children = element.getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			Node child = children.item(i);
+			switch (child.getNodeType()) {
+				case Node.ELEMENT_NODE:
+					if (!skipped.contains(child)) {
+						result.add(child);
+					}
+					break;
+				case Node.TEXT_NODE:
+				case Node.CDATA_SECTION_NODE:
+					if (!child.getNodeValue().trim().isEmpty()) {
+						result.add(child);
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		return result;
+	}
+}
@@ -22,11 +22,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
-import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
@@ -36,22 +37,27 @@ import org.atteo.classindex.ClassFilter;
 import org.atteo.classindex.ClassIndex;
 import org.atteo.config.Configuration;
 import org.atteo.config.IncorrectConfigurationException;
+import org.atteo.config.IndexedXmlPropertyResolver;
 import org.atteo.config.XmlDefaultValue;
 import org.atteo.config.XmlUtils;
+import org.atteo.config.reflection.ClassMetadata;
+import org.atteo.config.reflection.FieldAccessor;
 import org.atteo.filtering.CompoundPropertyResolver;
 import org.atteo.filtering.EnvironmentPropertyResolver;
 import org.atteo.filtering.OneOfPropertyResolver;
 import org.atteo.filtering.PropertyResolver;
 import org.atteo.filtering.SystemPropertyResolver;
-import org.atteo.filtering.XmlPropertyResolver;
 import org.atteo.moonshine.directories.FileAccessor;
 import org.atteo.moonshine.services.Service;
 import org.atteo.xmlcombiner.CombineSelf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 import com.google.common.base.CaseFormat;
 import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 
 public class ConfigurationReader {
 	public final static String SCHEMA_FILE_NAME = "schema.xsd";
@@ -63,12 +69,52 @@ public class ConfigurationReader {
 	private final CompoundPropertyResolver customPropertyResolvers = new CompoundPropertyResolver();
 	private PropertyResolver propertyResolver = null;
 	private final FileAccessor fileAccessor;
+	private ConfigurationSnapshot snapshot;
+	private final List<byte[]> pendingSources = new ArrayList<>();
+	private boolean pendingSourcesCombined = false;
+	private final Logger logger = LoggerFactory.getLogger("Moonshine");
 
 	public ConfigurationReader(FileAccessor fileAccessor) {
 		this.fileAccessor = fileAccessor;
 	}
 
+	/**
+	 * Enables combining configuration files with {@link org.atteo.config.StreamingXmlCombiner}.
+	 * @see Configuration#setStreamingCombine(boolean)
+	 */
+	public void setStreamingCombine(boolean streamingCombine) {
+		configuration.setStreamingCombine(streamingCombine);
+	}
+
+	/**
+	 * Enables the snapshot of the combined configuration stored in given file.
+	 *
+	 * <p>
+	 * Must be called before any configuration source is combined.
+	 * Configuration sources are only buffered until {@link #filter()} is called. If the snapshot is still valid
+	 * for them, it is read instead of combining the sources. Otherwise the snapshot is updated.
+	 * The snapshot is not used when the sources are combined earlier, for instance by {@link #printCombinedXml()}.
+	 * </p>
+	 * @param file file with the snapshot
+	 */
+	public void enableSnapshot(Path file) {
+		snapshot = new ConfigurationSnapshot(file);
+	}
+
 	public void filter() throws IncorrectConfigurationException {
+		if (snapshot != null) {
+			byte[] xml = pendingSourcesCombined ? null : snapshot.load();
+			if (xml != null) {
+				logger.debug("Configuration restored from snapshot");
+				pendingSources.clear();
+				combineBuffered(xml);
+			} else {
+				combinePendingSources();
+				snapshot.save(configuration.getRootElement());
+			}
+			snapshot = null;
+		}
+
 		Element propertiesElement = null;
 		if (configuration.getRootElement() != null) {
 			NodeList nodesList = configuration.getRootElement().getElementsByTagName("properties");
@@ -81,17 +127,56 @@ public class ConfigurationReader {
 				new OneOfPropertyResolver(),
 				new SystemPropertyResolver(),
 				new EnvironmentPropertyResolver(),
-				new XmlPropertyResolver(propertiesElement, false),
+				new IndexedXmlPropertyResolver(propertiesElement, false),
 				customPropertyResolvers,
-				new XmlPropertyResolver(configuration.getRootElement(), true));
+				new IndexedXmlPropertyResolver(configuration.getRootElement(), true));
 
 		configuration.filter(propertyResolver);
 	}
 
+	/**
+	 * Combines given source or, when the snapshot is enabled, buffers it until {@link #filter()} is called.
+	 */
+	private void combineSource(InputStream stream) throws IncorrectConfigurationException, IOException {
+		if (snapshot == null) {
+			configuration.combine(stream);
+			return;
+		}
+		byte[] source = ByteStreams.toByteArray(stream);
+		snapshot.addSource(source);
+		pendingSources.add(source);
+	}
+
+	private void combineBuffered(byte[] source) throws IncorrectConfigurationException {
+		try {
+			configuration.combine(new ByteArrayInputStream(source));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void combinePendingSources() throws IncorrectConfigurationException {
+		if (snapshot != null) {
+			pendingSourcesCombined = true;
+		}
+		for (byte[] source : pendingSources) {
+			combineBuffered(source);
+		}
+		pendingSources.clear();
+	}
+
 	public Config read() throws IncorrectConfigurationException {
 		return configuration.read(Config.class);
 	}
 
+	/**
+	 * Returns the XML element from which given object was read.
+	 * @see Configuration#getElement(Object)
+	 */
+	public Element getElement(Object object) {
+		return configuration.getElement(object);
+	}
+
 	public PropertyResolver getPropertyResolver() {
 		return propertyResolver;
 	}
@@ -194,7 +279,7 @@ public class ConfigurationReader {
 		// TODO: what if more than one resource with given name?
 		try(InputStream stream = getClass().getResourceAsStream(resourcePath)) {
 			if (stream != null) {
-				configuration.combine(stream);
+				combineSource(stream);
 			} else if (throwIfNotFound) {
 				throw new RuntimeException("Configuration resource not found: " + resourcePath);
 			}
@@ -203,7 +288,7 @@ public class ConfigurationReader {
 
 	public void combineConfigurationFromStream(InputStream stream)
 			throws IncorrectConfigurationException, IOException {
-		configuration.combine(stream);
+		combineSource(stream);
 	}
 
 	/**
@@ -223,7 +308,7 @@ public class ConfigurationReader {
 			}
 		}
 		try(InputStream stream = new FileInputStream(file)) {
-			configuration.combine(stream);
+			combineSource(stream);
 		}
 	}
 
@@ -234,13 +319,18 @@ public class ConfigurationReader {
 	 */
 	public void combineConfigurationFromString(String string) throws IncorrectConfigurationException {
 		try (InputStream stream = new ByteArrayInputStream(string.getBytes(Charsets.UTF_8))) {
-			configuration.combine(stream);
+			combineSource(stream);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	public String printCombinedXml() {
+		try {
+			combinePendingSources();
+		} catch (IncorrectConfigurationException e) {
+			throw new RuntimeException(e);
+		}
 		return XmlUtils.prettyPrint(configuration.getRootElement());
 	}
 
@@ -265,21 +355,18 @@ public class ConfigurationReader {
 	}
 
 	private static boolean containsRequiredFieldWithoutDefault(Class<?> type) {
-		while (type != Object.class) {
-			for (Field field : type.getDeclaredFields()) {
-				if (field.isAnnotationPresent(XmlDefaultValue.class)) {
-					continue;
-				}
-				XmlElement annotation = field.getAnnotation(XmlElement.class);
-				XmlAttribute annotation2 = field.getAnnotation(XmlAttribute.class);
-				if (annotation != null && annotation.required()) {
-					return true;
-				}
-				if (annotation2 != null && annotation2.required()) {
-					return true;
-				}
+		for (FieldAccessor field : ClassMetadata.of(type).getFields()) {
+			if (field.isAnnotationPresent(XmlDefaultValue.class)) {
+				continue;
+			}
+			XmlElement annotation = field.getAnnotation(XmlElement.class);
+			XmlAttribute annotation2 = field.getAnnotation(XmlAttribute.class);
+			if (annotation != null && annotation.required()) {
+				return true;
+			}
+			if (annotation2 != null && annotation2.required()) {
+				return true;
 			}
-			type = type.getSuperclass();
 		}
 		return false;
 	}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+/**
+ * Snapshot of the combined configuration.
+ *
+ * <p>
+ * The snapshot is valid as long as the same configuration sources are combined. To check this
+ * the snapshot stores the SHA-256 fingerprint of all the sources.
+ * </p>
+ * <p>
+ * Only the combined configuration before filtering is stored, so the snapshot does not depend on
+ * the values of the properties and does not contain any values resolved from outside of the configuration files.
+ * The snapshot is stored in a compact gzipped binary file which, where supported, is readable only by its owner.
+ * </p>
+ */
+class ConfigurationSnapshot {
+	private static final int MAGIC = 0x4d534e50;
+	private static final int VERSION = 2;
+
+	private final Logger logger = LoggerFactory.getLogger("Moonshine");
+	private final Path file;
+	private final MessageDigest digest;
+	private byte[] fingerprint;
+
+	public ConfigurationSnapshot(Path file) {
+		this.file = file;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Adds configuration source to the fingerprint.
+	 */
+	public void addSource(byte[] source) {
+		if (fingerprint != null) {
+			throw new IllegalStateException("Snapshot was already loaded or saved");
+		}
+		digest.update(intToBytes(source.length));
+		digest.update(source);
+	}
+
+	/**
+	 * Loads the snapshot, if it is still valid.
+	 * @return the combined configuration or null, if the snapshot is missing or not valid
+	 */
+	public byte[] load() {
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try (DataInputStream input = new DataInputStream(new GZIPInputStream(
+				new BufferedInputStream(Files.newInputStream(file))))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				return null;
+			}
+			if (!Arrays.equals(readBytes(input), getFingerprint())) {
+				logger.debug("Configuration snapshot is outdated, configuration sources have changed");
+				return null;
+			}
+			return readBytes(input);
+		} catch (IOException e) {
+			logger.warn("Cannot read configuration snapshot " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Saves the snapshot.
+	 * @param root root element of the combined configuration, before it is filtered
+	 */
+	public void save(Element root) {
+		try {
+			ByteArrayOutputStream xml = new ByteArrayOutputStream();
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.transform(new DOMSource(root), new StreamResult(xml));
+
+			Files.createDirectories(file.getParent());
+			// temporary files are created with owner only permissions
+			Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporary))))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				writeBytes(output, getFingerprint());
+				writeBytes(output, xml.toByteArray());
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | TransformerException e) {
+			logger.warn("Cannot save configuration snapshot " + file, e);
+		}
+	}
+
+	private byte[] getFingerprint() {
+		if (fingerprint == null) {
+			fingerprint = digest.digest();
+		}
+		return fingerprint;
+	}
+
+	private static byte[] intToBytes(int value) {
+		return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+	}
+
+	private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return bytes;
+	}
+}
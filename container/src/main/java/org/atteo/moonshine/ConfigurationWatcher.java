@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches configuration files for changes.
+ *
+ * <p>
+ * Directories containing given files are registered with {@link WatchService}. When any of the files is created,
+ * modified or deleted the watcher waits until no more changes arrive for a short moment, so the editors can finish
+ * writing, and then executes provided action.
+ * </p>
+ */
+class ConfigurationWatcher implements AutoCloseable {
+	private static final long QUIET_PERIOD_MS = 500;
+
+	private final Logger logger = LoggerFactory.getLogger("Moonshine");
+	private final Set<Path> files = new HashSet<>();
+	private final Runnable action;
+	private final WatchService watchService;
+	private final Thread thread;
+
+	public ConfigurationWatcher(Iterable<Path> files, Runnable action) throws IOException {
+		this.action = action;
+		watchService = FileSystems.getDefault().newWatchService();
+		Set<Path> directories = new HashSet<>();
+		for (Path file : files) {
+			Path absolute = file.toAbsolutePath().normalize();
+			this.files.add(absolute);
+			Path directory = absolute.getParent();
+			if (directory != null && Files.isDirectory(directory) && directories.add(directory)) {
+				directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+			}
+		}
+		logger.info("Watching configuration files in {}", directories);
+
+		thread = new Thread(this::watch, "moonshine-config-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				if (!process(watchService.take())) {
+					continue;
+				}
+				WatchKey key;
+				while ((key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+					process(key);
+				}
+				try {
+					action.run();
+				} catch (RuntimeException e) {
+					logger.error("Cannot reload configuration", e);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// watcher was closed
+		}
+	}
+
+	/**
+	 * Consumes the events from given key.
+	 * @return true, if any of the watched files has changed
+	 */
+	private boolean process(WatchKey key) {
+		boolean changed = false;
+		Path directory = (Path) key.watchable();
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				changed = true;
+			} else if (files.contains(directory.resolve((Path) event.context()))) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+
+	@Override
+	public void close() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (thread != Thread.currentThread()) {
+			thread.interrupt();
+		}
+	}
+}
@@ -27,8 +27,10 @@ import org.atteo.filtering.XmlPropertyResolver;
 import org.atteo.moonshine.directories.FileAccessor;
 import org.atteo.moonshine.logging.Logback;
 import org.atteo.moonshine.logging.Logging;
+import org.atteo.moonshine.services.BootProfile;
 import org.atteo.moonshine.services.LifeCycleListener;
 import org.atteo.moonshine.services.Service;
+import org.atteo.moonshine.services.Services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -204,6 +206,49 @@ public interface Moonshine extends AutoCloseable {
 		 */
 		Builder addParameterProcessor(ParameterProcessor parameterProcessor);
 
+		/**
+		 * Sets the maximum number of services started or stopped at the same time.
+		 *
+		 * <p>
+		 * Can be overridden with '--parallelism' command line parameter.
+		 * </p>
+		 * @see Services.Builder#parallelism(int)
+		 */
+		Builder parallelism(int threads);
+
+		/**
+		 * Enables watching configuration files for changes.
+		 *
+		 * <p>
+		 * When enabled {@link Moonshine#reload()} is executed whenever config.xml or config.properties file
+		 * is modified. Can also be enabled with '--watch-config' command line parameter.
+		 * </p>
+		 */
+		Builder watchConfiguration(boolean watch);
+
+		/**
+		 * Enables combining configuration files in a single streaming pass.
+		 *
+		 * <p>
+		 * Configuration files are read with StAX and merged into one compact tree instead of being parsed
+		 * into separate DOM documents. Recommended when the configuration consists of many or large files.
+		 * </p>
+		 * @see Configuration#setStreamingCombine(boolean)
+		 */
+		Builder streamingCombiner(boolean streaming);
+
+		/**
+		 * Enables the startup snapshot of the configuration.
+		 *
+		 * <p>
+		 * The combined configuration is stored in the cache directory together with the fingerprint
+		 * of the configuration files. On the next start, if the files have not changed, the configuration is read
+		 * from the snapshot instead of combining all the configuration files. The snapshot is stored before
+		 * filtering, so it does not contain the values of the properties.
+		 * </p>
+		 */
+		Builder startupSnapshot(boolean snapshot);
+
 		@Override
 		Builder shutdownHook(boolean shutdownHook);
 
@@ -291,12 +336,40 @@ public interface Moonshine extends AutoCloseable {
 	 */
 	void stop();
 
+	/**
+	 * Reads configuration files again and applies the changes.
+	 *
+	 * <p>
+	 * When only the configuration of {@link ServiceConfiguration#reloadable() reloadable} services has changed,
+	 * those services, their sub-services and the services which depend on them are restarted with the new
+	 * configuration. Other services keep running and the global injector is retained. Otherwise all services
+	 * are stopped and recreated with the new global injector. The old services are closed after the new ones
+	 * have started. When the new services cannot be created or started, the old ones are started again.
+	 * </p>
+	 * <p>
+	 * Reload is serialized with {@link #start()}, {@link #stop()} and {@link #close()}.
+	 * </p>
+	 * @throws IOException when configuration could not be accessed
+	 * @throws MoonshineException when configuration is incorrect
+	 */
+	void reload() throws MoonshineException, IOException;
+
 	/**
 	 * Returns the global injector of the Moonshine.
 	 * @return Moonshine global injector
 	 */
 	Injector getGlobalInjector();
 
+	/**
+	 * Returns the time spent in each startup phase.
+	 *
+	 * <p>
+	 * The profile is complete after the first {@link #start()}. At that moment it is also logged
+	 * and stored in JSON format in ${logHome}/boot-profile.json file.
+	 * </p>
+	 */
+	BootProfile getBootProfile();
+
 	/**
 	 * Stops Moonshine framework.
 	 */
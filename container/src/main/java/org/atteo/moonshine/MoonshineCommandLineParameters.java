@@ -43,6 +43,12 @@ public class MoonshineCommandLineParameters {
 	@Parameter(names = "--print-guice-bindings", description = "Print all bindings registered in Guice")
 	private boolean printGuiceBindings;
 
+	@Parameter(names = "--parallelism", description = "Maximum number of services started at the same time")
+	private Integer parallelism;
+
+	@Parameter(names = "--watch-config", description = "Reload configuration when configuration files change")
+	private boolean watchConfiguration;
+
 	@Parameter(names = { "-h", "--help" }, description = "Show help", help = true)
 	private boolean help;
 
@@ -70,6 +76,14 @@ public class MoonshineCommandLineParameters {
 		return printGuiceBindings;
 	}
 
+	public Integer getParallelism() {
+		return parallelism;
+	}
+
+	public boolean isWatchConfiguration() {
+		return watchConfiguration;
+	}
+
 	public boolean isHelp() {
 		return help;
 	}
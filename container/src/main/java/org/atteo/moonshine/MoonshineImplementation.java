@@ -17,12 +17,14 @@ package org.atteo.moonshine;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.atteo.config.IncorrectConfigurationException;
@@ -36,11 +38,14 @@ import org.atteo.moonshine.directories.FileAccessorFactory;
 import org.atteo.moonshine.directories.SubdirectoryLayout;
 import org.atteo.moonshine.logging.Logback;
 import org.atteo.moonshine.logging.Logging;
+import org.atteo.moonshine.services.BootProfile;
 import org.atteo.moonshine.services.LifeCycleListener;
+import org.atteo.moonshine.services.Service;
 import org.atteo.moonshine.services.Services;
 import org.atteo.moonshine.services.internal.GuiceBindingsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
@@ -50,6 +55,10 @@ import com.google.inject.Key;
 import com.google.inject.Module;
 
 class MoonshineImplementation implements Moonshine.Builder, Moonshine {
+	public final static String BOOT_PROFILE_FILE_NAME = "boot-profile.json";
+	public final static String CONFIG_PROPERTIES_FILE_NAME = "config.properties";
+	public final static String SNAPSHOT_FILE_NAME = "config-snapshot.bin";
+
 	private final Thread shutdownThread = new Thread() {
 		@Override
 		public void run() {
@@ -70,7 +79,16 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 	}
 
 	private Logger logger;
-	private Services services;
+	private volatile Services services;
+	private BootProfile profile;
+	private FileAccessor fileAccessor;
+	private Properties fileAccessorProperties;
+	private MoonshineCommandLineParameters moonshineParameters;
+	private Config config;
+	private Map<Service, Element> configElements;
+	private Properties configProperties;
+	private ConfigurationWatcher watcher;
+	private boolean started = false;
 	private Logging logging;
 	private FileAccessorFactory fileAccessorFactory;
 	private String applicationName;
@@ -89,6 +107,10 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 	private boolean autoConfiguration = false;
 	private boolean skipDefaultConfigurationFile = false;
 	private boolean skipExceptionHandler = false;
+	private int parallelism = 1;
+	private boolean watchConfiguration = false;
+	private boolean streamingCombiner = false;
+	private boolean startupSnapshot = false;
 
 	@Override
 	public Builder applicationName(String applicationName) {
@@ -120,6 +142,30 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 		return this;
 	}
 
+	@Override
+	public Builder parallelism(int threads) {
+		this.parallelism = threads;
+		return this;
+	}
+
+	@Override
+	public Builder watchConfiguration(boolean watch) {
+		this.watchConfiguration = watch;
+		return this;
+	}
+
+	@Override
+	public Builder streamingCombiner(boolean streaming) {
+		this.streamingCombiner = streaming;
+		return this;
+	}
+
+	@Override
+	public Builder startupSnapshot(boolean snapshot) {
+		this.startupSnapshot = snapshot;
+		return this;
+	}
+
 	@Override
 	public Builder addParameterProcessor(ParameterProcessor processor) {
 		this.parameterProcessors.add(processor);
@@ -132,6 +178,8 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 			Thread.currentThread().setUncaughtExceptionHandler(new MoonshineUncaughtExceptionHandler());
 		}
 
+		profile = new BootProfile();
+
 		if (logging == null) {
 			logging = new Logback();
 		}
@@ -142,10 +190,11 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 		logger = LoggerFactory.getLogger("Moonshine");
 		logger.info("Bootstrapping {}", applicationName != null ? applicationName : "Moonshine");
 
+		BootProfile.Phase phase = profile.start("parse command line");
 		fileAccessorFactory = new DefaultFileAccessor();
 
 		JCommander commander = new JCommander();
-		MoonshineCommandLineParameters moonshineParameters = new MoonshineCommandLineParameters();
+		moonshineParameters = new MoonshineCommandLineParameters();
 		commander.setProgramName(applicationName);
 		commander.addObject(moonshineParameters);
 		commander.addObject(logging.getParameters());
@@ -190,43 +239,93 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 			return null;
 		}
 
-		FileAccessor fileAccessor = fileAccessorFactory.getFileAccessor();
-		Properties fileAccessorProperties = fileAccessor.getProperties();
+		phase.close();
+
+		phase = profile.start("initialize logging");
+		fileAccessor = fileAccessorFactory.getFileAccessor();
+		fileAccessorProperties = fileAccessor.getProperties();
 		fileAccessorProperties.setProperty("applicationName", applicationName);
 		logging.initialize(fileAccessor, fileAccessorProperties);
+		phase.close();
 
 		final ConfigurationReader configuration = new ConfigurationReader(fileAccessor);
-		Config config;
+		configuration.setStreamingCombine(streamingCombiner);
+		if (startupSnapshot) {
+			configuration.enableSnapshot(fileAccessor.getWriteableCacheFile(SNAPSHOT_FILE_NAME));
+		}
 		try {
-			setupConfiguration(moonshineParameters, configuration);
-			configuration.addCustomPropertyResolver(new PropertiesPropertyResolver(fileAccessorProperties));
-			Path configPropertiesFile = fileAccessor.getConfigFile("config.properties");
-			if (configPropertiesFile != null) {
-				Properties configProperties = new Properties();
-				configProperties.load(Files.newBufferedReader(configPropertiesFile, StandardCharsets.UTF_8));
-				configuration.addCustomPropertyResolver(new PropertiesPropertyResolver(configProperties));
-			}
+			phase = profile.start("combine configuration");
+			configProperties = readConfigProperties();
+			combineConfiguration(configuration, configProperties);
+			phase.close();
 
 			if (moonshineParameters.isPrintConfig()) {
 				logger.info("Configuration is:\n" + configuration.printCombinedXml());
 				return null;
 			}
 
+			phase = profile.start("filter configuration");
 			configuration.filter();
+			phase.close();
 
 			if (moonshineParameters.isPrintFilteredConfig()) {
 				logger.info("Filtered configuration is:\n" + configuration.printCombinedXml());
 				return null;
 			}
 
+			phase = profile.start("read configuration");
 			config = configuration.read();
+			phase.close();
 		} catch (IncorrectConfigurationException e) {
 			throw new ConfigurationException(e.getMessage(), e);
 		}
 
-		final PropertyResolver propertyResolver = configuration.getPropertyResolver();
+		if (moonshineParameters.getParallelism() != null) {
+			parallelism = moonshineParameters.getParallelism();
+		}
+		services = createServices(configuration.getPropertyResolver(), config, profile);
+		configElements = ConfigurationChanges.getElements(config, configuration);
 
-		modules.add(new AbstractModule() {
+		if (moonshineParameters.isPrintGuiceBindings()) {
+			GuiceBindingsHelper.printServiceElements(services.getServiceElements());
+		}
+		if (shutdownHook) {
+			Runtime.getRuntime().addShutdownHook(shutdownThread);
+		}
+		if (watchConfiguration || moonshineParameters.isWatchConfiguration()) {
+			watcher = new ConfigurationWatcher(getWatchedFiles(), () -> {
+				try {
+					reload();
+				} catch (MoonshineException e) {
+					Moonshine.Factory.logException(e);
+				} catch (IOException e) {
+					logger.error("Cannot reload configuration", e);
+				}
+			});
+		}
+		return this;
+	}
+
+	private Properties readConfigProperties() throws IOException {
+		Properties properties = new Properties();
+		Path configPropertiesFile = fileAccessor.getConfigFile(CONFIG_PROPERTIES_FILE_NAME);
+		if (configPropertiesFile != null) {
+			properties.load(Files.newBufferedReader(configPropertiesFile, StandardCharsets.UTF_8));
+		}
+		return properties;
+	}
+
+	private void combineConfiguration(ConfigurationReader configuration, Properties configProperties)
+			throws IOException, IncorrectConfigurationException {
+		setupConfiguration(moonshineParameters, configuration);
+		configuration.addCustomPropertyResolver(new PropertiesPropertyResolver(fileAccessorProperties));
+		configuration.addCustomPropertyResolver(new PropertiesPropertyResolver(configProperties));
+	}
+
+	private Services createServices(final PropertyResolver propertyResolver, Config config, BootProfile profile)
+			throws ConfigurationException {
+		Services.Builder builder = createServicesBuilder();
+		builder.addModule(new AbstractModule() {
 			@Override
 			protected void configure() {
 				bind(Key.get(PropertyResolver.class, ApplicationProperties.class)).toInstance(propertyResolver);
@@ -234,8 +333,6 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 						Filtering.getFilter(propertyResolver));
 			}
 		});
-
-		Services.Builder builder = createServicesBuilder();
 		for (Module module : modules) {
 			builder.addModule(module);
 		}
@@ -244,16 +341,97 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 		}
 		builder.applicationName(applicationName);
 		builder.configuration(config);
+		builder.parallelism(parallelism);
+		builder.bootProfile(profile);
 
-		services = builder.build();
+		return builder.build();
+	}
 
-		if (moonshineParameters.isPrintGuiceBindings()) {
-			GuiceBindingsHelper.printServiceElements(services.getServiceElements());
+	private List<Path> getWatchedFiles() {
+		List<Path> files = new ArrayList<>();
+		if (moonshineParameters.getConfigurationFiles().isEmpty()) {
+			for (Path path : fileAccessor.getConfigFiles(ConfigurationReader.CONFIG_FILE_NAME)) {
+				files.add(path);
+			}
+			files.add(fileAccessor.getWritableConfigFile(ConfigurationReader.CONFIG_FILE_NAME));
+		} else {
+			for (String fileName : moonshineParameters.getConfigurationFiles()) {
+				files.add(Paths.get(fileName));
+			}
 		}
-		if (shutdownHook) {
-			Runtime.getRuntime().addShutdownHook(shutdownThread);
+		for (Path path : fileAccessor.getConfigFiles(CONFIG_PROPERTIES_FILE_NAME)) {
+			files.add(path);
+		}
+		files.add(fileAccessor.getWritableConfigFile(CONFIG_PROPERTIES_FILE_NAME));
+		return files;
+	}
+
+	@Override
+	public synchronized void reload() throws MoonshineException, IOException {
+		if (services == null) {
+			throw new IllegalStateException("Moonshine is already closed");
+		}
+		logger.info("Reloading configuration");
+		ConfigurationReader configuration = new ConfigurationReader(fileAccessor);
+		configuration.setStreamingCombine(streamingCombiner);
+		Properties newConfigProperties = readConfigProperties();
+		Config newConfig;
+		try {
+			combineConfiguration(configuration, newConfigProperties);
+			configuration.filter();
+			newConfig = configuration.read();
+		} catch (IncorrectConfigurationException e) {
+			throw new ConfigurationException(e.getMessage(), e);
+		}
+
+		ConfigurationChanges changes = ConfigurationChanges.compare(config, configElements, newConfig,
+				configuration);
+		boolean propertiesChanged = !newConfigProperties.equals(configProperties);
+		if (changes.isEmpty() && !propertiesChanged) {
+			logger.info("Configuration has not changed");
+			return;
+		}
+
+		if (changes.isReloadable() && !propertiesChanged) {
+			services.restart(changes.getChangedServices().keySet(), changes::apply);
+			configElements = changes.getElements();
+			logger.info("Configuration reloaded");
+			return;
+		}
+
+		logger.info("Configuration changed, recreating all services");
+		// Old services are stopped before the new ones are created, so the new ones can bind the same resources.
+		// Old services are closed only after the new ones have started, so they can be started again
+		// when the new ones fail. Until then both injectors exist and resources acquired outside of
+		// Service.start(), for instance by eager singletons, are held twice.
+		BootProfile newProfile = new BootProfile();
+		if (started) {
+			services.stop();
+		}
+		Services newServices = null;
+		try {
+			newServices = createServices(configuration.getPropertyResolver(), newConfig, newProfile);
+			if (started) {
+				newServices.start();
+			}
+		} catch (ConfigurationException | RuntimeException | Error e) {
+			if (newServices != null) {
+				newServices.close();
+			}
+			if (started) {
+				services.start();
+			}
+			throw e;
+		}
+		services.close();
+		services = newServices;
+		config = newConfig;
+		configProperties = newConfigProperties;
+		profile = newProfile;
+		configElements = ConfigurationChanges.getElements(config, configuration);
+		if (started) {
+			finishBootProfile();
 		}
-		return this;
 	}
 
 	@Override
@@ -328,17 +506,42 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 	}
 
 	@Override
-	public void start() {
+	public synchronized void start() {
 		services.start();
+		started = true;
+		finishBootProfile();
+	}
+
+	private void finishBootProfile() {
+		if (!profile.isFinished()) {
+			profile.finish();
+			if (logger.isInfoEnabled()) {
+				logger.info("Started in {} ms:\n{}", profile.getTotalTime() / 1000000, profile.getSummary());
+			}
+			writeBootProfile();
+		}
+	}
+
+	private void writeBootProfile() {
+		Path path = fileAccessor.getWriteableLogfile(BOOT_PROFILE_FILE_NAME);
+		try {
+			Files.createDirectories(path.getParent());
+			try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+				writer.write(profile.getJson());
+			}
+		} catch (IOException e) {
+			logger.warn("Cannot write boot profile to " + path, e);
+		}
 	}
 
 	@Override
-	public void stop() {
+	public synchronized void stop() {
 		services.stop();
+		started = false;
 	}
 
 	@Override
-	public void close() {
+	public synchronized void close() {
 		if (logger == null) {
 			logger = LoggerFactory.getLogger("Moonshine");
 		}
@@ -348,6 +551,10 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 		} catch (IllegalStateException e) {
 			// ok, will be thrown if we are already in the process of shutting down JVM
 		}
+		if (watcher != null) {
+			watcher.close();
+			watcher = null;
+		}
 		if (services != null) {
 			services.close();
 			services = null;
@@ -359,6 +566,11 @@ class MoonshineImplementation implements Moonshine.Builder, Moonshine {
 		return services.getGlobalInjector();
 	}
 
+	@Override
+	public BootProfile getBootProfile() {
+		return profile;
+	}
+
 	protected void setupConfiguration(MoonshineCommandLineParameters moonshineParameters,
 			final ConfigurationReader configuration) throws IOException, IncorrectConfigurationException {
 
@@ -36,4 +36,26 @@ public @interface ServiceConfiguration {
 	 * Default service configuration used for auto configuration mechanism.
 	 */
 	String autoConfiguration() default "";
+
+	/**
+	 * Whether configuration changes can be applied by restarting the service.
+	 *
+	 * <p>
+	 * When {@link Moonshine#reload() reloading} configuration of such service its configuration fields are updated
+	 * in place and the service is {@link org.atteo.moonshine.services.Service#stop() stopped} and
+	 * {@link org.atteo.moonshine.services.Service#start() started} again without recreating Guice injector.
+	 * Set it only when the service reads its configuration in start() and not in configure().
+	 * </p>
+	 */
+	boolean reloadable() default false;
+
+	/**
+	 * Whether the service should be started on demand.
+	 *
+	 * <p>
+	 * Can be overridden with the 'lazy' attribute in the configuration file.
+	 * </p>
+	 * @see org.atteo.moonshine.services.Service#isLazy()
+	 */
+	boolean lazy() default false;
 }
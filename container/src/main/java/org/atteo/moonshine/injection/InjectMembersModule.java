@@ -13,11 +13,12 @@
  */
 package org.atteo.moonshine.injection;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.atteo.config.reflection.ClassMetadata;
+import org.atteo.config.reflection.FieldAccessor;
+
 import com.google.inject.Binder;
 import com.google.inject.Injector;
 import com.google.inject.Module;
@@ -36,19 +37,7 @@ public class InjectMembersModule implements Module, TypeListener {
 
 	@Override
 	public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
-		Class<? super I> klass = type.getRawType();
-
-		List<Field> fields = new ArrayList<>();
-
-		while (klass != Object.class) {
-			for (Field field : klass.getDeclaredFields()) {
-				if (field.getAnnotation(InjectMembers.class) != null) {
-					fields.add(field);
-				}
-			}
-
-			klass = klass.getSuperclass();
-		}
+		List<FieldAccessor> fields = ClassMetadata.of(type.getRawType()).getFieldsAnnotatedWith(InjectMembers.class);
 
 		if (fields.isEmpty()) {
 			return;
@@ -58,31 +47,24 @@ public class InjectMembersModule implements Module, TypeListener {
 		encounter.register(generateListener(fields, injector));
 	}
 
-	private <T> InjectionListener<T> generateListener(final Collection<Field> fields,
+	private <T> InjectionListener<T> generateListener(final Collection<FieldAccessor> fields,
 			final Provider<Injector> injectorProvider) {
 		return (T instance) -> {
-			for (Field field : fields) {
-				boolean wasAccessible = field.isAccessible();
-				field.setAccessible(true);
+			for (FieldAccessor field : fields) {
 				Injector injector = injectorProvider.get();
-				
-				try {
-					Object object = field.get(instance);
-					if (object == null) {
-						continue;
-					}
-					
-					if (object instanceof Collection) {
-						for (Object o : (Collection<?>) object) {
-							injector.injectMembers(o);
-						}
-					} else {
-						injector.injectMembers(object);
+
+				Object object = field.get(instance);
+				if (object == null) {
+					continue;
+				}
+
+				if (object instanceof Collection) {
+					for (Object o : (Collection<?>) object) {
+						injector.injectMembers(o);
 					}
-				} catch (IllegalAccessException e) {
-					throw new RuntimeException(e);
+				} else {
+					injector.injectMembers(object);
 				}
-				field.setAccessible(wasAccessible);
 			}
 		};
 	}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.base.Strings;
+
+/**
+ * Records how long each phase of the container startup took.
+ *
+ * <p>
+ * Phases form a tree. Each phase is measured with {@link System#nanoTime()} from the moment it is
+ * {@link Phase#start(String) started} until it is {@link Phase#close() closed}. Child phases
+ * can be started concurrently from different threads.
+ * </p>
+ * <pre>
+ * try (BootProfile.Phase phase = profile.start("read configuration")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class BootProfile implements BootProfileMXBean {
+	private static final int SUMMARY_NAME_WIDTH = 60;
+	private static final int SUMMARY_BAR_WIDTH = 30;
+
+	private final Phase root = new Phase("boot");
+
+	/**
+	 * Starts new top-level phase.
+	 *
+	 * <p>
+	 * Only the first startup is recorded. After the profile is {@link #finish() finished} the returned phase
+	 * is not added to the profile, so restarting the services does not make it grow.
+	 * </p>
+	 */
+	public Phase start(String name) {
+		if (isFinished()) {
+			return new Phase(name);
+		}
+		return root.start(name);
+	}
+
+	/**
+	 * Returns the root phase which spans the whole startup.
+	 */
+	public Phase getRoot() {
+		return root;
+	}
+
+	/**
+	 * Marks the end of the startup.
+	 */
+	public void finish() {
+		root.close();
+	}
+
+	/**
+	 * Checks whether {@link #finish()} was already called.
+	 */
+	public boolean isFinished() {
+		return root.isFinished();
+	}
+
+	@Override
+	public long getTotalTime() {
+		return root.getDuration();
+	}
+
+	/**
+	 * Returns the profile in JSON format.
+	 */
+	@Override
+	public String getJson() {
+		StringBuilder builder = new StringBuilder();
+		appendJson(builder, root, root.startTime);
+		builder.append("\n");
+		return builder.toString();
+	}
+
+	/**
+	 * Returns human readable summary with the time spent in each phase.
+	 */
+	@Override
+	public String getSummary() {
+		StringBuilder builder = new StringBuilder();
+		appendSummary(builder, root, 0, root.getDuration());
+		return builder.toString();
+	}
+
+	private static void appendJson(StringBuilder builder, Phase phase, long origin) {
+		builder.append("{\"name\":");
+		appendJsonString(builder, phase.getName());
+		builder.append(",\"start\":").append(phase.startTime - origin);
+		builder.append(",\"duration\":").append(phase.getDuration());
+		List<Phase> children = phase.getChildren();
+		if (!children.isEmpty()) {
+			builder.append(",\"children\":[");
+			boolean first = true;
+			for (Phase child : children) {
+				if (!first) {
+					builder.append(",");
+				}
+				first = false;
+				appendJson(builder, child, origin);
+			}
+			builder.append("]");
+		}
+		builder.append("}");
+	}
+
+	private static void appendJsonString(StringBuilder builder, String string) {
+		builder.append('"');
+		for (char c : string.toCharArray()) {
+			switch (c) {
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				default:
+					if (c < ' ') {
+						builder.append(String.format("\\u%04x", (int) c));
+					} else {
+						builder.append(c);
+					}
+			}
+		}
+		builder.append('"');
+	}
+
+	private static void appendSummary(StringBuilder builder, Phase phase, int depth, long total) {
+		long duration = phase.getDuration();
+		String name = Strings.repeat("  ", depth) + phase.getName();
+		if (name.length() > SUMMARY_NAME_WIDTH) {
+			name = name.substring(0, SUMMARY_NAME_WIDTH - 3) + "...";
+		}
+		int bar = total == 0 ? 0 : (int) (SUMMARY_BAR_WIDTH * duration / total);
+		builder.append(Strings.padEnd(name, SUMMARY_NAME_WIDTH, ' '));
+		builder.append(String.format(" %8.1f ms ", duration / 1e6));
+		builder.append(Strings.repeat("#", bar));
+		builder.append("\n");
+		for (Phase child : phase.getChildren()) {
+			appendSummary(builder, child, depth + 1, total);
+		}
+	}
+
+	/**
+	 * Single measured phase.
+	 */
+	public static class Phase implements AutoCloseable {
+		private final String name;
+		private final long startTime;
+		private volatile long endTime = -1;
+		private final List<Phase> children = new CopyOnWriteArrayList<>();
+
+		private Phase(String name) {
+			this.name = name;
+			this.startTime = System.nanoTime();
+		}
+
+		/**
+		 * Starts new child phase.
+		 */
+		public Phase start(String name) {
+			Phase child = new Phase(name);
+			children.add(child);
+			return child;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the duration of this phase in nanoseconds.
+		 *
+		 * <p>
+		 * If the phase is still in progress returns the time elapsed so far.
+		 * </p>
+		 */
+		public long getDuration() {
+			long end = endTime;
+			if (end == -1) {
+				end = System.nanoTime();
+			}
+			return end - startTime;
+		}
+
+		public List<Phase> getChildren() {
+			return children;
+		}
+
+		public boolean isFinished() {
+			return endTime != -1;
+		}
+
+		/**
+		 * Marks the end of this phase.
+		 */
+		@Override
+		public void close() {
+			if (endTime == -1) {
+				endTime = System.nanoTime();
+			}
+		}
+	}
+}
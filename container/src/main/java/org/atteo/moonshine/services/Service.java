@@ -99,4 +99,31 @@ public interface Service extends AutoCloseable {
 	 */
 	@Nonnull
 	Iterable<? extends Service> getSubServices();
+
+	/**
+	 * Returns whether this service should be started on demand.
+	 *
+	 * <p>
+	 * Lazy service is configured and its bindings are registered in the injector as usual,
+	 * but it is not started together with other services. Instead it is started just before any of
+	 * the bindings it exposes is provisioned for the first time, or when any service which imports it is started.
+	 * The services it imports and its parent service are started before it.
+	 * When the service fails to start, the failure is rethrown on each subsequent attempt to use it.
+	 * </p>
+	 * <p>
+	 * Limitations:
+	 * </p>
+	 * <ul>
+	 * <li>only the bindings exposed directly from the service module are activating, the bindings exposed
+	 * from nested private modules and the bindings which are not exposed are created as usual, for instance
+	 * not exposed eager singletons are created together with the injector,</li>
+	 * <li>service is started while holding its own lock, so {@link #start()} must not wait for other threads
+	 * which may provision its bindings, also when it is called from within Guice provisioning
+	 * (for instance from a singleton constructor) which holds Guice internal locks.</li>
+	 * </ul>
+	 * @return true, if the service should be started on demand
+	 */
+	default boolean isLazy() {
+		return false;
+	}
 }
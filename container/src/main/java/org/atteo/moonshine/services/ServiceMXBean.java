@@ -20,4 +20,24 @@ public interface ServiceMXBean {
 	void start();
 
 	void stop();
+
+	/**
+	 * Returns how long the last execution of {@link Service#configure()} took in nanoseconds.
+	 */
+	long getConfigureTime();
+
+	/**
+	 * Returns how long the last execution of {@link Service#start()} took in nanoseconds.
+	 */
+	long getStartTime();
+
+	/**
+	 * Returns how long the last execution of {@link Service#stop()} took in nanoseconds.
+	 */
+	long getStopTime();
+
+	/**
+	 * Returns how long the execution of {@link Service#close()} took in nanoseconds.
+	 */
+	long getCloseTime();
 }
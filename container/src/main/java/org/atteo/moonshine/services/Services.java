@@ -14,6 +14,7 @@
 package org.atteo.moonshine.services;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.atteo.moonshine.ConfigurationException;
@@ -53,6 +54,22 @@ public interface Services extends AutoCloseable {
 		 */
 		Builder registerListener(LifeCycleListener listener);
 
+		/**
+		 * Sets the maximum number of services started or stopped at the same time.
+		 *
+		 * <p>
+		 * By default services are started one after another in the dependency order. With parallelism
+		 * greater than one independent services are started concurrently. Service is started only after
+		 * all the services it imports and its parent service are started.
+		 * </p>
+		 */
+		Builder parallelism(int threads);
+
+		/**
+		 * Sets the profile to which the time spent in each startup phase is recorded.
+		 */
+		Builder bootProfile(BootProfile profile);
+
 		/**
 		 * Builds {@link Services} based on this builder parameters.
 		 */
@@ -83,6 +100,10 @@ public interface Services extends AutoCloseable {
 
 	/**
 	 * Starts all services.
+	 *
+	 * <p>
+	 * {@link Service#isLazy() Lazy} services are started only when they are needed.
+	 * </p>
 	 */
 	void start();
 
@@ -91,6 +112,19 @@ public interface Services extends AutoCloseable {
 	 */
 	void stop();
 
+	/**
+	 * Restarts given services.
+	 *
+	 * <p>
+	 * Sub-services of given services and all services which depend on any of them are also restarted.
+	 * Services are stopped in the reverse order, then given action is executed and services are started again.
+	 * Injector is not recreated. Services which were not started are not touched.
+	 * </p>
+	 * @param services services to restart
+	 * @param whileStopped action executed while the services are stopped
+	 */
+	void restart(Collection<? extends Service> services, Runnable whileStopped);
+
 	/**
 	 * Stops all services and destroys the injector.
 	 */
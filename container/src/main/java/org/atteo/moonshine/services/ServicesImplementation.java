@@ -15,10 +15,8 @@
  */
 package org.atteo.moonshine.services;
 
-import java.lang.reflect.Field;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -26,6 +24,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import javax.inject.Provider;
 import javax.management.InstanceAlreadyExistsException;
@@ -33,12 +33,16 @@ import javax.management.InstanceNotFoundException;
 import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
 import javax.management.MBeanServerFactory;
+import javax.management.MalformedObjectNameException;
 import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 
+import org.atteo.config.reflection.ClassMetadata;
+import org.atteo.config.reflection.FieldAccessor;
 import org.atteo.moonshine.ConfigurationException;
 import org.atteo.moonshine.injection.InjectMembersModule;
-import org.atteo.moonshine.reflection.ReflectionUtils;
 import org.atteo.moonshine.services.internal.DuplicateDetectionWrapper;
+import org.atteo.moonshine.services.internal.ParallelServicesExecutor;
 import org.atteo.moonshine.services.internal.ReflectionTools;
 import org.atteo.moonshine.services.internal.ServiceModuleRewriter;
 import org.atteo.moonshine.services.internal.ServiceWrapper;
@@ -69,7 +73,12 @@ class ServicesImplementation implements Services, Services.Builder {
 	private Service root;
 	private final List<LifeCycleListener> listeners = new ArrayList<>();
 	private List<ServiceWrapper> services;
+	private final Map<ServiceWrapper, ServiceWrapper> parents = new IdentityHashMap<>();
+	private final Set<ServiceWrapper> requested = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private volatile boolean running;
 	private MBeanServer mbeanServer;
+	private int parallelism = 1;
+	private BootProfile profile = new BootProfile();
 
 	public ServicesImplementation() {
 	}
@@ -98,6 +107,21 @@ class ServicesImplementation implements Services, Services.Builder {
 		return this;
 	}
 
+	@Override
+	public Builder parallelism(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.parallelism = threads;
+		return this;
+	}
+
+	@Override
+	public Builder bootProfile(BootProfile profile) {
+		this.profile = profile;
+		return this;
+	}
+
 	@Override
 	public Services build() throws ConfigurationException {
 		if (root == null) {
@@ -140,8 +164,12 @@ class ServicesImplementation implements Services, Services.Builder {
 			modules.add(duplicateDetection.wrap(module));
 		}
 
-		services = readServiceMetadata(retrieveServicesRecursively(root));
-		services = sortTopologically(services);
+		try (BootProfile.Phase phase = profile.start("read service metadata")) {
+			services = readServiceMetadata(retrieveServicesRecursively(root));
+		}
+		try (BootProfile.Phase phase = profile.start("sort services")) {
+			services = sortTopologically(services);
+		}
 		verifySingletonServicesAreUnique(services);
 
 		createMBeanServer();
@@ -150,36 +178,52 @@ class ServicesImplementation implements Services, Services.Builder {
 		List<String> hints = new ArrayList<>();
 
 		try {
-			for (ServiceWrapper service : services) {
-				Module module = service.configure();
-				if (module != null) {
-					service.setElements(Elements.getElements(duplicateDetection.wrap(module)));
-				} else {
-					service.setElements(Collections.<com.google.inject.spi.Element>emptyList());
+			try (BootProfile.Phase phase = profile.start("configure services")) {
+				for (ServiceWrapper service : services) {
+					Module module;
+					try (BootProfile.Phase servicePhase = phase.start(service.getName())) {
+						module = service.configure();
+					}
+					if (module != null) {
+						service.setElements(Elements.getElements(duplicateDetection.wrap(module)));
+					} else {
+						service.setElements(Collections.<com.google.inject.spi.Element>emptyList());
+					}
 				}
 			}
 
-			for (ServiceWrapper service : services) {
-				checkOnlySingletonBindWithoutAnnotation(service);
-			}
+			try (BootProfile.Phase phase = profile.start("rewrite service modules")) {
+				for (ServiceWrapper service : services) {
+					checkOnlySingletonBindWithoutAnnotation(service);
+				}
 
-			for (ServiceWrapper service : services) {
-				service.setElements(ServiceModuleRewriter.annotateExposedWithId(service.getElements(),
-						service.getService()));
-			}
+				for (ServiceWrapper service : services) {
+					service.setElements(ServiceModuleRewriter.annotateExposedWithId(service.getElements(),
+							service.getService()));
+				}
 
-			for (ServiceWrapper service : services) {
-				service.setElements(ServiceModuleRewriter.importBindings(service, services, hints));
-			}
+				for (ServiceWrapper service : services) {
+					service.setElements(ServiceModuleRewriter.importBindings(service, services, hints));
+				}
 
-			for (ServiceWrapper service : services) {
-				modules.add(Elements.getModule(service.getElements()));
+				for (ServiceWrapper service : services) {
+					if (service.isLazy()) {
+						service.setElements(ServiceModuleRewriter.activateOnDemand(service.getElements(),
+								() -> requestActivation(service)));
+					}
+				}
+
+				for (ServiceWrapper service : services) {
+					modules.add(Elements.getModule(service.getElements()));
+				}
 			}
 
 			modules.add(new InjectMembersModule());
 
 			logger.info("Creating injector");
-			injector = Guice.createInjector(modules);
+			try (BootProfile.Phase phase = profile.start("create injector")) {
+				injector = Guice.createInjector(modules);
+			}
 
 			for (LifeCycleListener listener : listeners) {
 				listener.configured(getGlobalInjector());
@@ -216,6 +260,7 @@ class ServicesImplementation implements Services, Services.Builder {
 			for (ServiceWrapper service : services) {
 				mbeanServer.registerMBean(service, null);
 			}
+			mbeanServer.registerMBean(profile, getBootProfileObjectName());
 		} catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
 			throw new RuntimeException(e);
 		}
@@ -229,6 +274,21 @@ class ServicesImplementation implements Services, Services.Builder {
 				throw new RuntimeException(e);
 			}
 		}
+		try {
+			mbeanServer.unregisterMBean(getBootProfileObjectName());
+		} catch (InstanceNotFoundException | MBeanRegistrationException e) {
+			throw new RuntimeException(e);
+		}
+		MBeanServerFactory.releaseMBeanServer(mbeanServer);
+	}
+
+	private static ObjectName getBootProfileObjectName() {
+		try {
+			return ObjectName.getInstance(Service.class.getPackage().getName(), "type",
+					BootProfile.class.getSimpleName());
+		} catch (MalformedObjectNameException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	@Override
@@ -239,8 +299,23 @@ class ServicesImplementation implements Services, Services.Builder {
 	@Override
 	public void start() {
 		logger.info("Starting services");
-		for (ServiceWrapper service : services) {
-			service.start();
+		running = true;
+		try (BootProfile.Phase phase = profile.start("start services")) {
+			Consumer<ServiceWrapper> action = service -> {
+				if (service.isLazy() && !requested.contains(service)) {
+					return;
+				}
+				try (BootProfile.Phase servicePhase = phase.start(service.getName())) {
+					activate(service);
+				}
+			};
+			if (parallelism > 1) {
+				new ParallelServicesExecutor(services, parallelism).start(action);
+			} else {
+				for (ServiceWrapper service : services) {
+					action.accept(service);
+				}
+			}
 		}
 		logger.info("All services started");
 		for (LifeCycleListener listener : listeners) {
@@ -248,14 +323,108 @@ class ServicesImplementation implements Services, Services.Builder {
 		}
 	}
 
+	/**
+	 * Starts given lazy service, if services are running, otherwise it will be started with other services.
+	 */
+	private void requestActivation(ServiceWrapper service) {
+		if (requested.add(service)) {
+			logger.debug("Lazy service requested: {}", service.getName());
+		}
+		if (running) {
+			activate(service);
+		}
+	}
+
+	/**
+	 * Starts given service, if not started yet, together with the services it imports and its parent service.
+	 *
+	 * <p>
+	 * Lazy services are started this way when any of their bindings is provisioned or when the service
+	 * which imports them is started.
+	 * </p>
+	 */
+	private void activate(ServiceWrapper service) {
+		if (service.getStatus() == ServiceWrapper.Status.STARTED) {
+			return;
+		}
+		for (ServiceWrapper.Dependency dependency : service.getDependencies()) {
+			activate(dependency.getService());
+		}
+		ServiceWrapper parent = parents.get(service);
+		if (parent != null) {
+			activate(parent);
+		}
+		service.activate();
+	}
+
 	@Override
 	public void stop() {
+		running = false;
 		for (LifeCycleListener listener : listeners) {
 			listener.stopping();
 		}
-		for (ServiceWrapper service : Lists.reverse(services)) {
+		if (parallelism > 1) {
+			new ParallelServicesExecutor(services, parallelism).stop();
+		} else {
+			for (ServiceWrapper service : Lists.reverse(services)) {
+				service.stop();
+			}
+		}
+	}
+
+	@Override
+	public void restart(Collection<? extends Service> restarted, Runnable whileStopped) {
+		Map<Service, ServiceWrapper> wrappers = new IdentityHashMap<>();
+		for (ServiceWrapper service : services) {
+			wrappers.put(service.getService(), service);
+		}
+
+		Set<ServiceWrapper> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Service service : restarted) {
+			ServiceWrapper wrapper = wrappers.get(service);
+			if (wrapper == null) {
+				throw new IllegalArgumentException("Unknown service: " + service);
+			}
+			affected.add(wrapper);
+		}
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (ServiceWrapper service : services) {
+				if (affected.contains(service)) {
+					for (Service subService : service.getService().getSubServices()) {
+						ServiceWrapper subServiceWrapper = wrappers.get(subService);
+						if (subServiceWrapper != null && affected.add(subServiceWrapper)) {
+							changed = true;
+						}
+					}
+				} else {
+					for (ServiceWrapper.Dependency dependency : service.getDependencies()) {
+						if (affected.contains(dependency.getService())) {
+							affected.add(service);
+							changed = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		List<ServiceWrapper> started = new ArrayList<>();
+		for (ServiceWrapper service : services) {
+			if (affected.contains(service) && service.getStatus() == ServiceWrapper.Status.STARTED) {
+				started.add(service);
+			}
+		}
+
+		logger.info("Restarting {} services", started.size());
+		for (ServiceWrapper service : Lists.reverse(started)) {
 			service.stop();
 		}
+		whileStopped.run();
+		for (ServiceWrapper service : started) {
+			service.start();
+		}
 	}
 
 	@Override
@@ -345,65 +514,59 @@ class ServicesImplementation implements Services, Services.Builder {
 			servicesMetadata.add(metadata);
 			map.put(service, metadata);
 		}
+		for (ServiceWrapper metadata : servicesMetadata) {
+			for (Service subService : metadata.getService().getSubServices()) {
+				parents.put(map.get(subService), metadata);
+			}
+		}
 
 		List<String> configurationErrors = new ArrayList<>();
 
 		for (ServiceWrapper metadata : servicesMetadata) {
-			for (Class<?> ancestorClass : ReflectionUtils.getAncestors(metadata.getService().getClass())) {
+			ClassMetadata classMetadata = ClassMetadata.of(metadata.getService().getClass());
+			for (Class<?> ancestorClass : classMetadata.getAncestors()) {
 				metadata.setSingleton(ReflectionTools.isSingleton(ancestorClass));
-				for (final Field field : ancestorClass.getDeclaredFields()) {
-					ImportService importAnnotation = field.getAnnotation(ImportService.class);
-					if (importAnnotation == null) {
+			}
+			for (FieldAccessor field : classMetadata.getFieldsAnnotatedWith(ImportService.class)) {
+				ImportService importAnnotation = field.getAnnotation(ImportService.class);
+
+				if (!Service.class.isAssignableFrom(field.getType())) {
+					throw new RuntimeException("@" + ImportService.class.getSimpleName() + " annotation can only"
+							+ " be specified on a field of type " + Service.class.getSimpleName());
+				}
+
+				Service importedService = (Service) field.get(metadata.getService());
+				ServiceWrapper importedServiceMetadata;
+
+				if (importedService == null) {
+					try {
+						importedServiceMetadata = findDefaultService(servicesMetadata, field.getType());
+					} catch (ConfigurationException ex) {
+						configurationErrors.add("Service '" + metadata.getName()
+						    + "' requires '" + field.getType().getName() + "' which is"
+						    + " defined more than once. Please specify an ID in your"
+						    + " configuration files.");
+
 						continue;
 					}
 
-					if (!Service.class.isAssignableFrom(field.getType())) {
-						throw new RuntimeException("@" + ImportService.class.getSimpleName() + " annotation can only"
-								+ " be specified on a field of type " + Service.class.getSimpleName());
-					}
+					if (importedServiceMetadata == null) {
+						configurationErrors.add("Service '" + metadata.getName()
+						    + "' requires '" + field.getType().getName() + "' which was"
+						    + " not found. Please check your configuration files.");
 
-					AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
-						field.setAccessible(true);
-						return null;
-					});
-					Service importedService;
-					try {
-						importedService = (Service) field.get(metadata.getService());
-						ServiceWrapper importedServiceMetadata;
-
-						if (importedService == null) {
-							try {
-								importedServiceMetadata = findDefaultService(servicesMetadata, field.getType());
-							} catch (ConfigurationException ex) {
-								configurationErrors.add("Service '" + metadata.getName()
-								    + "' requires '" + field.getType().getName() + "' which is"
-								    + " defined more than once. Please specify an ID in your"
-								    + " configuration files.");
-
-								continue;
-							}
-
-							if (importedServiceMetadata == null) {
-								configurationErrors.add("Service '" + metadata.getName()
-								    + "' requires '" + field.getType().getName() + "' which was"
-								    + " not found. Please check your configuration files.");
-
-								continue;
-							}
-
-							field.set(metadata.getService(), importedServiceMetadata.getService());
-						} else {
-							importedServiceMetadata = map.get(importedService);
-							if (importedServiceMetadata == null) {
-								throw new RuntimeException("Unknown service imported");
-							}
-						}
+						continue;
+					}
 
-						metadata.addDependency(importedServiceMetadata, importAnnotation.bindWith());
-					} catch (IllegalAccessException | IllegalArgumentException e) {
-						throw new RuntimeException("Cannot access field", e);
+					field.set(metadata.getService(), importedServiceMetadata.getService());
+				} else {
+					importedServiceMetadata = map.get(importedService);
+					if (importedServiceMetadata == null) {
+						throw new RuntimeException("Unknown service imported");
 					}
 				}
+
+				metadata.addDependency(importedServiceMetadata, importAnnotation.bindWith());
 			}
 		}
 
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.services.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.atteo.moonshine.services.Service;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Starts and stops services concurrently while respecting dependencies between them.
+ *
+ * <p>
+ * Service is started only after all the services it {@link ServiceWrapper#getDependencies() depends on}
+ * and its parent service (the one which returned it from {@link Service#getSubServices()}) are started.
+ * Services are stopped in the reverse order. At most given number of services is processed at the same time.
+ * </p>
+ */
+public class ParallelServicesExecutor {
+	private final List<ServiceWrapper> services;
+	private final int threads;
+	private final Map<ServiceWrapper, Set<ServiceWrapper>> prerequisites = new IdentityHashMap<>();
+	private final Map<ServiceWrapper, Set<ServiceWrapper>> dependents = new IdentityHashMap<>();
+
+	/**
+	 * Creates executor for given services.
+	 * @param services topologically sorted list of services
+	 * @param threads maximum number of services started or stopped at the same time
+	 */
+	public ParallelServicesExecutor(List<ServiceWrapper> services, int threads) {
+		this.services = services;
+		this.threads = threads;
+
+		Map<Service, ServiceWrapper> wrappers = new IdentityHashMap<>();
+		for (ServiceWrapper service : services) {
+			wrappers.put(service.getService(), service);
+			prerequisites.put(service, new LinkedHashSet<>());
+			dependents.put(service, new LinkedHashSet<>());
+		}
+
+		for (ServiceWrapper service : services) {
+			for (ServiceWrapper.Dependency dependency : service.getDependencies()) {
+				addEdge(dependency.getService(), service);
+			}
+			for (Service subService : service.getService().getSubServices()) {
+				ServiceWrapper subServiceWrapper = wrappers.get(subService);
+				if (subServiceWrapper != null) {
+					addEdge(service, subServiceWrapper);
+				}
+			}
+		}
+	}
+
+	private void addEdge(ServiceWrapper prerequisite, ServiceWrapper service) {
+		prerequisites.get(service).add(prerequisite);
+		dependents.get(prerequisite).add(service);
+	}
+
+	/**
+	 * Starts all services.
+	 *
+	 * <p>
+	 * When any service fails to start no new services are started and the ones which were already started
+	 * are stopped. Then the original exception is rethrown.
+	 * </p>
+	 */
+	public void start() {
+		start(ServiceWrapper::start);
+	}
+
+	/**
+	 * Executes given start action on all services.
+	 * @see #start()
+	 */
+	public void start(Consumer<ServiceWrapper> action) {
+		try {
+			execute(prerequisites, dependents, action, true);
+		} catch (RuntimeException | Error e) {
+			for (ServiceWrapper service : Lists.reverse(services)) {
+				try {
+					service.stop();
+				} catch (RuntimeException f) {
+					e.addSuppressed(f);
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops all services.
+	 *
+	 * <p>
+	 * Failure to stop one service does not prevent stopping the other ones. The first exception
+	 * is rethrown after all services are processed.
+	 * </p>
+	 */
+	public void stop() {
+		stop(ServiceWrapper::stop);
+	}
+
+	/**
+	 * Executes given stop action on all services.
+	 * @see #stop()
+	 */
+	public void stop(Consumer<ServiceWrapper> action) {
+		execute(dependents, prerequisites, action, false);
+	}
+
+	/**
+	 * Executes given action on every service after it was executed on all its prerequisites.
+	 */
+	private void execute(Map<ServiceWrapper, Set<ServiceWrapper>> waitFor,
+			Map<ServiceWrapper, Set<ServiceWrapper>> unblocks, Consumer<ServiceWrapper> action,
+			boolean failFast) {
+		Map<ServiceWrapper, Integer> remaining = new HashMap<>();
+		List<ServiceWrapper> ready = new ArrayList<>();
+		for (ServiceWrapper service : services) {
+			int count = waitFor.get(service).size();
+			remaining.put(service, count);
+			if (count == 0) {
+				ready.add(service);
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+				.setNameFormat("moonshine-services-%d")
+				.setDaemon(true)
+				.build());
+		CompletionService<Outcome> completionService = new ExecutorCompletionService<>(executor);
+		Throwable failure = null;
+		int running = 0;
+		try {
+			while (true) {
+				if (failure == null || !failFast) {
+					for (ServiceWrapper service : ready) {
+						completionService.submit(() -> {
+							try {
+								action.accept(service);
+								return new Outcome(service, null);
+							} catch (RuntimeException | Error e) {
+								return new Outcome(service, e);
+							}
+						});
+						running++;
+					}
+				}
+				ready.clear();
+				if (running == 0) {
+					break;
+				}
+
+				Outcome outcome = completionService.take().get();
+				running--;
+				if (outcome.failure != null) {
+					if (failure == null) {
+						failure = outcome.failure;
+					} else {
+						failure.addSuppressed(outcome.failure);
+					}
+					if (failFast) {
+						continue;
+					}
+				}
+				for (ServiceWrapper dependent : unblocks.get(outcome.service)) {
+					int count = remaining.get(dependent) - 1;
+					remaining.put(dependent, count);
+					if (count == 0) {
+						ready.add(dependent);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for services", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure != null) {
+			throw (Error) failure;
+		}
+	}
+
+	private static class Outcome {
+		private final ServiceWrapper service;
+		private final Throwable failure;
+
+		public Outcome(ServiceWrapper service, Throwable failure) {
+			this.service = service;
+			this.failure = failure;
+		}
+	}
+}
@@ -16,7 +16,9 @@
 package org.atteo.moonshine.services.internal;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.Set;
 
 import org.atteo.moonshine.services.ImportService;
 import org.atteo.moonshine.services.Service;
@@ -27,14 +29,30 @@ import com.google.inject.Binding;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.PrivateBinder;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.TypeLiteral;
+import com.google.inject.binder.ScopedBindingBuilder;
 import com.google.inject.name.Names;
+import com.google.inject.spi.ConstructorBinding;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
 import com.google.inject.spi.DefaultElementVisitor;
 import com.google.inject.spi.Element;
 import com.google.inject.spi.Elements;
+import com.google.inject.spi.InjectionPoint;
 import com.google.inject.spi.InjectionRequest;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
 import com.google.inject.spi.PrivateElements;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderKeyBinding;
+import com.google.inject.spi.UntargettedBinding;
 
 public class ServiceModuleRewriter {
+	private static final String LAZY_BINDING_PREFIX = "moonshine-lazy-";
+
 	private ServiceModuleRewriter() {
 	}
 
@@ -194,4 +212,166 @@ public class ServiceModuleRewriter {
 			}
 		}
 	}
+
+	/**
+	 * Rewrite exposed bindings to execute given activator before they are provisioned.
+	 *
+	 * <p>
+	 * The target of each exposed binding is moved to the private key and the exposed key is bound, with the original
+	 * scope, to the provider which executes the activator first and then delegates to the private key.
+	 * Eager singletons become ordinary singletons, so they are created on first use.
+	 * Bindings exposed from nested private modules are not rewritten.
+	 * </p>
+	 * @param elements elements of the service
+	 * @param activator action executed each time any of the exposed bindings is provisioned
+	 * @return rewritten elements
+	 */
+	public static List<Element> activateOnDemand(final List<Element> elements, final Runnable activator) {
+		return Elements.getElements((Module) (final Binder binder) -> {
+			for (Element element : elements) {
+				element.acceptVisitor(new DefaultElementVisitor<Void>() {
+					@Override
+					public Void visit(PrivateElements privateElements) {
+						activateOnDemand(binder.newPrivateBinder(), privateElements, activator);
+						return null;
+					}
+
+					@Override
+					protected Void visitOther(Element element) {
+						element.applyTo(binder);
+						return null;
+					}
+				});
+			}
+		});
+	}
+
+	private static void activateOnDemand(final PrivateBinder binder, final PrivateElements elements,
+			final Runnable activator) {
+		final Set<Key<?>> exposedKeys = elements.getExposedKeys();
+
+		for (Element element : elements.getElements()) {
+			element.acceptVisitor(new DefaultElementVisitor<Void>() {
+				@Override
+				public <T> Void visit(Binding<T> binding) {
+					if (!exposedKeys.contains(binding.getKey()) || !bindActivating(binder, binding, activator)) {
+						binding.applyTo(binder);
+					}
+					return null;
+				}
+
+				@Override
+				protected Void visitOther(Element element) {
+					element.applyTo(binder);
+					return null;
+				}
+			});
+		}
+		for (Key<?> key : exposedKeys) {
+			binder.withSource(elements.getExposedSource(key)).expose(key);
+		}
+	}
+
+	private static <T> boolean bindActivating(PrivateBinder privateBinder, final Binding<T> binding,
+			Runnable activator) {
+		final Key<T> key = binding.getKey();
+		final Key<T> lazyKey = Key.get(key.getTypeLiteral(), Names.named(LAZY_BINDING_PREFIX + key));
+		final Binder binder = privateBinder.withSource(binding.getSource());
+
+		boolean moved = binding.acceptTargetVisitor(new DefaultBindingTargetVisitor<T, Boolean>() {
+			@Override
+			public Boolean visit(InstanceBinding<? extends T> instanceBinding) {
+				binder.bind(lazyKey).toInstance(instanceBinding.getInstance());
+				return true;
+			}
+
+			@Override
+			public Boolean visit(ProviderInstanceBinding<? extends T> providerInstanceBinding) {
+				binder.bind(lazyKey).toProvider(providerInstanceBinding.getUserSuppliedProvider());
+				return true;
+			}
+
+			@Override
+			public Boolean visit(ProviderKeyBinding<? extends T> providerKeyBinding) {
+				binder.bind(lazyKey).toProvider(providerKeyBinding.getProviderKey());
+				return true;
+			}
+
+			@Override
+			public Boolean visit(LinkedKeyBinding<? extends T> linkedKeyBinding) {
+				binder.bind(lazyKey).to(linkedKeyBinding.getLinkedKey());
+				return true;
+			}
+
+			@Override
+			public Boolean visit(UntargettedBinding<? extends T> untargettedBinding) {
+				bindConstructor(InjectionPoint.forConstructorOf(key.getTypeLiteral()));
+				return true;
+			}
+
+			@Override
+			public Boolean visit(ConstructorBinding<? extends T> constructorBinding) {
+				bindConstructor(constructorBinding.getConstructor());
+				return true;
+			}
+
+			@SuppressWarnings("unchecked")
+			private void bindConstructor(InjectionPoint constructor) {
+				binder.bind(lazyKey).toConstructor((Constructor<T>) constructor.getMember(),
+						(TypeLiteral<T>) constructor.getDeclaringType());
+			}
+
+			@Override
+			protected Boolean visitOther(Binding<? extends T> binding) {
+				return false;
+			}
+		});
+		if (!moved) {
+			return false;
+		}
+
+		final ScopedBindingBuilder builder = binder.bind(key).toProvider(
+				new ActivatingProvider<>(binder.getProvider(lazyKey), activator));
+		if (binding instanceof InstanceBinding) {
+			// instance bindings are eager singletons, but there is nothing to create
+			return true;
+		}
+		binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Void>() {
+			@Override
+			public Void visitEagerSingleton() {
+				// eager singleton would activate the service as soon as the injector is created
+				builder.in(Scopes.SINGLETON);
+				return null;
+			}
+
+			@Override
+			public Void visitScope(Scope scope) {
+				builder.in(scope);
+				return null;
+			}
+
+			@Override
+			public Void visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+				builder.in(scopeAnnotation);
+				return null;
+			}
+		});
+		return true;
+	}
+
+	private static class ActivatingProvider<T> implements Provider<T> {
+		private final Provider<T> provider;
+		private final Runnable activator;
+
+		public ActivatingProvider(Provider<T> provider, Runnable activator) {
+			this.provider = provider;
+			this.activator = activator;
+		}
+
+		@Override
+		public T get() {
+			activator.run();
+			return provider.get();
+		}
+	}
 }
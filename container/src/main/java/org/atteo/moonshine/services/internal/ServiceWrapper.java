@@ -28,7 +28,7 @@ import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
 import org.atteo.classindex.ClassIndex;
-import org.atteo.moonshine.reflection.ReflectionUtils;
+import org.atteo.config.reflection.ClassMetadata;
 import org.atteo.moonshine.services.EmptyImplementation;
 import org.atteo.moonshine.services.Service;
 import org.atteo.moonshine.services.ServiceInfo;
@@ -48,14 +48,21 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 	private final AtomicReference<Status> status = new AtomicReference<>(Status.CREATED);
 	private List<com.google.inject.spi.Element> elements;
 	private boolean singleton = false;
+	private final boolean lazy;
 	private final boolean configureImplemented;
 	private final boolean startImplemented;
 	private final boolean stopImplemented;
 	private final boolean closeImplemented;
+	private volatile long configureTime;
+	private volatile long startTime;
+	private volatile long stopTime;
+	private volatile long closeTime;
+	private volatile Throwable failure;
 
 	public ServiceWrapper(Service service) {
 		this.service = service;
 		this.name = getServiceName(service);
+		this.lazy = service.isLazy();
 		this.configureImplemented = isImplemented(service.getClass(), "configure");
 		this.startImplemented = isImplemented(service.getClass(), "start");
 		this.stopImplemented = isImplemented(service.getClass(), "stop");
@@ -132,7 +139,7 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 	}
 
 	private static boolean isImplemented(Class<?> klass, String methodName) {
-		Method method = ReflectionUtils.findMethod(klass, methodName);
+		Method method = ClassMetadata.of(klass).findMethod(methodName);
 
 		return method.getAnnotation(EmptyImplementation.class) == null;
 	}
@@ -145,6 +152,14 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 		this.singleton = singleton;
 	}
 
+	/**
+	 * Returns whether the service should be started on demand.
+	 * @see Service#isLazy()
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
 	private void changeState(Status expect, Status update) {
 		if (!status.compareAndSet(expect, update)) {
 			throw new IllegalStateException("Cannot configure service, not in " + expect + " state");
@@ -156,7 +171,9 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 		if (logger.isInfoEnabled() && configureImplemented) {
 			logger.info("Configuring: {}", getName());
 		}
+		long start = System.nanoTime();
 		Module module = service.configure();
+		configureTime = System.nanoTime() - start;
 		status.set(Status.READY);
 		return module;
 	}
@@ -167,8 +184,37 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 		if (logger.isInfoEnabled() && startImplemented) {
 			logger.info("Starting: {}", getName());
 		}
-		service.start();
+		long start = System.nanoTime();
+		try {
+			service.start();
+		} catch (RuntimeException | Error e) {
+			failure = e;
+			status.set(Status.FAILED);
+			throw e;
+		}
+		startTime = System.nanoTime() - start;
 		status.set(Status.STARTED);
+		if (logger.isInfoEnabled() && startImplemented) {
+			logger.info("Started: {} in {} ms", getName(), startTime / 1000000);
+		}
+	}
+
+	/**
+	 * Starts the service, unless it is already started.
+	 *
+	 * <p>
+	 * Can be called concurrently, when it returns the service is started.
+	 * </p>
+	 * @throws IllegalStateException when the service has already failed to start
+	 */
+	public synchronized void activate() {
+		Status current = status.get();
+		if (current == Status.FAILED) {
+			throw new IllegalStateException("Service " + getName() + " has failed to start", failure);
+		}
+		if (current == Status.READY) {
+			start();
+		}
 	}
 
 	@Override
@@ -179,27 +225,55 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 		if (logger.isInfoEnabled() && stopImplemented) {
 			logger.info("Stopping: {}", getName());
 		}
+		long start = System.nanoTime();
 		try {
 			service.stop();
 		} finally {
+			stopTime = System.nanoTime() - start;
 			status.set(Status.READY);
 		}
+		if (logger.isInfoEnabled() && stopImplemented) {
+			logger.info("Stopped: {} in {} ms", getName(), stopTime / 1000000);
+		}
 	}
 
 	public void close() {
-		if (!status.compareAndSet(Status.READY, Status.CLOSING)) {
+		if (!status.compareAndSet(Status.READY, Status.CLOSING)
+				&& !status.compareAndSet(Status.FAILED, Status.CLOSING)) {
 			return;
 		}
 		if (logger.isInfoEnabled() && closeImplemented) {
 			logger.info("Closing: {}", getName());
 		}
+		long start = System.nanoTime();
 		try {
 			service.close();
 		} finally {
+			closeTime = System.nanoTime() - start;
 			status.set(Status.CLOSED);
 		}
 	}
 
+	@Override
+	public long getConfigureTime() {
+		return configureTime;
+	}
+
+	@Override
+	public long getStartTime() {
+		return startTime;
+	}
+
+	@Override
+	public long getStopTime() {
+		return stopTime;
+	}
+
+	@Override
+	public long getCloseTime() {
+		return closeTime;
+	}
+
 	@Override
 	public ObjectName preRegister(MBeanServer mbs, ObjectName on) throws Exception {
 		return getObjectName();
@@ -241,6 +315,6 @@ public class ServiceWrapper implements ServiceInfo, ServiceMXBean, MBeanRegistra
 	}
 
 	public static enum Status {
-		CREATED, CONFIGURING, READY, STARTING, STARTED, STOPPING, CLOSING, CLOSED
+		CREATED, CONFIGURING, READY, STARTING, STARTED, FAILED, STOPPING, CLOSING, CLOSED
 	}
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.atteo.config.IncorrectConfigurationException;
+import org.junit.Test;
+
+public class ConfigurationReaderTest {
+	private static final String CONFIGURATION = ""
+			+ "<config combine.children='append'>"
+			+ "    <head/>"
+			+ "</config>";
+
+	private final Path snapshot = Paths.get("target/test-snapshot/" + MoonshineImplementation.SNAPSHOT_FILE_NAME);
+
+	@Test
+	public void shouldNotCombineSnapshotWithAlreadyCombinedSources() throws IncorrectConfigurationException,
+			IOException {
+		// given
+		Files.deleteIfExists(snapshot);
+		ConfigurationReader first = new ConfigurationReader(null);
+		first.enableSnapshot(snapshot);
+		first.combineConfigurationFromString(CONFIGURATION);
+		first.filter();
+		ConfigurationReader second = new ConfigurationReader(null);
+		second.enableSnapshot(snapshot);
+		second.combineConfigurationFromString(CONFIGURATION);
+
+		// when
+		second.printCombinedXml();
+		second.filter();
+
+		// then
+		assertThat(second.printCombinedXml().split("<head").length - 1).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRestoreSnapshot() throws IncorrectConfigurationException, IOException {
+		// given
+		Files.deleteIfExists(snapshot);
+		ConfigurationReader first = new ConfigurationReader(null);
+		first.enableSnapshot(snapshot);
+		first.combineConfigurationFromString(CONFIGURATION);
+		first.filter();
+		ConfigurationReader second = new ConfigurationReader(null);
+		second.enableSnapshot(snapshot);
+		second.combineConfigurationFromString(CONFIGURATION);
+
+		// when
+		second.filter();
+
+		// then
+		assertThat(second.printCombinedXml().split("<head").length - 1).isEqualTo(1);
+	}
+}
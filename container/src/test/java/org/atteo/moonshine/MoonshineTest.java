@@ -15,9 +15,17 @@ package org.atteo.moonshine;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.assertj.core.api.BDDAssertions.then;
 
 import com.google.inject.Binder;
@@ -26,6 +34,7 @@ import com.googlecode.catchexception.apis.BDDCatchException;
 import org.atteo.filtering.PropertyFilter;
 import org.atteo.filtering.PropertyNotFoundException;
 import org.atteo.filtering.PropertyResolver;
+import org.atteo.moonshine.services.BootProfile;
 import org.atteo.moonshine.services.LifeCycleListener;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -33,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.beust.jcommander.Parameter;
+import com.google.common.io.ByteStreams;
 import com.google.inject.AbstractModule;
 import com.google.inject.CreationException;
 import com.google.inject.Injector;
@@ -435,6 +445,200 @@ public class MoonshineTest {
 		}
 	}
 
+	@Test
+	public void shouldRecordBootProfile() throws MoonshineException, IOException {
+		// given
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-profile")
+				.build()) {
+
+			// when
+			moonshine.start();
+
+			// then
+			BootProfile profile = moonshine.getBootProfile();
+			assertThat(profile.isFinished()).isTrue();
+			assertThat(profile.getRoot().getChildren()).extracting("name")
+					.contains("read configuration", "create injector", "start services");
+			assertThat(new File("target/test-home-profile/logs/boot-profile.json")).exists();
+		}
+	}
+
+	@Test
+	public void shouldRecordOnlyFirstStartInBootProfile() throws MoonshineException, IOException {
+		// given
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-profile")
+				.build()) {
+			moonshine.start();
+			int phases = moonshine.getBootProfile().getRoot().getChildren().size();
+
+			// when
+			moonshine.stop();
+			moonshine.start();
+
+			// then
+			assertThat(moonshine.getBootProfile().getRoot().getChildren()).hasSize(phases);
+		}
+	}
+
+	@Test
+	public void shouldRestartOnlyReloadableServiceWhenItsConfigurationChanges()
+			throws MoonshineException, IOException {
+		// given
+		Path configFile = Paths.get("target/test-home-reload/config/config.xml");
+		writeReloadConfiguration(configFile, "first", "head");
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-reload")
+				.build()) {
+			moonshine.start();
+			Injector injector = moonshine.getGlobalInjector();
+			ReloadableService service = injector.getInstance(ReloadableService.class);
+
+			// when
+			writeReloadConfiguration(configFile, "second", "head");
+			moonshine.reload();
+
+			// then
+			assertThat(moonshine.getGlobalInjector()).isSameAs(injector);
+			assertThat(service.getStartedWith()).isEqualTo("second");
+			assertThat(service.getStartCount()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void shouldRecreateServicesWhenNonReloadableConfigurationChanges()
+			throws MoonshineException, IOException {
+		// given
+		Path configFile = Paths.get("target/test-home-reload/config/config.xml");
+		writeReloadConfiguration(configFile, "first", "head");
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-reload")
+				.build()) {
+			moonshine.start();
+			Injector injector = moonshine.getGlobalInjector();
+
+			// when
+			writeReloadConfiguration(configFile, "first", "new head");
+			moonshine.reload();
+
+			// then
+			assertThat(moonshine.getGlobalInjector()).isNotSameAs(injector);
+			assertThat(moonshine.getGlobalInjector().getInstance(Head.class).getName()).isEqualTo("new head");
+			assertThat(moonshine.getGlobalInjector().getInstance(ReloadableService.class).getStartCount())
+					.isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldKeepRunningServicesWhenRecreationFails() throws MoonshineException, IOException {
+		// given
+		Path configFile = Paths.get("target/test-home-reload/config/config.xml");
+		writeReloadConfiguration(configFile, "first", "head");
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-reload")
+				.build()) {
+			moonshine.start();
+			Injector injector = moonshine.getGlobalInjector();
+
+			// when
+			Files.write(configFile, (""
+					+ "<config>"
+					+ "    <singletonService/>"
+					+ "    <singletonService/>"
+					+ "</config>").getBytes(StandardCharsets.UTF_8));
+			try {
+				moonshine.reload();
+				fail("Expected exception");
+			} catch (ConfigurationException e) {
+			}
+
+			// then
+			assertThat(moonshine.getGlobalInjector()).isSameAs(injector);
+			assertThat(injector.getInstance(ReloadableService.class).getStartedWith()).isEqualTo("first");
+			// stopped before recreation and started again after it failed
+			assertThat(injector.getInstance(ReloadableService.class).getStartCount()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void shouldStopServicesBeforeRecreatingThem() throws MoonshineException, IOException {
+		// given
+		Path configFile = Paths.get("target/test-home-reload/config/config.xml");
+		writeReloadConfiguration(configFile, "first", "head");
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-reload")
+				.build()) {
+			moonshine.start();
+
+			// when
+			writeReloadConfiguration(configFile, "first", "new head");
+			moonshine.reload();
+
+			// then
+			assertThat(moonshine.getGlobalInjector().getInstance(ReloadableService.class).getRunningOnConfigure())
+					.isEqualTo(0);
+		}
+	}
+
+	@Test
+	public void shouldResolvePropertiesOfRestoredSnapshot() throws MoonshineException, IOException {
+		// when
+		String first = startWithSnapshot("first");
+		String restored = startWithSnapshot("first");
+		String changed = startWithSnapshot("second");
+
+		// then
+		assertThat(first).isEqualTo("first");
+		assertThat(restored).isEqualTo("first");
+		assertThat(changed).isEqualTo("second");
+		Path snapshot;
+		try (Stream<Path> files = Files.walk(Paths.get("target/test-home-snapshot"))) {
+			snapshot = files.filter(path -> path.endsWith(MoonshineImplementation.SNAPSHOT_FILE_NAME))
+					.findFirst().get();
+		}
+		try (InputStream input = new GZIPInputStream(Files.newInputStream(snapshot))) {
+			String content = new String(ByteStreams.toByteArray(input), StandardCharsets.UTF_8);
+			assertThat(content).contains("${property}").doesNotContain("first").doesNotContain("second");
+		}
+	}
+
+	private static String startWithSnapshot(String value) throws MoonshineException, IOException {
+		try (Moonshine moonshine = Moonshine.Factory.builder()
+				.homeDirectory("target/test-home-snapshot")
+				.startupSnapshot(true)
+				.addConfigurationFromString(""
+				+ "<config>"
+				+ "    <head>"
+				+ "        <name>${property}</name>"
+				+ "    </head>"
+				+ "</config>")
+				.addPropertyResolver((String property, PropertyFilter filter) -> {
+					if ("property".equals(property)) {
+						return value;
+					}
+					throw new PropertyNotFoundException(property);
+				})
+				.build()) {
+
+			moonshine.start();
+			return moonshine.getGlobalInjector().getInstance(Head.class).getName();
+		}
+	}
+
+	private static void writeReloadConfiguration(Path file, String message, String headName) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, (""
+				+ "<config>"
+				+ "    <reloadable>"
+				+ "        <message>" + message + "</message>"
+				+ "    </reloadable>"
+				+ "    <head>"
+				+ "        <name>" + headName + "</name>"
+				+ "    </head>"
+				+ "</config>").getBytes(StandardCharsets.UTF_8));
+	}
+
 	@Test
 	public void shouldStartMultipleInstancesInOneVM() throws MoonshineException, IOException, InterruptedException {
 		// given
@@ -460,6 +664,10 @@ public class MoonshineTest {
 
 		MoonshineStarter s1 = new MoonshineStarter("1");
 		MoonshineStarter s2 = new MoonshineStarter("2");
+		Path log1 = Paths.get("target/test-home-1/logs/moonshine-1.log");
+		Path log2 = Paths.get("target/test-home-2/logs/moonshine-2.log");
+		Files.deleteIfExists(log1);
+		Files.deleteIfExists(log2);
 
 		// when
 		s1.start();
@@ -468,9 +676,15 @@ public class MoonshineTest {
 		s2.join();
 
 		// then
-		File log1 = new File("target/test-home-1/logs/moonshine-1.log");
-		File log2 = new File("target/test-home-2/logs/moonshine-2.log");
+		assertThat(withoutTimings(log1).length()).isEqualTo(withoutTimings(log2).length());
+	}
 
-		assertThat(log1.length()).isEqualTo(log2.length());
+	/**
+	 * Reads the log replacing padded numbers and the boot profile bars, so the timings do not affect its length.
+	 */
+	private static String withoutTimings(Path log) throws IOException {
+		return new String(Files.readAllBytes(log), StandardCharsets.UTF_8)
+				.replaceAll(" *[0-9]+", "0")
+				.replaceAll("#+", "");
 	}
 }
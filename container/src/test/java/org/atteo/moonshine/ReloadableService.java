@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+
+/**
+ * Service which reads its configuration on start.
+ */
+@XmlRootElement(name = "reloadable")
+@ServiceConfiguration(reloadable = true)
+public class ReloadableService extends TopLevelService {
+	private static final AtomicInteger running = new AtomicInteger();
+
+	@XmlElement
+	private String message;
+
+	private String startedWith;
+	private int startCount;
+	private int runningOnConfigure;
+
+	@Override
+	public Module configure() {
+		runningOnConfigure = running.get();
+		return new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(ReloadableService.class).toInstance(ReloadableService.this);
+			}
+		};
+	}
+
+	@Override
+	public void start() {
+		startedWith = message;
+		startCount++;
+		running.incrementAndGet();
+	}
+
+	@Override
+	public void stop() {
+		running.decrementAndGet();
+	}
+
+	public String getStartedWith() {
+		return startedWith;
+	}
+
+	public int getStartCount() {
+		return startCount;
+	}
+
+	/**
+	 * Returns the number of started instances of this service when this one was configured.
+	 */
+	public int getRunningOnConfigure() {
+		return runningOnConfigure;
+	}
+}
@@ -21,15 +21,18 @@ import java.util.List;
 import javax.inject.Inject;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import org.assertj.core.util.Lists;
 import org.atteo.moonshine.ConfigurationException;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.PrivateModule;
+import com.google.inject.ProvisionException;
 import com.google.inject.TypeLiteral;
 
 public class ServicesTest {
@@ -107,6 +110,98 @@ public class ServicesTest {
 		}
 	}
 
+	@Test
+	public void shouldStartServicesInDependencyOrderInParallel() throws ConfigurationException {
+		class ServiceA extends AbstractService {
+			volatile boolean started = false;
+			@Override
+			public void start() {
+				started = true;
+			}
+
+			@Override
+			public void stop() {
+				started = false;
+			}
+		}
+		class ServiceB extends AbstractService {
+			@ImportService
+			private ServiceA serviceA;
+			volatile boolean started = false;
+
+			@Override
+			public void start() {
+				assertThat(serviceA.started).isTrue();
+				started = true;
+			}
+
+			@Override
+			public void stop() {
+				assertThat(serviceA.started).isTrue();
+				started = false;
+			}
+		}
+
+		ServiceB serviceB = new ServiceB();
+		try (Services services = Services.Factory.builder()
+				.parallelism(4)
+				.configuration(new AbstractService() {
+					@Override
+					public Iterable<? extends Service> getSubServices() {
+						return Lists.newArrayList(serviceB, new ServiceA(), new AbstractService() {
+						});
+					}
+				})
+				.build()) {
+			services.start();
+			assertThat(serviceB.started).isTrue();
+			services.stop();
+			assertThat(serviceB.started).isFalse();
+		}
+	}
+
+	@Test
+	public void shouldStopStartedServicesWhenParallelStartFails() throws ConfigurationException {
+		class ServiceA extends AbstractService {
+			volatile boolean started = false;
+			@Override
+			public void start() {
+				started = true;
+			}
+
+			@Override
+			public void stop() {
+				started = false;
+			}
+		}
+		class ServiceB extends AbstractService {
+			@ImportService
+			private ServiceA serviceA;
+
+			@Override
+			public void start() {
+				throw new IllegalStateException("expected");
+			}
+		}
+
+		ServiceA serviceA = new ServiceA();
+		try (Services services = Services.Factory.builder()
+				.parallelism(4)
+				.configuration(new AbstractService() {
+					@Override
+					public Iterable<? extends Service> getSubServices() {
+						return Lists.newArrayList(new ServiceB(), serviceA);
+					}
+				})
+				.build()) {
+			services.start();
+			fail("Expected exception");
+		} catch (IllegalStateException e) {
+			assertThat(e).hasMessage("expected");
+		}
+		assertThat(serviceA.started).isFalse();
+	}
+
 	@Test
 	public void shouldConfigureCloseInDependencyOrder() throws ConfigurationException {
 		class ServiceA extends AbstractService {
@@ -283,4 +378,198 @@ public class ServicesTest {
 			assertThat(servicesInfo).isNotEmpty();
 		}
 	}
+
+	@Test
+	public void shouldStartLazyServiceOnFirstUse() throws ConfigurationException {
+		class LazyService extends AbstractService {
+			boolean started = false;
+
+			@Override
+			public boolean isLazy() {
+				return true;
+			}
+
+			@Override
+			public Module configure() {
+				return new PrivateModule() {
+					@Override
+					protected void configure() {
+						bind(String.class).toInstance("Hello World");
+						expose(String.class);
+					}
+				};
+			}
+
+			@Override
+			public void start() {
+				started = true;
+			}
+
+			@Override
+			public void stop() {
+				started = false;
+			}
+		}
+		final LazyService lazyService = new LazyService();
+
+		try (Services services = Services.Factory.builder()
+				.configuration(new AbstractService() {
+					@Override
+					public Iterable<? extends Service> getSubServices() {
+						return Lists.newArrayList(lazyService);
+					}
+				})
+				.build()) {
+			services.start();
+			assertThat(lazyService.started).isFalse();
+
+			assertThat(services.getGlobalInjector().getInstance(String.class)).isEqualTo("Hello World");
+			assertThat(lazyService.started).isTrue();
+
+			services.stop();
+			assertThat(lazyService.started).isFalse();
+		}
+	}
+
+	@Test
+	public void shouldStartLazyServiceBeforeDependentService() throws ConfigurationException {
+		class LazyService extends AbstractService {
+			boolean started = false;
+
+			@Override
+			public boolean isLazy() {
+				return true;
+			}
+
+			@Override
+			public void start() {
+				started = true;
+			}
+		}
+		class DependentService extends AbstractService {
+			@ImportService
+			private LazyService lazyService;
+
+			@Override
+			public void start() {
+				assertThat(lazyService.started).isTrue();
+			}
+		}
+		final LazyService lazyService = new LazyService();
+
+		try (Services services = Services.Factory.builder()
+				.configuration(new AbstractService() {
+					@Override
+					public Iterable<? extends Service> getSubServices() {
+						return Lists.newArrayList(new DependentService(), lazyService);
+					}
+				})
+				.parallelism(2)
+				.build()) {
+			services.start();
+			assertThat(lazyService.started).isTrue();
+		}
+	}
+
+	@Test
+	public void shouldRethrowStartFailureOfLazyService() throws ConfigurationException {
+		class LazyService extends AbstractService {
+			int startCount = 0;
+
+			@Override
+			public boolean isLazy() {
+				return true;
+			}
+
+			@Override
+			public Module configure() {
+				return new PrivateModule() {
+					@Override
+					protected void configure() {
+						bind(String.class).toInstance("Hello World");
+						expose(String.class);
+					}
+				};
+			}
+
+			@Override
+			public void start() {
+				startCount++;
+				throw new IllegalArgumentException("Cannot start");
+			}
+		}
+		final LazyService lazyService = new LazyService();
+
+		try (Services services = Services.Factory.builder()
+				.configuration(new AbstractService() {
+					@Override
+					public Iterable<? extends Service> getSubServices() {
+						return Lists.newArrayList(lazyService);
+					}
+				})
+				.build()) {
+			services.start();
+
+			for (int i = 0; i < 2; i++) {
+				try {
+					services.getGlobalInjector().getInstance(String.class);
+					fail("Expected exception");
+				} catch (ProvisionException e) {
+					assertThat(Throwables.getCausalChain(e)).extracting("message").contains("Cannot start");
+				}
+			}
+			assertThat(lazyService.startCount).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldNotCreateExposedEagerSingletonOfLazyServiceUntilUsed() throws ConfigurationException {
+		class LazyService extends AbstractService {
+			boolean started = false;
+			int created = 0;
+
+			@Override
+			public boolean isLazy() {
+				return true;
+			}
+
+			@Override
+			public Module configure() {
+				return new PrivateModule() {
+					@Override
+					protected void configure() {
+						bind(String.class).toProvider(() -> {
+							created++;
+							return "Hello World";
+						}).asEagerSingleton();
+						expose(String.class);
+					}
+				};
+			}
+
+			@Override
+			public void start() {
+				started = true;
+			}
+		}
+		final LazyService lazyService = new LazyService();
+
+		try (Services services = Services.Factory.builder()
+				.configuration(new AbstractService() {
+					@Override
+					public Iterable<? extends Service> getSubServices() {
+						return Lists.newArrayList(lazyService);
+					}
+				})
+				.build()) {
+			services.start();
+			assertThat(lazyService.started).isFalse();
+			assertThat(lazyService.created).isEqualTo(0);
+
+			services.getGlobalInjector().getInstance(String.class);
+			services.getGlobalInjector().getInstance(String.class);
+			assertThat(lazyService.started).isTrue();
+			assertThat(lazyService.created).isEqualTo(1);
+		}
+	}
 }
@@ -80,6 +80,22 @@ public class Atomikos extends JtaService {
 	@XmlDefaultValue("60")
 	private Integer transactionTimeout;
 
+	/**
+	 * Sets whether the transaction log should be written to disk.
+	 * <p>
+	 * Atomikos already commits transactions with a single resource using the one-phase commit.
+	 * Disabling the log saves the remaining disk writes of such transactions.
+	 * </p>
+	 * <p>
+	 * The setting applies to all the transactions. Without the log the transactions spanning many resources
+	 * cannot be recovered after a crash in the middle of the two-phase commit, some resources can stay committed
+	 * while the others are rolled back or left in-doubt. Disable it only when every transaction enlists
+	 * a single resource or when such inconsistency is acceptable.
+	 * </p>
+	 */
+	@XmlElement
+	private Boolean enableLogging = true;
+
 	private UserTransactionManager manager;
 	private UserTransactionServiceImp service;
 	private static boolean initialized = false;
@@ -123,6 +139,7 @@ public class Atomikos extends JtaService {
 					"false");
 			properties.setProperty(AbstractUserTransactionServiceFactory.DEFAULT_JTA_TIMEOUT_PROPERTY_NAME,
 					Integer.toString(transactionTimeout * 1000));
+			properties.setProperty("com.atomikos.icatch.enable_logging", Boolean.toString(enableLogging));
 			service = new UserTransactionServiceImp(properties);
 			try {
 				service.init();
@@ -227,7 +244,7 @@ public class Atomikos extends JtaService {
 				expose(TransactionManager.class);
 				bind(UserTransaction.class).to(UserTransactionManager.class);
 				expose(UserTransaction.class);
-				bind(JtaDataSourceWrapper.class).to(AtomikosDataSourceWrapper.class).in(Singleton.class);
+				bindDataSourceWrapper(binder(), AtomikosDataSourceWrapper.class);
 				expose(JtaDataSourceWrapper.class);
 				bind(JtaConnectionFactoryWrapper.class).to(AtomikosConnectionFactoryWrapper.class).in(Singleton.class);
 				expose(JtaConnectionFactoryWrapper.class);
@@ -16,6 +16,7 @@
 package org.atteo.moonshine.btm;
 
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Singleton;
 import javax.jms.ConnectionFactory;
@@ -44,6 +45,12 @@ import bitronix.tm.resource.jms.PoolingConnectionFactory;
 
 /**
  * Bitronix JTA transaction manager.
+ *
+ * <p>
+ * Many transaction managers can be started one after another in the same JVM, but they cannot run concurrently,
+ * because BTM keeps the resources and the transaction manager services in JVM-wide singletons.
+ * The tests using BTM are not supported in the parallel mode of the Moonshine test runners.
+ * </p>
  */
 @XmlRootElement(name = "btm")
 public class BTM extends JtaService {
@@ -62,6 +69,33 @@ public class BTM extends JtaService {
 	@XmlDefaultValue("60")
 	private Integer transactionTimeout;
 
+	/**
+	 * The transaction journal: "disk" or "null" to disable the journal.
+	 * <p>
+	 * BTM already commits transactions with a single resource using the one-phase commit.
+	 * Disabling the journal saves the remaining disk writes of such transactions.
+	 * </p>
+	 * <p>
+	 * The setting applies to all the transactions, BTM cannot disable the journal only for the single-resource ones.
+	 * Without the journal the transactions spanning many resources cannot be recovered after a crash
+	 * in the middle of the two-phase commit: some resources can stay committed while the others are rolled back
+	 * or left in-doubt, holding their locks until resolved manually. Disable it only when every transaction
+	 * enlists a single resource or when such inconsistency is acceptable.
+	 * </p>
+	 */
+	@XmlElement
+	@XmlDefaultValue("disk")
+	private String journal;
+
+	/**
+	 * Sets whether the journal writes should be forced to disk.
+	 * Disabling it makes two-phase commits faster, but the journal can be lost on operating system crash.
+	 */
+	@XmlElement
+	private Boolean forcedWriteEnabled = true;
+
+	private static final AtomicInteger instanceCounter = new AtomicInteger();
+
 	private BitronixTransactionManager transactionManager;
 
 	private static class BitronixDataSourceWrapper implements JtaDataSourceWrapper {
@@ -148,14 +182,18 @@ public class BTM extends JtaService {
 				configuration.setLogPart1Filename(logPart1FileName);
 				configuration.setLogPart2Filename(logPart2FileName);
 				configuration.setDisableJmx(true);
-				configuration.setServerId(ManagementFactory.getRuntimeMXBean().getName());
+				// unique for each transaction manager, there can be many of them in the same JVM
+				configuration.setServerId(ManagementFactory.getRuntimeMXBean().getName() + "-"
+						+ instanceCounter.incrementAndGet());
 				configuration.setDefaultTransactionTimeout(transactionTimeout);
+				configuration.setJournal(journal);
+				configuration.setForcedWriteEnabled(forcedWriteEnabled);
 
 				transactionManager = TransactionManagerServices.getTransactionManager();
 
 				bind(TransactionManager.class).toInstance(transactionManager);
 				bind(UserTransaction.class).toInstance(transactionManager);
-				bind(JtaDataSourceWrapper.class).to(BitronixDataSourceWrapper.class).in(Singleton.class);
+				bindDataSourceWrapper(binder(), BitronixDataSourceWrapper.class);
 				bind(JtaConnectionFactoryWrapper.class).to(BitronixFactoryConnectionWrapper.class).in(Singleton.class);
 			}
 		};
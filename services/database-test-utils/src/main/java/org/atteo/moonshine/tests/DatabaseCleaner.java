@@ -21,7 +21,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -29,92 +35,201 @@ import org.atteo.moonshine.database.DatabaseService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-
+/**
+ * Brings the database back to a known state between the tests.
+ *
+ * <p>
+ * The list of the tables, ordered so the referencing tables go before the tables they reference, is cached.
+ * Before each use only the names of the tables are read and the references are analysed again, when the tables
+ * have changed. The cache is also cleared when the tables are {@link #dropTables() dropped} or a snapshot
+ * is {@link #restore(ResetStrategy.Snapshot) restored}. The actual cleaning is done by the {@link ResetStrategy}
+ * selected with {@link ResetMode}, {@link ResetMode#DELETE} by default. When the strategy supports snapshots,
+ * the state of the database after the migrations is captured on the first {@link #reset()} and restored
+ * on the next ones instead of executing the migrations again.
+ * </p>
+ */
 public class DatabaseCleaner {
 
 	private static final Logger logger = LoggerFactory.getLogger(DatabaseCleaner.class);
 
+	private static final Set<String> LIQUIBASE_TABLES = Collections.unmodifiableSet(new HashSet<>(
+			Arrays.asList("DATABASECHANGELOG", "DATABASECHANGELOGLOCK")));
+
 	private final DataSource dataSource;
 
 	private final DatabaseService database;
 
+	private final ResetMode mode;
+
+	private ResetStrategy strategy;
+
+	private List<String> tables;
+
+	private Set<String> analysedTableNames;
+
+	private ResetStrategy.Snapshot pristine;
+
 	public DatabaseCleaner(DataSource dataSource, DatabaseService database) {
+		this(dataSource, database, ResetMode.DELETE);
+	}
+
+	public DatabaseCleaner(DataSource dataSource, DatabaseService database, ResetMode mode) {
 		this.dataSource = dataSource;
 		this.database = database;
+		this.mode = mode;
 	}
 
 	/**
 	 * Restore the database to its pristine state (after all migrations have run).
 	 */
-	public void reset() {
+	public synchronized void reset() {
+		if (pristine != null) {
+			restore(pristine);
+			return;
+		}
 		dropTables();
 		database.executeMigrations(dataSource);
+		pristine = snapshot();
 	}
 
 	/**
 	 * Clean all database tables.
 	 */
-	public void clean() {
+	public synchronized void clean() {
 		logger.debug("Clearing database");
 		try (Connection connection = dataSource.getConnection()) {
+			List<String> tablesToClean = new ArrayList<>();
+			for (String table : getTables(connection)) {
+				if (!LIQUIBASE_TABLES.contains(table)) {
+					tablesToClean.add(table);
+				}
+			}
+			getStrategy(connection).clean(connection, tablesToClean);
+		} catch (SQLException e) {
+			throw new RuntimeException("Cannot clean the database", e);
+		}
+	}
 
-			List<String> tables = analyseDatabase(connection);
+	/**
+	 * Drop all database tables.
+	 */
+	public synchronized void dropTables() {
+		try (Connection connection = dataSource.getConnection()) {
+			List<String> tablesToDrop = getTables(connection);
+			tables = null;
+			analysedTableNames = null;
+			pristine = null;
 
-			clearTables(connection, tables);
+			dropTables(connection, tablesToDrop);
 		} catch (SQLException e) {
 			throw new RuntimeException(e);
 		}
+
 	}
 
 	/**
-	 * Drop all database tables.
+	 * Captures the current state of the database.
+	 * @return snapshot of the database or null, if the {@link ResetStrategy} does not support snapshots
 	 */
-	public void dropTables() {
+	public synchronized ResetStrategy.Snapshot snapshot() {
 		try (Connection connection = dataSource.getConnection()) {
-			List<String> tables = analyseDatabase(connection);
+			return getStrategy(connection).snapshot(connection);
+		} catch (SQLException e) {
+			throw new RuntimeException("Cannot capture the snapshot of the database", e);
+		}
+	}
 
-			dropTables(connection, tables);
+	/**
+	 * Restores the database to the state captured with {@link #snapshot()}.
+	 */
+	public synchronized void restore(ResetStrategy.Snapshot snapshot) {
+		logger.debug("Restoring database snapshot");
+		try (Connection connection = dataSource.getConnection()) {
+			// the snapshot can contain different tables
+			tables = null;
+			analysedTableNames = null;
+			snapshot.restore(connection);
 		} catch (SQLException e) {
-			throw new RuntimeException(e);
+			throw new RuntimeException("Cannot restore the snapshot of the database", e);
+		}
+	}
+
+	private ResetStrategy getStrategy(Connection connection) throws SQLException {
+		if (strategy == null) {
+			strategy = mode.createStrategy(connection.getMetaData().getDatabaseProductName());
+		}
+		return strategy;
+	}
+
+	private List<String> getTables(Connection connection) {
+		Set<String> tableNames = readTableNames(connection);
+		if (tables == null || !tableNames.equals(analysedTableNames)) {
+			tables = analyseDatabase(connection);
+			analysedTableNames = tableNames;
 		}
+		return tables;
+	}
 
+	private static Set<String> readTableNames(Connection connection) {
+		try (ResultSet result = connection.getMetaData().getTables(null, null, "%", new String[]{"TABLE"})) {
+			Set<String> tableNames = new HashSet<>();
+			while (result.next()) {
+				tableNames.add(result.getString("TABLE_SCHEM") + "." + result.getString("TABLE_NAME"));
+			}
+			return tableNames;
+		} catch (SQLException e) {
+			throw new RuntimeException("An exception occurred while trying to analyse the database.", e);
+		}
 	}
 
+	/**
+	 * Returns the tables ordered so each table goes before the tables it references.
+	 */
 	private List<String> analyseDatabase(Connection connection) {
 		try {
-			List<String> tables = new ArrayList<>();
+			Map<String, Set<String>> references = new LinkedHashMap<>();
 
 			DatabaseMetaData metaData = connection.getMetaData();
 
 			try (ResultSet result = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
 				while (result.next()) {
+					String catalog = result.getString("TABLE_CAT");
+					String schema = result.getString("TABLE_SCHEM");
 					String tableName = result.getString("TABLE_NAME");
-					tables.add(tableName);
+					Set<String> referenced = new HashSet<>();
+					try (ResultSet keys = metaData.getImportedKeys(catalog, schema, tableName)) {
+						while (keys.next()) {
+							referenced.add(keys.getString("PKTABLE_NAME"));
+						}
+					}
+					references.put(tableName, referenced);
 				}
 			}
 
-			return tables;
+			List<String> tables = new ArrayList<>();
+			Set<String> visited = new HashSet<>();
+			for (String table : references.keySet()) {
+				sortReferencedFirst(table, references, visited, tables);
+			}
+			Collections.reverse(tables);
+			return Collections.unmodifiableList(tables);
 		} catch (SQLException e) {
 			throw new RuntimeException("An exception occurred while trying to analyse the database.", e);
 		}
 	}
 
-	private void clearTables(Connection connection, List<String> tables) {
-		for (String table : tables) {
-			if (!table.equals("DATABASECHANGELOG") && !table.equals("DATABASECHANGELOGLOCK")) {
-				clearSingleTable(connection, table);
-			}
+	private static void sortReferencedFirst(String table, Map<String, Set<String>> references, Set<String> visited,
+			List<String> sorted) {
+		if (!visited.add(table)) {
+			return;
 		}
-
-	}
-
-
-	private void clearSingleTable(Connection connection, String tableName) {
-		try (Statement statement = connection.createStatement()) {
-			statement.executeUpdate("DELETE FROM " + tableName);
-		} catch (SQLException ex) {
-			throw new RuntimeException("Can't read table contents from table ".concat(tableName), ex);
+		Set<String> referenced = references.get(table);
+		if (referenced != null) {
+			for (String referencedTable : referenced) {
+				sortReferencedFirst(referencedTable, references, visited, sorted);
+			}
 		}
+		sorted.add(table);
 	}
 
 	private void dropTables(Connection connection, List<String> tables) {
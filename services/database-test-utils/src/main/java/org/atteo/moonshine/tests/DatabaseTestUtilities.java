@@ -38,6 +38,25 @@ public class DatabaseTestUtilities extends TopLevelService {
 	@XmlElement(name = "database")
 	private DatabaseService database;
 
+	/**
+	 * Strategy used to clean and reset the database, {@link ResetMode#DELETE} by default.
+	 */
+	@XmlElement
+	private ResetMode resetMode = ResetMode.DELETE;
+
+	/**
+	 * Cache the state of the database after applying {@link Fixture fixtures}.
+	 *
+	 * <p>
+	 * Requires the {@link #resetMode reset mode} which supports snapshots, that is 'snapshot' or 'auto' on H2.
+	 * The fixtures are then applied only once. Each next test using the same fixtures restores the cached snapshot
+	 * instead. Afterwards the state of the database from before the first of those tests is restored.
+	 * Note that the test sees the database as it was when the fixtures were applied for the first time.
+	 * </p>
+	 */
+	@XmlElement
+	private boolean cacheFixtures = false;
+
 	@Override
 	public Module configure() {
 		return new AbstractModule() {
@@ -49,11 +68,11 @@ public class DatabaseTestUtilities extends TopLevelService {
 
 					@Override
 					public DatabaseCleaner get() {
-						return new DatabaseCleaner(dataSource, database);
+						return new DatabaseCleaner(dataSource, database, resetMode);
 					}
 				}).in(Scopes.SINGLETON);
 
-				FixtureInterceptor interceptor = new FixtureInterceptor();
+				FixtureInterceptor interceptor = new FixtureInterceptor(resetMode, cacheFixtures);
 				requestInjection(interceptor);
 				bindInterceptor(Matchers.any(), Matchers.annotatedWith(Fixture.class), interceptor);
 			}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Cleans the tables with DELETE statements sent in a single batch.
+ *
+ * <p>
+ * Works with any database, but does not support snapshots.
+ * </p>
+ */
+public class DeleteResetStrategy implements ResetStrategy {
+	@Override
+	public void clean(Connection connection, List<String> tables) throws SQLException {
+		if (tables.isEmpty()) {
+			return;
+		}
+		try (Statement statement = connection.createStatement()) {
+			for (String table : tables) {
+				statement.addBatch("DELETE FROM " + table);
+			}
+			statement.executeBatch();
+		}
+	}
+
+	@Override
+	public Snapshot snapshot(Connection connection) {
+		return null;
+	}
+}
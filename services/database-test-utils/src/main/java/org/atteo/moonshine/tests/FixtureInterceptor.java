@@ -15,6 +15,12 @@
  */
 package org.atteo.moonshine.tests;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.sql.DataSource;
 
 import org.aopalliance.intercept.MethodInterceptor;
@@ -33,6 +39,27 @@ public class FixtureInterceptor implements MethodInterceptor {
 	@Inject
 	private Injector injector;
 
+	private final ResetMode resetMode;
+
+	private final boolean cacheFixtures;
+
+	private final Map<DataSource, DatabaseCleaner> cleaners = new ConcurrentHashMap<>();
+
+	private final Map<List<Object>, CachedFixtures> cachedFixtures = new ConcurrentHashMap<>();
+
+	public FixtureInterceptor() {
+		this(ResetMode.DELETE, false);
+	}
+
+	/**
+	 * @param resetMode strategy used to capture the snapshots of the database
+	 * @param cacheFixtures whether to cache the state of the database after applying the fixtures
+	 */
+	public FixtureInterceptor(ResetMode resetMode, boolean cacheFixtures) {
+		this.resetMode = resetMode;
+		this.cacheFixtures = cacheFixtures;
+	}
+
 	@Override
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 		final Fixture annotation = invocation.getMethod().getAnnotation(Fixture.class);
@@ -61,6 +88,24 @@ public class FixtureInterceptor implements MethodInterceptor {
 			}
 		}
 
+		if (cacheFixtures) {
+			List<Object> key = new ArrayList<>();
+			key.add(dataSource);
+			key.add(Arrays.asList(fixtureNames));
+			key.add(provider.getChangelogParameters());
+
+			CachedFixtures cached = cachedFixtures.get(key);
+			if (cached != null) {
+				return invokeWithCachedFixtures(invocation, cached);
+			}
+			DatabaseCleaner cleaner = cleaners.computeIfAbsent(dataSource,
+					ds -> new DatabaseCleaner(ds, null, resetMode));
+			ResetStrategy.Snapshot before = cleaner.snapshot();
+			if (before != null) {
+				return invokeCachingFixtures(invocation, cleaner, before, key, dataSource, fixtureNames, provider);
+			}
+		}
+
 		LiquibaseFacade liquibase = new LiquibaseFacade(dataSource);
 
 		for (String fixtureName : fixtureNames) {
@@ -77,4 +122,44 @@ public class FixtureInterceptor implements MethodInterceptor {
 		}
 		return o;
 	}
+
+	private Object invokeWithCachedFixtures(MethodInvocation invocation, CachedFixtures cached) throws Throwable {
+		try {
+			cached.cleaner.restore(cached.fixtures);
+			return invocation.proceed();
+		} finally {
+			cached.cleaner.restore(cached.before);
+		}
+	}
+
+	private Object invokeCachingFixtures(MethodInvocation invocation, DatabaseCleaner cleaner,
+			ResetStrategy.Snapshot before, List<Object> key, DataSource dataSource, String[] fixtureNames,
+			ChangelogParametersProvider provider) throws Throwable {
+		try {
+			LiquibaseFacade liquibase = new LiquibaseFacade(dataSource);
+			for (String fixtureName : fixtureNames) {
+				liquibase.migrate(fixtureName, null, provider.getChangelogParameters());
+			}
+			cachedFixtures.put(key, new CachedFixtures(cleaner, before, cleaner.snapshot()));
+			return invocation.proceed();
+		} finally {
+			cleaner.restore(before);
+		}
+	}
+
+	/**
+	 * Snapshots of the database taken before and after applying the fixtures for the first time.
+	 */
+	private static class CachedFixtures {
+		private final DatabaseCleaner cleaner;
+		private final ResetStrategy.Snapshot before;
+		private final ResetStrategy.Snapshot fixtures;
+
+		public CachedFixtures(DatabaseCleaner cleaner, ResetStrategy.Snapshot before,
+				ResetStrategy.Snapshot fixtures) {
+			this.cleaner = cleaner;
+			this.before = before;
+			this.fixtures = fixtures;
+		}
+	}
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cleans H2 database by truncating the tables and supports snapshots.
+ *
+ * <p>
+ * The snapshot is the list of statements generated by H2 SCRIPT command which is kept in memory.
+ * To restore it all the database objects are dropped and the statements are executed again.
+ * </p>
+ */
+public class H2ScriptResetStrategy extends TruncateResetStrategy {
+	public H2ScriptResetStrategy() {
+		super("SET REFERENTIAL_INTEGRITY FALSE", "SET REFERENTIAL_INTEGRITY TRUE", false);
+	}
+
+	@Override
+	public Snapshot snapshot(Connection connection) throws SQLException {
+		List<String> script = new ArrayList<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SCRIPT")) {
+			while (result.next()) {
+				script.add(result.getString(1));
+			}
+		}
+		return new ScriptSnapshot(script);
+	}
+
+	private static class ScriptSnapshot implements Snapshot {
+		private final List<String> script;
+
+		public ScriptSnapshot(List<String> script) {
+			this.script = script;
+		}
+
+		@Override
+		public void restore(Connection connection) throws SQLException {
+			try (Statement statement = connection.createStatement()) {
+				statement.addBatch("DROP ALL OBJECTS");
+				for (String line : script) {
+					statement.addBatch(line);
+				}
+				statement.executeBatch();
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlEnumValue;
+
+/**
+ * Selects the {@link ResetStrategy} used by {@link DatabaseCleaner}.
+ *
+ * <p>
+ * {@link #DELETE} is used by default. The faster modes must be enabled explicitly, because they bypass
+ * the triggers and the foreign key checks and, in case of {@link #SNAPSHOT}, drop and recreate all the objects
+ * of the database.
+ * </p>
+ */
+@XmlEnum
+public enum ResetMode {
+	/**
+	 * Selects the fastest strategy supported by the database: {@link H2ScriptResetStrategy} for H2,
+	 * {@link TruncateResetStrategy} for HSQLDB and PostgreSQL and {@link DeleteResetStrategy} otherwise.
+	 */
+	@XmlEnumValue("auto")
+	AUTO,
+	/**
+	 * Always uses {@link DeleteResetStrategy}. This is the default.
+	 */
+	@XmlEnumValue("delete")
+	DELETE,
+	/**
+	 * Uses {@link TruncateResetStrategy}, fails when the database is not supported.
+	 */
+	@XmlEnumValue("truncate")
+	TRUNCATE,
+	/**
+	 * Uses {@link H2ScriptResetStrategy}, fails when the database is not H2.
+	 */
+	@XmlEnumValue("snapshot")
+	SNAPSHOT;
+
+	private static final String H2 = "H2";
+	private static final String HSQLDB = "HSQL Database Engine";
+	private static final String POSTGRESQL = "PostgreSQL";
+
+	/**
+	 * Creates the strategy for the database with given product name.
+	 * @see java.sql.DatabaseMetaData#getDatabaseProductName()
+	 */
+	public ResetStrategy createStrategy(String databaseProductName) {
+		switch (this) {
+			case DELETE:
+				return new DeleteResetStrategy();
+			case TRUNCATE:
+				if (H2.equals(databaseProductName)) {
+					return TruncateResetStrategy.forH2();
+				}
+				return truncateStrategy(databaseProductName);
+			case SNAPSHOT:
+				if (!H2.equals(databaseProductName)) {
+					throw new IllegalStateException("Snapshots are not supported for " + databaseProductName);
+				}
+				return new H2ScriptResetStrategy();
+			default:
+				if (H2.equals(databaseProductName)) {
+					return new H2ScriptResetStrategy();
+				} else if (HSQLDB.equals(databaseProductName) || POSTGRESQL.equals(databaseProductName)) {
+					return truncateStrategy(databaseProductName);
+				}
+				return new DeleteResetStrategy();
+		}
+	}
+
+	private static ResetStrategy truncateStrategy(String databaseProductName) {
+		switch (databaseProductName) {
+			case HSQLDB:
+				return TruncateResetStrategy.forHsqldb();
+			case POSTGRESQL:
+				return TruncateResetStrategy.forPostgreSQL();
+			default:
+				throw new IllegalStateException("Truncating is not supported for " + databaseProductName);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Strategy used by {@link DatabaseCleaner} to bring the database back to a known state.
+ */
+public interface ResetStrategy {
+	/**
+	 * Removes all the rows from the given tables.
+	 * @param connection connection to the database
+	 * @param tables tables to clean, the referencing tables go before the tables they reference
+	 */
+	void clean(Connection connection, List<String> tables) throws SQLException;
+
+	/**
+	 * Captures the current state of the database.
+	 * @param connection connection to the database
+	 * @return snapshot of the database or null, if snapshots are not supported by this strategy
+	 */
+	Snapshot snapshot(Connection connection) throws SQLException;
+
+	/**
+	 * Captured state of the database.
+	 */
+	interface Snapshot {
+		/**
+		 * Restores the database to the captured state.
+		 */
+		void restore(Connection connection) throws SQLException;
+	}
+}
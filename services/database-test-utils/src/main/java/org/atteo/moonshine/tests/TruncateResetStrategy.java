@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.google.common.base.Joiner;
+
+/**
+ * Cleans the tables with TRUNCATE statements sent in a single batch.
+ *
+ * <p>
+ * Truncating is much faster than deleting the rows one by one, but the syntax and the handling
+ * of the foreign keys differs between the databases, so use one of the factory methods.
+ * </p>
+ */
+public class TruncateResetStrategy implements ResetStrategy {
+	private final String disableConstraints;
+	private final String enableConstraints;
+	private final boolean singleStatement;
+
+	protected TruncateResetStrategy(String disableConstraints, String enableConstraints, boolean singleStatement) {
+		this.disableConstraints = disableConstraints;
+		this.enableConstraints = enableConstraints;
+		this.singleStatement = singleStatement;
+	}
+
+	/**
+	 * Truncates the tables one by one with the referential integrity checks disabled.
+	 */
+	public static TruncateResetStrategy forH2() {
+		return new TruncateResetStrategy("SET REFERENTIAL_INTEGRITY FALSE", "SET REFERENTIAL_INTEGRITY TRUE", false);
+	}
+
+	/**
+	 * Truncates the tables one by one with the referential integrity checks disabled.
+	 */
+	public static TruncateResetStrategy forHsqldb() {
+		return new TruncateResetStrategy("SET DATABASE REFERENTIAL INTEGRITY FALSE",
+				"SET DATABASE REFERENTIAL INTEGRITY TRUE", false);
+	}
+
+	/**
+	 * Truncates all the tables with one statement which PostgreSQL allows even when they reference each other.
+	 */
+	public static TruncateResetStrategy forPostgreSQL() {
+		return new TruncateResetStrategy(null, null, true);
+	}
+
+	@Override
+	public void clean(Connection connection, List<String> tables) throws SQLException {
+		if (tables.isEmpty()) {
+			return;
+		}
+		try (Statement statement = connection.createStatement()) {
+			if (singleStatement) {
+				statement.execute("TRUNCATE TABLE " + Joiner.on(", ").join(tables) + " RESTART IDENTITY");
+				return;
+			}
+			if (disableConstraints != null) {
+				statement.addBatch(disableConstraints);
+			}
+			for (String table : tables) {
+				statement.addBatch("TRUNCATE TABLE " + table);
+			}
+			if (enableConstraints != null) {
+				statement.addBatch(enableConstraints);
+			}
+			try {
+				statement.executeBatch();
+			} catch (SQLException e) {
+				if (enableConstraints != null) {
+					statement.execute(enableConstraints);
+				}
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public Snapshot snapshot(Connection connection) throws SQLException {
+		return null;
+	}
+}
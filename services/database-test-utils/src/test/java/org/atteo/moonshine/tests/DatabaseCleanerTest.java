@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+
+@MoonshineConfiguration(autoConfiguration = true)
+public class DatabaseCleanerTest extends MoonshineTest {
+
+	@Inject
+	private DataSource dataSource;
+
+	@Before
+	public void createTables() throws SQLException {
+		execute("DROP ALL OBJECTS",
+				"CREATE TABLE owners (id INT PRIMARY KEY)",
+				"CREATE TABLE pets (id INT PRIMARY KEY, owner INT REFERENCES owners(id))",
+				"INSERT INTO owners VALUES (1)",
+				"INSERT INTO pets VALUES (1, 1)");
+	}
+
+	@Test
+	public void shouldCleanReferencedTables() throws SQLException {
+		for (ResetMode mode : new ResetMode[] { ResetMode.DELETE, ResetMode.TRUNCATE }) {
+			// given
+			createTables();
+			DatabaseCleaner cleaner = new DatabaseCleaner(dataSource, null, mode);
+
+			// when
+			cleaner.clean();
+
+			// then
+			assertEquals(0, count("owners"));
+			assertEquals(0, count("pets"));
+		}
+	}
+
+	@Test
+	public void shouldCleanTablesCreatedAfterPreviousClean() throws SQLException {
+		// given
+		DatabaseCleaner cleaner = new DatabaseCleaner(dataSource, null);
+		cleaner.clean();
+		execute("CREATE TABLE toys (id INT PRIMARY KEY, pet INT REFERENCES pets(id))",
+				"INSERT INTO owners VALUES (1)",
+				"INSERT INTO pets VALUES (1, 1)",
+				"INSERT INTO toys VALUES (1, 1)");
+
+		// when
+		cleaner.clean();
+
+		// then
+		assertEquals(0, count("toys"));
+		assertEquals(0, count("pets"));
+		assertEquals(0, count("owners"));
+	}
+
+	@Test
+	public void shouldNotCaptureSnapshotByDefault() {
+		// given
+		DatabaseCleaner cleaner = new DatabaseCleaner(dataSource, null);
+
+		// when
+		ResetStrategy.Snapshot snapshot = cleaner.snapshot();
+
+		// then
+		assertNull(snapshot);
+	}
+
+	@Test
+	public void shouldRestoreSnapshot() throws SQLException {
+		// given
+		DatabaseCleaner cleaner = new DatabaseCleaner(dataSource, null, ResetMode.SNAPSHOT);
+		ResetStrategy.Snapshot snapshot = cleaner.snapshot();
+		assertNotNull(snapshot);
+		cleaner.clean();
+		execute("INSERT INTO owners VALUES (2)", "INSERT INTO owners VALUES (3)");
+
+		// when
+		cleaner.restore(snapshot);
+
+		// then
+		assertEquals(1, count("owners"));
+		assertEquals(1, count("pets"));
+	}
+
+	private void execute(String... sqls) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			for (String sql : sqls) {
+				statement.execute(sql);
+			}
+		}
+	}
+
+	private int count(String table) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+			result.next();
+			return result.getInt(1);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.tests;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TruncateResetStrategyTest {
+	private Connection connection;
+	private Statement statement;
+
+	@Before
+	public void setUp() throws SQLException {
+		connection = mock(Connection.class);
+		statement = mock(Statement.class);
+		when(connection.createStatement()).thenReturn(statement);
+	}
+
+	@Test
+	public void shouldTruncateHsqldbTablesWithReferentialIntegrityDisabled() throws SQLException {
+		// given
+		ResetStrategy strategy = ResetMode.TRUNCATE.createStrategy("HSQL Database Engine");
+
+		// when
+		strategy.clean(connection, Arrays.asList("pets", "owners"));
+
+		// then
+		InOrder order = inOrder(statement);
+		order.verify(statement).addBatch("SET DATABASE REFERENTIAL INTEGRITY FALSE");
+		order.verify(statement).addBatch("TRUNCATE TABLE pets");
+		order.verify(statement).addBatch("TRUNCATE TABLE owners");
+		order.verify(statement).addBatch("SET DATABASE REFERENTIAL INTEGRITY TRUE");
+		order.verify(statement).executeBatch();
+		verify(statement).close();
+	}
+
+	@Test
+	public void shouldEnableReferentialIntegrityWhenHsqldbTruncateFails() throws SQLException {
+		// given
+		ResetStrategy strategy = ResetMode.TRUNCATE.createStrategy("HSQL Database Engine");
+		SQLException failure = new SQLException("truncate failed");
+		when(statement.executeBatch()).thenThrow(failure);
+
+		// when
+		try {
+			strategy.clean(connection, Arrays.asList("pets", "owners"));
+			fail("Expected exception");
+		} catch (SQLException e) {
+			// then
+			assertSame(failure, e);
+		}
+		verify(statement).execute("SET DATABASE REFERENTIAL INTEGRITY TRUE");
+	}
+
+	@Test
+	public void shouldTruncatePostgreSQLTablesWithSingleStatement() throws SQLException {
+		// given
+		ResetStrategy strategy = ResetMode.TRUNCATE.createStrategy("PostgreSQL");
+
+		// when
+		strategy.clean(connection, Arrays.asList("pets", "owners"));
+
+		// then
+		verify(statement).execute("TRUNCATE TABLE pets, owners RESTART IDENTITY");
+		verify(statement, never()).executeBatch();
+	}
+
+	@Test
+	public void shouldNotExecuteAnythingForNoTables() throws SQLException {
+		// given
+		ResetStrategy strategy = ResetMode.TRUNCATE.createStrategy("PostgreSQL");
+
+		// when
+		strategy.clean(connection, Arrays.<String>asList());
+
+		// then
+		verify(connection, never()).createStatement();
+	}
+
+	@Test
+	public void shouldNotSupportSnapshots() throws SQLException {
+		assertEquals(null, ResetMode.TRUNCATE.createStrategy("HSQL Database Engine").snapshot(connection));
+		assertEquals(null, ResetMode.TRUNCATE.createStrategy("PostgreSQL").snapshot(connection));
+	}
+
+	@Test
+	public void shouldSelectStrategyForDatabase() {
+		assertTrue(ResetMode.AUTO.createStrategy("HSQL Database Engine") instanceof TruncateResetStrategy);
+		assertTrue(ResetMode.AUTO.createStrategy("PostgreSQL") instanceof TruncateResetStrategy);
+		assertTrue(ResetMode.AUTO.createStrategy("Oracle") instanceof DeleteResetStrategy);
+		assertTrue(ResetMode.DELETE.createStrategy("PostgreSQL") instanceof DeleteResetStrategy);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldFailToTruncateUnsupportedDatabase() {
+		ResetMode.TRUNCATE.createStrategy("Oracle");
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.atteo.config.AbstractConfigurable;
+import org.hibernate.cfg.AvailableSettings;
+
+/**
+ * JDBC batching settings of {@link HibernateService}.
+ *
+ * <p>
+ * Batching takes effect only for entities whose identifiers are not generated by the database,
+ * because Hibernate must execute the insert immediately to obtain the generated identity.
+ * </p>
+ */
+@XmlRootElement(name = "batching")
+public class BatchingOptions extends AbstractConfigurable {
+	/**
+	 * Maximum number of statements sent to the database in one JDBC batch. Set to 0 to disable batching.
+	 */
+	@XmlElement
+	private Integer batchSize = 50;
+
+	/**
+	 * Orders inserts by entity type, so the consecutive statements can be batched together.
+	 */
+	@XmlElement
+	private Boolean orderInserts = true;
+
+	/**
+	 * Orders updates by entity type and primary key, so the consecutive statements can be batched together.
+	 * This also reduces deadlocks between concurrent transactions.
+	 */
+	@XmlElement
+	private Boolean orderUpdates = true;
+
+	/**
+	 * Batches updates of versioned entities. Disable it, if the JDBC driver does not return correct
+	 * row counts from batches.
+	 */
+	@XmlElement
+	private Boolean batchVersionedData = true;
+
+	/**
+	 * Number of rows fetched from the database in one round trip. Optional, by default the JDBC driver decides.
+	 */
+	@XmlElement
+	private Integer fetchSize;
+
+	public int getBatchSize() {
+		return batchSize != null ? batchSize : 0;
+	}
+
+	/**
+	 * Returns the Hibernate properties which configure batching.
+	 */
+	public Map<String, Object> getProperties() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, Integer.toString(getBatchSize()));
+		if (orderInserts != null) {
+			properties.put(AvailableSettings.ORDER_INSERTS, orderInserts.toString());
+		}
+		if (orderUpdates != null) {
+			properties.put(AvailableSettings.ORDER_UPDATES, orderUpdates.toString());
+		}
+		if (batchVersionedData != null) {
+			properties.put(AvailableSettings.BATCH_VERSIONED_DATA, batchVersionedData.toString());
+		}
+		if (fetchSize != null) {
+			properties.put(AvailableSettings.STATEMENT_FETCH_SIZE, fetchSize.toString());
+		}
+		return properties;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TransactionRequiredException;
+import javax.sql.DataSource;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Bulk operations executed with Hibernate {@link StatelessSession}.
+ *
+ * <p>
+ * Stateless session does not keep the persistence context, so it does not run out of memory and does not
+ * spend time on dirty checking when millions of entities are written. It also skips the second-level cache,
+ * cascades, interceptors and events. The session uses the connection of the current JTA transaction, so
+ * the changes are committed together with the changes made through {@link javax.persistence.EntityManager}.
+ * The statements are sent in JDBC batches configured with {@link BatchingOptions}.
+ * </p>
+ * <p>
+ * Stateless session does not invalidate the cached queries either. Every operation evicts all the query cache
+ * regions right after it is executed and again after the transaction completes. {@link #insert(Iterable)} also
+ * evicts the entity regions of the inserted classes and {@link #update(Iterable)} the updated entities.
+ * The work passed to {@link #execute(Work)} must evict the entities it changes itself.
+ * </p>
+ */
+public class BulkOperations {
+	public static interface Work<T> {
+		T run(StatelessSession session);
+	}
+
+	@Inject
+	private EntityManagerFactory entityManagerFactory;
+
+	@Inject
+	private DataSource dataSource;
+
+	@Inject
+	private TransactionManager transactionManager;
+
+	/**
+	 * Executes given work with the stateless session joined to the current transaction.
+	 * @return the value returned by the work
+	 */
+	public <T> T execute(Work<T> work) {
+		Transaction transaction = getTransaction();
+		final SessionFactory sessionFactory = getSessionFactory();
+		T result;
+		try (Connection connection = dataSource.getConnection()) {
+			StatelessSession session = sessionFactory.openStatelessSession(connection);
+			try {
+				result = work.run(session);
+				// the pending batch is discarded when the session is closed
+				((SessionImplementor) session).getTransactionCoordinator().getJdbcCoordinator().executeBatch();
+			} finally {
+				session.close();
+			}
+		} catch (SQLException e) {
+			throw new PersistenceException("Cannot obtain connection", e);
+		}
+		evictNowAndAfterCompletion(transaction, () -> sessionFactory.getCache().evictQueryRegions());
+		return result;
+	}
+
+	/**
+	 * Inserts given entities.
+	 */
+	public void insert(final Iterable<?> entities) {
+		final Set<Class<?>> classes = new LinkedHashSet<>();
+		execute(session -> {
+			for (Object entity : entities) {
+				session.insert(entity);
+				classes.add(Hibernate.getClass(entity));
+			}
+			return null;
+		});
+		evictNowAndAfterCompletion(getTransaction(), () -> {
+			Cache cache = entityManagerFactory.getCache();
+			for (Class<?> klass : classes) {
+				cache.evict(klass);
+			}
+		});
+	}
+
+	/**
+	 * Updates given entities.
+	 */
+	public void update(final Iterable<?> entities) {
+		execute(session -> {
+			for (Object entity : entities) {
+				session.update(entity);
+			}
+			return null;
+		});
+		evictNowAndAfterCompletion(getTransaction(), () -> evict(entities));
+	}
+
+	/**
+	 * Evicts now, so this transaction does not read the old state, and again after the completion,
+	 * because concurrent transactions could cache the old state in the meantime.
+	 */
+	private static void evictNowAndAfterCompletion(Transaction transaction, final Runnable eviction) {
+		eviction.run();
+		try {
+			transaction.registerSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					eviction.run();
+				}
+			});
+		} catch (RollbackException e) {
+			// rolled back, nothing changed
+		} catch (SystemException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void evict(Iterable<?> entities) {
+		Cache cache = entityManagerFactory.getCache();
+		PersistenceUnitUtil util = entityManagerFactory.getPersistenceUnitUtil();
+		for (Object entity : entities) {
+			cache.evict(Hibernate.getClass(entity), util.getIdentifier(entity));
+		}
+	}
+
+	private SessionFactory getSessionFactory() {
+		return ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory();
+	}
+
+	private Transaction getTransaction() {
+		try {
+			Transaction transaction = transactionManager.getTransaction();
+			if (transaction == null || transaction.getStatus() == Status.STATUS_NO_TRANSACTION) {
+				throw new TransactionRequiredException("Not in transaction. Initiate transaction in JTA.");
+			}
+			return transaction;
+		} catch (SystemException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
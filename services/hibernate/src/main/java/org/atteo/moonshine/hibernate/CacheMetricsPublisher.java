@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Registers {@link CacheStatistics} in the {@link MetricRegistry}, if one is bound.
+ *
+ * <p>
+ * Metrics library is an optional dependency, so this class can be loaded only after checking that it is present.
+ * </p>
+ */
+class CacheMetricsPublisher {
+	private final MetricRegistry registry;
+
+	private CacheMetricsPublisher(MetricRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Returns the publisher for the {@link MetricRegistry} bound in given injector or null.
+	 */
+	public static CacheMetricsPublisher create(Injector injector) {
+		Binding<MetricRegistry> binding = injector.getExistingBinding(Key.get(MetricRegistry.class));
+		if (binding == null) {
+			return null;
+		}
+		return new CacheMetricsPublisher(binding.getProvider().get());
+	}
+
+	public void register(final CacheStatistics statistics) {
+		registry.register(name(statistics, "secondLevelCacheHits"),
+				(Gauge<Long>) statistics::getSecondLevelCacheHitCount);
+		registry.register(name(statistics, "secondLevelCacheMisses"),
+				(Gauge<Long>) statistics::getSecondLevelCacheMissCount);
+		registry.register(name(statistics, "secondLevelCachePuts"),
+				(Gauge<Long>) statistics::getSecondLevelCachePutCount);
+		registry.register(name(statistics, "secondLevelCacheHitRatio"),
+				(Gauge<Double>) statistics::getSecondLevelCacheHitRatio);
+		registry.register(name(statistics, "queryCacheHits"), (Gauge<Long>) statistics::getQueryCacheHitCount);
+		registry.register(name(statistics, "queryCacheMisses"), (Gauge<Long>) statistics::getQueryCacheMissCount);
+		registry.register(name(statistics, "queryCachePuts"), (Gauge<Long>) statistics::getQueryCachePutCount);
+		registry.register(name(statistics, "queryCacheHitRatio"),
+				(Gauge<Double>) statistics::getQueryCacheHitRatio);
+	}
+
+	public void unregister(CacheStatistics statistics) {
+		String prefix = MetricRegistry.name("hibernate", statistics.getName()) + ".";
+		registry.removeMatching((name, metric) -> name.startsWith(prefix));
+	}
+
+	private static String name(CacheStatistics statistics, String name) {
+		return MetricRegistry.name("hibernate", statistics.getName(), name);
+	}
+}
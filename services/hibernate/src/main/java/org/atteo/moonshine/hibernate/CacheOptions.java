@@ -0,0 +1,148 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.SharedCacheMode;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.atteo.config.AbstractConfigurable;
+import org.hibernate.cache.spi.UpdateTimestampsCache;
+import org.hibernate.cfg.AvailableSettings;
+
+/**
+ * Second-level and query cache settings of {@link HibernateService}.
+ *
+ * <p>
+ * The entities are cached in memory using Ehcache. By default only the entities annotated with
+ * {@link javax.persistence.Cacheable} are cached. To cache the query results, enable the query cache
+ * and set "org.hibernate.cacheable" hint on the query.
+ * </p>
+ * <p>
+ * The cache is updated when the JTA transaction completes. Changes made with {@link BulkOperations#update(Iterable)}
+ * evict the updated entities. Changes made outside of Hibernate are not visible until the entries expire.
+ * </p>
+ */
+@XmlRootElement(name = "cache")
+public class CacheOptions extends AbstractConfigurable {
+	/**
+	 * Which entities are cached: ENABLE_SELECTIVE - annotated with {@link javax.persistence.Cacheable},
+	 * DISABLE_SELECTIVE - all not annotated with @Cacheable(false), ALL or NONE.
+	 */
+	@XmlElement
+	private SharedCacheMode sharedCacheMode = SharedCacheMode.ENABLE_SELECTIVE;
+
+	/**
+	 * Whether to cache the results of queries with "org.hibernate.cacheable" hint.
+	 */
+	@XmlElement
+	private Boolean queryCache = false;
+
+	/**
+	 * Whether to collect cache statistics and publish them through JMX and Metrics.
+	 */
+	@XmlElement
+	private Boolean statistics = true;
+
+	/**
+	 * Settings of the regions which are not configured explicitly.
+	 */
+	@XmlElement
+	private CacheRegionOptions defaultRegion = new CacheRegionOptions();
+
+	/**
+	 * Settings of the cache regions.
+	 */
+	@XmlElementWrapper(name = "regions")
+	@XmlElement(name = "region")
+	private List<CacheRegionOptions> regions = new ArrayList<>();
+
+	public SharedCacheMode getSharedCacheMode() {
+		return sharedCacheMode != null ? sharedCacheMode : SharedCacheMode.ENABLE_SELECTIVE;
+	}
+
+	public boolean isQueryCache() {
+		return queryCache != null && queryCache;
+	}
+
+	public boolean isStatistics() {
+		return statistics == null || statistics;
+	}
+
+	/**
+	 * Returns the Hibernate properties which enable the cache.
+	 * @param configuration Ehcache configuration file written with {@link #writeConfiguration(Path, String)}
+	 */
+	public Map<String, Object> getProperties(Path configuration) throws IOException {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+		properties.put(AvailableSettings.USE_QUERY_CACHE, Boolean.toString(isQueryCache()));
+		properties.put(AvailableSettings.CACHE_REGION_FACTORY, "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+		properties.put("net.sf.ehcache.configurationResourceName", configuration.toUri().toURL().toString());
+		properties.put(AvailableSettings.GENERATE_STATISTICS, Boolean.toString(isStatistics()));
+		return properties;
+	}
+
+	/**
+	 * Writes Ehcache configuration with the configured regions.
+	 * @param file file to write
+	 * @param cacheManagerName name of the cache manager, must be unique in the JVM
+	 */
+	public void writeConfiguration(Path file, String cacheManagerName) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("<ehcache name=\"" + escape(cacheManagerName) + "\" updateCheck=\"false\">\n");
+			writeRegion(writer, "defaultCache", defaultRegion);
+			boolean timestampsConfigured = false;
+			for (CacheRegionOptions region : regions) {
+				writeRegion(writer, "cache", region);
+				timestampsConfigured |= UpdateTimestampsCache.REGION_NAME.equals(region.getName());
+			}
+			if (isQueryCache() && !timestampsConfigured) {
+				// the timestamps must not expire before the cached query results
+				writeRegion(writer, "cache", new CacheRegionOptions(UpdateTimestampsCache.REGION_NAME, 5000, 0, 0,
+						"LRU"));
+			}
+			writer.write("</ehcache>\n");
+		}
+	}
+
+	private static void writeRegion(Writer writer, String element, CacheRegionOptions region) throws IOException {
+		writer.write("\t<" + element);
+		if (region.getName() != null) {
+			writer.write(" name=\"" + escape(region.getName()) + "\"");
+		}
+		boolean eternal = region.getTimeToLive() == 0 && region.getTimeToIdle() == 0;
+		writer.write(" maxElementsInMemory=\"" + region.getMaxEntries() + "\""
+				+ " eternal=\"" + eternal + "\""
+				+ " timeToLiveSeconds=\"" + region.getTimeToLive() + "\""
+				+ " timeToIdleSeconds=\"" + region.getTimeToIdle() + "\""
+				+ " memoryStoreEvictionPolicy=\"" + escape(region.getEviction()) + "\""
+				+ " overflowToDisk=\"false\"/>\n");
+	}
+
+	private static String escape(String value) {
+		return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;");
+	}
+}
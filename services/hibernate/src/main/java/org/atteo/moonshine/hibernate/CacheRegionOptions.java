@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.atteo.config.AbstractConfigurable;
+
+/**
+ * Settings of the second-level cache region.
+ */
+@XmlRootElement(name = "region")
+public class CacheRegionOptions extends AbstractConfigurable {
+	/**
+	 * Name of the region. By default entities are cached in the region named after the entity class,
+	 * for instance "com.example.Country", and collections in the region named after the entity class and
+	 * the collection property, for instance "com.example.Country.cities".
+	 */
+	@XmlElement
+	private String name;
+
+	/**
+	 * Maximum number of entries kept in the region.
+	 */
+	@XmlElement
+	private Integer maxEntries = 10000;
+
+	/**
+	 * Number of seconds after which the entry expires, 0 means no limit.
+	 */
+	@XmlElement
+	private Integer timeToLive = 0;
+
+	/**
+	 * Number of seconds after which the unused entry expires, 0 means no limit.
+	 */
+	@XmlElement
+	private Integer timeToIdle = 0;
+
+	/**
+	 * Entry evicted when the region is full: LRU - least recently used, LFU - least frequently used
+	 * or FIFO - the oldest one.
+	 */
+	@XmlElement
+	private String eviction = "LRU";
+
+	public CacheRegionOptions() {
+	}
+
+	public CacheRegionOptions(String name, int maxEntries, int timeToLive, int timeToIdle, String eviction) {
+		this.name = name;
+		this.maxEntries = maxEntries;
+		this.timeToLive = timeToLive;
+		this.timeToIdle = timeToIdle;
+		this.eviction = eviction;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries != null ? maxEntries : 0;
+	}
+
+	public int getTimeToLive() {
+		return timeToLive != null ? timeToLive : 0;
+	}
+
+	public int getTimeToIdle() {
+		return timeToIdle != null ? timeToIdle : 0;
+	}
+
+	public String getEviction() {
+		return eviction != null ? eviction : "LRU";
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Second-level and query cache statistics of the {@link SessionFactory}.
+ */
+public class CacheStatistics implements CacheStatisticsMBean {
+	private final String name;
+	private final SessionFactory sessionFactory;
+	private final Statistics statistics;
+
+	public CacheStatistics(String name, SessionFactory sessionFactory) {
+		this.name = name;
+		this.sessionFactory = sessionFactory;
+		this.statistics = sessionFactory.getStatistics();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getSecondLevelCacheHitCount() {
+		return statistics.getSecondLevelCacheHitCount();
+	}
+
+	@Override
+	public long getSecondLevelCacheMissCount() {
+		return statistics.getSecondLevelCacheMissCount();
+	}
+
+	@Override
+	public long getSecondLevelCachePutCount() {
+		return statistics.getSecondLevelCachePutCount();
+	}
+
+	@Override
+	public double getSecondLevelCacheHitRatio() {
+		return ratio(getSecondLevelCacheHitCount(), getSecondLevelCacheMissCount());
+	}
+
+	@Override
+	public long getQueryCacheHitCount() {
+		return statistics.getQueryCacheHitCount();
+	}
+
+	@Override
+	public long getQueryCacheMissCount() {
+		return statistics.getQueryCacheMissCount();
+	}
+
+	@Override
+	public long getQueryCachePutCount() {
+		return statistics.getQueryCachePutCount();
+	}
+
+	@Override
+	public double getQueryCacheHitRatio() {
+		return ratio(getQueryCacheHitCount(), getQueryCacheMissCount());
+	}
+
+	@Override
+	public void clear() {
+		statistics.clear();
+	}
+
+	@Override
+	public void evictAll() {
+		sessionFactory.getCache().evictEntityRegions();
+		sessionFactory.getCache().evictCollectionRegions();
+		sessionFactory.getCache().evictQueryRegions();
+		sessionFactory.getCache().evictDefaultQueryRegion();
+	}
+
+	private static double ratio(long hits, long misses) {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+/**
+ * Second-level and query cache statistics exposed through JMX.
+ */
+public interface CacheStatisticsMBean {
+	/**
+	 * Number of entities and collections found in the second-level cache.
+	 */
+	long getSecondLevelCacheHitCount();
+
+	/**
+	 * Number of entities and collections looked up in the second-level cache, but not found.
+	 */
+	long getSecondLevelCacheMissCount();
+
+	/**
+	 * Number of entities and collections put into the second-level cache.
+	 */
+	long getSecondLevelCachePutCount();
+
+	/**
+	 * Fraction of the second-level cache lookups which found the entry.
+	 */
+	double getSecondLevelCacheHitRatio();
+
+	long getQueryCacheHitCount();
+
+	long getQueryCacheMissCount();
+
+	long getQueryCachePutCount();
+
+	double getQueryCacheHitRatio();
+
+	/**
+	 * Resets the statistics.
+	 */
+	void clear();
+
+	/**
+	 * Evicts all entries from the second-level and query cache.
+	 */
+	void evictAll();
+}
@@ -13,17 +13,29 @@
  */
 package org.atteo.moonshine.hibernate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 import javax.persistence.Entity;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -46,10 +58,13 @@ import org.atteo.moonshine.ServiceConfiguration;
 import org.atteo.moonshine.jpa.JpaService;
 import org.atteo.moonshine.jpa.TransactionScopedEntityManager;
 import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
 import org.hibernate.ejb.HibernatePersistence;
 import org.hibernate.service.jta.platform.spi.JtaPlatform;
 
+import com.google.inject.Binding;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.PrivateModule;
 import com.google.inject.Provider;
@@ -113,6 +128,18 @@ public class HibernateService extends JpaService {
 	@XmlElement
 	private String dialect;
 
+	/**
+	 * JDBC batching settings. Batching is disabled when not specified.
+	 */
+	@XmlElement
+	private BatchingOptions batching;
+
+	/**
+	 * Second-level and query cache settings. The cache is disabled when not specified.
+	 */
+	@XmlElement
+	private CacheOptions cache;
+
 	/**
 	 * List of HibernateService plugins.
 	 */
@@ -126,9 +153,19 @@ public class HibernateService extends JpaService {
 	@XmlElement
 	private boolean lazyLoading = false;
 
+	private static final AtomicInteger cacheManagerCounter = new AtomicInteger();
+
 	private EntityManagerFactory factory;
+	private Path cacheConfiguration;
+	private CacheStatistics cacheStatistics;
+	private MBeanServer mbeanServer;
+	private ObjectName cacheStatisticsName;
+	private CacheMetricsPublisher cacheMetricsPublisher;
 
 	private class EntityManagerFactoryProvider implements Provider<EntityManagerFactory> {
+		@Inject
+		private Injector injector;
+
 		@Inject
 		private DataSource dataSource;
 
@@ -229,7 +266,7 @@ public class HibernateService extends JpaService {
 
 				@Override
 				public SharedCacheMode getSharedCacheMode() {
-					return SharedCacheMode.UNSPECIFIED;
+					return cache != null ? cache.getSharedCacheMode() : SharedCacheMode.UNSPECIFIED;
 				}
 
 				@Override
@@ -247,6 +284,12 @@ public class HibernateService extends JpaService {
 
 			Map<String, Object> map = new HashMap<>();
 			map.put("hibernate.search.autoregister_listeners", false);
+			if (batching != null) {
+				map.putAll(batching.getProperties());
+			}
+			if (cache != null) {
+				map.putAll(getCacheProperties());
+			}
 			if (plugins != null) {
 				for (HibernatePlugin plugin : plugins) {
 					map.putAll(plugin.getProperties());
@@ -264,10 +307,75 @@ public class HibernateService extends JpaService {
 			map.put("javax.persistence.validation.factory", validatorFactory);
 
 			factory = provider.createContainerEntityManagerFactory(info, map);
+			if (cache != null && cache.isStatistics()) {
+				publishCacheStatistics(injector);
+			}
 			return factory;
 		}
 	}
 
+	private Map<String, Object> getCacheProperties() {
+		try {
+			// Ehcache is configured with a file, so generate one with the configured regions
+			cacheConfiguration = Files.createTempFile("moonshine-ehcache", ".xml");
+			cacheConfiguration.toFile().deleteOnExit();
+			// cache managers with the same name would share the caches
+			cache.writeConfiguration(cacheConfiguration, "moonshine-" + getCacheName() + "-"
+					+ cacheManagerCounter.incrementAndGet());
+			return cache.getProperties(cacheConfiguration);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot write Ehcache configuration", e);
+		}
+	}
+
+	private String getCacheName() {
+		return getId() != null ? getId() : "default";
+	}
+
+	private void publishCacheStatistics(Injector injector) {
+		cacheStatistics = new CacheStatistics(getCacheName(),
+				((HibernateEntityManagerFactory) factory).getSessionFactory());
+		Binding<MBeanServer> mbeanServerBinding = injector.getExistingBinding(Key.get(MBeanServer.class));
+		if (mbeanServerBinding != null) {
+			mbeanServer = mbeanServerBinding.getProvider().get();
+			cacheStatisticsName = registerMBean(getCacheName(), cacheStatistics);
+		}
+		if (isMetricsPresent()) {
+			cacheMetricsPublisher = CacheMetricsPublisher.create(injector);
+			if (cacheMetricsPublisher != null) {
+				cacheMetricsPublisher.register(cacheStatistics);
+			}
+		}
+	}
+
+	private ObjectName registerMBean(String name, CacheStatistics statistics) {
+		String prefix = CacheStatistics.class.getPackage().getName() + ":type="
+				+ CacheStatistics.class.getSimpleName() + ",name=";
+		try {
+			// there can be many containers with the same persistence unit in the same JVM
+			for (int i = 1; ; i++) {
+				String uniqueName = i == 1 ? name : name + "-" + i;
+				ObjectName objectName = ObjectName.getInstance(prefix + ObjectName.quote(uniqueName));
+				try {
+					return mbeanServer.registerMBean(statistics, objectName).getObjectName();
+				} catch (InstanceAlreadyExistsException e) {
+					// try next name
+				}
+			}
+		} catch (MalformedObjectNameException | MBeanRegistrationException | NotCompliantMBeanException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static boolean isMetricsPresent() {
+		try {
+			Class.forName("com.codahale.metrics.MetricRegistry", false, HibernateService.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
 	@Override
 	public Module configure() {
 		return new PrivateModule() {
@@ -298,14 +406,35 @@ public class HibernateService extends JpaService {
 
 				bind(EntityManager.class).to(TransactionScopedEntityManager.class).in(Scopes.SINGLETON);
 				expose(EntityManager.class);
+
+				bind(BulkOperations.class).in(Scopes.SINGLETON);
+				expose(BulkOperations.class);
 			}
 		};
 	}
 
 	@Override
 	public void close() {
+		if (cacheStatisticsName != null) {
+			try {
+				mbeanServer.unregisterMBean(cacheStatisticsName);
+			} catch (InstanceNotFoundException e) {
+				// not found? ignore
+			} catch (MBeanRegistrationException e) {
+				throw new RuntimeException(e);
+			}
+			cacheStatisticsName = null;
+		}
+		if (cacheMetricsPublisher != null) {
+			cacheMetricsPublisher.unregister(cacheStatistics);
+			cacheMetricsPublisher = null;
+		}
 		if (factory != null && factory.isOpen()) {
 			factory.close();
 		}
+		if (cacheConfiguration != null) {
+			cacheConfiguration.toFile().delete();
+			cacheConfiguration = null;
+		}
 	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+
+import org.atteo.moonshine.jta.Transaction;
+import org.atteo.moonshine.tests.MoonshineConfiguration;
+import org.atteo.moonshine.tests.MoonshineTest;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+@MoonshineConfiguration(fromString = ""
+		+ "<config>"
+		+ "    <btm/>"
+		+ "    <transactional-annotation/>"
+		+ "    <h2/>"
+		+ "    <hibernate>"
+		+ "        <initSchema>create</initSchema>"
+		+ "        <batching>"
+		+ "            <batchSize>20</batchSize>"
+		+ "        </batching>"
+		+ "    </hibernate>"
+		+ "</config>")
+public class BulkOperationsTest extends MoonshineTest {
+	@Inject
+	private BulkOperations bulkOperations;
+
+	@Inject
+	private EntityManager entityManager;
+
+	@Test
+	public void shouldInsertInBatches() {
+		final List<User> users = new ArrayList<>();
+		for (int i = 1; i <= 105; i++) {
+			User user = new User();
+			user.setId(i);
+			user.setName("user" + i);
+			users.add(user);
+		}
+
+		Transaction.require((Transaction.Runnable) () -> bulkOperations.insert(users));
+
+		Transaction.require((Transaction.Runnable) () -> {
+			assertEquals(105L, entityManager.createQuery("select count(u) from User u").getSingleResult());
+			assertEquals("user105", entityManager.find(User.class, 105).getName());
+		});
+	}
+}
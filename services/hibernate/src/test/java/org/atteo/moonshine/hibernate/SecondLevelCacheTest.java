@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.hibernate;
+
+import java.util.Collections;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.atteo.moonshine.jta.Transaction;
+import org.atteo.moonshine.tests.MoonshineConfiguration;
+import org.atteo.moonshine.tests.MoonshineTest;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+@MoonshineConfiguration(fromString = ""
+		+ "<config>"
+		+ "    <btm/>"
+		+ "    <transactional-annotation/>"
+		+ "    <h2/>"
+		+ "    <hibernate>"
+		+ "        <initSchema>create</initSchema>"
+		+ "        <cache>"
+		+ "            <queryCache>true</queryCache>"
+		+ "            <regions>"
+		+ "                <region>"
+		+ "                    <name>org.atteo.moonshine.hibernate.Country</name>"
+		+ "                    <maxEntries>100</maxEntries>"
+		+ "                </region>"
+		+ "            </regions>"
+		+ "        </cache>"
+		+ "    </hibernate>"
+		+ "</config>")
+public class SecondLevelCacheTest extends MoonshineTest {
+	@Inject
+	private EntityManager entityManager;
+
+	@Inject
+	private EntityManagerFactory entityManagerFactory;
+
+	@Inject
+	private BulkOperations bulkOperations;
+
+	@Test
+	public void shouldFindEntityInCache() {
+		// given
+		persist(1, "Poland");
+		Statistics statistics = getStatistics();
+		long hits = statistics.getSecondLevelCacheHitCount();
+
+		// when
+		String name = Transaction.require(() -> entityManager.find(Country.class, 1).getName());
+
+		// then
+		assertEquals("Poland", name);
+		assertEquals(hits + 1, statistics.getSecondLevelCacheHitCount());
+	}
+
+	@Test
+	public void shouldCacheQueryResults() {
+		// given
+		persist(2, "Germany");
+		Statistics statistics = getStatistics();
+		findByName("Germany");
+		long hits = statistics.getQueryCacheHitCount();
+
+		// when
+		findByName("Germany");
+
+		// then
+		assertTrue(statistics.getQueryCacheHitCount() > hits);
+	}
+
+	@Test
+	public void shouldEvictEntitiesUpdatedInBulk() {
+		// given
+		persist(3, "Czechia");
+		final Country country = Transaction.require(() -> entityManager.find(Country.class, 3));
+
+		// when
+		country.setName("Czech Republic");
+		Transaction.require((Transaction.Runnable) () -> bulkOperations.update(Collections.singleton(country)));
+
+		// then
+		String name = Transaction.require(() -> entityManager.find(Country.class, 3).getName());
+		assertEquals("Czech Republic", name);
+	}
+
+	private void persist(final int id, final String name) {
+		Transaction.require((Transaction.Runnable) () -> {
+			Country country = new Country();
+			country.setId(id);
+			country.setName(name);
+			entityManager.persist(country);
+		});
+	}
+
+	private void findByName(final String name) {
+		Transaction.require((Transaction.Runnable) () -> entityManager
+				.createQuery("select c from Country c where c.name = :name", Country.class)
+				.setParameter("name", name)
+				.setHint("org.hibernate.cacheable", true)
+				.getResultList());
+	}
+
+	private Statistics getStatistics() {
+		return ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+	}
+}
@@ -50,7 +50,7 @@ import com.google.inject.Inject;
 		+ "    <serverconnector>"
 		+ "        <provideAddress>true</provideAddress>"
 		+ "        <host>${oneof:${jetty.host},${webserver.host},}</host>"
-		+ "        <port>${oneof:${jetty.port},${webserver.host},}</port>"
+		+ "        <port>${oneof:${jetty.port},${webserver.port},}</port>"
 		+ "    </serverconnector>"
 		+ "</connectors>")
 public class Jetty extends WebServerService {
@@ -15,6 +15,9 @@
  */
 package org.atteo.moonshine.jpa;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -36,22 +39,30 @@ public class TransactionScopedEntityManager extends DelegatingEntityManager {
 	@Inject
 	private TransactionManager transactionManager;
 
-	private final ThreadLocal<EntityManager> entityManagerHolder = new ThreadLocal<>();
+	/**
+	 * Entity managers of the transactions associated with the current thread, including the suspended ones.
+	 */
+	private final ThreadLocal<Map<Transaction, EntityManager>> entityManagers
+			= ThreadLocal.withInitial(HashMap::new);
 
 	@Override
 	protected EntityManager getEntityManager() {
-		EntityManager entityManager = entityManagerHolder.get();
+		try {
+			final Transaction transaction = transactionManager.getTransaction();
+			if (transaction == null) {
+				throw new TransactionRequiredException("Not in transaction. Initiate transaction in JTA.");
+			}
+			EntityManager entityManager = entityManagers.get().get(transaction);
 
-		if (entityManager == null) {
-			try {
-				Transaction transaction = transactionManager.getTransaction();
-				if (transaction == null) {
-					throw new TransactionRequiredException("Not in transaction. Initiate transaction in JTA.");
-				}
+			if (entityManager == null) {
 				entityManager = factory.createEntityManager();
+				if (org.atteo.moonshine.jta.Transaction.isReadOnly()) {
+					// Hibernate specific, ignored by other providers
+					entityManager.setProperty("org.hibernate.flushMode", "MANUAL");
+				}
 
 				final EntityManager entityManagerToClose = entityManager;
-				entityManagerHolder.set(entityManager);
+				entityManagers.get().put(transaction, entityManager);
 				transaction.registerSynchronization(new Synchronization() {
 					@Override
 					public void beforeCompletion() {
@@ -59,21 +70,18 @@ public class TransactionScopedEntityManager extends DelegatingEntityManager {
 
 					@Override
 					public void afterCompletion(int status) {
-						if (entityManagerHolder.get() != entityManagerToClose) {
+						if (entityManagers.get().remove(transaction) != entityManagerToClose) {
 							throw new RuntimeException("Synchronization called from different thread");
 						}
-						if (entityManagerToClose != null) {
-							entityManagerToClose.close();
-						}
-						entityManagerHolder.set(null);
+						entityManagerToClose.close();
 					}
 				});
-			} catch (SystemException | RollbackException e) {
-				throw new RuntimeException(e);
 			}
-		}
 
-		return entityManager;
+			return entityManager;
+		} catch (SystemException | RollbackException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	@Override
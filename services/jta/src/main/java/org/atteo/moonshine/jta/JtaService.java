@@ -21,6 +21,10 @@ import javax.transaction.UserTransaction;
 import org.atteo.moonshine.TopLevelService;
 
 import com.google.inject.Binder;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
 
 /**
  * Marks services which implements JTA.
@@ -35,4 +39,23 @@ public abstract class JtaService extends TopLevelService{
 		binder.requestStaticInjection(Transaction.class);
 	}
 
+	/**
+	 * Binds {@link JtaDataSourceWrapper} which decorates the data sources returned by given implementation
+	 * with {@link ReadOnlyDataSource} and {@link MonitoredDataSource}, so the {@link Transaction#isReadOnly() read-only
+	 * mode} is applied and {@link PoolMetrics} are collected for any JTA service.
+	 */
+	protected void bindDataSourceWrapper(Binder binder, Class<? extends JtaDataSourceWrapper> implementation) {
+		binder.bind(implementation).in(Singleton.class);
+		final Provider<? extends JtaDataSourceWrapper> implementationProvider = binder.getProvider(implementation);
+		binder.bind(JtaDataSourceWrapper.class).toProvider(new Provider<JtaDataSourceWrapper>() {
+			@Inject
+			private Injector injector;
+
+			@Override
+			public JtaDataSourceWrapper get() {
+				return new MonitoringDataSourceWrapper(implementationProvider.get(), injector);
+			}
+		}).in(Singleton.class);
+	}
+
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Registers {@link PoolMetrics} in the {@link MetricRegistry}, if one is bound.
+ *
+ * <p>
+ * Metrics library is an optional dependency, so this class can be loaded only after checking that it is present.
+ * </p>
+ */
+class MetricRegistryPublisher {
+	private final MetricRegistry registry;
+
+	private MetricRegistryPublisher(MetricRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Returns the publisher for the {@link MetricRegistry} bound in given injector or null.
+	 */
+	public static MetricRegistryPublisher create(Injector injector) {
+		Binding<MetricRegistry> binding = injector.getExistingBinding(Key.get(MetricRegistry.class));
+		if (binding == null) {
+			return null;
+		}
+		return new MetricRegistryPublisher(binding.getProvider().get());
+	}
+
+	public void register(final PoolMetrics metrics) {
+		registry.register(name(metrics, "maxPoolSize"), (Gauge<Integer>) metrics::getMaxPoolSize);
+		registry.register(name(metrics, "inUse"), (Gauge<Integer>) metrics::getInUse);
+		registry.register(name(metrics, "peakInUse"), (Gauge<Integer>) metrics::getPeakInUse);
+		registry.register(name(metrics, "waiting"), (Gauge<Integer>) metrics::getWaiting);
+		registry.register(name(metrics, "acquired"), (Gauge<Long>) metrics::getAcquired);
+		registry.register(name(metrics, "failedAcquisitions"), (Gauge<Long>) metrics::getFailedAcquisitions);
+		registry.register(name(metrics, "slowConnections"), (Gauge<Long>) metrics::getSlowConnections);
+		registry.register(name(metrics, "leakedConnections"), (Gauge<Integer>) metrics::getLeakedConnections);
+		registry.register(name(metrics, "averageAcquisitionTime"),
+				(Gauge<Double>) metrics::getAverageAcquisitionTime);
+		registry.register(name(metrics, "maxAcquisitionTime"), (Gauge<Double>) metrics::getMaxAcquisitionTime);
+		registry.register(name(metrics, "acquisitionTime50thPercentile"),
+				(Gauge<Double>) () -> metrics.getAcquisitionTimePercentile(0.5));
+		registry.register(name(metrics, "acquisitionTime99thPercentile"),
+				(Gauge<Double>) metrics::getAcquisitionTime99thPercentile);
+		registry.register(name(metrics, "averageHoldTime"), (Gauge<Double>) metrics::getAverageHoldTime);
+		registry.register(name(metrics, "maxHoldTime"), (Gauge<Double>) metrics::getMaxHoldTime);
+	}
+
+	public void unregister(PoolMetrics metrics) {
+		String prefix = MetricRegistry.name("datasource", metrics.getName()) + ".";
+		registry.removeMatching((name, metric) -> name.startsWith(prefix));
+	}
+
+	private static String name(PoolMetrics metrics, String name) {
+		return MetricRegistry.name("datasource", metrics.getName(), name);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Decorates pooled {@link DataSource} recording the borrowed and returned connections in {@link PoolMetrics}.
+ */
+public class MonitoredDataSource implements DataSource {
+	private final DataSource dataSource;
+	private final PoolMetrics metrics;
+
+	public MonitoredDataSource(DataSource dataSource, PoolMetrics metrics) {
+		this.dataSource = dataSource;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the decorated data source.
+	 */
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	public PoolMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return getConnection(null, null, false);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getConnection(username, password, true);
+	}
+
+	private Connection getConnection(String username, String password, boolean withCredentials)
+			throws SQLException {
+		long start = System.nanoTime();
+		boolean waited = metrics.acquiring();
+		Connection connection;
+		try {
+			if (withCredentials) {
+				connection = dataSource.getConnection(username, password);
+			} else {
+				connection = dataSource.getConnection();
+			}
+		} catch (SQLException | RuntimeException | Error e) {
+			metrics.acquisitionFailed(waited);
+			throw e;
+		}
+		Throwable borrowedAt = null;
+		if (metrics.isTrackingSlowConnections()) {
+			borrowedAt = new Throwable("Connection borrowed here");
+		}
+		long acquiredAt = metrics.acquired(start, waited, borrowedAt);
+		return new MonitoredConnection(connection, metrics, acquiredAt, borrowedAt);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return dataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		dataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return dataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return dataSource.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(dataSource)) {
+			return iface.cast(dataSource);
+		}
+		return dataSource.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import javax.sql.XADataSource;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Decorates the data sources returned by another {@link JtaDataSourceWrapper} with {@link ReadOnlyDataSource}
+ * and, unless {@link PoolOptions#isMonitored() disabled}, with {@link MonitoredDataSource}.
+ *
+ * <p>
+ * The {@link PoolMetrics} of each data source are registered as MBean, if {@link MBeanServer} is bound,
+ * and in the Metrics registry, if it is bound.
+ * </p>
+ */
+class MonitoringDataSourceWrapper implements JtaDataSourceWrapper {
+	private final JtaDataSourceWrapper wrapper;
+	private final MBeanServer mbeanServer;
+	private final MetricRegistryPublisher metricsPublisher;
+	private final Map<DataSource, ObjectName> registeredNames = new ConcurrentHashMap<>();
+
+	public MonitoringDataSourceWrapper(JtaDataSourceWrapper wrapper, Injector injector) {
+		this.wrapper = wrapper;
+		Binding<MBeanServer> mbeanServerBinding = injector.getExistingBinding(Key.get(MBeanServer.class));
+		mbeanServer = mbeanServerBinding != null ? mbeanServerBinding.getProvider().get() : null;
+		metricsPublisher = isMetricsPresent() ? MetricRegistryPublisher.create(injector) : null;
+	}
+
+	@Override
+	public DataSource wrap(String name, XADataSource xaDataSource, @Nullable PoolOptions poolOptions,
+			String testQuery) {
+		if (poolOptions == null) {
+			poolOptions = new PoolOptions();
+		}
+		DataSource dataSource = new ReadOnlyDataSource(wrapper.wrap(name, xaDataSource, poolOptions, testQuery));
+		if (!poolOptions.isMonitored()) {
+			return dataSource;
+		}
+		PoolMetrics metrics = new PoolMetrics(name, poolOptions.getMaxPoolSize() != null
+				? poolOptions.getMaxPoolSize() : 0, poolOptions.getSlowConnectionThreshold(),
+				poolOptions.getLeakDetectionThreshold());
+		MonitoredDataSource monitored = new MonitoredDataSource(dataSource, metrics);
+
+		if (mbeanServer != null) {
+			registeredNames.put(monitored, registerMBean(name, metrics));
+		}
+		if (metricsPublisher != null) {
+			metricsPublisher.register(metrics);
+		}
+		return monitored;
+	}
+
+	@Override
+	public void close(DataSource dataSource) {
+		if (dataSource instanceof ReadOnlyDataSource) {
+			wrapper.close(((ReadOnlyDataSource) dataSource).getDataSource());
+			return;
+		}
+		if (!(dataSource instanceof MonitoredDataSource)) {
+			wrapper.close(dataSource);
+			return;
+		}
+		MonitoredDataSource monitored = (MonitoredDataSource) dataSource;
+		ObjectName objectName = registeredNames.remove(monitored);
+		if (objectName != null) {
+			try {
+				mbeanServer.unregisterMBean(objectName);
+			} catch (InstanceNotFoundException e) {
+				// not found? ignore
+			} catch (MBeanRegistrationException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (metricsPublisher != null) {
+			metricsPublisher.unregister(monitored.getMetrics());
+		}
+		close(monitored.getDataSource());
+	}
+
+	private ObjectName registerMBean(String name, PoolMetrics metrics) {
+		String prefix = PoolMetrics.class.getPackage().getName() + ":type=" + PoolMetrics.class.getSimpleName()
+				+ ",name=";
+		try {
+			// there can be many containers with the same data source in the same JVM
+			for (int i = 1; ; i++) {
+				String uniqueName = i == 1 ? name : name + "-" + i;
+				ObjectName objectName = ObjectName.getInstance(prefix + ObjectName.quote(uniqueName));
+				try {
+					return mbeanServer.registerMBean(metrics, objectName).getObjectName();
+				} catch (InstanceAlreadyExistsException e) {
+					// try next name
+				}
+			}
+		} catch (MalformedObjectNameException | MBeanRegistrationException | NotCompliantMBeanException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static boolean isMetricsPresent() {
+		try {
+			Class.forName("com.codahale.metrics.MetricRegistry", false,
+					MonitoringDataSourceWrapper.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+}
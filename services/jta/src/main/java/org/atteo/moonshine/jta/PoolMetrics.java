@@ -0,0 +1,322 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the metrics of the single connection pool.
+ *
+ * <p>
+ * Recording does not allocate any objects and does not lock, so it can be done on each borrow and return.
+ * The acquisition times are kept in a histogram with power-of-two microsecond buckets.
+ * </p>
+ * <p>
+ * When the leak detection is enabled, the connections which are currently borrowed are additionally tracked
+ * together with the stack traces of their borrowers. The connections held longer than the leak threshold are
+ * logged once, while they are still borrowed. The check is done during the acquisitions, at most once
+ * per the leak threshold, and when the number of {@link #getLeakedConnections() leaked connections} is read.
+ * </p>
+ */
+public class PoolMetrics implements PoolMetricsMBean {
+	private static final Logger logger = LoggerFactory.getLogger("Moonshine");
+	private static final int BUCKETS = 40;
+
+	private final String name;
+	private final int maxPoolSize;
+	private final long slowThreshold;
+	private final long leakThreshold;
+
+	private final AtomicInteger inUse = new AtomicInteger();
+	private final AtomicInteger peakInUse = new AtomicInteger();
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final LongAdder acquired = new LongAdder();
+	private final LongAdder failedAcquisitions = new LongAdder();
+	private final LongAdder slowConnections = new LongAdder();
+	private final LongAdder acquisitionTime = new LongAdder();
+	private final AtomicLong maxAcquisitionTime = new AtomicLong();
+	private final AtomicLongArray acquisitionHistogram = new AtomicLongArray(BUCKETS);
+	private final LongAdder released = new LongAdder();
+	private final LongAdder holdTime = new LongAdder();
+	private final AtomicLong maxHoldTime = new AtomicLong();
+	/**
+	 * Connections currently borrowed, identified by the stack traces of their borrowers.
+	 */
+	private final Map<Throwable, Borrow> borrowed = new ConcurrentHashMap<>();
+	private final AtomicLong lastLeakCheck = new AtomicLong(System.nanoTime());
+
+	/**
+	 * @param name name of the pool
+	 * @param maxPoolSize maximum number of connections in the pool, 0 if unknown
+	 * @param slowThreshold time in milliseconds after which the connection is reported as slow, 0 to disable
+	 */
+	public PoolMetrics(String name, int maxPoolSize, long slowThreshold) {
+		this(name, maxPoolSize, slowThreshold, 0);
+	}
+
+	/**
+	 * @param name name of the pool
+	 * @param maxPoolSize maximum number of connections in the pool, 0 if unknown
+	 * @param slowThreshold time in milliseconds after which the connection is reported as slow, 0 to disable
+	 * @param leakThreshold time in milliseconds after which the connection which is still borrowed
+	 * is reported as leaked, 0 to disable
+	 */
+	public PoolMetrics(String name, int maxPoolSize, long slowThreshold, long leakThreshold) {
+		this.name = name;
+		this.maxPoolSize = maxPoolSize;
+		this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+		this.leakThreshold = TimeUnit.MILLISECONDS.toNanos(leakThreshold);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns true, if the stack traces of the borrowers should be captured to report slow or leaked connections.
+	 */
+	public boolean isTrackingSlowConnections() {
+		return slowThreshold > 0 || leakThreshold > 0;
+	}
+
+	/**
+	 * Marks the current thread as waiting for the connection, if all the connections of the pool are in use.
+	 * @return true, if the thread was marked as waiting
+	 */
+	public boolean acquiring() {
+		checkLeaksPeriodically();
+		if (maxPoolSize <= 0 || inUse.get() < maxPoolSize) {
+			return false;
+		}
+		waiting.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Records borrowed connection.
+	 * @param start time when the acquisition started
+	 * @param waited value returned by {@link #acquiring()}
+	 * @param borrowedAt stack trace of the borrower, can be null
+	 * @return time when the connection was borrowed
+	 */
+	public long acquired(long start, boolean waited, Throwable borrowedAt) {
+		long now = System.nanoTime();
+		long time = now - start;
+		if (waited) {
+			waiting.decrementAndGet();
+		}
+		if (leakThreshold > 0 && borrowedAt != null) {
+			borrowed.put(borrowedAt, new Borrow(now));
+		}
+		acquired.increment();
+		acquisitionTime.add(time);
+		maxAcquisitionTime.accumulateAndGet(time, Math::max);
+		acquisitionHistogram.incrementAndGet(bucket(time));
+		peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+		return now;
+	}
+
+	/**
+	 * Records failed attempt to borrow the connection.
+	 * @param waited value returned by {@link #acquiring()}
+	 */
+	public void acquisitionFailed(boolean waited) {
+		if (waited) {
+			waiting.decrementAndGet();
+		}
+		failedAcquisitions.increment();
+	}
+
+	/**
+	 * Records returned connection.
+	 * @param acquiredAt value returned by {@link #acquired(long, boolean, Throwable)}
+	 * @param borrowedAt stack trace of the borrower, can be null
+	 */
+	public void released(long acquiredAt, Throwable borrowedAt) {
+		long time = System.nanoTime() - acquiredAt;
+		if (borrowedAt != null) {
+			borrowed.remove(borrowedAt);
+		}
+		inUse.decrementAndGet();
+		released.increment();
+		holdTime.add(time);
+		maxHoldTime.accumulateAndGet(time, Math::max);
+		if (slowThreshold > 0 && time > slowThreshold) {
+			slowConnections.increment();
+			logger.warn("Connection from '" + name + "' was held for " + toMillis(time) + " ms", borrowedAt);
+		}
+	}
+
+	@Override
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	@Override
+	public int getInUse() {
+		return inUse.get();
+	}
+
+	@Override
+	public int getPeakInUse() {
+		return peakInUse.get();
+	}
+
+	@Override
+	public int getWaiting() {
+		return waiting.get();
+	}
+
+	@Override
+	public long getAcquired() {
+		return acquired.sum();
+	}
+
+	@Override
+	public long getFailedAcquisitions() {
+		return failedAcquisitions.sum();
+	}
+
+	@Override
+	public long getSlowConnections() {
+		return slowConnections.sum();
+	}
+
+	@Override
+	public int getLeakedConnections() {
+		return checkLeaks(System.nanoTime());
+	}
+
+	@Override
+	public double getAverageAcquisitionTime() {
+		return average(acquisitionTime.sum(), acquired.sum());
+	}
+
+	@Override
+	public double getMaxAcquisitionTime() {
+		return toMillis(maxAcquisitionTime.get());
+	}
+
+	@Override
+	public double getAcquisitionTime99thPercentile() {
+		return getAcquisitionTimePercentile(0.99);
+	}
+
+	/**
+	 * Returns the upper bound of the time in which given fraction of the connections were borrowed.
+	 * @param quantile fraction between 0 and 1
+	 */
+	public double getAcquisitionTimePercentile(double quantile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = acquisitionHistogram.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(total * quantile);
+		long sum = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			sum += counts[i];
+			if (sum >= threshold) {
+				return Math.min((1L << i) / 1000.0, getMaxAcquisitionTime());
+			}
+		}
+		return getMaxAcquisitionTime();
+	}
+
+	@Override
+	public double getAverageHoldTime() {
+		return average(holdTime.sum(), released.sum());
+	}
+
+	@Override
+	public double getMaxHoldTime() {
+		return toMillis(maxHoldTime.get());
+	}
+
+	private void checkLeaksPeriodically() {
+		if (leakThreshold <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		long last = lastLeakCheck.get();
+		if (now - last > leakThreshold && lastLeakCheck.compareAndSet(last, now)) {
+			checkLeaks(now);
+		}
+	}
+
+	/**
+	 * Logs the connections held longer than the leak threshold, which were not reported yet.
+	 * @return number of the connections held longer than the leak threshold
+	 */
+	private int checkLeaks(long now) {
+		if (leakThreshold <= 0) {
+			return 0;
+		}
+		int leaked = 0;
+		for (Map.Entry<Throwable, Borrow> entry : borrowed.entrySet()) {
+			Borrow borrow = entry.getValue();
+			long time = now - borrow.acquiredAt;
+			if (time <= leakThreshold) {
+				continue;
+			}
+			leaked++;
+			if (!borrow.reported) {
+				borrow.reported = true;
+				logger.warn("Connection from '" + name + "' is held for " + toMillis(time)
+						+ " ms and was not returned yet, possible leak", entry.getKey());
+			}
+		}
+		return leaked;
+	}
+
+	/**
+	 * Bucket i holds the times below 2^i microseconds.
+	 */
+	private static int bucket(long nanos) {
+		long micros = nanos / 1000;
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+	}
+
+	private static double average(long nanos, long count) {
+		return count == 0 ? 0 : toMillis(nanos) / count;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+	private static class Borrow {
+		private final long acquiredAt;
+		private volatile boolean reported = false;
+
+		public Borrow(long acquiredAt) {
+			this.acquiredAt = acquiredAt;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+/**
+ * Connection pool metrics exposed through JMX.
+ *
+ * <p>
+ * All times are in milliseconds.
+ * </p>
+ */
+public interface PoolMetricsMBean {
+	/**
+	 * Maximum number of connections in the pool.
+	 */
+	int getMaxPoolSize();
+
+	/**
+	 * Number of connections currently borrowed from the pool.
+	 */
+	int getInUse();
+
+	/**
+	 * Highest number of connections borrowed at the same time.
+	 */
+	int getPeakInUse();
+
+	/**
+	 * Number of threads currently waiting for the connection, because all the connections of the pool are in use.
+	 * Always 0, when the maximum pool size is not known.
+	 */
+	int getWaiting();
+
+	/**
+	 * Number of connections borrowed so far.
+	 */
+	long getAcquired();
+
+	/**
+	 * Number of failed attempts to borrow the connection.
+	 */
+	long getFailedAcquisitions();
+
+	/**
+	 * Number of connections held longer than the slow connection threshold.
+	 */
+	long getSlowConnections();
+
+	/**
+	 * Number of connections currently held longer than the leak detection threshold.
+	 */
+	int getLeakedConnections();
+
+	double getAverageAcquisitionTime();
+
+	double getMaxAcquisitionTime();
+
+	/**
+	 * Upper bound of the time in which 99% of the connections were borrowed.
+	 */
+	double getAcquisitionTime99thPercentile();
+
+	double getAverageHoldTime();
+
+	double getMaxHoldTime();
+}
@@ -71,6 +71,28 @@ public class PoolOptions extends AbstractConfigurable {
 	@XmlElement
 	private Integer maxLifeTime = 120;
 
+	/**
+	 * Sets whether the pool usage should be recorded and published through JMX and Metrics.
+	 */
+	@XmlElement
+	private Boolean monitored = true;
+
+	/**
+	 * Sets the time (in milliseconds) after which the returned connection is reported as slow
+	 * together with the stack trace of the code which borrowed it.
+	 * Optional, defaults to 0 (disabled), because capturing the stack trace on each borrow is costly.
+	 */
+	@XmlElement
+	private Integer slowConnectionThreshold = 0;
+
+	/**
+	 * Sets the time (in milliseconds) after which the connection which is still borrowed is reported as leaked
+	 * together with the stack trace of the code which borrowed it.
+	 * Optional, defaults to 0 (disabled), because capturing the stack trace on each borrow is costly.
+	 */
+	@XmlElement
+	private Integer leakDetectionThreshold = 0;
+
 	public Integer getMinPoolSize() {
 		return minPoolSize;
 	}
@@ -90,4 +112,16 @@ public class PoolOptions extends AbstractConfigurable {
 	public Integer getMaxLifeTime() {
 		return maxLifeTime;
 	}
+
+	public boolean isMonitored() {
+		return monitored == null || monitored;
+	}
+
+	public int getSlowConnectionThreshold() {
+		return slowConnectionThreshold != null ? slowConnectionThreshold : 0;
+	}
+
+	public int getLeakDetectionThreshold() {
+		return leakDetectionThreshold != null ? leakDetectionThreshold : 0;
+	}
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+/**
+ * Specifies how the code should be executed with respect to the current transaction.
+ */
+public enum Propagation {
+	/**
+	 * Join the current transaction or start a new one, if there is none.
+	 */
+	REQUIRED,
+
+	/**
+	 * Always start a new transaction suspending the current one, if any.
+	 */
+	REQUIRES_NEW,
+
+	/**
+	 * Join the current transaction, if any, otherwise execute without transaction.
+	 */
+	SUPPORTS,
+
+	/**
+	 * Execute without transaction suspending the current one, if any.
+	 */
+	NOT_SUPPORTED,
+
+	/**
+	 * Join the current transaction, fail if there is none.
+	 */
+	MANDATORY
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates {@link DataSource} marking the connections borrowed in {@link Transaction#isReadOnly() read-only mode}
+ * read-only.
+ *
+ * <p>
+ * Once this happens, the read-only flag of every borrowed connection is checked and cleared, if needed,
+ * because the pooled connections keep the flag.
+ * </p>
+ */
+public class ReadOnlyDataSource implements DataSource {
+	private final DataSource dataSource;
+	private volatile boolean readOnlyUsed = false;
+
+	public ReadOnlyDataSource(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * Returns the decorated data source.
+	 */
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return applyReadOnly(dataSource.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return applyReadOnly(dataSource.getConnection(username, password));
+	}
+
+	private Connection applyReadOnly(Connection connection) {
+		boolean readOnly = Transaction.isReadOnly();
+		if (!readOnly && !readOnlyUsed) {
+			return connection;
+		}
+		readOnlyUsed = true;
+		try {
+			if (connection.isReadOnly() != readOnly) {
+				connection.setReadOnly(readOnly);
+			}
+		} catch (SQLException e) {
+			// some drivers do not allow to change the flag in the middle of the transaction, it is only a hint
+			LoggerFactory.getLogger("Moonshine").debug("Cannot change read-only flag of the connection", e);
+		}
+		return connection;
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return dataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		dataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return dataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return dataSource.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(dataSource)) {
+			return iface.cast(dataSource);
+		}
+		return dataSource.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+	}
+}
@@ -17,10 +17,12 @@ package org.atteo.moonshine.jta;
 
 import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
+import javax.transaction.InvalidTransactionException;
 import javax.transaction.NotSupportedException;
 import javax.transaction.RollbackException;
 import javax.transaction.Status;
 import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
 import javax.transaction.UserTransaction;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -46,11 +48,50 @@ public class Transaction {
 	private static final InheritableThreadLocal<Provider<UserTransaction>> userTransactionProviders
 			= new InheritableThreadLocal<>();
 
+	private static final InheritableThreadLocal<Provider<TransactionManager>> transactionManagerProviders
+			= new InheritableThreadLocal<>();
+
+	private static final ThreadLocal<State> states = ThreadLocal.withInitial(State::new);
+
+	/**
+	 * Execution state of the current thread.
+	 *
+	 * <p>
+	 * While the code runs inside the transaction started by this class, the nested calls which only join
+	 * the current transaction skip the lookup of {@link UserTransaction} and the check of its status.
+	 * So such transaction should not be suspended or completed directly with {@link TransactionManager}.
+	 * </p>
+	 */
+	private static class State {
+		/**
+		 * Transaction started by this class which is current for the thread, null otherwise.
+		 */
+		private UserTransaction userTransaction;
+		private boolean readOnly;
+	}
+
 	@Inject
 	private static void injectTransactionProvider(Provider<UserTransaction> provider) {
 		userTransactionProviders.set(provider);
 	}
 
+	@Inject
+	private static void injectTransactionManagerProvider(Provider<TransactionManager> provider) {
+		transactionManagerProviders.set(provider);
+	}
+
+	/**
+	 * Returns true, if the code is executed in read-only mode.
+	 *
+	 * <p>
+	 * The connections borrowed in this mode are marked {@link java.sql.Connection#setReadOnly(boolean) read-only}
+	 * and the entity manager does not flush the changes.
+	 * </p>
+	 */
+	public static boolean isReadOnly() {
+		return states.get().readOnly;
+	}
+
 	public static void require(final Runnable runnable) {
 		require(() -> {
 			runnable.run();
@@ -66,40 +107,150 @@ public class Transaction {
 	}
 
 	public static <T, E extends Throwable> T require(ReturningRunnable<T, E> runnable) throws E {
+		return execute(Propagation.REQUIRED, false, 0, runnable);
+	}
+
+	/**
+	 * Executes given code with specified transaction attributes.
+	 * @param propagation how to handle the current transaction
+	 * @param readOnly whether new transaction or non-transactional execution should be read-only,
+	 * the mode of the joined transaction is not changed
+	 * @param timeout timeout in seconds of the new transaction, 0 for the default timeout
+	 * @param runnable code to execute
+	 * @return the value returned by the code
+	 */
+	public static <T, E extends Throwable> T execute(Propagation propagation, boolean readOnly, int timeout,
+			ReturningRunnable<T, E> runnable) throws E {
+		State state = states.get();
+		if (state.userTransaction != null && (propagation == Propagation.REQUIRED
+				|| propagation == Propagation.SUPPORTS || propagation == Propagation.MANDATORY)) {
+			try {
+				return join(state.userTransaction, runnable);
+			} catch (SystemException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
 		checkNotNull(userTransactionProviders.get(), "Transactions not supported. You need to add <transactional/>"
 				+ " to your configuration file.");
 		UserTransaction userTransaction = userTransactionProviders.get().get();
 
-		return require(userTransaction, runnable);
+		try {
+			boolean active = userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION;
+			switch (propagation) {
+				case REQUIRED:
+					if (active) {
+						return join(userTransaction, runnable);
+					}
+					return begin(userTransaction, readOnly, timeout, runnable);
+				case REQUIRES_NEW:
+					if (!active) {
+						return begin(userTransaction, readOnly, timeout, runnable);
+					}
+					TransactionManager manager = getTransactionManager();
+					javax.transaction.Transaction suspended = manager.suspend();
+					try {
+						return begin(userTransaction, readOnly, timeout, runnable);
+					} finally {
+						manager.resume(suspended);
+					}
+				case SUPPORTS:
+					if (active) {
+						return join(userTransaction, runnable);
+					}
+					return withoutTransaction(readOnly, runnable);
+				case NOT_SUPPORTED:
+					if (!active) {
+						return withoutTransaction(readOnly, runnable);
+					}
+					manager = getTransactionManager();
+					suspended = manager.suspend();
+					try {
+						return withoutTransaction(readOnly, runnable);
+					} finally {
+						manager.resume(suspended);
+					}
+				case MANDATORY:
+					if (!active) {
+						throw new IllegalStateException("No existing transaction found for propagation "
+								+ propagation);
+					}
+					return join(userTransaction, runnable);
+				default:
+					throw new IllegalArgumentException("Unknown propagation: " + propagation);
+			}
+		} catch (SystemException | NotSupportedException | RollbackException | HeuristicMixedException
+				| HeuristicRollbackException | InvalidTransactionException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
-	private static <T, E extends Throwable> T require(UserTransaction userTransaction,
-			ReturningRunnable<T, E> runnable) throws E {
-		boolean myTransaction = false;
+	private static TransactionManager getTransactionManager() {
+		checkNotNull(transactionManagerProviders.get(), "Transaction suspension not supported. You need to add"
+				+ " <transactional/> to your configuration file.");
+		return transactionManagerProviders.get().get();
+	}
+
+	private static <T, E extends Throwable> T join(UserTransaction userTransaction,
+			ReturningRunnable<T, E> runnable) throws E, SystemException {
+		try {
+			return runnable.run();
+		} catch (RuntimeException e) {
+			userTransaction.setRollbackOnly();
+			throw e;
+		}
+	}
 
+	private static <T, E extends Throwable> T begin(UserTransaction userTransaction, boolean readOnly, int timeout,
+			ReturningRunnable<T, E> runnable) throws E, SystemException, NotSupportedException, RollbackException,
+			HeuristicMixedException, HeuristicRollbackException {
+		if (timeout > 0) {
+			userTransaction.setTransactionTimeout(timeout);
+		}
 		try {
-			if (userTransaction.getStatus() == Status.STATUS_NO_TRANSACTION) {
-				userTransaction.begin();
-				myTransaction = true;
+			userTransaction.begin();
+		} finally {
+			if (timeout > 0) {
+				userTransaction.setTransactionTimeout(0);
 			}
+		}
 
+		State state = states.get();
+		UserTransaction previousTransaction = state.userTransaction;
+		boolean previousReadOnly = state.readOnly;
+		state.userTransaction = userTransaction;
+		state.readOnly = readOnly;
+		try {
 			try {
 				return runnable.run();
 			} catch (RuntimeException e) {
 				userTransaction.setRollbackOnly();
 				throw e;
 			} finally {
-				if (myTransaction) {
-					if (userTransaction.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
-						userTransaction.rollback();
-					} else {
-						userTransaction.commit();
-					}
+				if (userTransaction.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
+					userTransaction.rollback();
+				} else {
+					userTransaction.commit();
 				}
 			}
-		} catch (SystemException | NotSupportedException | RollbackException | HeuristicMixedException
-				| HeuristicRollbackException e) {
-			throw new RuntimeException(e);
+		} finally {
+			state.userTransaction = previousTransaction;
+			state.readOnly = previousReadOnly;
+		}
+	}
+
+	private static <T, E extends Throwable> T withoutTransaction(boolean readOnly, ReturningRunnable<T, E> runnable)
+			throws E {
+		State state = states.get();
+		UserTransaction previousTransaction = state.userTransaction;
+		boolean previousReadOnly = state.readOnly;
+		state.userTransaction = null;
+		state.readOnly = readOnly;
+		try {
+			return runnable.run();
+		} finally {
+			state.userTransaction = previousTransaction;
+			state.readOnly = previousReadOnly;
 		}
 	}
 }
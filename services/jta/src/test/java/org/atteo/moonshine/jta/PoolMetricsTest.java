@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.jta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class PoolMetricsTest {
+	@Test
+	public void shouldCountConnectionsInUse() {
+		// given
+		PoolMetrics metrics = new PoolMetrics("test", 10, 0);
+
+		// when
+		long first = metrics.acquired(System.nanoTime(), metrics.acquiring(), null);
+		long second = metrics.acquired(System.nanoTime(), metrics.acquiring(), null);
+		metrics.released(first, null);
+		metrics.acquisitionFailed(metrics.acquiring());
+
+		// then
+		assertThat(metrics.getInUse()).isEqualTo(1);
+		assertThat(metrics.getPeakInUse()).isEqualTo(2);
+		assertThat(metrics.getWaiting()).isEqualTo(0);
+		assertThat(metrics.getAcquired()).isEqualTo(2);
+		assertThat(metrics.getFailedAcquisitions()).isEqualTo(1);
+		assertThat(second).isGreaterThanOrEqualTo(first);
+	}
+
+	@Test
+	public void shouldEstimatePercentileOfAcquisitionTime() {
+		// given
+		PoolMetrics metrics = new PoolMetrics("test", 10, 0);
+
+		// when
+		for (int i = 0; i < 99; i++) {
+			metrics.acquired(System.nanoTime(), false, null);
+		}
+		metrics.acquired(System.nanoTime() - 50_000_000, false, null);
+
+		// then
+		assertThat(metrics.getAcquisitionTimePercentile(0.5)).isLessThan(10);
+		assertThat(metrics.getAcquisitionTime99thPercentile()).isLessThan(10);
+		assertThat(metrics.getAcquisitionTimePercentile(1)).isGreaterThanOrEqualTo(50);
+		assertThat(metrics.getMaxAcquisitionTime()).isGreaterThanOrEqualTo(50);
+	}
+
+	@Test
+	public void shouldCountSlowConnections() {
+		// given
+		PoolMetrics metrics = new PoolMetrics("test", 10, 10);
+		long acquiredAt = metrics.acquired(System.nanoTime(), metrics.acquiring(), null);
+
+		// when
+		metrics.released(acquiredAt - 20_000_000, new Throwable("Connection borrowed here"));
+
+		// then
+		assertThat(metrics.isTrackingSlowConnections()).isTrue();
+		assertThat(metrics.getSlowConnections()).isEqualTo(1);
+		assertThat(metrics.getMaxHoldTime()).isGreaterThanOrEqualTo(20);
+	}
+
+	@Test
+	public void shouldCountWaitingOnlyWhenPoolIsExhausted() {
+		// given
+		PoolMetrics metrics = new PoolMetrics("test", 1, 0);
+		boolean firstWaited = metrics.acquiring();
+		metrics.acquired(System.nanoTime(), firstWaited, null);
+
+		// when
+		boolean secondWaited = metrics.acquiring();
+
+		// then
+		assertThat(firstWaited).isFalse();
+		assertThat(secondWaited).isTrue();
+		assertThat(metrics.getWaiting()).isEqualTo(1);
+		metrics.acquisitionFailed(secondWaited);
+		assertThat(metrics.getWaiting()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldDetectConnectionsHeldLongerThanLeakThreshold() throws InterruptedException {
+		// given
+		PoolMetrics metrics = new PoolMetrics("test", 10, 0, 1);
+		Throwable leakedAt = new Throwable("Connection borrowed here");
+		Throwable returnedAt = new Throwable("Connection borrowed here");
+		metrics.acquired(System.nanoTime(), metrics.acquiring(), leakedAt);
+		long acquiredAt = metrics.acquired(System.nanoTime(), metrics.acquiring(), returnedAt);
+
+		// when
+		Thread.sleep(20);
+		metrics.released(acquiredAt, returnedAt);
+
+		// then
+		assertThat(metrics.isTrackingSlowConnections()).isTrue();
+		assertThat(metrics.getLeakedConnections()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.atteo.moonshine.liquibase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import liquibase.resource.ResourceAccessor;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Keeps the content of the resources in memory, so the changelogs are read from the classpath only once.
+ */
+class CachingResourceAccessor implements ResourceAccessor {
+	private final ResourceAccessor delegate;
+	private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+
+	public CachingResourceAccessor(ResourceAccessor delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Returns the content of the resource.
+	 * @return content of the resource or null, if the resource does not exist
+	 */
+	public byte[] getResource(String file) throws IOException {
+		byte[] bytes = resources.get(file);
+		if (bytes == null) {
+			try (InputStream stream = delegate.getResourceAsStream(file)) {
+				if (stream == null) {
+					return null;
+				}
+				bytes = ByteStreams.toByteArray(stream);
+			}
+			resources.put(file, bytes);
+		}
+		return bytes;
+	}
+
+	@Override
+	public InputStream getResourceAsStream(String file) throws IOException {
+		byte[] bytes = getResource(file);
+		if (bytes == null) {
+			return null;
+		}
+		return new ByteArrayInputStream(bytes);
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String packageName) throws IOException {
+		return delegate.getResources(packageName);
+	}
+
+	@Override
+	public ClassLoader toClassLoader() {
+		return delegate.toClassLoader();
+	}
+}
@@ -13,9 +13,18 @@
  */
 package org.atteo.moonshine.liquibase;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
@@ -26,7 +35,10 @@ import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.LiquibaseException;
 import liquibase.resource.ClassLoaderResourceAccessor;
-import liquibase.resource.ResourceAccessor;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
  * Liquibase facade for migrations execution.
@@ -46,10 +58,39 @@ import liquibase.resource.ResourceAccessor;
  * }
  * </pre>
  * </p>
+ * <p>
+ * The changelogs are read from the classpath only once. Before the update the change sets of the changelog
+ * are compared with the ones recorded in the DATABASECHANGELOG table, including their checksums. When all of them
+ * are already applied, the update, together with the locking and tagging it involves, is skipped. This works
+ * also when the changelog was applied by another JVM.
+ * </p>
+ * <p>
+ * After each migration the state of the DATABASECHANGELOG table is additionally remembered. When the same changelog
+ * is migrated again in the same JVM and the table has not changed since then, the migration is skipped after
+ * a single query without parsing the changelog. Updates of the same {@link DataSource} are serialized, while
+ * this check is not.
+ * </p>
  */
 public class LiquibaseFacade {
 	private static final String BEFORE_LAST_UPDATE = "BEFORE_LAST_UPDATE";
 
+	private static final String CHANGELOG_TABLE = "DATABASECHANGELOG";
+
+	private static final String STATE_QUERY = "SELECT COUNT(*), MAX(ORDEREXECUTED), MAX(DATEEXECUTED)"
+			+ " FROM " + CHANGELOG_TABLE;
+
+	private static final CachingResourceAccessor resourceAccessor = new CachingResourceAccessor(
+			new ClassLoaderResourceAccessor());
+
+	private static final LoadingCache<DataSource, DataSourceState> states = CacheBuilder.newBuilder()
+			.weakKeys()
+			.build(new CacheLoader<DataSource, DataSourceState>() {
+				@Override
+				public DataSourceState load(DataSource key) {
+					return new DataSourceState();
+				}
+			});
+
 	private final DataSource dataSource;
 
 	@Inject
@@ -81,31 +122,56 @@ public class LiquibaseFacade {
 	 * @param changelogParameters changelog parameters, can be null
 	 */
 	public void migrate(String changelog, String contexts, Map<String, Object> changelogParameters) {
-		ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
-
-		DatabaseConnection databaseConnection = null;
 		changelog = normalizeName(changelog);
+		DataSourceState state = getState();
+		// changelogs are cached for the lifetime of the JVM, so the name identifies their content
+		List<Object> key = Arrays.asList(changelog, contexts, changelogParameters);
 
-		try {
-			databaseConnection = new JdbcConnection(dataSource.getConnection());
-			Liquibase liquibase = new Liquibase(changelog, resourceAccessor, databaseConnection);
-			liquibase.tag(BEFORE_LAST_UPDATE);
+		String before = readChangelogState();
+		if (before != null && before.equals(state.upToDate.get(key))) {
+			state.skipped.add(changelog);
+			return;
+		}
 
-			if (changelogParameters != null) {
-				for (Entry<String, Object> entry : changelogParameters.entrySet()) {
-					liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
-				}
-			}
+		synchronized (state) {
+			DatabaseConnection databaseConnection = null;
+			boolean applied;
 
-			liquibase.update(contexts);
-		} catch (LiquibaseException | SQLException e) {
-			throw new RuntimeException(e);
-		} finally {
 			try {
-				if (databaseConnection != null && !databaseConnection.isClosed())
-					databaseConnection.close();
-			} catch (DatabaseException e) {
+				databaseConnection = new JdbcConnection(dataSource.getConnection());
+				Liquibase liquibase = new Liquibase(changelog, resourceAccessor, databaseConnection);
+
+				if (changelogParameters != null) {
+					for (Entry<String, Object> entry : changelogParameters.entrySet()) {
+						liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
+					}
+				}
+
+				// validates the checksums of the change sets recorded in DATABASECHANGELOG
+				applied = before != null && liquibase.listUnrunChangeSets(contexts).isEmpty();
+				if (!applied) {
+					liquibase.tag(BEFORE_LAST_UPDATE);
+					liquibase.update(contexts);
+				}
+			} catch (LiquibaseException | SQLException e) {
 				throw new RuntimeException(e);
+			} finally {
+				try {
+					if (databaseConnection != null && !databaseConnection.isClosed())
+						databaseConnection.close();
+				} catch (DatabaseException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			if (applied) {
+				state.skipped.add(changelog);
+			} else {
+				state.skipped.remove(changelog);
+			}
+			String after = readChangelogState();
+			if (after != null) {
+				state.upToDate.put(key, after);
 			}
 		}
 	}
@@ -146,38 +212,42 @@ public class LiquibaseFacade {
 	 */
 	private void rollback(String changelog, String contexts, Map<String, Object> changelogParameters, String tag) {
 		changelog = normalizeName(changelog);
+		DataSourceState state = getState();
 
-		ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
+		if (BEFORE_LAST_UPDATE.equals(tag) && state.skipped.remove(changelog)) {
+			// the last migration was skipped, nothing was applied since the tag would have been created
+			return;
+		}
 
-		DatabaseConnection databaseConnection = null;
+		synchronized (state) {
+			DatabaseConnection databaseConnection = null;
 
-		try {
-			databaseConnection = new JdbcConnection(dataSource.getConnection());
-			Liquibase liquibase = new Liquibase(changelog, resourceAccessor, databaseConnection);
+			try {
+				databaseConnection = new JdbcConnection(dataSource.getConnection());
+				Liquibase liquibase = new Liquibase(changelog, resourceAccessor, databaseConnection);
 
-			if (changelogParameters != null) {
-				for (Entry<String, Object> entry : changelogParameters.entrySet()) {
-					liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
+				if (changelogParameters != null) {
+					for (Entry<String, Object> entry : changelogParameters.entrySet()) {
+						liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
+					}
 				}
-			}
 
-			liquibase.rollback(tag, contexts);
-		} catch (LiquibaseException | SQLException e) {
-			throw new RuntimeException(e);
-		} finally {
-			try {
-				if (databaseConnection != null && !databaseConnection.isClosed()) {
-					databaseConnection.close();
-				}
-			} catch (DatabaseException e) {
+				liquibase.rollback(tag, contexts);
+			} catch (LiquibaseException | SQLException e) {
 				throw new RuntimeException(e);
+			} finally {
+				try {
+					if (databaseConnection != null && !databaseConnection.isClosed()) {
+						databaseConnection.close();
+					}
+				} catch (DatabaseException e) {
+					throw new RuntimeException(e);
+				}
 			}
 		}
 	}
 
 	public void dropAll() {
-		ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
-
 		DatabaseConnection databaseConnection = null;
 
 		try {
@@ -196,10 +266,65 @@ public class LiquibaseFacade {
 		}
 	}
 
+	private DataSourceState getState() {
+		try {
+			return states.get(dataSource);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Returns the summary of the DATABASECHANGELOG table which changes whenever any changeset is applied
+	 * or rolled back.
+	 * @return the summary or null, if the table does not exist
+	 */
+	private String readChangelogState() {
+		try (Connection connection = dataSource.getConnection()) {
+			if (!changelogTableExists(connection)) {
+				return null;
+			}
+			try (Statement statement = connection.createStatement();
+					ResultSet result = statement.executeQuery(STATE_QUERY)) {
+				if (!result.next()) {
+					return null;
+				}
+				return result.getLong(1) + ":" + result.getLong(2) + ":" + result.getTimestamp(3);
+			}
+		} catch (SQLException e) {
+			return null;
+		}
+	}
+
+	private static boolean changelogTableExists(Connection connection) throws SQLException {
+		try (ResultSet tables = connection.getMetaData().getTables(null, null, "%", new String[] { "TABLE" })) {
+			while (tables.next()) {
+				if (CHANGELOG_TABLE.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	private String normalizeName(String changelog) {
 		if (changelog.startsWith("/") ){
 			changelog = changelog.substring(1);
 		}
 		return changelog;
 	}
+
+	/**
+	 * Migration state of the single {@link DataSource}, also used to serialize the updates.
+	 */
+	private static class DataSourceState {
+		/**
+		 * Changelogs which are fully applied mapped to the state of the DATABASECHANGELOG table after that.
+		 */
+		private final Map<List<Object>, String> upToDate = new ConcurrentHashMap<>();
+		/**
+		 * Changelogs whose last migration was skipped.
+		 */
+		private final Set<String> skipped = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	}
 }
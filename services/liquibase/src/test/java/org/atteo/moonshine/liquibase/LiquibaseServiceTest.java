@@ -52,4 +52,19 @@ public class LiquibaseServiceTest extends MoonshineTest {
 		migrations.rollbackLastUpdate("/test-migration2.xml");
 		assertFalse(userExists());
 	}
+
+	@Test
+	public void shouldSkipMigrationWhenNothingIsPending() throws SQLException {
+		LiquibaseFacade migrations = new LiquibaseFacade(dataSource);
+		migrations.migrate("/test-migration1.xml");
+		migrations.migrate("/test-migration2.xml");
+		assertTrue(userExists());
+
+		migrations.migrate("/test-migration2.xml");
+		migrations.rollbackLastUpdate("/test-migration2.xml");
+		assertTrue(userExists());
+
+		migrations.rollbackLastUpdate("/test-migration2.xml");
+		assertFalse(userExists());
+	}
 }
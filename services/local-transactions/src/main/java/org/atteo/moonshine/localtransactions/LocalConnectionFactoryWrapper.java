@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.XAConnectionFactory;
+
+import org.atteo.moonshine.jta.JtaConnectionFactoryWrapper;
+import org.atteo.moonshine.jta.PoolOptions;
+
+/**
+ * Exposes {@link XAConnectionFactory} as plain {@link ConnectionFactory}.
+ *
+ * <p>
+ * JMS sessions do not take part in local transactions, use transacted sessions instead.
+ * </p>
+ */
+class LocalConnectionFactoryWrapper implements JtaConnectionFactoryWrapper {
+	@Override
+	public ConnectionFactory wrap(String name, final XAConnectionFactory xaFactory, PoolOptions poolOptions) {
+		return new ConnectionFactory() {
+			@Override
+			public Connection createConnection() throws JMSException {
+				return xaFactory.createXAConnection();
+			}
+
+			@Override
+			public Connection createConnection(String userName, String password) throws JMSException {
+				return xaFactory.createXAConnection(userName, password);
+			}
+		};
+	}
+
+	@Override
+	public void close(ConnectionFactory connectionFactory) {
+	}
+}
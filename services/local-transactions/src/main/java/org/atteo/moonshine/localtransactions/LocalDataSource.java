@@ -0,0 +1,314 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.DataSource;
+import javax.sql.PooledConnection;
+import javax.sql.XAConnection;
+import javax.sql.XADataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pooling {@link DataSource} which takes part in {@link LocalTransaction local transactions}.
+ *
+ * <p>
+ * The physical connections are obtained from {@link XADataSource}, but the XA protocol is never used.
+ * Inside the transaction the same connection is returned each time with auto-commit disabled
+ * and it is committed or rolled back together with the transaction. Outside of the transaction
+ * the connection works in auto-commit mode.
+ * </p>
+ */
+public class LocalDataSource implements DataSource, ConnectionEventListener {
+	private static final Logger logger = LoggerFactory.getLogger("Moonshine");
+	private static final long ACQUISITION_TIMEOUT = 30;
+
+	private final String name;
+	private final XADataSource xaDataSource;
+	private final LocalTransactionManager transactionManager;
+	private final long maxLifeTime;
+	private final String testQuery;
+	private final Semaphore permits;
+	/**
+	 * Idle connections, the most recently used first.
+	 */
+	private final Deque<Pooled> idle = new ConcurrentLinkedDeque<>();
+	private final Map<PooledConnection, Pooled> pooled = new ConcurrentHashMap<>();
+	private volatile boolean closed = false;
+
+	/**
+	 * @param maxPoolSize maximum number of connections
+	 * @param maxLifeTime maximum number of seconds the connection is kept in the pool, 0 for no limit
+	 * @param testQuery query used to validate the idle connection before it is borrowed, null to skip validation
+	 */
+	public LocalDataSource(String name, XADataSource xaDataSource, LocalTransactionManager transactionManager,
+			int maxPoolSize, int maxLifeTime, String testQuery) {
+		this.name = name;
+		this.xaDataSource = xaDataSource;
+		this.transactionManager = transactionManager;
+		this.maxLifeTime = TimeUnit.SECONDS.toNanos(maxLifeTime);
+		this.testQuery = testQuery;
+		this.permits = new Semaphore(maxPoolSize, true);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		LocalTransaction transaction = transactionManager.getActiveTransaction();
+		if (transaction == null) {
+			return borrow().getConnection();
+		}
+		Connection handle = transaction.getConnection(this);
+		if (handle != null) {
+			return handle;
+		}
+		Connection connection = borrow().getConnection();
+		try {
+			connection.setAutoCommit(false);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		handle = (Connection) Proxy.newProxyInstance(LocalDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new EnlistedConnectionHandler(connection));
+		transaction.enlist(this, connection, handle);
+		return handle;
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Connection with different credentials is not supported");
+	}
+
+	private XAConnection borrow() throws SQLException {
+		if (closed) {
+			throw new SQLException("Data source '" + name + "' is closed");
+		}
+		try {
+			if (!permits.tryAcquire(ACQUISITION_TIMEOUT, TimeUnit.SECONDS)) {
+				throw new SQLException("Timed out waiting for connection from data source '" + name + "'");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for connection", e);
+		}
+		try {
+			Pooled connection;
+			while ((connection = idle.pollFirst()) != null) {
+				if (isValid(connection)) {
+					connection.borrowed.set(true);
+					return connection.xaConnection;
+				}
+				destroy(connection);
+			}
+			XAConnection xaConnection = xaDataSource.getXAConnection();
+			xaConnection.addConnectionEventListener(this);
+			connection = new Pooled(xaConnection);
+			connection.borrowed.set(true);
+			pooled.put(xaConnection, connection);
+			return xaConnection;
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	private boolean isValid(Pooled connection) {
+		if (maxLifeTime != 0 && System.nanoTime() - connection.created >= maxLifeTime) {
+			return false;
+		}
+		if (testQuery == null) {
+			return true;
+		}
+		try (Connection handle = connection.xaConnection.getConnection();
+				Statement statement = handle.createStatement()) {
+			statement.execute(testQuery);
+			return true;
+		} catch (SQLException e) {
+			logger.debug("Connection from data source '{}' failed validation", name, e);
+			return false;
+		}
+	}
+
+	@Override
+	public void connectionClosed(ConnectionEvent event) {
+		Pooled connection = pooled.get((PooledConnection) event.getSource());
+		if (connection == null || !connection.borrowed.compareAndSet(true, false)) {
+			return;
+		}
+		if (closed) {
+			destroy(connection);
+		} else {
+			idle.addFirst(connection);
+		}
+		permits.release();
+	}
+
+	@Override
+	public void connectionErrorOccurred(ConnectionEvent event) {
+		Pooled connection = pooled.get((PooledConnection) event.getSource());
+		if (connection != null) {
+			logger.warn("Connection from data source '" + name + "' failed, removing it from the pool",
+					event.getSQLException());
+			destroy(connection);
+			if (connection.borrowed.compareAndSet(true, false)) {
+				permits.release();
+			}
+		}
+	}
+
+	private void destroy(Pooled connection) {
+		if (pooled.remove(connection.xaConnection) == null) {
+			return;
+		}
+		idle.remove(connection);
+		try {
+			connection.xaConnection.close();
+		} catch (SQLException e) {
+			logger.debug("Cannot close connection from data source '{}'", name, e);
+		}
+	}
+
+	/**
+	 * Closes the idle connections. The borrowed connections are closed when returned.
+	 */
+	public void close() {
+		closed = true;
+		Pooled connection;
+		while ((connection = idle.pollFirst()) != null) {
+			destroy(connection);
+		}
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return xaDataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		xaDataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		xaDataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return xaDataSource.getLoginTimeout();
+	}
+
+	@Override
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return xaDataSource.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		if (iface.isInstance(xaDataSource)) {
+			return iface.cast(xaDataSource);
+		}
+		throw new SQLException("Not a wrapper for " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this) || iface.isInstance(xaDataSource);
+	}
+
+	private static class Pooled {
+		private final XAConnection xaConnection;
+		private final long created = System.nanoTime();
+		private final AtomicBoolean borrowed = new AtomicBoolean();
+
+		public Pooled(XAConnection xaConnection) {
+			this.xaConnection = xaConnection;
+		}
+	}
+
+	/**
+	 * Prevents the user from closing and demarcating the connection enlisted in the transaction.
+	 */
+	private static class EnlistedConnectionHandler implements InvocationHandler {
+		private final Connection connection;
+
+		public EnlistedConnectionHandler(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					return null;
+				case "commit":
+					throw new SQLException("Connection is enlisted in the transaction, commit it with the transaction"
+							+ " manager");
+				case "rollback":
+					if (args == null) {
+						throw new SQLException("Connection is enlisted in the transaction, roll it back with"
+								+ " the transaction manager");
+					}
+					// rollback to the savepoint is allowed
+					break;
+				case "setAutoCommit":
+					if ((Boolean) args[0]) {
+						throw new SQLException("Cannot enable auto-commit inside the transaction");
+					}
+					return null;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					break;
+			}
+			try {
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
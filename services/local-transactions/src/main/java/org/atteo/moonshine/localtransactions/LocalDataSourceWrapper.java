@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import javax.sql.XADataSource;
+
+import org.atteo.moonshine.jta.JtaDataSourceWrapper;
+import org.atteo.moonshine.jta.PoolOptions;
+
+/**
+ * Wraps {@link XADataSource} into {@link LocalDataSource}.
+ */
+class LocalDataSourceWrapper implements JtaDataSourceWrapper {
+	@Inject
+	private LocalTransactionManager transactionManager;
+
+	@Override
+	public DataSource wrap(String name, XADataSource xaDataSource, PoolOptions poolOptions, String testQuery) {
+		if (poolOptions == null) {
+			poolOptions = new PoolOptions();
+		}
+		int maxPoolSize = poolOptions.getMaxPoolSize() != null ? poolOptions.getMaxPoolSize() : 25;
+		int maxLifeTime = poolOptions.getMaxLifeTime() != null ? poolOptions.getMaxLifeTime() : 0;
+		return new LocalDataSource(name, xaDataSource, transactionManager, maxPoolSize, maxLifeTime, testQuery);
+	}
+
+	@Override
+	public void close(DataSource dataSource) {
+		((LocalDataSource) dataSource).close();
+	}
+}
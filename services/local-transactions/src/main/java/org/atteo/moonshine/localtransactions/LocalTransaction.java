@@ -0,0 +1,244 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.xa.XAResource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transaction which commits each enlisted {@link LocalDataSource} with a local JDBC transaction.
+ *
+ * <p>
+ * When only one data source is enlisted, which is the most common case, this is equivalent
+ * to the one-phase commit. With more data sources they are committed one after another and the failure
+ * after the first commit is reported as {@link HeuristicMixedException}.
+ * </p>
+ */
+class LocalTransaction implements Transaction {
+	private static final Logger logger = LoggerFactory.getLogger("Moonshine");
+
+	private final long deadline;
+	private int status = Status.STATUS_ACTIVE;
+	private final Map<LocalDataSource, Enlisted> connections = new LinkedHashMap<>(4);
+	private final List<Synchronization> synchronizations = new ArrayList<>(4);
+
+	/**
+	 * @param timeout timeout in seconds, 0 for no timeout
+	 */
+	public LocalTransaction(int timeout) {
+		deadline = timeout > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout) : 0;
+	}
+
+	/**
+	 * Returns true, if the connections can be still enlisted.
+	 */
+	public boolean isActive() {
+		return status == Status.STATUS_ACTIVE || status == Status.STATUS_MARKED_ROLLBACK;
+	}
+
+	/**
+	 * Returns the connection enlisted for given data source.
+	 * @return connection handle which cannot be closed, committed or rolled back by the user, or null
+	 */
+	public Connection getConnection(LocalDataSource dataSource) {
+		Enlisted enlisted = connections.get(dataSource);
+		return enlisted != null ? enlisted.handle : null;
+	}
+
+	/**
+	 * Enlists the connection.
+	 * @param connection connection with disabled auto-commit
+	 * @param handle handle of the connection given to the user
+	 */
+	public void enlist(LocalDataSource dataSource, Connection connection, Connection handle) {
+		connections.put(dataSource, new Enlisted(connection, handle));
+	}
+
+	@Override
+	public void commit() throws RollbackException, HeuristicMixedException, SystemException {
+		if (!isActive()) {
+			throw new IllegalStateException("Transaction is not active");
+		}
+		if (status == Status.STATUS_MARKED_ROLLBACK) {
+			rollbackConnections();
+			throw new RollbackException("Transaction was marked for rollback");
+		}
+		if (deadline != 0 && System.nanoTime() - deadline > 0) {
+			rollbackConnections();
+			throw new RollbackException("Transaction timed out");
+		}
+		try {
+			for (int i = 0; i < synchronizations.size(); i++) {
+				synchronizations.get(i).beforeCompletion();
+			}
+		} catch (RuntimeException e) {
+			rollbackConnections();
+			RollbackException exception = new RollbackException("Synchronization failed before completion");
+			exception.initCause(e);
+			throw exception;
+		}
+		if (status == Status.STATUS_MARKED_ROLLBACK) {
+			rollbackConnections();
+			throw new RollbackException("Transaction was marked for rollback");
+		}
+
+		status = Status.STATUS_COMMITTING;
+		int committed = 0;
+		SQLException failure = null;
+		for (Enlisted enlisted : connections.values()) {
+			if (failure == null) {
+				try {
+					enlisted.connection.commit();
+					committed++;
+				} catch (SQLException e) {
+					failure = e;
+				}
+			}
+			if (failure != null) {
+				try {
+					enlisted.connection.rollback();
+				} catch (SQLException e) {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure == null) {
+			complete(Status.STATUS_COMMITTED);
+		} else if (committed == 0) {
+			complete(Status.STATUS_ROLLEDBACK);
+			RollbackException exception = new RollbackException("Commit failed");
+			exception.initCause(failure);
+			throw exception;
+		} else {
+			complete(Status.STATUS_UNKNOWN);
+			HeuristicMixedException exception = new HeuristicMixedException("Commit failed after committing "
+					+ committed + " of " + connections.size() + " data sources");
+			exception.initCause(failure);
+			throw exception;
+		}
+	}
+
+	@Override
+	public void rollback() throws SystemException {
+		if (!isActive()) {
+			throw new IllegalStateException("Transaction is not active");
+		}
+		SQLException failure = rollbackConnections();
+		if (failure != null) {
+			SystemException exception = new SystemException("Rollback failed");
+			exception.initCause(failure);
+			throw exception;
+		}
+	}
+
+	private SQLException rollbackConnections() {
+		status = Status.STATUS_ROLLING_BACK;
+		SQLException failure = null;
+		for (Enlisted enlisted : connections.values()) {
+			try {
+				enlisted.connection.rollback();
+			} catch (SQLException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		complete(Status.STATUS_ROLLEDBACK);
+		return failure;
+	}
+
+	private void complete(int finalStatus) {
+		status = finalStatus;
+		for (Enlisted enlisted : connections.values()) {
+			try {
+				enlisted.connection.setAutoCommit(true);
+				enlisted.connection.close();
+			} catch (SQLException e) {
+				logger.warn("Cannot return connection to the pool", e);
+			}
+		}
+		connections.clear();
+		for (int i = 0; i < synchronizations.size(); i++) {
+			try {
+				synchronizations.get(i).afterCompletion(finalStatus);
+			} catch (RuntimeException e) {
+				logger.warn("Synchronization failed after completion", e);
+			}
+		}
+	}
+
+	@Override
+	public void setRollbackOnly() {
+		if (!isActive()) {
+			throw new IllegalStateException("Transaction is not active");
+		}
+		status = Status.STATUS_MARKED_ROLLBACK;
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public void registerSynchronization(Synchronization synchronization) throws RollbackException {
+		if (status == Status.STATUS_MARKED_ROLLBACK) {
+			throw new RollbackException("Transaction was marked for rollback");
+		}
+		if (status != Status.STATUS_ACTIVE) {
+			throw new IllegalStateException("Transaction is not active");
+		}
+		synchronizations.add(synchronization);
+	}
+
+	@Override
+	public boolean enlistResource(XAResource resource) throws SystemException {
+		throw new SystemException("XA resources are not supported by local transactions");
+	}
+
+	@Override
+	public boolean delistResource(XAResource resource, int flag) {
+		return false;
+	}
+
+	private static class Enlisted {
+		private final Connection connection;
+		private final Connection handle;
+
+		public Enlisted(Connection connection, Connection handle) {
+			this.connection = connection;
+			this.handle = handle;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.InvalidTransactionException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.UserTransaction;
+
+/**
+ * Transaction manager which associates {@link LocalTransaction} with the current thread.
+ *
+ * <p>
+ * Nothing is logged to disk, so there is no recovery and no two-phase commit. Nested transactions
+ * are not supported, but the transaction can be {@link #suspend() suspended} to start a new one.
+ * </p>
+ */
+public class LocalTransactionManager implements TransactionManager, UserTransaction {
+	private final ThreadLocal<LocalTransaction> current = new ThreadLocal<>();
+	private final ThreadLocal<Integer> timeouts = new ThreadLocal<>();
+	private final int defaultTimeout;
+
+	/**
+	 * @param defaultTimeout timeout in seconds for the transactions with no timeout specified
+	 */
+	public LocalTransactionManager(int defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	/**
+	 * Returns the active transaction associated with the current thread or null.
+	 */
+	LocalTransaction getActiveTransaction() {
+		LocalTransaction transaction = current.get();
+		if (transaction == null || !transaction.isActive()) {
+			return null;
+		}
+		return transaction;
+	}
+
+	@Override
+	public void begin() throws NotSupportedException {
+		if (current.get() != null) {
+			throw new NotSupportedException("Nested transactions are not supported");
+		}
+		Integer timeout = timeouts.get();
+		current.set(new LocalTransaction(timeout != null ? timeout : defaultTimeout));
+	}
+
+	@Override
+	public void commit() throws RollbackException, HeuristicMixedException, SystemException {
+		LocalTransaction transaction = getTransactionOrFail();
+		try {
+			transaction.commit();
+		} finally {
+			current.remove();
+		}
+	}
+
+	@Override
+	public void rollback() throws SystemException {
+		LocalTransaction transaction = getTransactionOrFail();
+		try {
+			transaction.rollback();
+		} finally {
+			current.remove();
+		}
+	}
+
+	@Override
+	public void setRollbackOnly() {
+		getTransactionOrFail().setRollbackOnly();
+	}
+
+	@Override
+	public int getStatus() {
+		LocalTransaction transaction = current.get();
+		return transaction != null ? transaction.getStatus() : Status.STATUS_NO_TRANSACTION;
+	}
+
+	@Override
+	public Transaction getTransaction() {
+		return current.get();
+	}
+
+	@Override
+	public void setTransactionTimeout(int seconds) throws SystemException {
+		if (seconds < 0) {
+			throw new SystemException("Timeout cannot be negative");
+		}
+		if (seconds == 0) {
+			timeouts.remove();
+		} else {
+			timeouts.set(seconds);
+		}
+	}
+
+	@Override
+	public Transaction suspend() {
+		LocalTransaction transaction = current.get();
+		current.remove();
+		return transaction;
+	}
+
+	@Override
+	public void resume(Transaction transaction) throws InvalidTransactionException {
+		if (!(transaction instanceof LocalTransaction)) {
+			throw new InvalidTransactionException("Not a local transaction: " + transaction);
+		}
+		if (current.get() != null) {
+			throw new IllegalStateException("Thread is already associated with another transaction");
+		}
+		current.set((LocalTransaction) transaction);
+	}
+
+	private LocalTransaction getTransactionOrFail() {
+		LocalTransaction transaction = current.get();
+		if (transaction == null) {
+			throw new IllegalStateException("No transaction associated with the current thread");
+		}
+		return transaction;
+	}
+}
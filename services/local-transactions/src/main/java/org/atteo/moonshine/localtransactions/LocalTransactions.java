@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import javax.transaction.TransactionManager;
+import javax.transaction.UserTransaction;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.atteo.config.XmlDefaultValue;
+import org.atteo.moonshine.jta.JtaConnectionFactoryWrapper;
+import org.atteo.moonshine.jta.JtaService;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+
+/**
+ * Non-XA transaction manager which commits each data source with the local JDBC transaction.
+ *
+ * <p>
+ * Use it instead of the full JTA transaction manager, when the transactions span only one data source.
+ * There is no transaction log, so the commit costs just one database round-trip, but there is also no
+ * two-phase commit and no recovery. When more than one data source is used in the same transaction
+ * they are committed one after another.
+ * </p>
+ */
+@XmlRootElement(name = "local-transactions")
+public class LocalTransactions extends JtaService {
+	/**
+	 * The default timeout (in seconds) that is set for transactions when no timeout is specified.
+	 */
+	@XmlElement
+	@XmlDefaultValue("60")
+	private Integer transactionTimeout;
+
+	@Override
+	public Module configure() {
+		return new AbstractModule() {
+			@Override
+			protected void configure() {
+				configureCommon(binder());
+
+				LocalTransactionManager transactionManager = new LocalTransactionManager(transactionTimeout);
+				bind(LocalTransactionManager.class).toInstance(transactionManager);
+				bind(TransactionManager.class).toInstance(transactionManager);
+				bind(UserTransaction.class).toInstance(transactionManager);
+				bindDataSourceWrapper(binder(), LocalDataSourceWrapper.class);
+				bind(JtaConnectionFactoryWrapper.class).to(LocalConnectionFactoryWrapper.class).in(Singleton.class);
+			}
+		};
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.localtransactions;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.transaction.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalDataSourceTest {
+	private LocalTransactionManager transactionManager;
+	private LocalDataSource dataSource;
+
+	@Before
+	public void setUp() throws SQLException {
+		JdbcDataSource xaDataSource = new JdbcDataSource();
+		xaDataSource.setURL("jdbc:h2:mem:local;DB_CLOSE_DELAY=-1");
+		transactionManager = new LocalTransactionManager(60);
+		dataSource = new LocalDataSource("local", xaDataSource, transactionManager, 2, 0, "select 1");
+		execute("create table if not exists items (id int primary key)");
+		execute("delete from items");
+	}
+
+	@After
+	public void tearDown() {
+		dataSource.close();
+	}
+
+	@Test
+	public void shouldCommitTransaction() throws Exception {
+		// given
+		transactionManager.begin();
+
+		// when
+		try (Connection connection = dataSource.getConnection()) {
+			connection.createStatement().execute("insert into items values (1)");
+		}
+		try (Connection connection = dataSource.getConnection()) {
+			connection.createStatement().execute("insert into items values (2)");
+		}
+		transactionManager.commit();
+
+		// then
+		assertThat(count()).isEqualTo(2);
+		assertThat(transactionManager.getStatus()).isEqualTo(Status.STATUS_NO_TRANSACTION);
+	}
+
+	@Test
+	public void shouldRollbackTransaction() throws Exception {
+		// given
+		transactionManager.begin();
+
+		// when
+		try (Connection connection = dataSource.getConnection()) {
+			connection.createStatement().execute("insert into items values (1)");
+		}
+		transactionManager.rollback();
+
+		// then
+		assertThat(count()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldReturnSameConnectionInsideTransaction() throws Exception {
+		// given
+		transactionManager.begin();
+
+		// when
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+
+		// then
+		assertThat(second).isSameAs(first);
+		try {
+			first.commit();
+			fail("Expected exception");
+		} catch (SQLException e) {
+		}
+		transactionManager.rollback();
+	}
+
+	@Test
+	public void shouldReuseConnections() throws Exception {
+		// when
+		for (int i = 0; i < 10; i++) {
+			transactionManager.begin();
+			try (Connection connection = dataSource.getConnection()) {
+				connection.createStatement().execute("insert into items values (" + i + ")");
+			}
+			transactionManager.commit();
+		}
+
+		// then
+		assertThat(count()).isEqualTo(10);
+	}
+
+	@Test
+	public void shouldRunTestQueryWhenMaxLifeTimeIsSet() throws Exception {
+		// given
+		execute("create table if not exists validations (n int)");
+		execute("delete from validations");
+		execute("insert into validations values (0)");
+		JdbcDataSource xaDataSource = new JdbcDataSource();
+		xaDataSource.setURL("jdbc:h2:mem:local;DB_CLOSE_DELAY=-1");
+		LocalDataSource validated = new LocalDataSource("validated", xaDataSource, transactionManager, 2, 3600,
+				"update validations set n = n + 1");
+
+		// when
+		try {
+			validated.getConnection().close();
+			validated.getConnection().close();
+		} finally {
+			validated.close();
+		}
+
+		// then
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("select n from validations")) {
+			resultSet.next();
+			assertThat(resultSet.getInt(1)).isEqualTo(1);
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private int count() throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("select count(*) from items")) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+}
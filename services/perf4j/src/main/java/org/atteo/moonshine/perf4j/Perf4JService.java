@@ -18,13 +18,8 @@ package org.atteo.moonshine.perf4j;
 import javax.inject.Singleton;
 import javax.xml.bind.annotation.XmlRootElement;
 
-import org.aopalliance.intercept.MethodInterceptor;
-import org.aopalliance.intercept.MethodInvocation;
 import org.atteo.moonshine.TopLevelService;
-import org.perf4j.aop.AbstractJoinPoint;
-import org.perf4j.aop.AgnosticTimingAspect;
 import org.perf4j.aop.Profiled;
-import org.perf4j.slf4j.Slf4JStopWatch;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
@@ -39,37 +34,12 @@ import com.google.inject.matcher.Matchers;
 @Singleton
 @XmlRootElement(name = "perf4j")
 public class Perf4JService extends TopLevelService {
-	private final AgnosticTimingAspect helper = new AgnosticTimingAspect();
-
 	@Override
 	public Module configure() {
 		return new AbstractModule() {
 			@Override
 			protected void configure() {
-				bindInterceptor(Matchers.any(), Matchers.annotatedWith(Profiled.class), (MethodInterceptor) (final MethodInvocation invocation) -> {
-					Profiled annotation = invocation.getMethod().getAnnotation(Profiled.class);
-					return helper.runProfiledMethod(new AbstractJoinPoint() {
-						@Override
-						public Object proceed() throws Throwable {
-							return invocation.proceed();
-						}
-						
-						@Override
-						public Object getExecutingObject() {
-							return invocation.getThis();
-						}
-						
-						@Override
-						public Object[] getParameters() {
-							return invocation.getArguments();
-						}
-						
-						@Override
-						public String getMethodName() {
-							return invocation.getMethod().getName();
-						}
-					}, annotation, new Slf4JStopWatch());
-				});
+				bindInterceptor(Matchers.any(), Matchers.annotatedWith(Profiled.class), new ProfiledInterceptor());
 			}
 		};
 	}
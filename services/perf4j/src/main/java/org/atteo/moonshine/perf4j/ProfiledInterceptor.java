@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.atteo.moonshine.perf4j;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.perf4j.aop.AbstractJoinPoint;
+import org.perf4j.aop.AgnosticTimingAspect;
+import org.perf4j.aop.Profiled;
+import org.perf4j.slf4j.Slf4JStopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Times the methods annotated with {@link Profiled}.
+ *
+ * <p>
+ * The annotation, the logger, the level and the tag and message templates are resolved once for each method.
+ * When the logger is disabled for the {@link Profiled#level() level} the method is called directly without creating
+ * the stop watch. Only the templates which contain JEXL expressions are evaluated on each call.
+ * </p>
+ */
+class ProfiledInterceptor implements MethodInterceptor {
+	private final TemplateEvaluator evaluator = new TemplateEvaluator();
+	private final Map<Method, Plan> plans = new ConcurrentHashMap<>();
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Method method = invocation.getMethod();
+		Plan plan = plans.get(method);
+		if (plan == null) {
+			plan = new Plan(method);
+			plans.put(method, plan);
+		}
+		if (!plan.isLogging()) {
+			return invocation.proceed();
+		}
+
+		Slf4JStopWatch stopWatch = new Slf4JStopWatch(plan.logger, plan.level, plan.level);
+		stopWatch.setTimeThreshold(plan.profiled.timeThreshold());
+		stopWatch.setNormalAndSlowSuffixesEnabled(plan.profiled.normalAndSlowSuffixesEnabled());
+		Object result = null;
+		Throwable thrown = null;
+		try {
+			result = invocation.proceed();
+			return result;
+		} catch (Throwable e) {
+			thrown = e;
+			throw e;
+		} finally {
+			String tag = plan.tag;
+			String message = plan.message;
+			if (!plan.constantTag || !plan.constantMessage) {
+				AbstractJoinPoint joinPoint = new InvocationJoinPoint(invocation);
+				if (!plan.constantTag) {
+					tag = evaluator.getStopWatchTag(plan.profiled, joinPoint, result, thrown);
+				}
+				if (!plan.constantMessage) {
+					message = evaluator.getStopWatchMessage(plan.profiled, joinPoint, result, thrown);
+				}
+			}
+			if (plan.profiled.logFailuresSeparately()) {
+				tag = thrown == null ? tag + ".success" : tag + ".failure";
+			}
+			stopWatch.stop(tag, message);
+		}
+	}
+
+	private static class Plan {
+		private final Profiled profiled;
+		private final Logger logger;
+		private final int level;
+		private final boolean constantTag;
+		private final String tag;
+		private final boolean constantMessage;
+		private final String message;
+
+		public Plan(Method method) {
+			profiled = method.getAnnotation(Profiled.class);
+			logger = LoggerFactory.getLogger(profiled.logger());
+			level = Slf4JStopWatch.mapLevelName(profiled.level());
+
+			// the same rules as in AgnosticTimingAspect
+			if (Profiled.DEFAULT_TAG_NAME.equals(profiled.tag())) {
+				constantTag = true;
+				tag = method.getName();
+			} else {
+				constantTag = !isTemplate(profiled, profiled.tag());
+				tag = profiled.tag();
+			}
+			constantMessage = !isTemplate(profiled, profiled.message());
+			message = profiled.message().isEmpty() ? null : profiled.message();
+		}
+
+		private static boolean isTemplate(Profiled profiled, String value) {
+			return profiled.el() && value.contains("{");
+		}
+
+		public boolean isLogging() {
+			switch (level) {
+				case Slf4JStopWatch.TRACE_LEVEL:
+					return logger.isTraceEnabled();
+				case Slf4JStopWatch.DEBUG_LEVEL:
+					return logger.isDebugEnabled();
+				case Slf4JStopWatch.INFO_LEVEL:
+					return logger.isInfoEnabled();
+				case Slf4JStopWatch.WARN_LEVEL:
+					return logger.isWarnEnabled();
+				default:
+					return logger.isErrorEnabled();
+			}
+		}
+	}
+
+	/**
+	 * Exposes the evaluation of the JEXL templates.
+	 */
+	private static class TemplateEvaluator extends AgnosticTimingAspect {
+		@Override
+		protected String getStopWatchTag(Profiled profiled, AbstractJoinPoint joinPoint, Object returnValue,
+				Throwable exceptionThrown) {
+			return super.getStopWatchTag(profiled, joinPoint, returnValue, exceptionThrown);
+		}
+
+		@Override
+		protected String getStopWatchMessage(Profiled profiled, AbstractJoinPoint joinPoint, Object returnValue,
+				Throwable exceptionThrown) {
+			return super.getStopWatchMessage(profiled, joinPoint, returnValue, exceptionThrown);
+		}
+	}
+
+	private static class InvocationJoinPoint implements AbstractJoinPoint {
+		private final MethodInvocation invocation;
+
+		public InvocationJoinPoint(MethodInvocation invocation) {
+			this.invocation = invocation;
+		}
+
+		@Override
+		public Object proceed() throws Throwable {
+			return invocation.proceed();
+		}
+
+		@Override
+		public Object getExecutingObject() {
+			return invocation.getThis();
+		}
+
+		@Override
+		public Object[] getParameters() {
+			return invocation.getArguments();
+		}
+
+		@Override
+		public String getMethodName() {
+			return invocation.getMethod().getName();
+		}
+	}
+}
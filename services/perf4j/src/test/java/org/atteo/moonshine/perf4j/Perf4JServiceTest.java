@@ -24,6 +24,7 @@ import org.perf4j.StopWatch;
 import org.perf4j.aop.Profiled;
 import org.slf4j.LoggerFactory;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
@@ -39,6 +40,14 @@ public class Perf4JServiceTest extends MoonshineTest {
 		}
 	}
 
+	@Profiled(tag = "greeting_{$0}")
+	protected void templatedMethod(String name) {
+	}
+
+	@Profiled(logger = "org.atteo.moonshine.perf4j.debug", level = "DEBUG")
+	protected void debugMethod() {
+	}
+
 	@Test
 	public void shouldMessure() {
 		// given
@@ -71,4 +80,53 @@ public class Perf4JServiceTest extends MoonshineTest {
 			}
 		}));
 	}
+
+	@Test
+	public void shouldEvaluateTagTemplate() {
+		// given
+		Logger logger = (Logger) LoggerFactory.getLogger(StopWatch.DEFAULT_LOGGER_NAME);
+		Appender<ILoggingEvent> mockAppender = addMockAppender(logger);
+
+		// when
+		templatedMethod("john");
+
+		// then
+		Mockito.verify(mockAppender).doAppend(Mockito.argThat(new ArgumentMatcher<ILoggingEvent>() {
+			@Override
+			public boolean matches(Object argument) {
+				return ((ILoggingEvent) argument).getFormattedMessage().contains("tag[greeting_john]");
+			}
+		}));
+		logger.detachAppender(mockAppender);
+	}
+
+	@Test
+	public void shouldLogWithConfiguredLevel() {
+		// given
+		Logger logger = (Logger) LoggerFactory.getLogger("org.atteo.moonshine.perf4j.debug");
+		Appender<ILoggingEvent> mockAppender = addMockAppender(logger);
+		logger.setLevel(Level.INFO);
+
+		// when
+		debugMethod();
+		logger.setLevel(Level.DEBUG);
+		debugMethod();
+
+		// then
+		Mockito.verify(mockAppender).doAppend(Mockito.argThat(new ArgumentMatcher<ILoggingEvent>() {
+			@Override
+			public boolean matches(Object argument) {
+				return ((ILoggingEvent) argument).getLevel() == Level.DEBUG;
+			}
+		}));
+		logger.detachAppender(mockAppender);
+	}
+
+	private static Appender<ILoggingEvent> addMockAppender(Logger logger) {
+		@SuppressWarnings("unchecked")
+		Appender<ILoggingEvent> mockAppender = Mockito.mock(Appender.class);
+		Mockito.when(mockAppender.getName()).thenReturn("MOCK");
+		logger.addAppender(mockAppender);
+		return mockAppender;
+	}
 }
@@ -27,9 +27,29 @@ import java.lang.annotation.Target;
  *
  * <p>
  * You need to add {@link TransactionalService} to your configuration to support this annotation.
+ * The annotation on the method takes precedence over the annotation on the class.
  * </p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ ElementType.METHOD, ElementType.TYPE })
 public @interface Transactional {
+	/**
+	 * How to handle the current transaction.
+	 */
+	Propagation propagation() default Propagation.REQUIRED;
+
+	/**
+	 * Whether the new transaction should be read-only.
+	 *
+	 * <p>
+	 * The connections are marked {@link java.sql.Connection#setReadOnly(boolean) read-only}
+	 * and Hibernate does not flush the session. The mode of the joined transaction is not changed.
+	 * </p>
+	 */
+	boolean readOnly() default false;
+
+	/**
+	 * Timeout in seconds of the new transaction, 0 for the default timeout of the transaction manager.
+	 */
+	int timeout() default 0;
 }
@@ -17,12 +17,76 @@ package org.atteo.moonshine.jta;
  */
 
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+/**
+ * Executes the methods annotated with {@link Transactional} inside the transaction.
+ *
+ * <p>
+ * The transaction attributes are resolved once for each intercepted class and method.
+ * </p>
+ */
 public class TransactionalInterceptor implements MethodInterceptor {
+	private static final Plan DEFAULT_PLAN = new Plan(Propagation.REQUIRED, false, 0);
+
+	private final ClassValue<Map<Method, Plan>> plans = new ClassValue<Map<Method, Plan>>() {
+		@Override
+		protected Map<Method, Plan> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
 	@Override
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
-		return Transaction.require(invocation::proceed);
+		Method method = invocation.getMethod();
+		Map<Method, Plan> classPlans = plans.get(invocation.getThis().getClass());
+		Plan plan = classPlans.get(method);
+		if (plan == null) {
+			plan = createPlan(invocation.getThis().getClass(), method);
+			classPlans.put(method, plan);
+		}
+		return Transaction.execute(plan.propagation, plan.readOnly, plan.timeout, invocation::proceed);
+	}
+
+	private static Plan createPlan(Class<?> type, Method method) {
+		Transactional transactional = findAnnotation(type, method);
+		if (transactional == null) {
+			return DEFAULT_PLAN;
+		}
+		return new Plan(transactional.propagation(), transactional.readOnly(), transactional.timeout());
+	}
+
+	private static Transactional findAnnotation(Class<?> type, Method method) {
+		Transactional transactional = method.getAnnotation(Transactional.class);
+		if (transactional != null) {
+			return transactional;
+		}
+		for (Class<?> klass = type; klass != null; klass = klass.getSuperclass()) {
+			transactional = klass.getAnnotation(Transactional.class);
+			if (transactional != null) {
+				return transactional;
+			}
+		}
+		return method.getDeclaringClass().getAnnotation(Transactional.class);
+	}
+
+	/**
+	 * Transaction attributes of the intercepted method.
+	 */
+	private static class Plan {
+		private final Propagation propagation;
+		private final boolean readOnly;
+		private final int timeout;
+
+		public Plan(Propagation propagation, boolean readOnly, int timeout) {
+			this.propagation = propagation;
+			this.readOnly = readOnly;
+			this.timeout = timeout;
+		}
 	}
 }
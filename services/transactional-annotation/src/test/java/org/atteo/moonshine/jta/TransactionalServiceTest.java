@@ -19,9 +19,11 @@ package org.atteo.moonshine.jta;
 import javax.inject.Inject;
 import javax.transaction.Status;
 import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
 import javax.transaction.UserTransaction;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import org.atteo.moonshine.tests.MoonshineConfiguration;
 import org.atteo.moonshine.tests.MoonshineTest;
 import org.junit.Test;
@@ -31,6 +33,36 @@ public class TransactionalServiceTest extends MoonshineTest {
     @Inject
     private UserTransaction userTransaction;
 
+    @Inject
+    private TransactionManager transactionManager;
+
+    @Inject
+    private Attributes attributes;
+
+    public static class Attributes {
+        @Inject
+        private TransactionManager transactionManager;
+
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        public javax.transaction.Transaction requiresNew() throws SystemException {
+            return transactionManager.getTransaction();
+        }
+
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public int notSupported() throws SystemException {
+            return transactionManager.getStatus();
+        }
+
+        @Transactional(propagation = Propagation.MANDATORY)
+        public void mandatory() {
+        }
+
+        @Transactional(readOnly = true)
+        public boolean readOnly() {
+            return Transaction.isReadOnly();
+        }
+    }
+
     @Test
     public void shouldBeCalledOutsideTransaction() throws SystemException {
         assertThat(userTransaction.getStatus()).isEqualTo(Status.STATUS_NO_TRANSACTION);
@@ -55,4 +87,40 @@ public class TransactionalServiceTest extends MoonshineTest {
         assertThat(userTransaction.getStatus()).isEqualTo(Status.STATUS_NO_TRANSACTION);
     }
 
+    @Test
+    @Transactional
+    public void shouldSuspendTransactionWhenNewIsRequired() throws SystemException {
+        // given
+        javax.transaction.Transaction outer = transactionManager.getTransaction();
+
+        // when
+        javax.transaction.Transaction inner = attributes.requiresNew();
+
+        // then
+        assertThat(inner).isNotNull().isNotSameAs(outer);
+        assertThat(transactionManager.getTransaction()).isSameAs(outer);
+        assertThat(userTransaction.getStatus()).isEqualTo(Status.STATUS_ACTIVE);
+    }
+
+    @Test
+    @Transactional
+    public void shouldSuspendTransactionWhenNotSupported() throws SystemException {
+        assertThat(attributes.notSupported()).isEqualTo(Status.STATUS_NO_TRANSACTION);
+        assertThat(userTransaction.getStatus()).isEqualTo(Status.STATUS_ACTIVE);
+    }
+
+    @Test
+    public void shouldFailWithoutTransactionWhenMandatory() {
+        try {
+            attributes.mandatory();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void shouldExecuteInReadOnlyMode() {
+        assertThat(attributes.readOnly()).isTrue();
+        assertThat(Transaction.isReadOnly()).isFalse();
+    }
 }
@@ -16,6 +16,13 @@
 package org.atteo.moonshine.jta;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -25,16 +32,60 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.transaction.UserTransaction;
 
 /**
  * {@link Filter} which wraps the request handling inside JTA transaction.
+ *
+ * <p>
+ * The requests matching one of the skip patterns or using one of the skip methods are handled
+ * without transaction. The requests using one of the read-only methods are handled in
+ * {@link Transaction#isReadOnly() read-only} transaction. The patterns use the servlet mapping syntax:
+ * "/path/*" matches the path prefix, "*.extension" matches the extension, any other pattern matches exactly.
+ * </p>
  */
 @Singleton
 public class TransactionalFilter implements Filter {
 	@Inject
 	private UserTransaction userTransaction;
 
+	private final Set<String> skipPaths = new HashSet<>();
+	private final List<String> skipPrefixes = new ArrayList<>();
+	private final List<String> skipExtensions = new ArrayList<>();
+	private final Set<String> skipMethods = new HashSet<>();
+	private final Set<String> readOnlyMethods = new HashSet<>();
+
+	public TransactionalFilter() {
+		this(Collections.<String>emptyList(), Collections.<String>emptyList(), Collections.<String>emptyList());
+	}
+
+	/**
+	 * @param skipPatterns URL patterns of the requests handled without transaction
+	 * @param skipMethods HTTP methods of the requests handled without transaction
+	 * @param readOnlyMethods HTTP methods of the requests handled in read-only transaction
+	 */
+	public TransactionalFilter(Collection<String> skipPatterns, Collection<String> skipMethods,
+			Collection<String> readOnlyMethods) {
+		for (String pattern : skipPatterns) {
+			if (pattern.endsWith("/*")) {
+				skipPrefixes.add(pattern.substring(0, pattern.length() - 1));
+				// "/path/*" matches also "/path"
+				skipPaths.add(pattern.substring(0, pattern.length() - 2));
+			} else if (pattern.startsWith("*.")) {
+				skipExtensions.add(pattern.substring(1));
+			} else {
+				skipPaths.add(pattern);
+			}
+		}
+		for (String method : skipMethods) {
+			this.skipMethods.add(method.toUpperCase(Locale.ENGLISH));
+		}
+		for (String method : readOnlyMethods) {
+			this.readOnlyMethods.add(method.toUpperCase(Locale.ENGLISH));
+		}
+	}
+
 	@Override
 	public void init(FilterConfig filterConfig) throws ServletException {
 	}
@@ -42,9 +93,20 @@ public class TransactionalFilter implements Filter {
 	@Override
 	public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
 			throws IOException, ServletException {
+		boolean readOnly = false;
+		if (request instanceof HttpServletRequest) {
+			HttpServletRequest httpRequest = (HttpServletRequest) request;
+			String method = httpRequest.getMethod();
+			if (skipMethods.contains(method) || isSkipped(httpRequest)) {
+				chain.doFilter(request, response);
+				return;
+			}
+			readOnly = readOnlyMethods.contains(method);
+		}
 		try {
-			Transaction.require((Transaction.ThrowingRunnable<Exception>) () -> {
+			Transaction.execute(Propagation.REQUIRED, readOnly, 0, () -> {
 				chain.doFilter(request, response);
+				return null;
 			});
 		} catch (RuntimeException | ServletException | IOException e) {
 			throw e;
@@ -53,6 +115,27 @@ public class TransactionalFilter implements Filter {
 		}
 	}
 
+	private boolean isSkipped(HttpServletRequest request) {
+		if (skipPaths.isEmpty() && skipPrefixes.isEmpty() && skipExtensions.isEmpty()) {
+			return false;
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		if (skipPaths.contains(path)) {
+			return true;
+		}
+		for (String prefix : skipPrefixes) {
+			if (path.startsWith(prefix)) {
+				return true;
+			}
+		}
+		for (String extension : skipExtensions) {
+			if (path.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void destroy() {
 	}
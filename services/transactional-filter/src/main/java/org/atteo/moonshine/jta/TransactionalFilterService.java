@@ -16,7 +16,11 @@
 
 package org.atteo.moonshine.jta;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlIDREF;
 import javax.xml.bind.annotation.XmlRootElement;
 
@@ -47,12 +51,35 @@ public class TransactionalFilterService extends TopLevelService {
 	@XmlDefaultValue("/*")
 	private String filterPattern;
 
+	/**
+	 * URL patterns of the requests which should be handled without transaction, for instance "/static/*"
+	 * or "*.css".
+	 */
+	@XmlElementWrapper(name = "skipPatterns")
+	@XmlElement(name = "pattern")
+	private List<String> skipPatterns = new ArrayList<>();
+
+	/**
+	 * HTTP methods of the requests which should be handled without transaction, for instance OPTIONS.
+	 */
+	@XmlElementWrapper(name = "skipMethods")
+	@XmlElement(name = "method")
+	private List<String> skipMethods = new ArrayList<>();
+
+	/**
+	 * HTTP methods of the requests which should be handled in read-only transaction, for instance GET.
+	 */
+	@XmlElementWrapper(name = "readOnlyMethods")
+	@XmlElement(name = "method")
+	private List<String> readOnlyMethods = new ArrayList<>();
+
 	@Override
 	public Module configure() {
 		return new PrivateModule() {
 			@Override
 			protected void configure() {
-				bind(TransactionalFilter.class);
+				bind(TransactionalFilter.class).toInstance(new TransactionalFilter(skipPatterns, skipMethods,
+						readOnlyMethods));
 				servletContainer.addFilter(getProvider(TransactionalFilter.class), filterPattern);
 			}
 		};
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.webjars;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * In-memory cache of the resources served by {@link WebJarsServlet}.
+ *
+ * <p>
+ * Each resource is read from the classpath once and kept together with its compressed variants.
+ * Precompressed variants (with .gz or .br extension) are used when present next to the resource,
+ * otherwise compressible content is gzipped when loaded. The total size of the cached content is bounded,
+ * least recently used resources are evicted first.
+ * </p>
+ * <p>
+ * When caching is disabled the resources are read on each request, so only the precompressed variants are used,
+ * compressing the content again on each request would cost more than it saves.
+ * </p>
+ */
+class ResourceCache {
+	private static final int MIN_COMPRESSIBLE_SIZE = 256;
+	private static final int BUFSIZE = 8192;
+
+	private final String destination;
+	private final boolean offHeap;
+	private final Cache<String, Resource> cache;
+
+	/**
+	 * Creates cache.
+	 * @param destination classpath location of the resources
+	 * @param maximumSize maximum total size of cached content in bytes, zero disables caching
+	 * @param offHeap whether to store the content in direct buffers
+	 */
+	public ResourceCache(String destination, long maximumSize, boolean offHeap) {
+		this.destination = destination;
+		this.offHeap = offHeap;
+		if (maximumSize > 0) {
+			cache = CacheBuilder.newBuilder()
+					.maximumWeight(maximumSize)
+					.weigher((String path, Resource resource) -> resource.getSize())
+					.build();
+		} else {
+			cache = null;
+		}
+	}
+
+	/**
+	 * Returns the resource.
+	 * @param path path of the resource relative to the destination
+	 * @param mimeType MIME type of the resource, used to decide whether it is worth compressing
+	 * @return found resource or null, if it does not exist
+	 */
+	public Resource get(String path, String mimeType) throws IOException {
+		if (cache != null) {
+			Resource resource = cache.getIfPresent(path);
+			if (resource != null) {
+				return resource;
+			}
+		}
+		Resource resource = load(path, mimeType);
+		if (resource != null && cache != null) {
+			cache.put(path, resource);
+		}
+		return resource;
+	}
+
+	private Resource load(String path, String mimeType) throws IOException {
+		URL url = ResourceCache.class.getResource(destination + path);
+		if (url == null) {
+			return null;
+		}
+		URLConnection connection = url.openConnection();
+		long lastModified = connection.getLastModified();
+		if (lastModified <= 0) {
+			lastModified = System.currentTimeMillis();
+		}
+		byte[] content;
+		try (InputStream stream = connection.getInputStream()) {
+			content = ByteStreams.toByteArray(stream);
+		}
+
+		byte[] gzip = read(path + ".gz");
+		if (gzip == null && cache != null && isCompressible(mimeType) && content.length >= MIN_COMPRESSIBLE_SIZE) {
+			gzip = gzip(content);
+			if (gzip.length >= content.length) {
+				gzip = null;
+			}
+		}
+		byte[] brotli = read(path + ".br");
+
+		String hash = Hashing.sha1().hashBytes(content).toString();
+		// HTTP dates have one second precision
+		return new Resource(hash, lastModified / 1000 * 1000, store(content), store(gzip), store(brotli));
+	}
+
+	private byte[] read(String path) throws IOException {
+		try (InputStream stream = ResourceCache.class.getResourceAsStream(destination + path)) {
+			if (stream == null) {
+				return null;
+			}
+			return ByteStreams.toByteArray(stream);
+		}
+	}
+
+	private ByteBuffer store(byte[] content) {
+		if (content == null) {
+			return null;
+		}
+		// there is no point in copying the content outside of the heap, if it is not cached
+		if (!offHeap || cache == null) {
+			return ByteBuffer.wrap(content);
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+		buffer.put(content);
+		buffer.flip();
+		return buffer;
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 2);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+			gzip.write(content);
+		}
+		return output.toByteArray();
+	}
+
+	private static boolean isCompressible(String mimeType) {
+		return mimeType.startsWith("text/") || mimeType.endsWith("javascript") || mimeType.endsWith("json")
+				|| mimeType.endsWith("xml") || mimeType.equals("image/svg+xml")
+				|| mimeType.equals("application/vnd.ms-fontobject") || mimeType.equals("application/x-font-ttf");
+	}
+
+	/**
+	 * Cached resource with its variants.
+	 */
+	static class Resource {
+		private final String hash;
+		private final long lastModified;
+		private final ByteBuffer content;
+		private final ByteBuffer gzip;
+		private final ByteBuffer brotli;
+
+		public Resource(String hash, long lastModified, ByteBuffer content, ByteBuffer gzip, ByteBuffer brotli) {
+			this.hash = hash;
+			this.lastModified = lastModified;
+			this.content = content;
+			this.gzip = gzip;
+			this.brotli = brotli;
+		}
+
+		/**
+		 * Returns the hash of the uncompressed content.
+		 */
+		public String getHash() {
+			return hash;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public ByteBuffer getContent() {
+			return content;
+		}
+
+		/**
+		 * Returns gzipped content or null, if not available.
+		 */
+		public ByteBuffer getGzip() {
+			return gzip;
+		}
+
+		/**
+		 * Returns brotli compressed content or null, if not available.
+		 */
+		public ByteBuffer getBrotli() {
+			return brotli;
+		}
+
+		private int getSize() {
+			int size = content.capacity();
+			if (gzip != null) {
+				size += gzip.capacity();
+			}
+			if (brotli != null) {
+				size += brotli.capacity();
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Writes part of the buffer without modifying its position.
+	 */
+	public static void write(ByteBuffer buffer, int offset, int length, OutputStream output) throws IOException {
+		if (buffer.hasArray()) {
+			output.write(buffer.array(), buffer.arrayOffset() + offset, length);
+			return;
+		}
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset);
+		byte[] chunk = new byte[Math.min(BUFSIZE, length)];
+		while (length > 0) {
+			int count = Math.min(chunk.length, length);
+			source.get(chunk, 0, count);
+			output.write(chunk, 0, count);
+			length -= count;
+		}
+	}
+}
@@ -37,12 +37,39 @@ public class WebJarsService extends TopLevelService {
 	@XmlElement
 	private String destination = "/META-INF/resources/webjars";
 
+	/**
+	 * Maximum total size in bytes of the resources kept in memory, zero disables caching.
+	 *
+	 * <p>
+	 * Without caching only the precompressed variants of the resources are served compressed.
+	 * </p>
+	 */
+	@XmlElement
+	private Long cacheSize = WebJarsServlet.DEFAULT_CACHE_SIZE;
+
+	/**
+	 * Keep cached resources outside of the Java heap.
+	 */
+	@XmlElement
+	private Boolean offHeap = false;
+
+	/**
+	 * Value of Cache-Control header sent with the resources.
+	 *
+	 * <p>
+	 * WebJars contain version in their path, so by default the resources can be cached for a long time.
+	 * </p>
+	 */
+	@XmlElement
+	private String cacheControl = WebJarsServlet.DEFAULT_CACHE_CONTROL;
+
 	@Override
 	public Module configure() {
 		return new PrivateModule() {
 			@Override
 			protected void configure() {
-				bind(WebJarsServlet.class).toInstance(new WebJarsServlet(destination));
+				bind(WebJarsServlet.class).toInstance(new WebJarsServlet(destination, cacheSize, offHeap,
+						cacheControl));
 
 				servletContainer.addServlet(getProvider(WebJarsServlet.class), prefix + "/*");
 				
@@ -16,22 +16,46 @@
 
 package org.atteo.moonshine.webjars;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import javax.servlet.ServletException;
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Serves static resources from the classpath.
+ *
+ * <p>
+ * Resources are kept in memory by {@link ResourceCache}. Responses carry strong ETag, Last-Modified
+ * and Cache-Control headers, conditional requests are answered with 304 Not Modified, single byte range
+ * requests are supported and compressed variant of the resource is selected based on Accept-Encoding.
+ * </p>
+ */
 public class WebJarsServlet extends HttpServlet {
-	private static final int BUFSIZE = 4096;
-	private final String destination;
+	public static final long DEFAULT_CACHE_SIZE = 32 * 1024 * 1024;
+	public static final String DEFAULT_CACHE_CONTROL = "public, max-age=31536000";
+
+	private static final int[] UNSATISFIABLE = new int[0];
+
+	private final ResourceCache cache;
+	private final String cacheControl;
 
 	public WebJarsServlet(String destination) {
-		this.destination = destination;
+		this(destination, DEFAULT_CACHE_SIZE, false, DEFAULT_CACHE_CONTROL);
+	}
+
+	/**
+	 * Creates servlet.
+	 * @param destination classpath location of the resources
+	 * @param cacheSize maximum total size of cached resources in bytes, zero disables caching
+	 * @param offHeap whether to keep cached resources outside of the heap
+	 * @param cacheControl value of Cache-Control header, null or empty to skip it
+	 */
+	public WebJarsServlet(String destination, long cacheSize, boolean offHeap, String cacheControl) {
+		this.cache = new ResourceCache(destination, cacheSize, offHeap);
+		this.cacheControl = cacheControl;
 	}
 
 	@Override
@@ -47,21 +71,177 @@ public class WebJarsServlet extends HttpServlet {
 		if (mimetype == null) {
 			mimetype = "application/octet-stream";
 		}
+
+		ResourceCache.Resource resource = cache.get(path, mimetype);
+		if (resource == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		String rangeHeader = request.getHeader("Range");
+		ByteBuffer content = resource.getContent();
+		String encoding = null;
+		if (rangeHeader == null) {
+			String acceptEncoding = request.getHeader("Accept-Encoding");
+			if (resource.getBrotli() != null && accepts(acceptEncoding, "br")) {
+				content = resource.getBrotli();
+				encoding = "br";
+			} else if (resource.getGzip() != null && accepts(acceptEncoding, "gzip")) {
+				content = resource.getGzip();
+				encoding = "gzip";
+			}
+		}
+		// each representation needs distinct strong entity tag
+		String etag = "\"" + resource.getHash() + (encoding == null ? "" : "-" + encoding) + "\"";
+
 		response.setContentType(mimetype);
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", resource.getLastModified());
+		response.setHeader("Accept-Ranges", "bytes");
+		if (cacheControl != null && !cacheControl.isEmpty()) {
+			response.setHeader("Cache-Control", cacheControl);
+		}
+		if (resource.getGzip() != null || resource.getBrotli() != null) {
+			response.setHeader("Vary", "Accept-Encoding");
+		}
+
+		if (isNotModified(request, resource, etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
 
-		try (InputStream stream = WebJarsServlet.class.getResourceAsStream(destination + path);
-				DataInputStream dataStream = new DataInputStream(stream);
-				ServletOutputStream out = response.getOutputStream()) {
-			if (stream == null) {
-				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+		int length = content.remaining();
+		if (rangeHeader != null && isIfRangeSatisfied(request, etag)) {
+			int[] range = parseRange(rangeHeader, length);
+			if (range == UNSATISFIABLE) {
+				response.setHeader("Content-Range", "bytes */" + length);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (range != null) {
+				int rangeLength = range[1] - range[0] + 1;
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+				response.setContentLength(rangeLength);
+				ResourceCache.write(content, range[0], rangeLength, response.getOutputStream());
 				return;
 			}
+		}
 
-			int length;
-			byte[] byteBuffer = new byte[BUFSIZE];
-			while ((length = dataStream.read(byteBuffer)) != -1) {
-				out.write(byteBuffer, 0, length);
+		if (encoding != null) {
+			response.setHeader("Content-Encoding", encoding);
+		}
+		response.setContentLength(length);
+		ResourceCache.write(content, 0, length, response.getOutputStream());
+	}
+
+	private static boolean isNotModified(HttpServletRequest request, ResourceCache.Resource resource,
+			String etag) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			return matches(ifNoneMatch, etag);
+		}
+		long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+		return ifModifiedSince != -1 && resource.getLastModified() <= ifModifiedSince;
+	}
+
+	private static boolean isIfRangeSatisfied(HttpServletRequest request, String etag) {
+		String ifRange = request.getHeader("If-Range");
+		// dates are weak validators, so only entity tags are honored
+		return ifRange == null || ifRange.trim().equals(etag);
+	}
+
+	private static boolean matches(String header, String etag) {
+		for (String candidate : header.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals("*") || candidate.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long getDateHeader(HttpServletRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Checks whether given content coding is acceptable.
+	 */
+	private static boolean accepts(String acceptEncoding, String coding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String element : acceptEncoding.split(",")) {
+			String[] parts = element.split(";");
+			if (!parts[0].trim().equalsIgnoreCase(coding)) {
+				continue;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						return Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Parses single byte range.
+	 * @return first and last byte position, {@link #UNSATISFIABLE} or null, if the header should be ignored
+	 */
+	private static int[] parseRange(String header, int length) {
+		header = header.trim();
+		if (!header.startsWith("bytes=") || header.indexOf(',') != -1) {
+			return null;
+		}
+		String range = header.substring("bytes=".length()).trim();
+		int dash = range.indexOf('-');
+		if (dash == -1) {
+			return null;
+		}
+		try {
+			String first = range.substring(0, dash).trim();
+			String last = range.substring(dash + 1).trim();
+			long start;
+			long end;
+			if (first.isEmpty()) {
+				if (last.isEmpty()) {
+					return null;
+				}
+				long suffix = Long.parseLong(last);
+				if (suffix == 0) {
+					return UNSATISFIABLE;
+				}
+				start = Math.max(0, length - suffix);
+				end = length - 1;
+			} else {
+				start = Long.parseLong(first);
+				end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+				if (end < start) {
+					return null;
+				}
+				end = Math.min(end, length - 1);
+			}
+			if (start >= length) {
+				return UNSATISFIABLE;
 			}
+			return new int[] { (int) start, (int) end };
+		} catch (NumberFormatException e) {
+			return null;
 		}
 	}
 }
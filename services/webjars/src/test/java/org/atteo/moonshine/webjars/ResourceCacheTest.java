@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.webjars;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class ResourceCacheTest {
+	private static final String DESTINATION = "/META-INF/resources/webjars";
+	private static final String PATH = "/bootstrap/3.1.0/css/bootstrap.min.css";
+
+	@Test
+	public void shouldCompressCachedResource() throws IOException {
+		// given
+		ResourceCache cache = new ResourceCache(DESTINATION, 10 * 1024 * 1024, false);
+
+		// when
+		ResourceCache.Resource resource = cache.get(PATH, "text/css");
+
+		// then
+		assertThat(resource.getGzip()).isNotNull();
+		assertThat(cache.get(PATH, "text/css")).isSameAs(resource);
+	}
+
+	@Test
+	public void shouldNotCompressWhenCachingIsDisabled() throws IOException {
+		// given
+		ResourceCache cache = new ResourceCache(DESTINATION, 0, true);
+
+		// when
+		ResourceCache.Resource resource = cache.get(PATH, "text/css");
+
+		// then
+		assertThat(resource.getGzip()).isNull();
+		assertThat(resource.getContent().isDirect()).isFalse();
+	}
+}
@@ -17,32 +17,41 @@
 package org.atteo.moonshine.webjars.WebJarsServiceTest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 import javax.inject.Inject;
 
 import org.atteo.moonshine.tests.MoonshineConfiguration;
 import org.atteo.moonshine.tests.MoonshineTest;
 import org.atteo.moonshine.webserver.WebServerAddress;
+import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.Test;
 
 import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
 
 @MoonshineConfiguration(autoConfiguration = true)
 public class WebJarsServiceTest extends MoonshineTest {
 	@Inject
 	private WebServerAddress address;
 
-	@Test
-	public void shouldServetWebJar() throws IOException {
-		// given
+	private URL getUrl() throws MalformedURLException {
 		String host = address.getHost();
 		if (Strings.isNullOrEmpty(host)) {
 			host = "127.0.0.1";
 		}
-		URL url = new URL("http", host, address.getPort(),
-				"/webjars/bootstrap/3.1.0/css/bootstrap.min.css");
+		return new URL("http", host, address.getPort(), "/webjars/bootstrap/3.1.0/css/bootstrap.min.css");
+	}
+
+	@Test
+	public void shouldServetWebJar() throws IOException {
+		// given
+		URL url = getUrl();
 
 		// when
 		Object content = url.openConnection().getContent();
@@ -50,4 +59,55 @@ public class WebJarsServiceTest extends MoonshineTest {
 		// then
 		System.out.println(content);
 	}
+
+	@Test
+	public void shouldReturnNotModifiedForMatchingETag() throws IOException {
+		// given
+		HttpURLConnection connection = (HttpURLConnection) getUrl().openConnection();
+		String etag = connection.getHeaderField("ETag");
+		connection.disconnect();
+
+		// when
+		connection = (HttpURLConnection) getUrl().openConnection();
+		connection.setRequestProperty("If-None-Match", etag);
+
+		// then
+		assertThat(etag).isNotNull();
+		assertThat(connection.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_NOT_MODIFIED);
+	}
+
+	@Test
+	public void shouldServeGzippedContent() throws IOException {
+		// given
+		HttpURLConnection connection = (HttpURLConnection) getUrl().openConnection();
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+
+		// when
+		byte[] content;
+		try (InputStream stream = new GZIPInputStream(connection.getInputStream())) {
+			content = ByteStreams.toByteArray(stream);
+		}
+
+		// then
+		assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+		assertThat(new String(content, StandardCharsets.UTF_8)).startsWith("/*!");
+	}
+
+	@Test
+	public void shouldServeRange() throws IOException {
+		// given
+		HttpURLConnection connection = (HttpURLConnection) getUrl().openConnection();
+		connection.setRequestProperty("Range", "bytes=0-2");
+
+		// when
+		byte[] content;
+		try (InputStream stream = connection.getInputStream()) {
+			content = ByteStreams.toByteArray(stream);
+		}
+
+		// then
+		assertThat(connection.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_PARTIAL);
+		assertThat(connection.getHeaderField("Content-Range")).startsWith("bytes 0-2/");
+		assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo("/*!");
+	}
 }
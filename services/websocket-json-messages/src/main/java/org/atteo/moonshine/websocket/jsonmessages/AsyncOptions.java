@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.atteo.config.AbstractConfigurable;
+
+/**
+ * Options for asynchronous message handling.
+ */
+@XmlRootElement(name = "async")
+public class AsyncOptions extends AbstractConfigurable {
+	/**
+	 * Number of threads executing message handlers.
+	 */
+	@XmlElement
+	private Integer threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Maximum number of messages per session waiting to be handled and, separately,
+	 * the maximum number of replies per session waiting to be sent.
+	 *
+	 * <p>
+	 * When too many received messages are waiting, reading from the session blocks.
+	 * </p>
+	 */
+	@XmlElement
+	private Integer queueSize = 64;
+
+	/**
+	 * Maximum number of replies sent together in one frame.
+	 *
+	 * <p>
+	 * When more than one reply is waiting they are sent as a JSON array.
+	 * </p>
+	 */
+	@XmlElement
+	private Integer batchSize = 1;
+
+	/**
+	 * Time in milliseconds in which sending a single frame must complete.
+	 *
+	 * <p>
+	 * When the time passes, the client is considered too slow and the session is closed.
+	 * The session is also closed, without waiting, when its outbound queue is full.
+	 * </p>
+	 */
+	@XmlElement
+	private Integer sendTimeout = 10000;
+
+	public Integer getThreads() {
+		return threads;
+	}
+
+	public Integer getQueueSize() {
+		return queueSize;
+	}
+
+	public Integer getBatchSize() {
+		return batchSize;
+	}
+
+	public Integer getSendTimeout() {
+		return sendTimeout;
+	}
+}
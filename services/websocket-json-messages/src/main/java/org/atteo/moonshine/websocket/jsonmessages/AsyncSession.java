@@ -0,0 +1,315 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles messages of a single session asynchronously.
+ *
+ * <p>
+ * Received messages are handled one at a time, in the order they were received, on the provided executor,
+ * so the thread reading from the connection is not blocked by slow handlers and sessions are not
+ * blocked by each other. When too many messages are waiting to be handled, reading from this session blocks.
+ * </p>
+ * <p>
+ * Replies are put into the bounded outbound queue and sent using {@link Session#getAsyncRemote()} with at most
+ * one send in progress. Queuing never blocks, so slow clients cannot stall the threads shared by all sessions.
+ * When the outbound queue is full or a send does not complete within the send timeout, the client is considered
+ * too slow and the session is closed. Text replies waiting in the queue are sent together as a single JSON array,
+ * binary replies are always sent one per frame.
+ * </p>
+ */
+class AsyncSession {
+	private static final String PROPERTY_NAME = AsyncSession.class.getName();
+
+	private final Logger logger = LoggerFactory.getLogger(AsyncSession.class);
+	private final Session session;
+	private final HandlerDispatcher dispatcher;
+	private final MessageCodec codec;
+	private final Executor executor;
+	private final int queueSize;
+	private final int batchSize;
+	private final Semaphore inboundPermits;
+	private final Queue<Object> inbound = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean handling = new AtomicBoolean();
+	private final BlockingQueue<Object> outbound;
+	private final AtomicBoolean sending = new AtomicBoolean();
+	private final ConcurrentMap<Object, Object> coalesced = new ConcurrentHashMap<>();
+	private volatile boolean closed = false;
+
+	public AsyncSession(Session session, HandlerDispatcher dispatcher, AsyncOptions options, Executor executor) {
+		this.session = session;
+		this.dispatcher = dispatcher;
+		this.codec = dispatcher.getCodec(session);
+		this.executor = executor;
+		this.queueSize = options.getQueueSize();
+		this.batchSize = options.getBatchSize();
+		this.inboundPermits = new Semaphore(queueSize);
+		this.outbound = new ArrayBlockingQueue<>(queueSize);
+		session.getAsyncRemote().setSendTimeout(options.getSendTimeout());
+	}
+
+	/**
+	 * Attaches this object to its session, so the senders can find it.
+	 */
+	public void attach() {
+		session.getUserProperties().put(PROPERTY_NAME, this);
+	}
+
+	/**
+	 * Returns the object attached to given session.
+	 * @return attached object or null, if the session is handled synchronously
+	 */
+	public static AsyncSession get(Session session) {
+		return (AsyncSession) session.getUserProperties().get(PROPERTY_NAME);
+	}
+
+	/**
+	 * Queues received text frame for handling.
+	 */
+	public void receive(String frame) {
+		receiveFrame(frame);
+	}
+
+	/**
+	 * Queues received binary frame for handling.
+	 * <p>
+	 * The frame is copied, so the caller can reuse the buffer.
+	 * </p>
+	 */
+	public void receive(ByteBuffer frame) {
+		byte[] bytes = new byte[frame.remaining()];
+		frame.get(bytes);
+		receiveFrame(bytes);
+	}
+
+	private void receiveFrame(Object frame) {
+		try {
+			inboundPermits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		boolean queued = false;
+		try {
+			if (closed) {
+				return;
+			}
+			inbound.add(frame);
+			queued = true;
+		} finally {
+			if (!queued) {
+				inboundPermits.release();
+			}
+		}
+		scheduleHandling();
+	}
+
+	private void scheduleHandling() {
+		if (closed || inbound.isEmpty() || !handling.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(this::handle);
+		} catch (RejectedExecutionException e) {
+			handling.set(false);
+			logger.warn("Cannot handle message, executor was shut down");
+		}
+	}
+
+	private void handle() {
+		try {
+			Object frame = inbound.poll();
+			if (frame != null) {
+				inboundPermits.release();
+				List<JsonMessage> requests;
+				if (frame instanceof String) {
+					requests = dispatcher.getCodec(MessageFormat.JSON).decode((String) frame);
+				} else {
+					requests = dispatcher.getCodec(MessageFormat.SMILE).decode((byte[]) frame);
+				}
+				for (JsonMessage reply : dispatcher.dispatch(requests)) {
+					send(reply);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Cannot handle message", e);
+		} finally {
+			handling.set(false);
+		}
+		scheduleHandling();
+	}
+
+	/**
+	 * Queues given message for sending.
+	 *
+	 * <p>
+	 * Closes the session when the outbound queue is full.
+	 * </p>
+	 */
+	public void send(JsonMessage message) throws IOException {
+		if (closed) {
+			return;
+		}
+		sendFrame(codec.encodeToFrame(message));
+	}
+
+	/**
+	 * Queues already encoded frame for sending.
+	 * @param frame String or {@link ByteBuffer} with the encoded message
+	 * @param key identifies the frames which can replace each other when coalescing
+	 * @param policy what to do when the outbound queue is full
+	 */
+	public void send(Object frame, Object key, SlowConsumerPolicy policy) {
+		if (closed) {
+			return;
+		}
+		switch (policy) {
+			case CLOSE:
+				sendFrame(frame);
+				return;
+			case DROP:
+				if (!outbound.offer(frame)) {
+					logger.debug("Outbound queue is full, dropping message for session {}", session.getId());
+				}
+				break;
+			case COALESCE:
+				// only the first frame for given key is queued, the following ones replace it until it is sent
+				if (coalesced.put(key, frame) == null && !outbound.offer(new CoalescedFrame(key))) {
+					coalesced.remove(key);
+					logger.debug("Outbound queue is full, dropping message for session {}", session.getId());
+				}
+				break;
+		}
+		flush();
+	}
+
+	private void sendFrame(Object frame) {
+		if (closed) {
+			return;
+		}
+		if (!outbound.offer(frame)) {
+			logger.warn("Outbound queue is full, closing session {}", session.getId());
+			closeSession(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Client too slow"));
+			return;
+		}
+		flush();
+	}
+
+	private void flush() {
+		if (closed || outbound.isEmpty() || !sending.compareAndSet(false, true)) {
+			return;
+		}
+		Object first = outbound.poll();
+		if (first instanceof CoalescedFrame) {
+			first = coalesced.remove(((CoalescedFrame) first).key);
+		}
+		if (first == null) {
+			sending.set(false);
+			flush();
+			return;
+		}
+		try {
+			if (first instanceof ByteBuffer) {
+				session.getAsyncRemote().sendBinary((ByteBuffer) first, this::sent);
+			} else {
+				session.getAsyncRemote().sendText(batch((String) first), this::sent);
+			}
+		} catch (RuntimeException e) {
+			sending.set(false);
+			throw e;
+		}
+	}
+
+	/**
+	 * Joins given text frame with the text frames waiting in the queue into a JSON array.
+	 */
+	private String batch(String first) {
+		if (batchSize == 1 || !(outbound.peek() instanceof String)) {
+			return first;
+		}
+		List<String> batch = new ArrayList<>(batchSize);
+		batch.add(first);
+		while (batch.size() < batchSize && outbound.peek() instanceof String) {
+			batch.add((String) outbound.poll());
+		}
+		return "[" + String.join(",", batch) + "]";
+	}
+
+	private void sent(SendResult result) {
+		sending.set(false);
+		if (!result.isOK()) {
+			logger.warn("Cannot send message, closing session " + session.getId(), result.getException());
+			closeSession(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Client too slow"));
+			return;
+		}
+		flush();
+	}
+
+	private void closeSession(CloseReason reason) {
+		close();
+		try {
+			session.close(reason);
+		} catch (IOException e) {
+			logger.warn("Cannot close session", e);
+		}
+	}
+
+	/**
+	 * Discards any pending messages.
+	 */
+	public void close() {
+		closed = true;
+		inbound.clear();
+		outbound.clear();
+		coalesced.clear();
+		// wake up the reading thread, if it is waiting
+		inboundPermits.release(queueSize);
+	}
+
+	/**
+	 * Placeholder for the most recent frame with given key.
+	 */
+	private static class CoalescedFrame {
+		private final Object key;
+
+		public CoalescedFrame(Object key) {
+			this.key = key;
+		}
+	}
+}
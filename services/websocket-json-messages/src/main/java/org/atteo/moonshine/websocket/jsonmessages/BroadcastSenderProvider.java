@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import javax.websocket.Session;
+
+/**
+ * Returns sender for a given session or for a group of sessions.
+ */
+public interface BroadcastSenderProvider<T> extends SenderProvider<T> {
+	/**
+	 * Returns sender which sends messages to all given sessions.
+	 *
+	 * <p>
+	 * Each message is encoded only once for every {@link MessageFormat format} used by the sessions
+	 * and the encoded frame is shared between them. Sending to one session does not wait for the other ones,
+	 * unless they are handled synchronously.
+	 * </p>
+	 * @param sessions sessions to send the messages to, closed sessions are skipped
+	 * @param policy what to do when the session cannot keep up
+	 */
+	T broadcast(Iterable<Session> sessions, SlowConsumerPolicy policy);
+}
@@ -17,25 +17,50 @@
 package org.atteo.moonshine.websocket.jsonmessages;
 
 import java.io.IOException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Provider;
 import javax.websocket.OnMessage;
 import javax.websocket.Session;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import static com.google.common.base.Preconditions.checkState;
 
 public class HandlerDispatcher {
 	private final List<OnMessageMethodMetadata> onMessageMethods = new ArrayList<>();
-	private final ObjectMapper encoderObjectMapper = new ObjectMapper();
-	private final ObjectMapper decoderObjectMapper = new ObjectMapper();
+	private final Map<MessageFormat, MessageCodec> codecs = new EnumMap<>(MessageFormat.class);
+	private final ConcurrentMap<Class<?>, OnMessageMethodMetadata> onMessageMethodsByType
+			= new ConcurrentHashMap<>();
+
+	public HandlerDispatcher() {
+		for (MessageFormat format : MessageFormat.values()) {
+			codecs.put(format, new MessageCodec(format));
+		}
+	}
+
+	/**
+	 * Returns codec for given format.
+	 */
+	public MessageCodec getCodec(MessageFormat format) {
+		return codecs.get(format);
+	}
+
+	/**
+	 * Returns codec negotiated for given session.
+	 */
+	public MessageCodec getCodec(Session session) {
+		return getCodec(MessageFormat.forSubprotocol(session.getNegotiatedSubprotocol()));
+	}
 
 	public <T> void addHandler(Class<T> klass, Provider<? extends T> provider) {
 		for (Method method : klass.getMethods()) {
@@ -49,15 +74,19 @@ public class HandlerDispatcher {
 		this.addHandler((Class<T>)handler.getClass(), () -> handler);
 	}
 
-	public <T> SenderProvider<T> addSender(Class<T> klass) {
+	public <T> BroadcastSenderProvider<T> addSender(final Class<T> klass) {
 		checkState(klass.isInterface(), "Provided Class object must represent an interface");
 
 		for (Method method : klass.getMethods()) {
 			registerSenderMethod(method);
 		}
-		@SuppressWarnings("unchecked")
-		final Class<T> proxyClass = (Class<T>) Proxy.getProxyClass(Thread.currentThread().getContextClassLoader(),
-				klass);
+		Class<?> proxyClass = Proxy.getProxyClass(Thread.currentThread().getContextClassLoader(), klass);
+		final Constructor<?> proxyConstructor;
+		try {
+			proxyConstructor = proxyClass.getConstructor(InvocationHandler.class);
+		} catch (NoSuchMethodException | SecurityException ex) {
+			throw new RuntimeException(ex);
+		}
 
 		class SenderInvocationHandler implements InvocationHandler {
 			private final Session session;
@@ -68,23 +97,99 @@ public class HandlerDispatcher {
 
 			@Override
 			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-				String request = encoderObjectMapper.writeValueAsString(args[0]);
-				session.getBasicRemote().sendText(request);
+				JsonMessage request = (JsonMessage) args[0];
+				AsyncSession asyncSession = AsyncSession.get(session);
+				if (asyncSession != null) {
+					asyncSession.send(request);
+				} else {
+					getCodec(session).send(request, session.getBasicRemote());
+				}
 				return null;
 			}
 		}
 
-		return (Session session) -> {
-			try {
-				return proxyClass.getConstructor(new Class<?>[] { InvocationHandler.class }).newInstance(
-						new SenderInvocationHandler(session));
-			} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-					| IllegalArgumentException | InvocationTargetException ex) {
-				throw new RuntimeException(ex);
+		class BroadcastInvocationHandler implements InvocationHandler {
+			private final Iterable<Session> sessions;
+			private final SlowConsumerPolicy policy;
+
+			public BroadcastInvocationHandler(Iterable<Session> sessions, SlowConsumerPolicy policy) {
+				this.sessions = sessions;
+				this.policy = policy;
+			}
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				JsonMessage message = (JsonMessage) args[0];
+				Map<MessageFormat, Object> frames = new EnumMap<>(MessageFormat.class);
+				Exception failure = null;
+				for (Session session : sessions) {
+					if (!session.isOpen()) {
+						continue;
+					}
+					MessageCodec codec = getCodec(session);
+					Object frame = frames.get(codec.getFormat());
+					if (frame == null) {
+						frame = codec.encodeToFrame(message);
+						frames.put(codec.getFormat(), frame);
+					}
+					try {
+						sendFrame(session, frame, message.getClass(), policy);
+					} catch (IOException | RuntimeException e) {
+						if (failure == null) {
+							failure = e;
+						} else {
+							failure.addSuppressed(e);
+						}
+					}
+				}
+				if (failure != null) {
+					throw failure;
+				}
+				return null;
+			}
+		}
+
+		return new BroadcastSenderProvider<T>() {
+			@Override
+			public T get(Session session) {
+				return newProxy(new SenderInvocationHandler(session));
+			}
+
+			@Override
+			public T broadcast(Iterable<Session> sessions, SlowConsumerPolicy policy) {
+				return newProxy(new BroadcastInvocationHandler(sessions, policy));
+			}
+
+			private T newProxy(InvocationHandler handler) {
+				try {
+					return klass.cast(proxyConstructor.newInstance(handler));
+				} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+						| InvocationTargetException ex) {
+					throw new RuntimeException(ex);
+				}
 			}
 		};
 	}
 
+	/**
+	 * Sends already encoded frame.
+	 */
+	private static void sendFrame(Session session, Object frame, Object key, SlowConsumerPolicy policy)
+			throws IOException {
+		if (frame instanceof ByteBuffer) {
+			// each session needs its own position
+			frame = ((ByteBuffer) frame).duplicate();
+		}
+		AsyncSession asyncSession = AsyncSession.get(session);
+		if (asyncSession != null) {
+			asyncSession.send(frame, key, policy);
+		} else if (frame instanceof ByteBuffer) {
+			session.getBasicRemote().sendBinary((ByteBuffer) frame);
+		} else {
+			session.getBasicRemote().sendText((String) frame);
+		}
+	}
+
 	private void registerOnMessageMethod(Method method, Provider<?> provider) {
 		Class<?>[] parameterTypes = method.getParameterTypes();
 		if (parameterTypes.length != 1) {
@@ -96,13 +201,15 @@ public class HandlerDispatcher {
 			throw new RuntimeException("Method marked with @" + OnMessage.class.getSimpleName() +
 					" must have exactly one argument whose super class is " + JsonMessage.class.getSimpleName());
 		}
-		decoderObjectMapper.registerSubtypes(parameterType);
 		Class<?> returnType = method.getReturnType();
-
-		if (returnType != Void.TYPE) {
-			encoderObjectMapper.registerSubtypes(returnType);
+		for (MessageCodec codec : codecs.values()) {
+			codec.registerDecodedType(parameterType);
+			if (returnType != Void.TYPE) {
+				codec.registerEncodedType(returnType);
+			}
 		}
 		onMessageMethods.add(new OnMessageMethodMetadata(parameterType, provider, method));
+		registrationChanged();
 	}
 
 	private void registerSenderMethod(Method method) {
@@ -116,38 +223,98 @@ public class HandlerDispatcher {
 			throw new RuntimeException("Sender method" +
 					" must have exactly one argument whose super class is " + JsonMessage.class.getSimpleName());
 		}
-		encoderObjectMapper.registerSubtypes(parameterType);
+		for (MessageCodec codec : codecs.values()) {
+			codec.registerEncodedType(parameterType);
+		}
 		Class<?> returnType = method.getReturnType();
 		if (returnType != Void.TYPE) {
 			throw new RuntimeException("Sender method must have " + Void.class.getSimpleName() + " return type");
 		}
+		registrationChanged();
+	}
+
+	/**
+	 * Invalidates cached lookups, so they take into account newly registered types.
+	 */
+	private void registrationChanged() {
+		onMessageMethodsByType.clear();
 	}
 
-	public String callOnMessage(String message) throws JsonProcessingException, IOException {
-		JsonMessage request = decoderObjectMapper.readValue(message, JsonMessage.class);
+	/**
+	 * Finds the handler for given message type.
+	 *
+	 * <p>
+	 * The first registered handler accepting given type is chosen. The result is remembered,
+	 * so subsequent lookups for the same type do not need to scan all handlers.
+	 * </p>
+	 */
+	private OnMessageMethodMetadata findOnMessageMethod(Class<?> messageType) {
+		OnMessageMethodMetadata result = onMessageMethodsByType.get(messageType);
+		if (result != null) {
+			return result;
+		}
 		for (OnMessageMethodMetadata metadata : onMessageMethods) {
-			if (metadata.getMessageType().isAssignableFrom(request.getClass())) {
-				JsonMessage response = metadata.call(request);
-				if (response == null) {
-					return null;
-				} else {
-					return encoderObjectMapper.writeValueAsString(response);
-				}
+			if (metadata.getMessageType().isAssignableFrom(messageType)) {
+				onMessageMethodsByType.putIfAbsent(messageType, metadata);
+				return metadata;
 			}
 		}
-		throw new RuntimeException("Unknown message type: " + request.getClass().getName());
+		throw new RuntimeException("Unknown message type: " + messageType.getName());
+	}
+
+	/**
+	 * Calls handlers for messages encoded in JSON format.
+	 * @param message single message or an array of messages
+	 * @return response to the single message, or an array with responses to all the messages,
+	 * or null if there are no responses
+	 */
+	public String callOnMessage(String message) throws IOException {
+		MessageCodec codec = getCodec(MessageFormat.JSON);
+		List<JsonMessage> responses = dispatch(codec.decode(message));
+		if (responses.isEmpty()) {
+			return null;
+		}
+		if (message.trim().startsWith("[")) {
+			return codec.encodeToString(responses);
+		}
+		return codec.encodeToString(responses.get(0));
+	}
+
+	/**
+	 * Calls handlers for given messages.
+	 * @param requests received messages
+	 * @return responses returned by the handlers, in the same order
+	 */
+	public List<JsonMessage> dispatch(List<JsonMessage> requests) {
+		List<JsonMessage> responses = new ArrayList<>(requests.size());
+		for (JsonMessage request : requests) {
+			JsonMessage response = dispatch(request);
+			if (response != null) {
+				responses.add(response);
+			}
+		}
+		return responses;
+	}
+
+	/**
+	 * Calls handler for given message.
+	 * @param request received message
+	 * @return response returned by the handler, or null
+	 */
+	public JsonMessage dispatch(JsonMessage request) {
+		return findOnMessageMethod(request.getClass()).call(request);
 	}
 
 	private static class OnMessageMethodMetadata {
 		private final Provider<?> provider;
 		private final Class<?> messageType;
-		private final Method method;
+		private final MethodInvoker invoker;
 
 		public OnMessageMethodMetadata(Class<?> messageType, Provider<?> provider, Method method) {
 			super();
 			this.provider = provider;
 			this.messageType = messageType;
-			this.method = method;
+			this.invoker = MethodInvoker.create(method);
 		}
 
 		public Class<?> getMessageType() {
@@ -157,8 +324,10 @@ public class HandlerDispatcher {
 		public JsonMessage call(JsonMessage message) {
 			try {
 				Object handler = provider.get();
-				return (JsonMessage) method.invoke(handler, message);
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+				return (JsonMessage) invoker.invoke(handler, message);
+			} catch (RuntimeException | Error ex) {
+				throw ex;
+			} catch (Throwable ex) {
 				throw new RuntimeException(ex);
 			}
 		}
@@ -19,6 +19,7 @@ package org.atteo.moonshine.websocket.jsonmessages;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 
 import javax.websocket.ClientEndpointConfig;
 import javax.websocket.ContainerProvider;
@@ -53,12 +54,20 @@ public class JsonMessages {
 		 * Message sender allows you to send messages through WebSocket. The approach here is similiar
 		 * to that of Spring Data. You provide an interface with sender methods. Each such method
 		 * should take exactly one argument whose type should implement {@link JsonMessage} interface
-		 * and be annotated with {@link JsonTypeName}. The returned object {@link SenderProvider} allows
+		 * and be annotated with {@link JsonTypeName}. The returned object {@link BroadcastSenderProvider} allows
 		 * you to retrieve implementation of the interface for given {@link Session}.
 		 * You can then call sender methods to send given message.
+		 * It also returns implementation which sends the messages to several sessions at once.
 		 * </p>
 		 */
-		<T> SenderProvider<T> addSender(Class<T> senderClass);
+		<T> BroadcastSenderProvider<T> addSender(Class<T> senderClass);
+		/**
+		 * Selects the format of the messages.
+		 * <p>
+		 * By default messages are sent as {@link MessageFormat#JSON JSON} in text frames.
+		 * </p>
+		 */
+		Factory format(MessageFormat format);
 		/**
 		 * Connect to the specified uri.
 		 * <p>
@@ -80,6 +89,8 @@ public class JsonMessages {
 	public static Factory factory() {
 		final HandlerDispatcher dispatcher = new HandlerDispatcher();
 		return new Factory() {
+			private MessageFormat format = MessageFormat.JSON;
+
 			@Override
 			public <T> Factory addHandler(T handler) {
 				dispatcher.addHandler(handler);
@@ -87,13 +98,21 @@ public class JsonMessages {
 			}
 
 			@Override
-			public <T> SenderProvider<T> addSender(Class<T> senderClass) {
+			public <T> BroadcastSenderProvider<T> addSender(Class<T> senderClass) {
 				return dispatcher.addSender(senderClass);
 			}
 
+			@Override
+			public Factory format(MessageFormat format) {
+				this.format = format;
+				return this;
+			}
+
 			@Override
 			public Session connect(URI uri) {
-				ClientEndpointConfig config = ClientEndpointConfig.Builder.create().build();
+				ClientEndpointConfig config = ClientEndpointConfig.Builder.create()
+						.preferredSubprotocols(Collections.singletonList(format.getSubprotocol()))
+						.build();
 
 				try {
 					return ContainerProvider.getWebSocketContainer().connectToServer(
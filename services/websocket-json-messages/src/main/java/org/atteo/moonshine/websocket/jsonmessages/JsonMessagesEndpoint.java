@@ -18,7 +18,12 @@ package org.atteo.moonshine.websocket.jsonmessages;
 
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Executor;
 
+import javax.websocket.CloseReason;
 import javax.websocket.Endpoint;
 import javax.websocket.EndpointConfig;
 import javax.websocket.MessageHandler;
@@ -26,23 +31,90 @@ import javax.websocket.Session;
 
 public class JsonMessagesEndpoint extends Endpoint {
 	private final HandlerDispatcher dispatcher;
+	private final AsyncOptions asyncOptions;
+	private final Executor executor;
 
 	public JsonMessagesEndpoint(HandlerDispatcher handlers) {
+		this(handlers, null, null);
+	}
+
+	/**
+	 * Creates endpoint which handles messages asynchronously.
+	 * @param handlers dispatcher of the messages
+	 * @param asyncOptions asynchronous handling options, if null messages are handled synchronously
+	 * @param executor executor on which message handlers are run
+	 * @see AsyncSession
+	 */
+	public JsonMessagesEndpoint(HandlerDispatcher handlers, AsyncOptions asyncOptions, Executor executor) {
 		this.dispatcher = handlers;
+		this.asyncOptions = asyncOptions;
+		this.executor = executor;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Text frames are decoded as {@link MessageFormat#JSON JSON} and binary frames as
+	 * {@link MessageFormat#SMILE Smile}. Replies are encoded using the format negotiated for the session.
+	 * </p>
+	 */
 	@Override
 	public void onOpen(final Session session, EndpointConfig config) {
-		session.addMessageHandler(new MessageHandler.Whole<String>() {
+		if (asyncOptions != null) {
+			final AsyncSession asyncSession = new AsyncSession(session, dispatcher, asyncOptions, executor);
+			asyncSession.attach();
+			session.addMessageHandler(new MessageHandler.Whole<String>() {
+				@Override
+				public void onMessage(String message) {
+					asyncSession.receive(message);
+				}
+			});
+			session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
+				@Override
+				public void onMessage(ByteBuffer message) {
+					asyncSession.receive(message);
+				}
+			});
+			return;
+		}
+
+		final MessageCodec textCodec = dispatcher.getCodec(MessageFormat.JSON);
+		final MessageCodec binaryCodec = dispatcher.getCodec(MessageFormat.SMILE);
+		final MessageCodec replyCodec = dispatcher.getCodec(session);
+		session.addMessageHandler(new MessageHandler.Whole<Reader>() {
 			@Override
-			public void onMessage(String message) {
+			public void onMessage(Reader message) {
 				try {
-					String result = dispatcher.callOnMessage(message);
-					session.getBasicRemote().sendText(result);
+					reply(session, replyCodec, textCodec.decode(message));
 				} catch (IOException ex) {
 					throw new RuntimeException(ex);
 				}
 			}
 		});
+		session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
+			@Override
+			public void onMessage(ByteBuffer message) {
+				try {
+					reply(session, replyCodec, binaryCodec.decode(message));
+				} catch (IOException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		});
+	}
+
+	private void reply(Session session, MessageCodec codec, List<JsonMessage> requests) throws IOException {
+		for (JsonMessage response : dispatcher.dispatch(requests)) {
+			codec.send(response, session.getBasicRemote());
+		}
+	}
+
+	@Override
+	public void onClose(Session session, CloseReason closeReason) {
+		AsyncSession asyncSession = AsyncSession.get(session);
+		if (asyncSession != null) {
+			asyncSession.close();
+		}
 	}
 }
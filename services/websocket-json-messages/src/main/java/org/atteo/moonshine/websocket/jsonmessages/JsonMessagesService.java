@@ -16,6 +16,9 @@
 
 package org.atteo.moonshine.websocket.jsonmessages;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import javax.inject.Provider;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlIDREF;
@@ -25,11 +28,16 @@ import org.atteo.moonshine.TopLevelService;
 import org.atteo.moonshine.services.ImportService;
 import org.atteo.moonshine.websocket.WebSocketContainerService;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Module;
 import com.google.inject.PrivateModule;
 
 /**
  * JSON WebSocket messages dispatcher.
+ *
+ * <p>
+ * Clients select the {@link MessageFormat format} of the messages by requesting WebSocket subprotocol.
+ * </p>
  */
 @XmlRootElement(name = "json-messages")
 public class JsonMessagesService extends TopLevelService {
@@ -41,27 +49,63 @@ public class JsonMessagesService extends TopLevelService {
 	@XmlElement
 	private String pattern = "/json-messages";
 
+	/**
+	 * Handle messages asynchronously.
+	 *
+	 * <p>
+	 * When not specified, each message is handled on the thread which received it
+	 * and the reply is sent before the next message is read.
+	 * </p>
+	 */
+	@XmlElement
+	private AsyncOptions async;
+
 	private final HandlerDispatcher dispatcher = new HandlerDispatcher();
 
+	private ExecutorService executor;
+
 	public <T> void addHandler(Class<T> klass, Provider<? extends T> handler) {
 		dispatcher.addHandler(klass, handler);
 	}
 
-	public <T> SenderProvider<T> addSender(Class<T> klass) {
+	public <T> BroadcastSenderProvider<T> addSender(Class<T> klass) {
 		return dispatcher.addSender(klass);
 	}
 
 	@Override
 	public Module configure() {
+		final JsonMessagesEndpoint endpoint;
+		if (async != null) {
+			executor = Executors.newFixedThreadPool(async.getThreads(), new ThreadFactoryBuilder()
+					.setNameFormat("json-messages-%d")
+					.setDaemon(true)
+					.build());
+			endpoint = new JsonMessagesEndpoint(dispatcher, async, executor);
+		} else {
+			endpoint = new JsonMessagesEndpoint(dispatcher);
+		}
+
 		return new PrivateModule() {
 			@Override
 			protected void configure() {
-				bind(JsonMessagesEndpoint.class).toInstance(new JsonMessagesEndpoint(dispatcher));
+				bind(JsonMessagesEndpoint.class).toInstance(endpoint);
 
-				webSocketContainer.addEndpoint(JsonMessagesEndpoint.class)
+				WebSocketContainerService.EndpointBuilder<JsonMessagesEndpoint> builder = webSocketContainer
+						.addEndpoint(JsonMessagesEndpoint.class)
 						.provider(getProvider(JsonMessagesEndpoint.class))
 						.pattern(pattern);
+				for (MessageFormat format : MessageFormat.values()) {
+					builder.addSubprotocol(format.getSubprotocol());
+				}
 			}
 		};
 	}
+
+	@Override
+	public void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
 }
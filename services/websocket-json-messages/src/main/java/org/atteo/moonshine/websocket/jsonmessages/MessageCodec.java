@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.websocket.RemoteEndpoint;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Encodes and decodes messages in given {@link MessageFormat format}.
+ *
+ * <p>
+ * Messages are decoded by streaming directly from the received frame, without building an intermediate
+ * String or tree. Frame can contain a single message or an array of messages.
+ * </p>
+ */
+public class MessageCodec {
+	private final MessageFormat format;
+	private final JsonFactory factory;
+	private final ObjectMapper encoderObjectMapper;
+	private final ObjectMapper decoderObjectMapper;
+	private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+	private volatile ObjectReader reader;
+
+	MessageCodec(MessageFormat format) {
+		this.format = format;
+		this.factory = format.createFactory();
+		this.encoderObjectMapper = new ObjectMapper(format.createFactory());
+		this.decoderObjectMapper = new ObjectMapper(format.createFactory());
+	}
+
+	public MessageFormat getFormat() {
+		return format;
+	}
+
+	void registerDecodedType(Class<?> type) {
+		decoderObjectMapper.registerSubtypes(type);
+		reader = null;
+	}
+
+	void registerEncodedType(Class<?> type) {
+		encoderObjectMapper.registerSubtypes(type);
+		writers.clear();
+	}
+
+	private ObjectReader getReader() {
+		ObjectReader result = reader;
+		if (result == null) {
+			result = decoderObjectMapper.reader(JsonMessage.class);
+			reader = result;
+		}
+		return result;
+	}
+
+	private ObjectWriter getWriter(Class<?> type) {
+		ObjectWriter writer = writers.get(type);
+		if (writer == null) {
+			writer = encoderObjectMapper.writerWithType(type);
+			writers.putIfAbsent(type, writer);
+		}
+		return writer;
+	}
+
+	public List<JsonMessage> decode(String frame) throws IOException {
+		return decode(factory.createParser(frame));
+	}
+
+	public List<JsonMessage> decode(Reader frame) throws IOException {
+		return decode(factory.createParser(frame));
+	}
+
+	public List<JsonMessage> decode(byte[] frame) throws IOException {
+		return decode(factory.createParser(frame));
+	}
+
+	public List<JsonMessage> decode(ByteBuffer frame) throws IOException {
+		if (frame.hasArray()) {
+			return decode(factory.createParser(frame.array(), frame.arrayOffset() + frame.position(),
+					frame.remaining()));
+		}
+		byte[] bytes = new byte[frame.remaining()];
+		frame.get(bytes);
+		return decode(bytes);
+	}
+
+	private List<JsonMessage> decode(JsonParser parser) throws IOException {
+		ObjectReader messageReader = getReader();
+		List<JsonMessage> messages = new ArrayList<>(1);
+		try {
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_ARRAY) {
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					messages.add(messageReader.<JsonMessage>readValue(parser));
+				}
+			} else if (token != null) {
+				messages.add(messageReader.<JsonMessage>readValue(parser));
+			}
+		} finally {
+			parser.close();
+		}
+		return messages;
+	}
+
+	/**
+	 * Encodes message to a String.
+	 * <p>
+	 * Can only be used with text formats.
+	 * </p>
+	 */
+	public String encodeToString(JsonMessage message) throws IOException {
+		return getWriter(message.getClass()).writeValueAsString(message);
+	}
+
+	/**
+	 * Encodes messages to a String containing an array of messages.
+	 * <p>
+	 * Can only be used with text formats.
+	 * </p>
+	 */
+	public String encodeToString(List<JsonMessage> messages) throws IOException {
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator generator = factory.createGenerator(writer)) {
+			generator.writeStartArray();
+			for (JsonMessage message : messages) {
+				getWriter(message.getClass()).writeValue(generator, message);
+			}
+			generator.writeEndArray();
+		}
+		return writer.toString();
+	}
+
+	public byte[] encodeToBytes(JsonMessage message) throws IOException {
+		return getWriter(message.getClass()).writeValueAsBytes(message);
+	}
+
+	/**
+	 * Encodes message to a frame ready to be sent.
+	 * @return String for text formats, {@link ByteBuffer} for binary ones
+	 */
+	public Object encodeToFrame(JsonMessage message) throws IOException {
+		if (format.isBinary()) {
+			return ByteBuffer.wrap(encodeToBytes(message));
+		} else {
+			return encodeToString(message);
+		}
+	}
+
+	/**
+	 * Encodes message directly into the frame sent by given remote endpoint.
+	 */
+	public void send(JsonMessage message, RemoteEndpoint.Basic remote) throws IOException {
+		ObjectWriter writer = getWriter(message.getClass());
+		if (format.isBinary()) {
+			writer.writeValue(remote.getSendStream(), message);
+		} else {
+			writer.writeValue(remote.getSendWriter(), message);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Wire format of the messages.
+ *
+ * <p>
+ * The format is negotiated per session using WebSocket subprotocol. Clients which do not request
+ * any subprotocol, like most browsers, use {@link #JSON}.
+ * </p>
+ */
+public enum MessageFormat {
+	/**
+	 * JSON sent in text frames.
+	 */
+	JSON("json", false) {
+		@Override
+		JsonFactory createFactory() {
+			return new JsonFactory();
+		}
+	},
+	/**
+	 * Binary <a href="http://wiki.fasterxml.com/SmileFormat">Smile</a> encoding of JSON sent in binary frames.
+	 */
+	SMILE("smile", true) {
+		@Override
+		JsonFactory createFactory() {
+			return new SmileFactory();
+		}
+	};
+
+	private final String subprotocol;
+	private final boolean binary;
+
+	private MessageFormat(String subprotocol, boolean binary) {
+		this.subprotocol = subprotocol;
+		this.binary = binary;
+	}
+
+	/**
+	 * Returns the name of WebSocket subprotocol which selects this format.
+	 */
+	public String getSubprotocol() {
+		return subprotocol;
+	}
+
+	/**
+	 * Checks whether messages in this format are sent in binary frames.
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+
+	abstract JsonFactory createFactory();
+
+	/**
+	 * Returns the format selected by given subprotocol.
+	 * @param subprotocol negotiated subprotocol, can be null or empty
+	 * @return selected format, {@link #JSON} if subprotocol is not recognized
+	 */
+	public static MessageFormat forSubprotocol(String subprotocol) {
+		for (MessageFormat format : values()) {
+			if (format.subprotocol.equals(subprotocol)) {
+				return format;
+			}
+		}
+		return JSON;
+	}
+}
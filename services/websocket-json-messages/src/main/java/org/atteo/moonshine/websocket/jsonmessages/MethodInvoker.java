@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Calls single argument method without the overhead of reflection.
+ *
+ * <p>
+ * When the method's class is public and visible from this class loader the invoker is generated
+ * using {@link LambdaMetafactory}, so JIT can inline the call just as a direct one. Otherwise
+ * {@link MethodHandle} is used.
+ * </p>
+ */
+abstract class MethodInvoker {
+	/**
+	 * Calls the method.
+	 * @param target object to call the method on
+	 * @param argument method argument
+	 * @return value returned by the method or null, if method returns void
+	 */
+	public abstract Object invoke(Object target, Object argument) throws Throwable;
+
+	public static MethodInvoker create(Method method) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		if (isAccessible(method)) {
+			try {
+				return createLambdaInvoker(lookup, method);
+			} catch (IllegalAccessException | LambdaConversionException e) {
+				// fallback to method handle
+			} catch (Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		method.setAccessible(true);
+		final MethodHandle handle;
+		try {
+			handle = lookup.unreflect(method).asType(
+					MethodType.methodType(Object.class, Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+		return new MethodInvoker() {
+			@Override
+			public Object invoke(Object target, Object argument) throws Throwable {
+				return (Object) handle.invokeExact(target, argument);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MethodInvoker createLambdaInvoker(MethodHandles.Lookup lookup, Method method) throws Throwable {
+		MethodHandle handle = lookup.unreflect(method);
+		Class<?> returnType = method.getReturnType();
+		Class<?> targetType = method.getDeclaringClass();
+		Class<?> argumentType = method.getParameterTypes()[0];
+
+		if (returnType == Void.TYPE) {
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+					MethodType.methodType(BiConsumer.class),
+					MethodType.methodType(void.class, Object.class, Object.class),
+					handle,
+					MethodType.methodType(void.class, targetType, argumentType));
+			final BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) site.getTarget().invoke();
+			return new MethodInvoker() {
+				@Override
+				public Object invoke(Object target, Object argument) {
+					consumer.accept(target, argument);
+					return null;
+				}
+			};
+		} else {
+			CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+					MethodType.methodType(BiFunction.class),
+					MethodType.methodType(Object.class, Object.class, Object.class),
+					handle,
+					MethodType.methodType(MethodType.methodType(returnType).wrap().returnType(), targetType,
+							argumentType));
+			final BiFunction<Object, Object, Object> function
+					= (BiFunction<Object, Object, Object>) site.getTarget().invoke();
+			return new MethodInvoker() {
+				@Override
+				public Object invoke(Object target, Object argument) {
+					return function.apply(target, argument);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Checks whether the class generated by {@link LambdaMetafactory} will be able to call given method.
+	 */
+	private static boolean isAccessible(Method method) {
+		if (!Modifier.isPublic(method.getModifiers())) {
+			return false;
+		}
+		return isAccessible(method.getDeclaringClass()) && isAccessible(method.getParameterTypes()[0])
+				&& isAccessible(method.getReturnType());
+	}
+
+	private static boolean isAccessible(Class<?> klass) {
+		if (klass.isPrimitive()) {
+			return true;
+		}
+		for (Class<?> c = klass; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		try {
+			return Class.forName(klass.getName(), false, MethodInvoker.class.getClassLoader()) == klass;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+/**
+ * What to do with the message when the session cannot keep up with sending.
+ *
+ * <p>
+ * Policies apply only to the sessions whose messages are handled {@link AsyncOptions asynchronously}.
+ * The message is only queued for them, so the sender never waits for a slow session. Other sessions always
+ * send the message before returning.
+ * </p>
+ */
+public enum SlowConsumerPolicy {
+	/**
+	 * Queue the message like any other reply. When the outbound queue is full the session is closed.
+	 */
+	CLOSE,
+	/**
+	 * Drop the message when the outbound queue is full.
+	 */
+	DROP,
+	/**
+	 * Keep only the most recent not yet sent message of each type.
+	 */
+	COALESCE
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TransferQueue;
+
+import javax.inject.Inject;
+import javax.websocket.DeploymentException;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.atteo.moonshine.tests.MoonshineConfiguration;
+import org.atteo.moonshine.tests.MoonshineTest;
+import org.atteo.moonshine.webserver.WebServerAddress;
+import org.junit.Test;
+
+@MoonshineConfiguration(fromString = ""
+		+ "<config>"
+		+ "    <servlet-container/>"
+		+ "    <jetty>"
+		+ "        <connectors>"
+		+ "            <serverconnector>"
+		+ "                <provideAddress>true</provideAddress>"
+		+ "            </serverconnector>"
+		+ "        </connectors>"
+		+ "    </jetty>"
+		+ "    <jetty-websocket-container/>"
+		+ "    <json-messages>"
+		+ "        <async>"
+		+ "            <threads>2</threads>"
+		+ "            <batchSize>4</batchSize>"
+		+ "        </async>"
+		+ "    </json-messages>"
+		+ "    <test-handlers/>"
+		+ "</config>")
+public class AsyncJsonMessagesServiceTest extends MoonshineTest {
+	@Inject
+	private WebServerAddress webServerAddress;
+
+	interface Sender {
+		void sendRequest(RequestMessage message);
+	}
+
+	@Test
+	public void shouldReplyToEveryMessage() throws URISyntaxException, DeploymentException, IOException,
+			InterruptedException {
+		// given
+		final TransferQueue<String> queue = new LinkedTransferQueue<>();
+		class Handler {
+			@OnMessage
+			public void onMessage(ResponseMessage response) {
+				queue.add(response.getMessage());
+			}
+		}
+		JsonMessages.Factory factory = JsonMessages.factory();
+		factory.addHandler(new Handler());
+		SenderProvider<Sender> senderProvider = factory.addSender(Sender.class);
+		Session session = factory.connect(webServerAddress);
+		Sender sender = senderProvider.get(session);
+
+		// when
+		Set<String> expected = new HashSet<>();
+		for (int i = 0; i < 20; i++) {
+			sender.sendRequest(new RequestMessage("message " + i));
+			expected.add("message " + i);
+		}
+		Set<String> received = new HashSet<>();
+		for (int i = 0; i < 20; i++) {
+			received.add(queue.take());
+		}
+
+		// then
+		assertThat(received).isEqualTo(expected);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.Session;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.Test;
+
+public class AsyncSessionTest {
+	private static final int QUEUE_SIZE = new AsyncOptions().getQueueSize();
+
+	@Test
+	public void shouldCloseSlowSessionWithoutBlocking() throws IOException {
+		// given
+		RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+		Session session = mock(Session.class);
+		when(session.getAsyncRemote()).thenReturn(remote);
+		when(session.getUserProperties()).thenReturn(new HashMap<>());
+		Executor executor = Runnable::run;
+		AsyncSession asyncSession = new AsyncSession(session, new HandlerDispatcher(), new AsyncOptions(), executor);
+
+		// when
+		// the first frame is being sent, which never completes, the following ones fill the queue
+		for (int i = 0; i < QUEUE_SIZE + 1; i++) {
+			asyncSession.send("{}", "key", SlowConsumerPolicy.CLOSE);
+		}
+
+		// then
+		verify(session, never()).close(any(CloseReason.class));
+
+		// when
+		asyncSession.send("{}", "key", SlowConsumerPolicy.CLOSE);
+
+		// then
+		verify(remote, times(1)).sendText(any(String.class), any(SendHandler.class));
+		verify(session).close(any(CloseReason.class));
+	}
+
+	@Test(timeout = 10000)
+	public void shouldNotBlockReceivingAfterClose() {
+		// given
+		Session session = mock(Session.class);
+		when(session.getAsyncRemote()).thenReturn(mock(RemoteEndpoint.Async.class));
+		when(session.getUserProperties()).thenReturn(new HashMap<>());
+		// handling never runs, so the received frames keep their permits
+		Executor executor = command -> {};
+		AsyncSession asyncSession = new AsyncSession(session, new HandlerDispatcher(), new AsyncOptions(), executor);
+		for (int i = 0; i < QUEUE_SIZE; i++) {
+			asyncSession.receive("{}");
+		}
+
+		// when
+		asyncSession.close();
+
+		// then
+		for (int i = 0; i < 2 * QUEUE_SIZE; i++) {
+			asyncSession.receive("{}");
+		}
+	}
+}
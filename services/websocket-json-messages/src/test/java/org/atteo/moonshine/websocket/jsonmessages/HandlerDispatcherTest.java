@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Atteo.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.atteo.moonshine.websocket.jsonmessages;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class HandlerDispatcherTest {
+	@Test
+	public void shouldRespondToSingleMessage() throws IOException {
+		// given
+		HandlerDispatcher dispatcher = new HandlerDispatcher();
+		dispatcher.addHandler(new RequestHandler());
+
+		// when
+		String response = dispatcher.callOnMessage("{\"request\":{\"message\":\"a\"}}");
+
+		// then
+		assertThat(response).isEqualTo("{\"response\":{\"message\":\"a\"}}");
+	}
+
+	@Test
+	public void shouldRespondToEveryMessageInArray() throws IOException {
+		// given
+		HandlerDispatcher dispatcher = new HandlerDispatcher();
+		dispatcher.addHandler(new RequestHandler());
+
+		// when
+		String response = dispatcher.callOnMessage("[{\"request\":{\"message\":\"a\"}},{\"ping\":{}}]");
+
+		// then
+		assertThat(response).isEqualTo("[{\"response\":{\"message\":\"a\"}},{\"pong\":{}}]");
+	}
+}
@@ -19,6 +19,8 @@ package org.atteo.moonshine.websocket.jsonmessages;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TransferQueue;
 
@@ -86,6 +88,71 @@ public class JsonMessagesServiceTest extends MoonshineTest {
 		assertThat(response).isEqualTo("Hello World");
 	}
 
+	@Test
+	public void shouldTransferMessageInSmileFormat() throws URISyntaxException, DeploymentException, IOException,
+			InterruptedException {
+		final TransferQueue<String> queue = new LinkedTransferQueue<>();
+		class Handler {
+			@OnMessage
+			public void onMessage(ResponseMessage response) {
+				try {
+					queue.transfer(response.getMessage());
+				} catch (InterruptedException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		}
+		JsonMessages.Factory factory = JsonMessages.factory();
+		factory.addHandler(new Handler());
+		factory.format(MessageFormat.SMILE);
+		SenderProvider<Sender> senderProvider = factory.addSender(Sender.class);
+
+		Session session = factory.connect(webServerAddress);
+		assertThat(session.getNegotiatedSubprotocol()).isEqualTo(MessageFormat.SMILE.getSubprotocol());
+
+		Sender sender = senderProvider.get(session);
+		sender.sendRequest(new RequestMessage("Hello World"));
+
+		// when
+		String response = queue.take();
+
+		// then
+		assertThat(response).isEqualTo("Hello World");
+	}
+
+	@Test
+	public void shouldBroadcastMessage() throws URISyntaxException, DeploymentException, IOException,
+			InterruptedException {
+		final TransferQueue<String> queue = new LinkedTransferQueue<>();
+		class Handler {
+			@OnMessage
+			public void onMessage(ResponseMessage response) {
+				try {
+					queue.transfer(response.getMessage());
+				} catch (InterruptedException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		}
+		JsonMessages.Factory factory = JsonMessages.factory();
+		factory.addHandler(new Handler());
+		BroadcastSenderProvider<Sender> senderProvider = factory.addSender(Sender.class);
+
+		List<Session> sessions = Arrays.asList(factory.connect(webServerAddress),
+				factory.connect(webServerAddress));
+
+		Sender sender = senderProvider.broadcast(sessions, SlowConsumerPolicy.DROP);
+		sender.sendRequest(new RequestMessage("Hello World"));
+
+		// when
+		String first = queue.take();
+		String second = queue.take();
+
+		// then
+		assertThat(first).isEqualTo("Hello World");
+		assertThat(second).isEqualTo("Hello World");
+	}
+
 	@Test
 	public void shouldRespondToPing() throws URISyntaxException, DeploymentException, IOException,
 			InterruptedException {
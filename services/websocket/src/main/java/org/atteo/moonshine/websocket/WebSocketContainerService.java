@@ -107,6 +107,14 @@ public abstract class WebSocketContainerService extends TopLevelService {
 		EndpointBuilder<T> addEncoder(Class<? extends Encoder> encoder);
 		EndpointBuilder<T> addDecoder(Class<? extends Decoder> encoder);
 		EndpointBuilder<T> addUserProperty(String key, Object value);
+		/**
+		 * Adds supported subprotocol.
+		 * <p>
+		 * Subprotocols are listed in the order of preference. The one requested by the client
+		 * is selected during the handshake.
+		 * </p>
+		 */
+		EndpointBuilder<T> addSubprotocol(String subprotocol);
 	}
 
 	private class Listener implements ServletContextListener {
@@ -134,6 +142,7 @@ public abstract class WebSocketContainerService extends TopLevelService {
 		private String pattern;
 		private final List<Class<? extends Encoder>> encoders = new ArrayList<>();
 		private final List<Class<? extends Decoder>> decoders = new ArrayList<>();
+		private final List<String> subprotocols = new ArrayList<>();
 		protected final Map<String, Object> userProperties = new HashMap<>();
 
 		public EndpointDefinition(Class<T> endpointClass) {
@@ -170,6 +179,12 @@ public abstract class WebSocketContainerService extends TopLevelService {
 			return this;
 		}
 
+		@Override
+		public EndpointBuilder<T> addSubprotocol(String subprotocol) {
+			subprotocols.add(subprotocol);
+			return this;
+		}
+
 		@Override
 		public Class<T> getEndpointClass() {
 			return endpointClass;
@@ -182,7 +197,7 @@ public abstract class WebSocketContainerService extends TopLevelService {
 
 		@Override
 		public List<String> getSubprotocols() {
-			return Collections.emptyList();
+			return subprotocols;
 		}
 
 		@Override